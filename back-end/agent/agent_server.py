@@ -1,11 +1,14 @@
 # agent_server.py
 from fastapi import FastAPI
+from fastapi.responses import StreamingResponse
+from google.adk.agents.run_config import RunConfig, StreamingMode
 from google.adk.agents import Agent
 from google.adk.a2a.utils.agent_to_a2a import to_a2a
 from google.adk.tools import google_search, AgentTool, ToolContext
 from google.adk.sessions import InMemorySessionService
 from google.adk.sessions import Runner
 from google.adk import types
+import json
 import uuid
 
 APP_NAME = "adk_fastapi_server"
@@ -60,6 +63,54 @@ async def generate(request: dict):
 
     # 5. Return the result
     return {"text": final_text, "sources": []}
+
+
+def sse(event: str, data: dict) -> str:
+    return f"event: {event}\ndata: {json.dumps(data)}\n\n"
+
+
+@app.post("/generate/stream")
+async def generate_stream(request: dict):
+    """
+    Same as /generate, but sends the answer as server-sent events while it is
+    generated: `token` events with the next piece of text, then one `done`
+    event with the full text. If the client disconnects the generator is
+    cancelled, which stops the run.
+    """
+    prompt = request.get("prompt")
+
+    async def events():
+        if not prompt:
+            yield sse("done", {"text": "No prompt provided.", "sources": []})
+            return
+
+        session_id = f"stream_{uuid.uuid4().hex[:8]}"
+        await session_service.create_session(
+            app_name=APP_NAME, user_id=USER_ID, session_id=session_id
+        )
+        user_content = types.Content(parts=[types.Part(text=prompt)])
+        final_text = ""
+        try:
+            async for event in runner.run_async(
+                    user_id=USER_ID, session_id=session_id, new_message=user_content,
+                    run_config=RunConfig(streaming_mode=StreamingMode.SSE),
+            ):
+                if not event.content:
+                    continue
+                text = "".join(part.text for part in event.content.parts if getattr(part, "text", None))
+                if event.partial:
+                    if text:
+                        yield sse("token", {"text": text})
+                elif event.is_final_response():
+                    final_text += text
+            yield sse("done", {"text": final_text, "sources": []})
+        finally:
+            await session_service.delete_session(session_id=session_id, user_id=USER_ID, app_name=APP_NAME)
+
+    return StreamingResponse(events(), media_type="text/event-stream",
+                             headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"})
+
+
 @app.get("/health")
 async def health():
     return {"status": "ok"}
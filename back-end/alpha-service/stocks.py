@@ -55,3 +55,47 @@ def fetch_alpha_vantage(ticker: str):
 @router.get("/stocks/{ticker}")
 def get_stock(ticker: str):
     return fetch_alpha_vantage(ticker)
+
+
+_history_cache = {}
+HISTORY_CACHE_DURATION = 6 * 60 * 60
+
+
+def fetch_daily_history(ticker: str):
+    cached = _history_cache.get(ticker)
+    if cached and time.time() - cached['timestamp'] < HISTORY_CACHE_DURATION:
+        return cached['value']
+
+    url = "https://www.alphavantage.co/query"
+    params = {
+        "function": "TIME_SERIES_DAILY",
+        "symbol": ticker,
+        "outputsize": "full",
+        "apikey": ALPHA_KEY
+    }
+    r = requests.get(url, params=params)
+    if r.status_code != 200:
+        raise HTTPException(status_code=502, detail="Alpha Vantage API error")
+
+    series = r.json().get("Time Series (Daily)")
+    if not series:
+        raise HTTPException(status_code=404, detail="Ticker not found or API limit reached")
+
+    # columnar and oldest first, which is how the portfolio-service consumes it
+    dates = sorted(series.keys())
+    result = {
+        "symbol": ticker.upper(),
+        "dates": dates,
+        "opens": [float(series[d]["1. open"]) for d in dates],
+        "highs": [float(series[d]["2. high"]) for d in dates],
+        "lows": [float(series[d]["3. low"]) for d in dates],
+        "closes": [float(series[d]["4. close"]) for d in dates],
+        "volumes": [int(series[d]["5. volume"]) for d in dates]
+    }
+    _history_cache[ticker] = {'value': result, 'timestamp': time.time()}
+    return result
+
+
+@router.get("/stocks/{ticker}/history")
+def get_stock_history(ticker: str):
+    return fetch_daily_history(ticker)
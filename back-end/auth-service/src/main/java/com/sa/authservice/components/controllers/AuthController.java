@@ -3,6 +3,7 @@ package com.sa.authservice.components.controllers;
 import com.sa.authservice.components.entities.User;
 import com.sa.authservice.config.JwtProperties;
 import com.sa.authservice.util.JwtUtil;
+import com.sa.identity.TrustedIdentity;
 import com.sa.authservice.components.entities.UserRepository;
 import java.util.Map;
 import java.util.Optional;
@@ -42,7 +43,8 @@ public class AuthController {
             );
 
             String email = loginRequest.getEmail().toLowerCase();
-            String accessToken = jwtUtil.generateAccessToken(email);
+            User user = userRepository.findByEmail(email).orElseThrow();
+            String accessToken = jwtUtil.generateAccessToken(email, user.getId());
             String refreshToken = jwtUtil.generateRefreshToken(email);
 
             ResponseCookie refreshCookie = ResponseCookie.from("refreshToken", refreshToken)
@@ -128,7 +130,7 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
         }
 
-        String newAccessToken = jwtUtil.generateAccessToken(email);
+        String newAccessToken = jwtUtil.generateAccessToken(email, userOptional.get().getId());
 
         return ResponseEntity.ok()
                 .body(Map.of("message", "Access token refreshed", "accessToken", newAccessToken));
@@ -136,10 +138,16 @@ public class AuthController {
 
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(
+            @RequestAttribute(value = TrustedIdentity.ATTRIBUTE, required = false) TrustedIdentity identity,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
             @RequestHeader(value = "X-Forwarded-Authorization", required = false) String forwardedAuthHeader,
             @RequestHeader(value = "X-User-Email", required = false) String forwardedEmail) {
 
+        // the gateway's signed identity already carries everything this endpoint returns
+        if (identity != null) {
+            return ResponseEntity.ok(Map.of("email", identity.email(), "id", identity.userId()));
+        }
+
         String usedHeader = (authHeader != null) ? authHeader : forwardedAuthHeader;
 
         if (usedHeader == null) {
@@ -0,0 +1,19 @@
+package com.sa.authservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secret shared with the gateway for the signed identity headers. Without
+ * one, identity headers are ignored and requests are authenticated from
+ * the bearer token.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "identity")
+public class IdentityProperties {
+    private String secret;
+}
@@ -1,6 +1,8 @@
 package com.sa.authservice.config;
 
 import com.sa.authservice.util.JwtUtil;
+import com.sa.identity.IdentitySignature;
+import com.sa.identity.TrustedIdentity;
 import jakarta.servlet.*;
 import jakarta.servlet.GenericFilter;
 import jakarta.servlet.ServletException;
@@ -13,6 +15,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtRequestFilter extends GenericFilter {
@@ -20,6 +23,9 @@ public class JwtRequestFilter extends GenericFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private IdentitySignature identitySignature;
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
@@ -27,7 +33,16 @@ public class JwtRequestFilter extends GenericFilter {
         final HttpServletRequest httpRequest = (HttpServletRequest) request;
         final String authHeader = httpRequest.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+        // behind the gateway the token was already verified; trust its signed identity
+        Optional<TrustedIdentity> identity = identitySignature.verify(httpRequest::getHeader);
+        if (identity.isPresent()) {
+            httpRequest.setAttribute(TrustedIdentity.ATTRIBUTE, identity.get());
+
+            var authentication = new UsernamePasswordAuthenticationToken(identity.get().email(), null, null);
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpRequest));
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } else if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
             if (jwtUtil.validateToken(token)) {
@@ -8,6 +8,7 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 
 import java.util.Date;
+import java.util.UUID;
 
 
 
@@ -15,11 +16,15 @@ import java.util.Date;
 @RequiredArgsConstructor
 public class JwtUtil {
 
+    /** Claim holding the user's id, so callers don't need a lookup by email. */
+    public static final String USER_ID_CLAIM = "uid";
+
     private final JwtProperties jwtProperties;
 
-    public String generateAccessToken(String email) {
+    public String generateAccessToken(String email, UUID userId) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim(USER_ID_CLAIM, userId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration()*1000))
                 .signWith(Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes()), SignatureAlgorithm.HS256)
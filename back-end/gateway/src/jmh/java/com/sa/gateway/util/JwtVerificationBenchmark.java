@@ -0,0 +1,85 @@
+package com.sa.gateway.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling cost per authenticated request through the gateway.
+ * <p>
+ * {@code perRequestParsing} reproduces the previous flow: the security
+ * converter and the header filter each validated and then extracted the
+ * subject, building a new parser every time (four parses, four HMAC
+ * checks). {@code verifyOnce} is a cache miss: one parse with the shared
+ * parser. {@code verifyCached} is the steady state where the token was
+ * seen before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private String token;
+    private JwtParser parser;
+    private JwtUtil cached;
+
+    @Setup
+    public void setUp() {
+        token = Jwts.builder()
+                .setSubject("user@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        parser = Jwts.parserBuilder().setSigningKey(SECRET.getBytes()).build();
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        cached = new JwtUtil(properties);
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public String perRequestParsing() {
+        String email = null;
+        for (int filter = 0; filter < 2; filter++) {
+            if (legacyValidate(token)) {
+                email = legacyExtractEmail(token);
+            }
+        }
+        return email;
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verifyCached() {
+        return cached.verify(token).orElseThrow().getSubject();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            Jwts.parserBuilder().setSigningKey(SECRET.getBytes()).build().parseClaimsJws(token);
+            return true;
+        } catch (JwtException e) {
+            return false;
+        }
+    }
+
+    private static String legacyExtractEmail(String token) {
+        return Jwts.parserBuilder().setSigningKey(SECRET.getBytes()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+}
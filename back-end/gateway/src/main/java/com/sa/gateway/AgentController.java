@@ -1,13 +1,19 @@
 package com.sa.gateway;
 
 import com.sa.gateway.util.AgentClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sa.gateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import com.sa.gateway.util.AgentClient;
 
 /**
  * Controller to handle external requests for AI/Agent functionality.
@@ -32,7 +38,31 @@ public class AgentController {
      * @return A Mono that gives the structured response from the AI.
      */
     @PostMapping("/query")
-    public Mono<AgentClient.AgentResponse> getAiResponse(@RequestBody AiQueryRequest request) {
-        return agentClient.generateResponseFromAgent(request.prompt());
+    public Mono<AgentClient.AgentResponse> getAiResponse(@RequestBody AiQueryRequest request,
+                                                         ServerWebExchange exchange) {
+        return agentClient.generateResponseFromAgent(request.prompt(), userContext(exchange));
+    }
+
+    /**
+     * Streams the answer as server-sent events while the agent generates it.
+     * @param request The user's prompt.
+     * @return {@code token} events, then {@code done} with the full answer, or {@code error}.
+     */
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<JsonNode>> streamAiResponse(@RequestBody AiQueryRequest request,
+                                                            ServerWebExchange exchange) {
+        return agentClient.streamResponseFromAgent(request.prompt(), userContext(exchange));
+    }
+
+    /**
+     * The user the answer is cached for, from the token the security filter verified.
+     */
+    private static String userContext(ServerWebExchange exchange) {
+        Claims claims = exchange.getAttribute(JwtUtil.CLAIMS_ATTRIBUTE);
+        if (claims == null) {
+            return null;
+        }
+        String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+        return userId != null ? userId : claims.getSubject();
     }
 }
\ No newline at end of file
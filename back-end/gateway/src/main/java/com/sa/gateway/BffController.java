@@ -0,0 +1,35 @@
+package com.sa.gateway;
+
+import com.sa.gateway.util.DashboardClient;
+import com.sa.gateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Endpoints shaped for the front-end pages, composed in the gateway from
+ * several services so a page needs one request instead of many.
+ */
+@RestController
+@RequestMapping("/bff")
+@RequiredArgsConstructor
+public class BffController {
+
+    private final DashboardClient dashboardClient;
+
+    /**
+     * The signed-in user's profile, holdings and a quote per holding.
+     * @return Every part with its status; parts that failed or were too slow carry an error instead of data.
+     */
+    @GetMapping("/dashboard")
+    public Mono<DashboardClient.Dashboard> getDashboard(ServerWebExchange exchange) {
+        Claims claims = exchange.getAttribute(JwtUtil.CLAIMS_ATTRIBUTE);
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return dashboardClient.dashboard(claims, authorization);
+    }
+}
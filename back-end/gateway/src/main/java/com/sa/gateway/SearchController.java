@@ -0,0 +1,33 @@
+package com.sa.gateway;
+
+import com.sa.gateway.util.SymbolSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Typeahead over the symbol catalog, answered by the gateway itself.
+ */
+@RestController
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SymbolSearch symbolSearch;
+
+    public record Result(String symbol, String name) {
+    }
+
+    /**
+     * GET /search?query=appl
+     * @return Up to ten matches by symbol prefix, fuzzy name or name prefix, best first.
+     */
+    @GetMapping("/search")
+    public List<Result> search(@RequestParam("query") String query) {
+        return symbolSearch.search(query).stream()
+                .map(hit -> new Result(hit.symbol(), hit.name()))
+                .toList();
+    }
+}
@@ -1,6 +1,9 @@
 package com.sa.gateway.config;
 
+import com.sa.gateway.util.IdentitySigner;
 import com.sa.gateway.util.JwtUtil;
+import com.sa.identity.IdentityHeaders;
+import io.jsonwebtoken.Claims;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -13,10 +16,10 @@ import reactor.core.publisher.Mono;
 @Component
 public class ForwardAuthHeaderFilter implements GlobalFilter, Ordered {
 
-    private final JwtUtil jwtUtil;
+    private final IdentitySigner identitySigner;
 
-    public ForwardAuthHeaderFilter(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    public ForwardAuthHeaderFilter(IdentitySigner identitySigner) {
+        this.identitySigner = identitySigner;
     }
 
     @Override
@@ -25,6 +28,9 @@ public class ForwardAuthHeaderFilter implements GlobalFilter, Ordered {
 
         ServerHttpRequest.Builder mutate = exchange.getRequest().mutate();
 
+        // identity headers are only ever set by the gateway
+        mutate.headers(headers -> IdentityHeaders.ALL.forEach(headers::remove));
+
         if (authHeader != null) {
             // ensure Authorization is present on proxied request
             mutate.header(HttpHeaders.AUTHORIZATION, authHeader);
@@ -32,19 +38,9 @@ public class ForwardAuthHeaderFilter implements GlobalFilter, Ordered {
             // also set a forwarded copy so downstream can clearly see it was forwarded
             mutate.header("X-Forwarded-Authorization", authHeader);
 
-            // optionally add a derived header (email) so downstream can avoid repeated JWT parsing
-            try {
-                if (authHeader.startsWith("Bearer ")) {
-                    String token = authHeader.substring(7);
-                    if (jwtUtil.validateToken(token)) {
-                        String email = jwtUtil.extractEmail(token);
-                        if (email != null) {
-                            mutate.header("X-User-Email", email);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-            }
+            // the claims were verified once by the security filter, which runs before any route
+            Claims claims = exchange.getAttribute(JwtUtil.CLAIMS_ATTRIBUTE);
+            mutate.headers(headers -> headers.addAll(identitySigner.identityHeaders(claims)));
         }
 
         ServerHttpRequest newReq = mutate.build();
@@ -0,0 +1,101 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.TaggedTimers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Global filters that time the phases of a proxied request around the
+ * gateway's own filters: service instance resolution by the load balancer
+ * and the upstream call. The durations are kept on the exchange for
+ * {@link ServerTimingFilter} and recorded as histograms.
+ */
+@Configuration
+public class GatewayMetricsConfig {
+
+    private static final String LOAD_BALANCER_START_ATTRIBUTE = GatewayMetricsConfig.class.getName() + ".lbStart";
+
+    /** Runs just before the load balancer filter resolves an {@code lb://} route. */
+    @Bean
+    public GlobalFilter loadBalancerStartTimer() {
+        return new OrderedFilter(ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1) {
+            @Override
+            public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+                exchange.getAttributes().put(LOAD_BALANCER_START_ATTRIBUTE, System.nanoTime());
+                return chain.filter(exchange);
+            }
+        };
+    }
+
+    /** Runs once the load balancer filter has picked an instance, or found none to pick. */
+    @Bean
+    public GlobalFilter loadBalancerEndTimer(MeterRegistry meterRegistry) {
+        TaggedTimers resolutions = new TaggedTimers(meterRegistry, "gateway.loadbalancer.resolution",
+                                                    "Time spent resolving a service instance through discovery",
+                                                    "route", "service");
+        return new OrderedFilter(ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1) {
+            @Override
+            public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+                Long start = exchange.getAttribute(LOAD_BALANCER_START_ATTRIBUTE);
+                Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                if (start != null && route != null && "lb".equals(route.getUri().getScheme())) {
+                    long elapsed = System.nanoTime() - start;
+                    exchange.getAttributes().put(ServerTimingFilter.LOAD_BALANCER_NANOS_ATTRIBUTE, elapsed);
+                    resolutions.get(route.getId(), route.getUri().getHost()).record(elapsed, TimeUnit.NANOSECONDS);
+                }
+                return chain.filter(exchange);
+            }
+        };
+    }
+
+    /**
+     * Runs just before the routing filter, whose Mono completes when the
+     * upstream's status and headers have arrived, and before
+     * {@link HedgingFilter}, which completes once the winning answer is sent.
+     */
+    @Bean
+    public GlobalFilter upstreamTimer(MeterRegistry meterRegistry) {
+        TaggedTimers upstreamRequests = new TaggedTimers(meterRegistry, "gateway.upstream.requests",
+                                                         "Time until an upstream instance answered with status and headers",
+                                                         "route", "instance", "status");
+        return new OrderedFilter(Ordered.LOWEST_PRECEDENCE - 2) {
+            @Override
+            public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+                long start = System.nanoTime();
+                return chain.filter(exchange).doOnSuccess(done -> {
+                    long elapsed = System.nanoTime() - start;
+                    exchange.getAttributes().put(ServerTimingFilter.UPSTREAM_NANOS_ATTRIBUTE, elapsed);
+                    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                    upstreamRequests.get(route == null ? "unknown" : route.getId(),
+                                         ServerTimingFilter.instance(exchange),
+                                         ServerTimingFilter.statusClass(exchange.getResponse().getStatusCode()))
+                            .record(elapsed, TimeUnit.NANOSECONDS);
+                });
+            }
+        };
+    }
+
+    private abstract static class OrderedFilter implements GlobalFilter, Ordered {
+        private final int order;
+
+        OrderedFilter(int order) {
+            this.order = order;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.HedgeBudget;
+import com.sa.gateway.util.HedgingProperties;
+import com.sa.gateway.util.LatencyTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedges idempotent GETs to replicated services: when the instance the
+ * load balancer picked has not answered within the route's recent
+ * {@code percentile} latency, the same request goes to another instance
+ * of the service, and whichever answers first is sent to the client while
+ * the other call is cancelled.
+ * <p>
+ * Only GETs to the paths listed under {@code hedging.routes.<route id>}
+ * of {@code lb://} routes are hedged, and only while {@link HedgeBudget}
+ * allows it. Those requests are proxied by this filter instead of the
+ * routing filter, with the body buffered, so the listed paths should be
+ * small JSON responses and never streams. A call that fails before the
+ * delay is hedged like a slow one.
+ * <p>
+ * Publishes {@code gateway.hedge.requests} (requests that could be
+ * hedged), {@code gateway.hedge.sent}, {@code gateway.hedge.wins} (the
+ * hedge answered first), {@code gateway.hedge.denied} (no budget left) and
+ * the current delay as {@code gateway.hedge.delay}, all by route.
+ */
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered {
+
+    private final HedgingProperties properties;
+    private final HedgeBudget budget;
+    private final ObjectProvider<ReactiveDiscoveryClient> discoveryClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final WebClient webClient;
+    private final Map<String, RoutePolicy> routes = new HashMap<>();
+
+    public HedgingFilter(HedgingProperties properties,
+                         HedgeBudget budget,
+                         ObjectProvider<ReactiveDiscoveryClient> discoveryClient,
+                         ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                         MeterRegistry meterRegistry,
+                         WebClient.Builder webClientBuilder) {
+        this.properties = properties;
+        this.budget = budget;
+        this.discoveryClient = discoveryClient;
+        this.headersFilters = headersFilters;
+        this.webClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs()
+                        .maxInMemorySize((int) properties.getMaximumResponseSize().toBytes()))
+                .build();
+        properties.getRoutes().forEach((routeId, route) -> routes.put(routeId, new RoutePolicy(routeId, route, meterRegistry)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI primary = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!properties.isEnabled() || route == null || primary == null
+                || exchange.getRequest().getMethod() != HttpMethod.GET
+                || ServerWebExchangeUtils.isAlreadyRouted(exchange)
+                || !"lb".equals(route.getUri().getScheme())) {
+            return chain.filter(exchange);
+        }
+        RoutePolicy policy = routes.get(route.getId());
+        if (policy == null || !policy.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+        budget.deposit();
+        policy.requests.increment();
+        List<HttpHeadersFilter> filters = headersFilters.getIfAvailable();
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(filters, exchange);
+        long start = System.nanoTime();
+        Duration delay = policy.delay();
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        Mono<Answer> first = call(primary, headers).map(response -> new Answer(primary, response, false));
+        Mono<Answer> second = Mono.delay(delay)
+                .then(Mono.defer(() -> hedgeTarget(route.getUri().getHost(), primary)))
+                .filter(target -> {
+                    if (budget.tryAcquire()) {
+                        return true;
+                    }
+                    policy.denied.increment();
+                    return false;
+                })
+                .flatMap(target -> {
+                    hedged.set(true);
+                    policy.sent.increment();
+                    return call(target, headers).map(response -> new Answer(target, response, true));
+                });
+
+        return Mono.firstWithValue(first, second)
+                .onErrorMap(e -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, "No answer from " + route.getId(), e))
+                .flatMap(answer -> {
+                    // a lower bound for the primary when the hedge won, which keeps the delay from creeping down
+                    policy.latencies.record(System.nanoTime() - start);
+                    if (answer.hedge()) {
+                        policy.wins.increment();
+                    }
+                    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, answer.uri());
+                    return write(exchange, answer.response(), filters);
+                });
+    }
+
+    private Mono<ResponseEntity<byte[]>> call(URI uri, HttpHeaders headers) {
+        return webClient.get()
+                .uri(uri)
+                .headers(request -> request.addAll(headers))
+                .exchangeToMono(response -> response.toEntity(byte[].class));
+    }
+
+    /** Another instance of the service than the one already called, if there is one. */
+    private Mono<URI> hedgeTarget(String serviceId, URI primary) {
+        ReactiveDiscoveryClient discovery = discoveryClient.getIfAvailable();
+        if (discovery == null) {
+            return Mono.empty();
+        }
+        return discovery.getInstances(serviceId)
+                .filter(instance -> !(instance.getHost().equalsIgnoreCase(primary.getHost())
+                        && instance.getPort() == primary.getPort()))
+                .collectList()
+                .mapNotNull(others -> others.isEmpty() ? null : target(primary,
+                        others.get(ThreadLocalRandom.current().nextInt(others.size()))));
+    }
+
+    private static URI target(URI primary, ServiceInstance instance) {
+        return UriComponentsBuilder.fromUri(primary)
+                .scheme(instance.isSecure() ? "https" : "http")
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, ResponseEntity<byte[]> answer,
+                                    List<HttpHeadersFilter> filters) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(answer.getStatusCode());
+        HttpHeaders headers = HttpHeadersFilter.filter(filters, answer.getHeaders(), exchange,
+                                                       HttpHeadersFilter.Type.RESPONSE);
+        headers.forEach((name, values) -> response.getHeaders().put(name, values));
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        byte[] body = answer.getBody() == null ? new byte[0] : answer.getBody();
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+
+    @Override
+    public int getOrder() {
+        // after the load balancer has picked the first instance, in place of the routing filter
+        return NettyRoutingFilter.ORDER - 1;
+    }
+
+    private record Answer(URI uri, ResponseEntity<byte[]> response, boolean hedge) {
+    }
+
+    private static class RoutePolicy {
+
+        private final List<PathPattern> paths;
+        private final HedgingProperties.Route route;
+        private final LatencyTracker latencies;
+        private final Counter requests;
+        private final Counter sent;
+        private final Counter wins;
+        private final Counter denied;
+
+        RoutePolicy(String routeId, HedgingProperties.Route route, MeterRegistry meterRegistry) {
+            this.route = route;
+            this.paths = route.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+            this.latencies = new LatencyTracker(route.getSamples(), route.getPercentile());
+            this.requests = counter("gateway.hedge.requests", "Requests that could be hedged", routeId, meterRegistry);
+            this.sent = counter("gateway.hedge.sent", "Hedge requests sent", routeId, meterRegistry);
+            this.wins = counter("gateway.hedge.wins", "Hedge requests that answered first", routeId, meterRegistry);
+            this.denied = counter("gateway.hedge.denied", "Hedges not sent for lack of budget", routeId, meterRegistry);
+            Gauge.builder("gateway.hedge.delay", this, policy -> policy.delay().toNanos() / 1e9)
+                    .description("Time after which a request is hedged")
+                    .tag("route", routeId)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        boolean matches(PathContainer path) {
+            return paths.stream().anyMatch(pattern -> pattern.matches(path));
+        }
+
+        Duration delay() {
+            long observed = latencies.percentile();
+            long maximum = route.getMaximumDelay().toNanos();
+            long delay = observed < 0 ? maximum : Math.max(route.getMinimumDelay().toNanos(), Math.min(observed, maximum));
+            return Duration.ofNanos(delay);
+        }
+
+        private static Counter counter(String name, String description, String routeId, MeterRegistry meterRegistry) {
+            return Counter.builder(name).description(description).tag("route", routeId).register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.LatencyAwareLoadBalancer;
+import com.sa.gateway.util.LoadBalancingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Loaded into the child context the load balancer creates for each
+ * service, where the gateway also looks up the lifecycle callbacks that
+ * feed the balancer. Deliberately not a {@code @Configuration}, so that
+ * component scanning leaves it out of the main context.
+ */
+class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+                                                      LoadBalancerClientFactory clientFactory,
+                                                      LoadBalancingProperties properties,
+                                                      MeterRegistry meterRegistry) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(serviceId,
+                                            clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                                            properties, meterRegistry);
+    }
+}
@@ -0,0 +1,15 @@
+package com.sa.gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Uses {@link com.sa.gateway.util.LatencyAwareLoadBalancer} for every
+ * {@code lb://} service instead of round robin.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "load-balancing", name = "enabled", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
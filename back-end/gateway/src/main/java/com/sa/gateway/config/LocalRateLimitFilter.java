@@ -0,0 +1,59 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.RateLimitProperties;
+import com.sa.gateway.util.RateLimiter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies the limits under {@code rate-limit.local} to endpoints the gateway
+ * serves itself, such as the agent controller, which never pass through
+ * the route filters. Runs after the security filter chain so the verified
+ * token is available.
+ */
+@Component
+public class LocalRateLimitFilter implements WebFilter, Ordered {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final List<Map.Entry<PathPattern, String>> patterns = new ArrayList<>();
+
+    public LocalRateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        properties.getLocal().forEach((name, limit) -> limit.getPaths().forEach(
+                path -> patterns.add(Map.entry(PathPatternParser.defaultInstance.parse(path), name))));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled() || patterns.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (Map.Entry<PathPattern, String> pattern : patterns) {
+            if (pattern.getKey().matches(path)) {
+                String name = pattern.getValue();
+                return RateLimitFilter.limit(exchange, rateLimiter, name, properties.getLocal().get(name),
+                                             () -> chain.filter(exchange));
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
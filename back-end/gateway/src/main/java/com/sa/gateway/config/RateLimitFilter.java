@@ -0,0 +1,101 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.JwtUtil;
+import com.sa.gateway.util.RateLimitProperties;
+import com.sa.gateway.util.RateLimiter;
+import io.jsonwebtoken.Claims;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.function.Supplier;
+
+/**
+ * Applies the per-route limits under {@code rate-limit.routes}. Requests are
+ * counted per user when the token was verified and per client address
+ * otherwise. Every limited response carries {@code X-RateLimit-Limit}, the
+ * requests allowed per period, {@code X-RateLimit-Remaining}, how many could
+ * be sent right now (never more than the burst), and
+ * {@code X-RateLimit-Reset}, the seconds until all of the burst is
+ * available again; rejected requests get 429 with {@code Retry-After}.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RateLimitProperties.Limit limit = route == null ? null : properties.getRoutes().get(route.getId());
+        if (!properties.isEnabled() || limit == null) {
+            return chain.filter(exchange);
+        }
+        return limit(exchange, rateLimiter, route.getId(), limit, () -> chain.filter(exchange));
+    }
+
+    static Mono<Void> limit(ServerWebExchange exchange, RateLimiter rateLimiter, String name,
+                            RateLimitProperties.Limit limit, Supplier<Mono<Void>> proceed) {
+        if (exchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
+            return proceed.get(); // CORS preflight
+        }
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(name + "|" + clientKey(exchange), limit);
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, Integer.toString(decision.limit()));
+        headers.set(REMAINING_HEADER, Integer.toString(decision.remaining()));
+        headers.set(RESET_HEADER, Long.toString(seconds(decision.resetNanos())));
+        if (decision.allowed()) {
+            return proceed.get();
+        }
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, seconds(decision.retryAfterNanos()))));
+        return response.setComplete();
+    }
+
+    /** The user id or email of a verified token, else the client address. */
+    static String clientKey(ServerWebExchange exchange) {
+        Claims claims = exchange.getAttribute(JwtUtil.CLAIMS_ATTRIBUTE);
+        if (claims != null) {
+            String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+            if (userId != null) {
+                return "user:" + userId;
+            }
+            if (claims.getSubject() != null) {
+                return "user:" + claims.getSubject();
+            }
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remote == null || remote.getAddress() == null ? "unknown" : remote.getAddress().getHostAddress());
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+
+    @Override
+    public int getOrder() {
+        // before anything that does work for the request
+        return Ordered.HIGHEST_PRECEDENCE + 5;
+    }
+}
@@ -0,0 +1,255 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.CachedResponse;
+import com.sa.gateway.util.ResponseCache;
+import com.sa.gateway.util.ResponseCacheProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Serves GET responses of the routes listed under {@code response-cache.routes}
+ * from {@link ResponseCache}.
+ * <p>
+ * On a miss the request is proxied as usual and the body is copied while
+ * it streams to the client. Identical requests arriving meanwhile wait for
+ * that call instead of making their own. A stale entry is returned at once
+ * and refreshed in the background. Responses carry {@code X-Cache} (HIT,
+ * STALE or MISS) and {@code Age}.
+ * <p>
+ * Cached responses are shared between users, so only routes whose
+ * responses do not depend on the caller belong in the configuration.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final String X_CACHE = "X-Cache";
+
+    private static final Duration REFRESH_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ResponseCache cache;
+    private final int maximumEntrySize;
+    private final WebClient webClient;
+    private final WebClient loadBalancedWebClient;
+
+    public ResponseCacheFilter(ResponseCache cache,
+                               ResponseCacheProperties properties,
+                               WebClient.Builder webClientBuilder,
+                               ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancer) {
+        this.cache = cache;
+        this.maximumEntrySize = (int) properties.getMaximumEntrySize().toBytes();
+        WebClient.Builder builder = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maximumEntrySize));
+        this.webClient = builder.clone().build();
+        ReactorLoadBalancerExchangeFilterFunction lb = loadBalancer.getIfAvailable();
+        this.loadBalancedWebClient = lb == null ? null : builder.clone().filter(lb).build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Optional<ResponseCache.Policy> policy = cache.policy(route.getId(), request.getPath().value());
+        HttpHeaders requestHeaders = request.getHeaders();
+        if (policy.isEmpty() || ResponseCache.isNoStore(requestHeaders)) {
+            return chain.filter(exchange);
+        }
+
+        String baseKey = ResponseCache.baseKey(route.getId(), request.getURI());
+        if (!ResponseCache.isNoCache(requestHeaders)) {
+            CachedResponse cached = cache.lookup(baseKey, requestHeaders);
+            if (cached != null) {
+                if (cached.isFresh(System.nanoTime())) {
+                    return write(exchange, cached, "HIT");
+                }
+                refresh(route, request, baseKey, policy.get());
+                return write(exchange, cached, "STALE");
+            }
+        }
+
+        ResponseCache.Flight flight = cache.begin(cache.key(baseKey, requestHeaders));
+        if (!flight.leader()) {
+            return Mono.fromFuture(flight.future()).flatMap(response -> response
+                    .filter(cached -> cached.matches(requestHeaders))
+                    .map(cached -> write(exchange, cached, "HIT"))
+                    .orElseGet(() -> chain.filter(exchange)));
+        }
+        CapturingResponse response = new CapturingResponse(exchange, baseKey, policy.get(), flight);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> cache.finish(flight, null));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String outcome) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        addVary(headers, cached.varyHeaders());
+        headers.setContentLength(cached.body().length);
+        headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(System.nanoTime())));
+        headers.set(X_CACHE, outcome);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    /** Fetches a stale entry again without holding up the request that found it. */
+    private void refresh(Route route, ServerHttpRequest request, String baseKey, ResponseCache.Policy policy) {
+        HttpHeaders requestHeaders = request.getHeaders();
+        ResponseCache.Flight flight = cache.begin(cache.key(baseKey, requestHeaders));
+        if (!flight.leader()) {
+            return;
+        }
+        URI routeUri = route.getUri();
+        boolean loadBalanced = "lb".equals(routeUri.getScheme());
+        WebClient client = loadBalanced ? loadBalancedWebClient : webClient;
+        if (client == null) {
+            cache.finish(flight, null);
+            return;
+        }
+        URI target = UriComponentsBuilder.fromUri(routeUri)
+                .scheme(loadBalanced ? "http" : routeUri.getScheme())
+                .replacePath(request.getURI().getRawPath())
+                .replaceQuery(request.getURI().getRawQuery())
+                .build(true)
+                .toUri();
+        HttpHeaders forwarded = new HttpHeaders();
+        forwarded.addAll(requestHeaders);
+        forwarded.remove(HttpHeaders.HOST);
+        forwarded.remove(HttpHeaders.CONNECTION);
+        forwarded.remove(HttpHeaders.CACHE_CONTROL);
+        forwarded.remove(HttpHeaders.PRAGMA);
+
+        client.get()
+                .uri(target)
+                .headers(headers -> headers.addAll(forwarded))
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .mapNotNull(body -> cache.store(baseKey, response.statusCode().value(),
+                                                        response.headers().asHttpHeaders(), body,
+                                                        forwarded, policy)))
+                .timeout(REFRESH_TIMEOUT)
+                .subscribe(cached -> cache.finish(flight, cached),
+                           error -> cache.finish(flight, null),
+                           () -> cache.finish(flight, null));
+    }
+
+    private static void addVary(HttpHeaders headers, List<String> varyHeaders) {
+        List<String> present = headers.getVary();
+        for (String name : varyHeaders) {
+            if (present.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.add(HttpHeaders.VARY, name);
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // after the identity headers are set, well before the routing filters
+        return Ordered.HIGHEST_PRECEDENCE + 20;
+    }
+
+    /**
+     * Copies the proxied body while it is written to the client and caches
+     * it once complete. Headers already on the response when the request
+     * reached this filter, such as CORS, were added by the gateway and are
+     * not stored.
+     */
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String baseKey;
+        private final ResponseCache.Policy policy;
+        private final ResponseCache.Flight flight;
+        private final HttpHeaders requestHeaders;
+        private final Set<String> gatewayHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        private final Set<String> gatewayVary = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+        CapturingResponse(ServerWebExchange exchange, String baseKey, ResponseCache.Policy policy,
+                          ResponseCache.Flight flight) {
+            super(exchange.getResponse());
+            this.baseKey = baseKey;
+            this.policy = policy;
+            this.flight = flight;
+            this.requestHeaders = exchange.getRequest().getHeaders();
+            gatewayHeaders.addAll(getDelegate().getHeaders().keySet());
+            gatewayVary.addAll(getDelegate().getHeaders().getVary());
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            headers.set(X_CACHE, "MISS");
+            HttpStatusCode status = getStatusCode();
+            long contentLength = headers.getContentLength();
+            if (status == null || !status.is2xxSuccessful() || contentLength > maximumEntrySize) {
+                return super.writeWith(body);
+            }
+
+            // before commit: the security headers written then are the gateway's, not the upstream's
+            HttpHeaders upstream = upstreamHeaders(headers);
+            ByteArrayOutputStream copy = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+            Flux<? extends DataBuffer> copied = Flux.from(body).doOnNext(buffer -> {
+                if (copy.size() + buffer.readableByteCount() > maximumEntrySize) {
+                    cache.finish(flight, null);
+                    return;
+                }
+                try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                    while (iterator.hasNext()) {
+                        ByteBuffer chunk = iterator.next();
+                        byte[] bytes = new byte[chunk.remaining()];
+                        chunk.get(bytes);
+                        copy.writeBytes(bytes);
+                    }
+                }
+            });
+            return super.writeWith(copied).doOnSuccess(done -> {
+                if (!flight.future().isDone()) {
+                    cache.finish(flight, cache.store(baseKey, status.value(), upstream,
+                                                     copy.toByteArray(), requestHeaders, policy));
+                }
+            });
+        }
+
+        private HttpHeaders upstreamHeaders(HttpHeaders headers) {
+            HttpHeaders upstream = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (!gatewayHeaders.contains(name) && !X_CACHE.equalsIgnoreCase(name)) {
+                    upstream.put(name, values);
+                }
+            });
+            upstream.remove(HttpHeaders.VARY);
+            headers.getVary().stream()
+                    .filter(name -> !gatewayVary.contains(name))
+                    .forEach(name -> upstream.add(HttpHeaders.VARY, name));
+            return upstream;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.sa.gateway.config;
 
 import com.sa.gateway.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.Arrays;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -16,21 +20,34 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
 import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
+    private final int managementPort;
 
-    public SecurityConfig(JwtUtil jwtUtil) {
+    public SecurityConfig(JwtUtil jwtUtil, MeterRegistry meterRegistry,
+                          @Value("${management.server.port:-1}") int managementPort) {
         this.jwtUtil = jwtUtil;
+        this.validTokens = verificationTimer("valid", meterRegistry);
+        this.invalidTokens = verificationTimer("invalid", meterRegistry);
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -59,6 +76,7 @@ public class SecurityConfig {
                         .pathMatchers(HttpMethod.OPTIONS).permitAll()
                         .pathMatchers("/auth/login", "/auth/register", "/auth/refresh", "auth/logout").permitAll()
                         .pathMatchers("/oauth2/**", "/login/oauth2/**", "/oauth2/authorization/**").permitAll()
+                        .matchers(actuatorOnManagementPort()).permitAll()
                         .anyExchange().authenticated()
                 )
                 .exceptionHandling(exceptions ->
@@ -70,20 +88,54 @@ public class SecurityConfig {
                 .build();
     }
 
+    /**
+     * Actuator requests that arrived on the management port. That port is
+     * only reachable from inside the network, so Prometheus can scrape it
+     * without a token; on the public port actuator paths need one like
+     * everything else.
+     */
+    private ServerWebExchangeMatcher actuatorOnManagementPort() {
+        ServerWebExchangeMatcher managementPortMatcher = exchange -> {
+            InetSocketAddress local = exchange.getRequest().getLocalAddress();
+            return local != null && local.getPort() == managementPort
+                    ? ServerWebExchangeMatcher.MatchResult.match()
+                    : ServerWebExchangeMatcher.MatchResult.notMatch();
+        };
+        return new AndServerWebExchangeMatcher(managementPortMatcher,
+                                               ServerWebExchangeMatchers.pathMatchers("/actuator/**"));
+    }
 
+    /**
+     * Verifies the bearer token once per request and keeps its claims on
+     * the exchange for the gateway filters that run later. The time taken
+     * is recorded as {@code gateway.auth.verification} and reported in the
+     * {@code Server-Timing} header.
+     */
     private ServerAuthenticationConverter jwtAuthenticationConverter() {
         return (ServerWebExchange exchange) -> {
             String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                if (jwtUtil.validateToken(token)) {
-                    String email = jwtUtil.extractEmail(token);
+                long start = System.nanoTime();
+                Optional<Claims> claims = jwtUtil.verify(authHeader.substring(7));
+                long elapsed = System.nanoTime() - start;
+                exchange.getAttributes().put(ServerTimingFilter.AUTH_NANOS_ATTRIBUTE, elapsed);
+                (claims.isPresent() ? validTokens : invalidTokens).record(elapsed, TimeUnit.NANOSECONDS);
+                if (claims.isPresent()) {
+                    exchange.getAttributes().put(JwtUtil.CLAIMS_ATTRIBUTE, claims.get());
                     Authentication auth =
-                            new UsernamePasswordAuthenticationToken(email, null, List.of());
+                            new UsernamePasswordAuthenticationToken(claims.get().getSubject(), null, List.of());
                     return Mono.just(auth);
                 }
             }
             return Mono.empty();
         };
     }
+
+    private static Timer verificationTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("gateway.auth.verification")
+                .description("Time spent verifying bearer tokens, cache hits included")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
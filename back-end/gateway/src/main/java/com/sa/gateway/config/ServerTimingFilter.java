@@ -0,0 +1,114 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.TaggedTimers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request from the moment it reaches the gateway.
+ * <p>
+ * Adds a {@code Server-Timing} header when the response is committed, so
+ * browser devtools show where the time went: {@code auth} (token
+ * verification), {@code lb} (service instance resolution), {@code upstream}
+ * (until the upstream's response headers arrived), {@code gateway} (the
+ * rest) and {@code total}. Phases that did not happen are left out.
+ * <p>
+ * Records {@code gateway.requests} per route, upstream instance and status
+ * class, as a histogram; requests the gateway answers itself have route
+ * {@code local}.
+ */
+@Component
+public class ServerTimingFilter implements WebFilter, Ordered {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    /** Exchange attributes holding the nanoseconds spent in each phase. */
+    public static final String AUTH_NANOS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".auth";
+    public static final String LOAD_BALANCER_NANOS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".lb";
+    public static final String UPSTREAM_NANOS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".upstream";
+
+    private final TaggedTimers requests;
+
+    public ServerTimingFilter(MeterRegistry meterRegistry) {
+        this.requests = new TaggedTimers(meterRegistry, "gateway.requests",
+                                         "Time from the request reaching the gateway until the response ended",
+                                         "route", "instance", "status");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            response.getHeaders().add(SERVER_TIMING, serverTiming(exchange, System.nanoTime() - start));
+            return Mono.empty();
+        });
+        return chain.filter(exchange).doFinally(signal -> record(exchange, start, signal));
+    }
+
+    static String serverTiming(ServerWebExchange exchange, long totalNanos) {
+        List<String> metrics = new ArrayList<>(5);
+        Long auth = exchange.getAttribute(AUTH_NANOS_ATTRIBUTE);
+        Long loadBalancer = exchange.getAttribute(LOAD_BALANCER_NANOS_ATTRIBUTE);
+        Long upstream = exchange.getAttribute(UPSTREAM_NANOS_ATTRIBUTE);
+        if (auth != null) {
+            metrics.add(metric("auth", auth));
+        }
+        if (loadBalancer != null) {
+            metrics.add(metric("lb", loadBalancer));
+        }
+        if (upstream != null) {
+            metrics.add(metric("upstream", upstream));
+        }
+        metrics.add(metric("gateway", totalNanos - (upstream == null ? 0 : upstream)));
+        metrics.add(metric("total", totalNanos));
+        return String.join(", ", metrics);
+    }
+
+    private void record(ServerWebExchange exchange, long start, SignalType signal) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        requests.get(route == null ? "local" : route.getId(),
+                     instance(exchange),
+                     signal == SignalType.CANCEL ? "cancelled" : statusClass(exchange.getResponse().getStatusCode()))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** The resolved upstream host and port, once a route filter has chosen one. */
+    static String instance(ServerWebExchange exchange) {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || url.getHost() == null) {
+            return "none";
+        }
+        return url.getPort() < 0 ? url.getHost() : url.getHost() + ":" + url.getPort();
+    }
+
+    static String statusClass(HttpStatusCode status) {
+        return status == null ? "unknown" : (status.value() / 100) + "xx";
+    }
+
+    private static String metric(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.2f", name, nanos / 1_000_000.0);
+    }
+
+    @Override
+    public int getOrder() {
+        // before the security filter chain, so token verification is inside the total
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
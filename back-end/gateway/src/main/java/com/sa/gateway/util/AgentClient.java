@@ -1,31 +1,87 @@
 package com.sa.gateway.util;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.netty.http.client.HttpClient;
 
+import java.text.Normalizer;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Client service to communicate internally with the Python Gemini Agent service.
- * Uses the internal Docker Compose service name 'agent' and internal port '8001'.
+ * Uses the internal Docker Compose service name 'agent' and internal port '8001'
+ * unless {@code agent.base-url} says otherwise. Every call is bounded by
+ * {@code agent.deadline}, and the connection by the connect and idle timeouts.
+ * <p>
+ * Calls go through a {@link Bulkhead} ({@code agent.bulkhead.*}) so a burst
+ * of prompts queues up instead of overloading the agent. Answers are cached
+ * for {@code agent.cache.ttl} under the normalized prompt and the user who
+ * asked; identical prompts asked while an answer is being generated share
+ * that generation. Failed calls are not cached. Each call to the agent is
+ * timed as {@code agent.calls}, without the time spent queueing.
  */
+@Slf4j
 @Service
 public class AgentClient {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final Duration deadline;
+    private final Bulkhead bulkhead;
+    private final AsyncCache<String, AgentResponse> responses;
+    private final MeterRegistry meterRegistry;
 
-    private static final String AGENT_BASE_URL = "http://agent:8001";
     private static final String GENERATE_ENDPOINT = "/generate";
+    private static final String GENERATE_STREAM_ENDPOINT = "/generate/stream";
 
-    public AgentClient(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
-        this.webClient = webClientBuilder.baseUrl(AGENT_BASE_URL).build();
+    private static final ParameterizedTypeReference<ServerSentEvent<JsonNode>> EVENT_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    public AgentClient(WebClient.Builder webClientBuilder, ObjectMapper objectMapper, AgentProperties properties,
+                       MeterRegistry meterRegistry) {
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getIdleTimeout());
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(properties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
         this.objectMapper = objectMapper;
+        this.baseUrl = properties.getBaseUrl();
+        this.deadline = properties.getDeadline();
+        this.meterRegistry = meterRegistry;
+        AgentProperties.Bulkhead bulkheadProperties = properties.getBulkhead();
+        this.bulkhead = new Bulkhead("agent.bulkhead", bulkheadProperties.getMaxConcurrent(),
+                                     bulkheadProperties.getMaxQueue(), bulkheadProperties.getMaxWait(), meterRegistry);
+        this.responses = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaximumSize())
+                .expireAfterWrite(properties.getCache().getTtl())
+                .recordStats()
+                .<String, AgentResponse>buildAsync(), "agent.responses");
     }
 
     /**
@@ -42,32 +98,149 @@ public class AgentClient {
 
 
     /**
-     * Calls the internal /generate endpoint on the gemini agent service.
+     * Calls the internal /generate endpoint on the gemini agent service,
+     * unless the same user asked the same thing recently.
      *
-     * @param userPrompt The prompt to send to the AI model.
+     * @param userPrompt  The prompt to send to the AI model.
+     * @param userContext Who is asking; answers are not shared between users.
      * @return A Mono giving the response data from the AI.
      */
-    public Mono<AgentResponse> generateResponseFromAgent(String userPrompt) {
+    public Mono<AgentResponse> generateResponseFromAgent(String userPrompt, String userContext) {
+        String key = cacheKey(userPrompt, userContext);
+        // the generation is shared, so one caller going away must not cancel it
+        return Mono.defer(() -> {
+            CompletableFuture<AgentResponse> answer =
+                    responses.get(key, (k, executor) -> generate(userPrompt).toFuture());
+            return Mono.fromFuture(answer, true)
+                    // Caffeine drops failed futures too, but possibly only after this caller retries
+                    .doOnError(e -> responses.asMap().remove(key, answer));
+        })
+                .onErrorResume(e -> {
+                    if (e instanceof BulkheadFullException) {
+                        return Mono.error(e);
+                    }
+                    log.warn("Error calling Gemini Agent Service at {}{}: {}", baseUrl, GENERATE_ENDPOINT, e.getMessage());
+                    return Mono.just(new AgentResponse(
+                            e instanceof InvalidAgentResponseException
+                                    ? "Error: Failed to parse AI response structure."
+                                    : "Error: Could not reach internal AI service or received an invalid response.",
+                            Collections.emptyList()
+                    ));
+                });
+    }
+
+    private Mono<AgentResponse> generate(String userPrompt) {
 
         AgentRequest requestBody = new AgentRequest(userPrompt);
 
-        //
+        return bulkhead.call(() -> {
+            long start = System.nanoTime();
+            return webClient.post()
+                    .uri(GENERATE_ENDPOINT)
+                    .bodyValue(requestBody)
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .map(this::processAgentResponse)
+                    .timeout(deadline)
+                    .doFinally(signal -> recordCall(GENERATE_ENDPOINT, signal, start));
+        });
+    }
 
-        return webClient.post()
-                .uri(GENERATE_ENDPOINT)
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(this::processAgentResponse)
+    /**
+     * Calls the internal /generate/stream endpoint and relays its events as
+     * they arrive: {@code token} events with the next piece of text and a
+     * final {@code done} event with the whole answer. Failures and the
+     * deadline end the stream with an {@code error} event instead of an
+     * error signal, since the response is already committed by then.
+     * Cancelling the returned Flux, e.g. when the browser disconnects,
+     * closes the connection to the agent.
+     *
+     * A cached answer is sent as a single {@code done} event, and a streamed
+     * answer is cached once complete. Streams are not shared: each one is
+     * its own generation and holds a bulkhead slot while it runs.
+     *
+     * @param userPrompt  The prompt to send to the AI model.
+     * @param userContext Who is asking; answers are not shared between users.
+     * @return A Flux of the agent's events.
+     */
+    public Flux<ServerSentEvent<JsonNode>> streamResponseFromAgent(String userPrompt, String userContext) {
+        String key = cacheKey(userPrompt, userContext);
+        CompletableFuture<AgentResponse> cached = responses.getIfPresent(key);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            return Flux.just(ServerSentEvent.<JsonNode>builder()
+                                     .event("done")
+                                     .data(objectMapper.valueToTree(cached.join()))
+                                     .build());
+        }
+        return bulkhead.stream(() -> stream(userPrompt))
+                .doOnNext(event -> {
+                    if ("done".equals(event.event())) {
+                        responses.put(key, CompletableFuture.completedFuture(processAgentResponse(event.data())));
+                    }
+                })
                 .onErrorResume(e -> {
-                    System.err.println("Error calling Gemini Agent Service at " + AGENT_BASE_URL + GENERATE_ENDPOINT + ": " + e.getMessage());
-                    return Mono.just(new AgentResponse(
-                            "Error: Could not reach internal AI service or received an invalid response.",
-                            Collections.emptyList()
-                    ));
+                    if (e instanceof BulkheadFullException) {
+                        return Flux.error(e); // nothing sent yet, so this still becomes a 503
+                    }
+                    log.warn("Error streaming from Gemini Agent Service at {}{}: {}", baseUrl, GENERATE_STREAM_ENDPOINT, e.getMessage());
+                    return Mono.just(errorEvent(e instanceof TimeoutException
+                            ? "Error: The AI service did not finish in time."
+                            : "Error: Could not reach internal AI service or received an invalid response."));
                 });
     }
 
+    private Flux<ServerSentEvent<JsonNode>> stream(String userPrompt) {
+        long start = System.nanoTime();
+        AtomicBoolean expired = new AtomicBoolean();
+        Mono<Long> deadlineReached = Mono.delay(deadline).doOnNext(tick -> expired.set(true));
+
+        return webClient.post()
+                .uri(GENERATE_STREAM_ENDPOINT)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(new AgentRequest(userPrompt))
+                .retrieve()
+                .bodyToFlux(EVENT_TYPE)
+                .filter(event -> event.event() != null && event.data() != null)
+                .takeUntilOther(deadlineReached)
+                .concatWith(Mono.defer(() -> expired.get()
+                        ? Mono.error(new TimeoutException("no answer within " + deadline))
+                        : Mono.empty()))
+                .doFinally(signal -> recordCall(GENERATE_STREAM_ENDPOINT, signal, start));
+    }
+
+    private void recordCall(String endpoint, SignalType signal, long start) {
+        Timer.builder("agent.calls")
+                .description("Time spent in calls to the agent service")
+                .tag("endpoint", endpoint)
+                .tag("outcome", switch (signal) {
+                    case ON_COMPLETE -> "success";
+                    case CANCEL -> "cancelled";
+                    default -> "error";
+                })
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Prompts that differ only in case, spacing or Unicode form get the same
+     * answer.
+     */
+    static String cacheKey(String userPrompt, String userContext) {
+        String prompt = userPrompt == null ? "" : Normalizer.normalize(userPrompt, Normalizer.Form.NFKC)
+                .strip()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+        return (userContext == null ? "" : userContext) + "\n" + prompt;
+    }
+
+    private ServerSentEvent<JsonNode> errorEvent(String message) {
+        return ServerSentEvent.<JsonNode>builder()
+                .event("error")
+                .data(objectMapper.createObjectNode().put("text", message))
+                .build();
+    }
+
     /**
      * Converts the raw JsonNode response from the Python agent into the structured AgentResponse record.
      */
@@ -82,8 +255,15 @@ public class AgentClient {
 
             return new AgentResponse(text, sources);
         } catch (Exception e) {
-            System.err.println("Failed to parse agent response: " + e.getMessage());
-            return new AgentResponse("Error: Failed to parse AI response structure.", Collections.emptyList());
+            log.warn("Failed to parse agent response: {}", e.getMessage());
+            throw new InvalidAgentResponseException(e);
+        }
+    }
+
+    /** Keeps unparseable answers out of the cache; reported like before. */
+    private static class InvalidAgentResponseException extends RuntimeException {
+        InvalidAgentResponseException(Throwable cause) {
+            super(cause);
         }
     }
 }
\ No newline at end of file
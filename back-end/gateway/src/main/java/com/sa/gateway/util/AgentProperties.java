@@ -0,0 +1,40 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "agent")
+public class AgentProperties {
+    private String baseUrl = "http://agent:8001";
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /** Longest silence from the agent, before the first byte or between two reads. */
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    /** Hard limit on a whole agent call, streamed or not. */
+    private Duration deadline = Duration.ofMinutes(2);
+    private Bulkhead bulkhead = new Bulkhead();
+    private Cache cache = new Cache();
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        /** Agent calls running at once, streamed or not. */
+        private int maxConcurrent = 4;
+        /** Calls waiting for a free slot; further calls are rejected with 503. */
+        private int maxQueue = 16;
+        private Duration maxWait = Duration.ofSeconds(20);
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private long maximumSize = 1_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,29 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "bff")
+public class BffProperties {
+    /** Base URLs of the services the dashboard is composed from; lb:// goes through the load balancer. */
+    private String authUrl = "lb://auth-service";
+    private String portfolioUrl = "lb://portfolio-service";
+    private String quotesUrl = "http://alpha-service:8000";
+    /** Route whose response cache entries quotes are shared with. */
+    private String quotesRoute = "alpha_route";
+    private Duration profileTimeout = Duration.ofMillis(300);
+    private Duration holdingsTimeout = Duration.ofMillis(500);
+    /** The whole dashboard is answered within this; quotes get what is left after the holdings. */
+    private Duration deadline = Duration.ofSeconds(1);
+    /** Quotes fetched for one dashboard; holdings beyond this get none. */
+    private int maxQuotes = 50;
+    /** Quotes fetched at once for one dashboard. */
+    private int quoteConcurrency = 8;
+}
@@ -0,0 +1,144 @@
+package com.sa.gateway.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of concurrent calls to a dependency.
+ * <p>
+ * Up to {@code maxConcurrent} calls run at once. Further calls wait in a
+ * first-in first-out queue of at most {@code maxQueue} entries for at most
+ * {@code maxWait}; a call that finds the queue full, or waits too long,
+ * fails at once with {@link BulkheadFullException}. A finished call hands
+ * its permit straight to the oldest waiter, so later arrivals cannot
+ * overtake the queue.
+ * <p>
+ * Publishes {@code <name>.active}, {@code <name>.queue}, the time spent
+ * waiting as {@code <name>.wait} and {@code <name>.rejected}.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    // guarded by this; calls are far slower than the lock
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private int active;
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, Duration maxWait, MeterRegistry registry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        Gauge.builder(name + ".active", this, Bulkhead::active).register(registry);
+        Gauge.builder(name + ".queue", this, Bulkhead::queueDepth).register(registry);
+        this.waitTimer = Timer.builder(name + ".wait").register(registry);
+        this.rejected = Counter.builder(name + ".rejected").register(registry);
+    }
+
+    /** Runs a call once a permit is available and releases it when the call ends or is cancelled. */
+    public <T> Mono<T> call(Supplier<Mono<T>> call) {
+        return Mono.usingWhen(acquire(), permit -> call.get(), Permit::release);
+    }
+
+    /** Like {@link #call}, holding the permit until the stream ends. */
+    public <T> Flux<T> stream(Supplier<Flux<T>> stream) {
+        return Flux.usingWhen(acquire(), permit -> stream.get(), Permit::release);
+    }
+
+    public synchronized int active() {
+        return active;
+    }
+
+    public synchronized int queueDepth() {
+        return waiters.size();
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            synchronized (this) {
+                if (active < maxConcurrent && waiters.isEmpty()) {
+                    active++;
+                    waitTimer.record(0, TimeUnit.NANOSECONDS);
+                    return Mono.just(new Permit());
+                }
+                if (waiters.size() >= maxQueue) {
+                    rejected.increment();
+                    return Mono.error(new BulkheadFullException(name + " is at capacity"));
+                }
+                waiter = new Waiter();
+                waiters.addLast(waiter);
+            }
+            long start = System.nanoTime();
+            return waiter.sink.asMono()
+                    .doOnCancel(() -> abandon(waiter))
+                    .timeout(maxWait, Mono.error(() -> {
+                        rejected.increment();
+                        return new BulkheadFullException(name + " did not free up within " + maxWait);
+                    }))
+                    .doOnNext(permit -> waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private void abandon(Waiter waiter) {
+        Permit granted;
+        synchronized (this) {
+            if (waiters.remove(waiter)) {
+                return;
+            }
+            granted = waiter.permit;
+        }
+        // the permit was handed over as the waiter gave up; nobody will use it
+        if (granted != null) {
+            granted.releaseNow();
+        }
+    }
+
+    private void releasePermit() {
+        Waiter next;
+        synchronized (this) {
+            next = waiters.pollFirst();
+            if (next == null) {
+                active--;
+                return;
+            }
+            next.permit = new Permit();
+        }
+        next.sink.tryEmitValue(next.permit);
+    }
+
+    private static class Waiter {
+        final Sinks.One<Permit> sink = Sinks.one();
+        Permit permit;
+    }
+
+    private class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Mono<Void> release() {
+            return Mono.fromRunnable(this::releaseNow);
+        }
+
+        void releaseNow() {
+            if (released.compareAndSet(false, true)) {
+                releasePermit();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.sa.gateway.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a {@link Bulkhead} has no room left, which clients see as 503.
+ */
+public class BulkheadFullException extends ResponseStatusException {
+
+    public BulkheadFullException(String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+}
@@ -0,0 +1,50 @@
+package com.sa.gateway.util;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * A response body with the upstream headers needed to replay it. Times are
+ * {@link System#nanoTime()} values.
+ *
+ * @param varyHeaders request headers named by the upstream {@code Vary}, lower case
+ * @param varyValues  the values those headers had on the request that was cached
+ */
+public record CachedResponse(int status,
+                             HttpHeaders headers,
+                             byte[] body,
+                             List<String> varyHeaders,
+                             List<String> varyValues,
+                             long storedAt,
+                             long freshUntil,
+                             long staleUntil) {
+
+    public boolean isFresh(long now) {
+        return now - freshUntil < 0;
+    }
+
+    public boolean isUsable(long now) {
+        return now - staleUntil < 0;
+    }
+
+    public long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1_000_000_000L);
+    }
+
+    /** Whether this variant was produced for a request with the same varying headers. */
+    public boolean matches(HttpHeaders requestHeaders) {
+        return varyValues.equals(ResponseCache.varyValues(varyHeaders, requestHeaders));
+    }
+
+    int weight() {
+        int weight = 128 + body.length;
+        for (var header : headers.entrySet()) {
+            weight += header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+}
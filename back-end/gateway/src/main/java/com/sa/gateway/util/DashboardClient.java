@@ -0,0 +1,274 @@
+package com.sa.gateway.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Composes the dashboard from the auth, portfolio and quote services
+ * inside the gateway, so the browser makes one round trip instead of one
+ * per service and holding.
+ * <p>
+ * The profile and the holdings are fetched at the same time, the quotes
+ * for all holdings as soon as the holdings are in. Each part has its own
+ * time budget and the whole answer is sent within {@code bff.deadline}:
+ * a part that is slow or failing is returned with a TIMEOUT or ERROR
+ * marker instead of holding up or failing the rest. Quotes are read from
+ * and written to the gateway's response cache of the quotes route, so the
+ * dashboard and direct {@code /stocks} requests share them.
+ */
+@Service
+public class DashboardClient {
+
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.readOnlyHttpHeaders(new HttpHeaders());
+    private static final String LOAD_BALANCED_SCHEME = "lb://";
+
+    private final BffProperties properties;
+    private final IdentitySigner identitySigner;
+    private final ResponseCache cache;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final WebClient webClient;
+    private final WebClient loadBalancedWebClient;
+
+    public DashboardClient(BffProperties properties,
+                           IdentitySigner identitySigner,
+                           ResponseCache cache,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           WebClient.Builder webClientBuilder,
+                           ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancer) {
+        this.properties = properties;
+        this.identitySigner = identitySigner;
+        this.cache = cache;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.webClient = webClientBuilder.clone().build();
+        ReactorLoadBalancerExchangeFilterFunction lb = loadBalancer.getIfAvailable();
+        this.loadBalancedWebClient = lb == null ? null : webClientBuilder.clone().filter(lb).build();
+    }
+
+    /** How one part of the dashboard turned out. */
+    public enum Status { OK, PARTIAL, TIMEOUT, ERROR, SKIPPED }
+
+    /**
+     * One part of the dashboard.
+     *
+     * @param data  what the service returned, absent unless the status is OK or PARTIAL
+     * @param error why the data is missing or incomplete
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Section<T>(Status status, T data, String error) {
+
+        static <T> Section<T> ok(T data) {
+            return new Section<>(Status.OK, data, null);
+        }
+
+        static <T> Section<T> failed(Status status, String error) {
+            return new Section<>(status, null, error);
+        }
+    }
+
+    /**
+     * @param quotes quotes by symbol, in the order of the holdings
+     */
+    public record Dashboard(Section<JsonNode> profile,
+                            Section<JsonNode> holdings,
+                            Section<Map<String, Section<JsonNode>>> quotes) {}
+
+    /**
+     * @param claims        the verified token of the user asking
+     * @param authorization the Authorization header of the request, passed on to the services
+     */
+    public Mono<Dashboard> dashboard(Claims claims, String authorization) {
+        long start = System.nanoTime();
+        HttpHeaders headers = identitySigner.identityHeaders(claims);
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+            headers.set("X-Forwarded-Authorization", authorization);
+        }
+
+        Mono<Section<JsonNode>> profile = section("profile", get(properties.getAuthUrl(), "/auth/me", headers),
+                                                  start, properties.getProfileTimeout()).cache();
+        // tokens from before the user id claim existed: the profile has the id
+        String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+        Mono<String> owner = userId != null
+                ? Mono.just(userId)
+                : profile.mapNotNull(section -> section.data() == null ? null : section.data().path("id").asText(null));
+        Mono<Section<JsonNode>> holdings = owner
+                .flatMap(id -> section("holdings", get(properties.getPortfolioUrl(), "/portfolio/{userId}", headers, id),
+                                       start, properties.getHoldingsTimeout()))
+                .switchIfEmpty(Mono.fromSupplier(() -> record("holdings", Section.failed(Status.SKIPPED, "user id unknown"))))
+                .cache();
+        Mono<Section<Map<String, Section<JsonNode>>>> quotes = holdings.flatMap(section -> quotes(section, start));
+
+        return Mono.zip(profile, holdings, quotes)
+                .map(parts -> new Dashboard(parts.getT1(), parts.getT2(), parts.getT3()));
+    }
+
+    private Mono<Section<Map<String, Section<JsonNode>>>> quotes(Section<JsonNode> holdings, long start) {
+        if (holdings.status() != Status.OK) {
+            return Mono.just(record("quotes", Section.failed(Status.SKIPPED, "holdings unavailable")));
+        }
+        Set<String> symbols = new LinkedHashSet<>();
+        for (JsonNode holding : holdings.data().path("holdings")) {
+            String symbol = holding.path("symbol").asText("");
+            if (!symbol.isBlank() && symbols.size() < properties.getMaxQuotes()) {
+                symbols.add(symbol.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+
+        return Flux.fromIterable(symbols)
+                .flatMap(symbol -> section("quote", quote(symbol), start, properties.getDeadline())
+                                 .map(section -> Map.entry(symbol, section)),
+                         properties.getQuoteConcurrency())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(found -> {
+                    Map<String, Section<JsonNode>> ordered = new LinkedHashMap<>();
+                    symbols.forEach(symbol -> ordered.put(symbol, found.get(symbol)));
+                    return record("quotes", combine(ordered));
+                });
+    }
+
+    private static Section<Map<String, Section<JsonNode>>> combine(Map<String, Section<JsonNode>> quotes) {
+        List<String> missing = new ArrayList<>();
+        quotes.forEach((symbol, quote) -> {
+            if (quote.status() != Status.OK) {
+                missing.add(symbol);
+            }
+        });
+        if (missing.isEmpty()) {
+            return Section.ok(quotes);
+        }
+        Status status = missing.size() < quotes.size() ? Status.PARTIAL
+                : quotes.values().stream().allMatch(quote -> quote.status() == Status.TIMEOUT) ? Status.TIMEOUT
+                : Status.ERROR;
+        return new Section<>(status, quotes, "no quote for " + String.join(", ", missing));
+    }
+
+    /**
+     * A quote from the response cache of the quotes route when it has one,
+     * otherwise from the quote service, sharing a call already in flight.
+     */
+    private Mono<JsonNode> quote(String symbol) {
+        URI path = UriComponentsBuilder.fromPath("/stocks/{symbol}").buildAndExpand(symbol).encode().toUri();
+        String route = properties.getQuotesRoute();
+        Optional<ResponseCache.Policy> policy = cache.policy(route, path.getRawPath());
+        if (policy.isEmpty()) {
+            return fetch(path).flatMap(response -> parse(response.getBody()));
+        }
+        String baseKey = ResponseCache.baseKey(route, path);
+        CachedResponse cached = cache.lookup(baseKey, NO_HEADERS);
+        if (cached != null) {
+            return parse(cached.body());
+        }
+
+        ResponseCache.Flight flight = cache.begin(cache.key(baseKey, NO_HEADERS));
+        if (!flight.leader()) {
+            return Mono.fromFuture(flight.future(), true).flatMap(shared -> shared
+                    .map(response -> parse(response.body()))
+                    .orElseGet(() -> fetch(path).flatMap(response -> parse(response.getBody()))));
+        }
+        return fetch(path)
+                .doOnNext(response -> cache.finish(flight, cache.store(baseKey, response.getStatusCode().value(),
+                                                                       response.getHeaders(), body(response),
+                                                                       NO_HEADERS, policy.get())))
+                .doFinally(signal -> cache.finish(flight, null))
+                .flatMap(response -> parse(response.getBody()));
+    }
+
+    private Mono<ResponseEntity<byte[]>> fetch(URI path) {
+        return client(properties.getQuotesUrl())
+                .flatMap(client -> client.get()
+                        .uri(baseUrl(properties.getQuotesUrl()) + path.getRawPath())
+                        .retrieve()
+                        .toEntity(byte[].class));
+    }
+
+    private Mono<JsonNode> get(String baseUrl, String path, HttpHeaders headers, Object... variables) {
+        return client(baseUrl).flatMap(client -> client.get()
+                .uri(baseUrl(baseUrl) + path, variables)
+                .headers(request -> request.addAll(headers))
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+    }
+
+    private Mono<WebClient> client(String baseUrl) {
+        if (!baseUrl.startsWith(LOAD_BALANCED_SCHEME)) {
+            return Mono.just(webClient);
+        }
+        return loadBalancedWebClient != null
+                ? Mono.just(loadBalancedWebClient)
+                : Mono.error(new IllegalStateException("No load balancer for " + baseUrl));
+    }
+
+    private static String baseUrl(String baseUrl) {
+        return baseUrl.startsWith(LOAD_BALANCED_SCHEME)
+                ? "http://" + baseUrl.substring(LOAD_BALANCED_SCHEME.length())
+                : baseUrl;
+    }
+
+    /** Runs a call that has to finish within a budget counted from the start of the dashboard. */
+    private <T> Mono<Section<T>> section(String name, Mono<T> call, long start, Duration budget) {
+        return Mono.defer(() -> {
+            long left = budget.toNanos() - (System.nanoTime() - start);
+            return call.timeout(Duration.ofNanos(Math.max(0, left)))
+                    .map(Section::ok)
+                    .defaultIfEmpty(Section.failed(Status.ERROR, "empty response"))
+                    .onErrorResume(e -> Mono.just(e instanceof TimeoutException
+                            ? Section.failed(Status.TIMEOUT, "no answer within " + budget.toMillis() + "ms")
+                            : Section.failed(Status.ERROR, describe(e))))
+                    .map(section -> record(name, section));
+        });
+    }
+
+    private <T> Section<T> record(String name, Section<T> section) {
+        Counter.builder("bff.dashboard.sections")
+                .description("Parts of composed dashboards, by how they turned out")
+                .tag("section", name)
+                .tag("status", section.status().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+        return section;
+    }
+
+    private Mono<JsonNode> parse(byte[] body) {
+        return Mono.fromCallable(() -> objectMapper.readTree(body == null ? new byte[0] : body));
+    }
+
+    private static byte[] body(ResponseEntity<byte[]> response) {
+        return response.getBody() == null ? new byte[0] : response.getBody();
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return "upstream answered " + response.getStatusCode().value();
+        }
+        return "upstream unavailable";
+    }
+}
@@ -0,0 +1,56 @@
+package com.sa.gateway.util;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits hedges to a share of the hedgeable requests, so that hedging
+ * cannot multiply the load on services that are slow because they are
+ * overloaded. Every hedgeable request deposits {@code hedging.budget.ratio}
+ * of a token and every hedge takes one; on top of that a trickle of
+ * {@code minimum-per-second} tokens keeps hedging possible at low traffic.
+ * Unused tokens are capped at one second's worth of that trickle, so a
+ * quiet period does not save up for a burst.
+ */
+@Component
+public class HedgeBudget {
+
+    private final double ratio;
+    private final double perNano;
+    private final double capacity;
+
+    // guarded by this
+    private double tokens;
+    private long updatedAt = System.nanoTime();
+
+    public HedgeBudget(HedgingProperties properties) {
+        this.ratio = properties.getBudget().getRatio();
+        this.perNano = properties.getBudget().getMinimumPerSecond() / 1e9;
+        this.capacity = Math.max(1, properties.getBudget().getMinimumPerSecond());
+        this.tokens = capacity;
+    }
+
+    /** Called for every request that may be hedged. */
+    public synchronized void deposit() {
+        refill(System.nanoTime());
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    /** Takes the token for one hedge, if there is one. */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - updatedAt) * perNano);
+        updatedAt = now;
+    }
+}
@@ -0,0 +1,49 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "hedging")
+public class HedgingProperties {
+    private boolean enabled = true;
+    /** Hedged responses are buffered before they are sent on; larger ones fail with 502. */
+    private DataSize maximumResponseSize = DataSize.ofMegabytes(1);
+    private Budget budget = new Budget();
+    /** Routes to hedge, by route id. Only GETs to the listed paths of lb:// routes are hedged. */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Budget {
+        /** Hedges allowed per hedgeable request, across all routes. */
+        private double ratio = 0.05;
+        /** Hedges allowed per second regardless of traffic, so quiet routes can still hedge. */
+        private double minimumPerSecond = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class Route {
+        /** Path patterns of idempotent GETs; nothing is hedged without them. */
+        private List<String> paths = new ArrayList<>();
+        /** Observed latency percentile after which a hedge is sent. */
+        private double percentile = 0.95;
+        private Duration minimumDelay = Duration.ofMillis(20);
+        /** Upper bound on the delay, also used until enough latencies are observed. */
+        private Duration maximumDelay = Duration.ofSeconds(1);
+        /** Recent latencies the percentile is taken over. */
+        private int samples = 1000;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secret shared with downstream services to sign the identity headers the
+ * gateway forwards. Without one the headers are not signed and services
+ * fall back to verifying the token themselves.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "identity")
+public class IdentityProperties {
+    private String secret;
+}
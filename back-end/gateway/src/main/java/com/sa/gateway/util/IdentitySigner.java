@@ -0,0 +1,54 @@
+package com.sa.gateway.util;
+
+import com.sa.identity.IdentityHeaders;
+import com.sa.identity.IdentitySignature;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs the identity of a verified token for downstream services, which
+ * verify it with the same {@link IdentitySignature} instead of the JWT.
+ */
+@Component
+public class IdentitySigner {
+
+    private final IdentitySignature signature;
+
+    public IdentitySigner(IdentityProperties identityProperties) {
+        this.signature = new IdentitySignature(identityProperties.getSecret());
+    }
+
+    public boolean isEnabled() {
+        return signature.isEnabled();
+    }
+
+    /**
+     * Identity headers for the claims of a verified token: the email, plus
+     * the signed identity when signing is configured. Tokens issued before
+     * the user id claim existed only get the unsigned email header.
+     */
+    public HttpHeaders identityHeaders(Claims claims) {
+        HttpHeaders headers = new HttpHeaders();
+        if (claims == null || claims.getSubject() == null) {
+            return headers;
+        }
+        headers.set(IdentityHeaders.USER_EMAIL, claims.getSubject());
+        String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+        if (!isEnabled() || userId == null || claims.getExpiration() == null) {
+            return headers;
+        }
+        long expiresAt = claims.getExpiration().getTime() / 1000;
+        headers.set(IdentityHeaders.USER_ID, userId);
+        headers.set(IdentityHeaders.TOKEN_EXPIRES, Long.toString(expiresAt));
+        headers.set(IdentityHeaders.SIGNATURE, sign(userId, claims.getSubject(), expiresAt));
+        return headers;
+    }
+
+    /**
+     * @param expiresAt token expiry in epoch seconds
+     */
+    public String sign(String userId, String email, long expiresAt) {
+        return signature.sign(userId, email, expiresAt);
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @Component
@@ -13,5 +15,9 @@ public class JwtProperties {
     private long expiration;
     private long refreshExpiration;
     private String secret;
+    /** Upper bound on the number of verified tokens kept in memory. */
+    private long cacheMaximumSize = 10_000;
+    /** Longest time a verified token is cached, also for tokens without an expiry. */
+    private Duration cacheMaxTtl = Duration.ofMinutes(15);
 }
 
@@ -1,36 +1,122 @@
 package com.sa.gateway.util;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Verifies access tokens.
+ * <p>
+ * The parser and signing key are built once; the parser is immutable and
+ * shared by all requests. Verified claims are cached under the SHA-256 of
+ * the token until the token expires (at most {@code jwt.cache-max-ttl}),
+ * so a client repeating the same token skips parsing and the signature
+ * check. Only valid tokens are cached.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtUtil {
 
-    private final JwtProperties jwtProperties;
+    /** Exchange attribute holding the {@link Claims} of the request's verified token. */
+    public static final String CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".claims";
+
+    /** Claim holding the user's id in access tokens issued by the auth-service. */
+    public static final String USER_ID_CLAIM = "uid";
+
+    private final JwtParser parser;
+    private final Cache<String, Claims> verified;
+    private final long maxTtlNanos;
+
+    public JwtUtil(JwtProperties jwtProperties) {
+        String secret = jwtProperties.getSecret();
+        this.parser = secret == null || secret.isEmpty() ? null : Jwts.parserBuilder()
+                .setSigningKey(secret.getBytes())
+                .build();
+        this.maxTtlNanos = jwtProperties.getCacheMaxTtl().toNanos();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaximumSize())
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /**
+     * Claims of a valid token, or empty when the signature is wrong, the
+     * token is malformed or it has expired.
+     */
+    public Optional<Claims> verify(String token) {
+        if (parser == null || token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null) {
+            // the cache expires entries at exp, but only to its own timer resolution
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.getTime() > System.currentTimeMillis()) {
+                return Optional.of(claims);
+            }
+            verified.invalidate(key);
+            return Optional.empty();
+        }
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        verified.put(key, claims);
+        return Optional.of(claims);
+    }
 
     public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtProperties.getSecret().getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).map(Claims::getSubject).orElse(null);
     }
 
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    private static String hash(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(jwtProperties.getSecret().getBytes())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM ships SHA-256
         }
     }
 
+    private class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return maxTtlNanos;
+            }
+            long remaining = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
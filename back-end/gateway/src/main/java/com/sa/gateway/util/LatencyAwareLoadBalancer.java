@@ -0,0 +1,268 @@
+package com.sa.gateway.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks a service instance by the power of two choices: two instances are
+ * drawn at random and the one with the lower cost gets the request. The
+ * cost is a moving average of the instance's response times, multiplied by
+ * the requests it has in flight plus one, so a slow or busy instance gets
+ * less traffic without the herding a plain "fastest first" choice causes.
+ * The average follows an increase at once and decays back over
+ * {@code load-balancing.decay}, so a slowing instance is avoided quickly
+ * and an idle one is tried again after a while.
+ * <p>
+ * Instances failing more than {@code load-balancing.ejection.failure-rate}
+ * of their recent requests are left out for a while, longer each time,
+ * but never more than {@code maximum-ejected-share} of the instances at
+ * once.
+ * <p>
+ * Observations come in through the {@link LoadBalancerLifecycle} callbacks
+ * the gateway's load balancer filter makes for every request. A request
+ * that never reports an outcome, such as one cancelled by its client,
+ * stops counting as in flight after {@code load-balancing.pending-timeout}.
+ */
+public class LatencyAwareLoadBalancer
+        implements ReactorServiceInstanceLoadBalancer, LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final LoadBalancingProperties properties;
+    private final double decayNanos;
+    private final Counter ejections;
+
+    private final ConcurrentHashMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    /** Requests in flight, by identity; dropped ones are collected or time out. Removal ends the request. */
+    private final Cache<Request<?>, Pending> pending;
+
+    public LatencyAwareLoadBalancer(String serviceId,
+                                    ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                    LoadBalancingProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.suppliers = suppliers;
+        this.properties = properties;
+        this.decayNanos = properties.getDecay().toNanos();
+        this.ejections = Counter.builder("gateway.loadbalancer.ejections")
+                .description("Instances taken out of rotation for failing")
+                .tag("service", serviceId)
+                .register(meterRegistry);
+        this.pending = Caffeine.newBuilder()
+                .weakKeys()
+                .expireAfterWrite(properties.getPendingTimeout())
+                .executor(Runnable::run)
+                .removalListener((Request<?> request, Pending started, RemovalCause cause) -> {
+                    if (started != null) {
+                        started.stats().finished();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> choose(instances, System.nanoTime()));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, long now) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        forgetRemoved(instances);
+        List<ServiceInstance> available = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!stats(instance).isEjected(now)) {
+                available.add(instance);
+            }
+        }
+        if (available.isEmpty()) {
+            available = instances;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ServiceInstance chosen = available.get(random.nextInt(available.size()));
+        if (available.size() > 1) {
+            int other = random.nextInt(available.size() - 1);
+            ServiceInstance second = available.get(other >= available.indexOf(chosen) ? other + 1 : other);
+            double firstCost = stats(chosen).cost(now);
+            double secondCost = stats(second).cost(now);
+            if (secondCost < firstCost || (secondCost == firstCost && random.nextBoolean())) {
+                chosen = second;
+            }
+        }
+        return new DefaultResponse(chosen);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse.hasServer()) {
+            InstanceStats instance = stats(lbResponse.getServer());
+            instance.started();
+            pending.put(request, new Pending(instance, System.nanoTime()));
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        Request<RequestDataContext> request = completion.getLoadBalancerRequest();
+        Pending started = request == null ? null : pending.asMap().remove(request);
+        if (started == null || completion.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        long now = System.nanoTime();
+        ResponseData response = completion.getClientResponse();
+        boolean failed = completion.status() == CompletionContext.Status.FAILED
+                || response == null
+                || (response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        if (started.stats().observe(now - started.start(), failed, now) && mayEject(now)) {
+            started.stats().eject(now);
+            ejections.increment();
+        }
+    }
+
+    private boolean mayEject(long now) {
+        long ejected = stats.values().stream().filter(instance -> instance.isEjected(now)).count();
+        return ejected + 1 <= Math.floor(stats.size() * properties.getEjection().getMaximumEjectedShare());
+    }
+
+    InstanceStats stats(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), k -> new InstanceStats());
+    }
+
+    private void forgetRemoved(List<ServiceInstance> instances) {
+        if (stats.size() > instances.size()) {
+            Set<String> current = new HashSet<>();
+            instances.forEach(instance -> current.add(key(instance)));
+            stats.keySet().retainAll(current);
+        }
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static final double UNMEASURED_PENALTY_NANOS = 1e12;
+
+    private record Pending(InstanceStats stats, long start) {
+    }
+
+    /**
+     * What is known about one instance. Updates are rare next to the time
+     * a request takes, so a lock is cheap here.
+     */
+    class InstanceStats {
+
+        private int inFlight;
+        private double latencyNanos;
+        private long observedAt;
+        private double successes;
+        private double failures;
+        private long decayedAt;
+        private long ejectedUntil;
+        private boolean everEjected;
+        private int timesEjected;
+
+        synchronized void started() {
+            inFlight++;
+        }
+
+        synchronized void finished() {
+            inFlight = Math.max(0, inFlight - 1);
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        /** Expected wait for a new request: decayed average latency times the queue it joins. */
+        synchronized double cost(long now) {
+            if (latencyNanos == 0) {
+                // not measured yet: try it, but not with everything at once
+                return UNMEASURED_PENALTY_NANOS * inFlight;
+            }
+            return latencyNanos * weight(now - observedAt) * (inFlight + 1);
+        }
+
+        /**
+         * Adds a finished request.
+         *
+         * @return whether the instance now fails often enough to be ejected
+         */
+        synchronized boolean observe(long latency, boolean failed, long now) {
+            double w = weight(now - observedAt);
+            latencyNanos = Math.max(1, latency > latencyNanos ? latency : latencyNanos * w + latency * (1 - w));
+            observedAt = now;
+
+            double volumeWeight = weight(now - decayedAt);
+            successes = successes * volumeWeight + (failed ? 0 : 1);
+            failures = failures * volumeWeight + (failed ? 1 : 0);
+            decayedAt = now;
+            double volume = successes + failures;
+            LoadBalancingProperties.Ejection ejection = properties.getEjection();
+            if (volume < ejection.getMinimumRequests()) {
+                return false;
+            }
+            if (failures / volume < ejection.getFailureRate()) {
+                timesEjected = 0;
+                return false;
+            }
+            return !isEjected(now);
+        }
+
+        synchronized void eject(long now) {
+            LoadBalancingProperties.Ejection ejection = properties.getEjection();
+            long time = Math.min(ejection.getTime().toNanos() << Math.min(timesEjected, 20),
+                                 ejection.getMaximumTime().toNanos());
+            timesEjected++;
+            everEjected = true;
+            ejectedUntil = now + time;
+            successes = 0;
+            failures = 0;
+        }
+
+        synchronized boolean isEjected(long now) {
+            return everEjected && now - ejectedUntil < 0;
+        }
+
+        private double weight(long elapsedNanos) {
+            return elapsedNanos <= 0 ? 1 : Math.exp(-elapsedNanos / decayNanos);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sa.gateway.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile of the most recent latencies of one route.
+ * <p>
+ * Latencies go into a ring buffer without locking. The percentile is
+ * computed from a sorted copy, at most once a second and only when asked
+ * for, so recording stays cheap on the request path.
+ */
+public class LatencyTracker {
+
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    private final AtomicLongArray latencies;
+    private final AtomicLong recorded = new AtomicLong();
+    private final double percentile;
+    private final int minimumSamples;
+
+    private volatile long cachedAt = Long.MIN_VALUE;
+    private volatile long cached = -1;
+
+    public LatencyTracker(int samples, double percentile) {
+        this.latencies = new AtomicLongArray(samples);
+        this.percentile = percentile;
+        this.minimumSamples = Math.min(samples, 20);
+    }
+
+    public void record(long nanos) {
+        latencies.set((int) (recorded.getAndIncrement() % latencies.length()), nanos);
+    }
+
+    /** The percentile in nanoseconds, or -1 while too few latencies are known. */
+    public long percentile() {
+        return percentile(System.nanoTime());
+    }
+
+    long percentile(long now) {
+        if (cachedAt != Long.MIN_VALUE && now - cachedAt < REFRESH_NANOS) {
+            return cached;
+        }
+        int count = (int) Math.min(recorded.get(), latencies.length());
+        long value = -1;
+        if (count >= minimumSamples) {
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            value = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+        cached = value;
+        cachedAt = now;
+        return value;
+    }
+}
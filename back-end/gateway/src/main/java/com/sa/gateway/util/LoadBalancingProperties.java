@@ -0,0 +1,36 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "load-balancing")
+public class LoadBalancingProperties {
+    /** When false, lb:// routes keep the default round-robin choice. */
+    private boolean enabled = true;
+    /** Time constant of the moving averages; older observations weigh less. */
+    private Duration decay = Duration.ofSeconds(10);
+    /** Requests without an outcome after this long no longer count as in flight. */
+    private Duration pendingTimeout = Duration.ofMinutes(2);
+    private Ejection ejection = new Ejection();
+
+    @Getter
+    @Setter
+    public static class Ejection {
+        /** Share of failed requests (5xx or no response) at which an instance is taken out. */
+        private double failureRate = 0.5;
+        /** Recent requests needed before the failure rate is trusted. */
+        private int minimumRequests = 10;
+        /** How long an instance stays out the first time; doubles each time it is taken out again. */
+        private Duration time = Duration.ofSeconds(30);
+        private Duration maximumTime = Duration.ofMinutes(5);
+        /** Never take out more than this share of a service's instances. */
+        private double maximumEjectedShare = 0.5;
+    }
+}
@@ -0,0 +1,47 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    /** Upper bound on the number of buckets kept in memory; idle ones are dropped first. */
+    private long maximumBuckets = 200_000;
+    /** Limits for proxied routes, by route id. */
+    private Map<String, Limit> routes = new LinkedHashMap<>();
+    /** Limits for endpoints the gateway serves itself, such as /agent, matched by {@link Limit#getPaths()}. */
+    private Map<String, Limit> local = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        /** Requests allowed per period, per user or client address. */
+        private int limit = 60;
+        private Duration period = Duration.ofMinutes(1);
+        /** Requests that may be made at once after being idle; defaults to the limit. */
+        private int burst;
+        /** Path patterns, only used for local limits. */
+        private List<String> paths = new ArrayList<>();
+
+        public int effectiveBurst() {
+            return burst > 0 ? burst : limit;
+        }
+
+        /** Time between two requests at the sustained rate. */
+        public long emissionIntervalNanos() {
+            return Math.max(1, period.toNanos() / limit);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.sa.gateway.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory rate limiter for a single gateway instance.
+ * <p>
+ * Each bucket is one {@code AtomicLong} holding the theoretical arrival
+ * time of the next request (the generic cell rate algorithm), which gives
+ * the same results as a token bucket refilled one token per emission
+ * interval. A request is admitted with a compare-and-set, so there are no
+ * locks and no refill timers. A bucket left alone for a full refill is
+ * indistinguishable from a new one, so buckets expire after that long
+ * without access, and the cache is bounded by {@code rate-limit.maximum-buckets}.
+ */
+@Component
+public class RateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        long refillNanos = Stream.concat(properties.getRoutes().values().stream(),
+                                         properties.getLocal().values().stream())
+                .mapToLong(limit -> limit.emissionIntervalNanos() * limit.effectiveBurst())
+                .max()
+                .orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumBuckets())
+                .expireAfterAccess(Duration.ofNanos(Math.max(refillNanos, Duration.ofSeconds(1).toNanos())))
+                .build();
+    }
+
+    public Decision tryAcquire(String key, RateLimitProperties.Limit limit) {
+        return tryAcquire(key, limit, System.nanoTime());
+    }
+
+    Decision tryAcquire(String key, RateLimitProperties.Limit limit, long now) {
+        long interval = limit.emissionIntervalNanos();
+        int burst = limit.effectiveBurst();
+        long tolerance = interval * burst;
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + interval;
+            long allowedAt = next - tolerance;
+            if (now - allowedAt < 0) {
+                return new Decision(false, limit.getLimit(), 0, allowedAt - now, Math.max(0, arrival - now));
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return new Decision(true, limit.getLimit(), (int) ((now - allowedAt) / interval), 0, next - now);
+            }
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * @param limit           requests allowed per period at the sustained rate
+     * @param remaining       requests that would be admitted right now, at most the burst
+     * @param retryAfterNanos time until a request would be admitted, zero when admitted
+     * @param resetNanos      time until the bucket is full again
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long retryAfterNanos, long resetNanos) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.sa.gateway.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store for upstream GET responses.
+ * <p>
+ * Entries are keyed by route, path and query, plus the values of the
+ * request headers the upstream named in {@code Vary}. The cache is bounded
+ * by the bytes it holds. An entry is fresh for its ttl and may then be
+ * served stale for {@code stale-while-revalidate} while it is refreshed;
+ * both come from the route configuration unless the upstream's
+ * {@code Cache-Control} says otherwise. Upstream calls for the same key
+ * are tracked so concurrent misses share one call.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade",
+            "proxy-authenticate", "proxy-authorization", "content-length", "age", "vary");
+
+    private final ResponseCacheProperties properties;
+    private final Map<String, List<RoutePath>> paths = new HashMap<>();
+    private final Cache<String, CachedResponse> entries;
+    /** Request headers each upstream response varies on, by base key. */
+    private final Cache<String, List<String>> varyHeaders;
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<CachedResponse>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    public ResponseCache(ResponseCacheProperties properties) {
+        this.properties = properties;
+        properties.getRoutes().forEach((routeId, route) -> {
+            List<RoutePath> routePaths = new ArrayList<>();
+            route.getPaths().forEach((pattern, ttl) -> routePaths.add(
+                    new RoutePath(PathPatternParser.defaultInstance.parse(pattern), ttl)));
+            paths.put(routeId, routePaths);
+        });
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.weight())
+                .expireAfter(new UntilStale())
+                .build();
+        this.varyHeaders = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    /** How long a response may be cached, or empty when the route is not cached at all. */
+    public Optional<Policy> policy(String routeId, String path) {
+        ResponseCacheProperties.Route route = properties.getRoutes().get(routeId);
+        if (!properties.isEnabled() || route == null) {
+            return Optional.empty();
+        }
+        Duration ttl = route.getTtl();
+        PathContainer container = PathContainer.parsePath(path);
+        for (RoutePath routePath : paths.get(routeId)) {
+            if (routePath.pattern().matches(container)) {
+                ttl = routePath.ttl();
+                break;
+            }
+        }
+        return Optional.of(new Policy(ttl, route.getStaleWhileRevalidate()));
+    }
+
+    public static String baseKey(String routeId, URI uri) {
+        String query = uri.getRawQuery();
+        return routeId + " " + uri.getRawPath() + (query == null ? "" : "?" + query);
+    }
+
+    /** The key of the variant a request maps to, as far as its {@code Vary} is known yet. */
+    public String key(String baseKey, HttpHeaders requestHeaders) {
+        List<String> vary = varyHeaders.getIfPresent(baseKey);
+        return vary == null || vary.isEmpty() ? baseKey : variantKey(baseKey, varyValues(vary, requestHeaders));
+    }
+
+    /** A fresh or still usable stale response for the request, or null. */
+    public CachedResponse lookup(String baseKey, HttpHeaders requestHeaders) {
+        CachedResponse response = entries.getIfPresent(key(baseKey, requestHeaders));
+        if (response == null || !response.isUsable(System.nanoTime()) || !response.matches(requestHeaders)) {
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Starts an upstream call for a key. When one is already running the
+     * returned flight is a follower that completes with the leader's result.
+     */
+    public Flight begin(String key) {
+        CompletableFuture<Optional<CachedResponse>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedResponse>> running = inFlight.putIfAbsent(key, future);
+        return running == null ? new Flight(key, future, true) : new Flight(key, running, false);
+    }
+
+    /** Completes a leading flight; later calls for the same flight are ignored. */
+    public void finish(Flight flight, CachedResponse response) {
+        inFlight.remove(flight.key(), flight.future());
+        flight.future().complete(Optional.ofNullable(response));
+    }
+
+    /**
+     * Caches an upstream response when its status and {@code Cache-Control}
+     * allow it.
+     *
+     * @param upstreamHeaders headers set by the upstream, not by the gateway
+     * @return the cached entry, or null when the response is not cacheable
+     */
+    public CachedResponse store(String baseKey, int status, HttpHeaders upstreamHeaders, byte[] body,
+                                HttpHeaders requestHeaders, Policy policy) {
+        if (status != HttpStatus.OK.value() || body.length > properties.getMaximumEntrySize().toBytes()
+                || upstreamHeaders.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        List<String> vary = upstreamHeaders.getVary().stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+        if (vary.contains("*")) {
+            return null;
+        }
+
+        Map<String, String> cacheControl = cacheControl(upstreamHeaders);
+        if (cacheControl.containsKey("no-store") || cacheControl.containsKey("private")
+                || cacheControl.containsKey("no-cache")) {
+            return null;
+        }
+        Duration ttl = seconds(cacheControl.getOrDefault("s-maxage", cacheControl.get("max-age")), policy.ttl());
+        Duration stale = seconds(cacheControl.get("stale-while-revalidate"), policy.staleWhileRevalidate());
+        if (ttl.isZero() && stale.isZero()) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        upstreamHeaders.forEach((name, values) -> {
+            if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        long now = System.nanoTime();
+        List<String> values = varyValues(vary, requestHeaders);
+        CachedResponse response = new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body,
+                                                     vary, values, now, now + ttl.toNanos(),
+                                                     now + ttl.toNanos() + stale.toNanos());
+        varyHeaders.put(baseKey, vary);
+        entries.put(vary.isEmpty() ? baseKey : variantKey(baseKey, values), response);
+        return response;
+    }
+
+    /** Whether the client asked for the response not to be stored at all. */
+    public static boolean isNoStore(HttpHeaders requestHeaders) {
+        return cacheControl(requestHeaders).containsKey("no-store");
+    }
+
+    /** Whether the client asked for a response fetched from the upstream. */
+    public static boolean isNoCache(HttpHeaders requestHeaders) {
+        Map<String, String> cacheControl = cacheControl(requestHeaders);
+        return cacheControl.containsKey("no-cache") || "0".equals(cacheControl.get("max-age"))
+                || requestHeaders.getOrEmpty(HttpHeaders.PRAGMA).contains("no-cache");
+    }
+
+    /** Runs pending evictions, which Caffeine otherwise does asynchronously. */
+    void cleanUp() {
+        entries.cleanUp();
+    }
+
+    static List<String> varyValues(List<String> varyHeaders, HttpHeaders requestHeaders) {
+        List<String> values = new ArrayList<>(varyHeaders.size());
+        for (String name : varyHeaders) {
+            values.add(String.join(",", requestHeaders.getOrEmpty(name)));
+        }
+        return values;
+    }
+
+    private static String variantKey(String baseKey, List<String> varyValues) {
+        return baseKey + "\n" + String.join("\n", varyValues);
+    }
+
+    private static Map<String, String> cacheControl(HttpHeaders headers) {
+        Map<String, String> directives = new HashMap<>();
+        for (String header : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : header.split(",")) {
+                int eq = directive.indexOf('=');
+                String name = (eq < 0 ? directive : directive.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+                String value = eq < 0 ? "" : directive.substring(eq + 1).trim().replace("\"", "");
+                if (!name.isEmpty()) {
+                    directives.putIfAbsent(name, value);
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static Duration seconds(String value, Duration fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /** Configured freshness for a route and path. */
+    public record Policy(Duration ttl, Duration staleWhileRevalidate) {
+    }
+
+    /** An upstream call in progress; only the leader makes the call. */
+    public record Flight(String key, CompletableFuture<Optional<CachedResponse>> future, boolean leader) {
+    }
+
+    private record RoutePath(PathPattern pattern, Duration ttl) {
+    }
+
+    private static class UntilStale implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return Math.max(0, response.staleUntil() - System.nanoTime());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    /** Total size of the cached bodies and headers. */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+    /** Larger responses are streamed through without being cached. */
+    private DataSize maximumEntrySize = DataSize.ofKilobytes(512);
+    /** Routes whose GET responses are cached, by route id. */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        /** How long a response is served without asking the upstream. */
+        private Duration ttl = Duration.ofSeconds(60);
+        /** How long an expired response may still be served while it is refreshed in the background. */
+        private Duration staleWhileRevalidate = Duration.ZERO;
+        /** Ttl overrides by path pattern; the first matching pattern wins. */
+        private Map<String, Duration> paths = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,21 @@
+package com.sa.gateway.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+    /** The symbol catalog, a JSON array of {symbol, name}; the alpha-service's stocks.json. */
+    private String catalog = "file:../alpha-service/stocks.json";
+    /** How often the catalog file is checked for changes. */
+    private Duration reloadInterval = Duration.ofSeconds(30);
+    /** Results per search. */
+    private int size = 10;
+}
@@ -0,0 +1,409 @@
+package com.sa.gateway.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable in-memory index over the symbol catalog, answering the query
+ * the alpha-service used to send to Elasticsearch: a bool query that
+ * should-matches a symbol prefix, the name with fuzziness AUTO and the name
+ * as a phrase prefix, with the scores of the matching clauses added up.
+ * <ul>
+ * <li>Symbol prefix: a constant 1, found by binary search over the sorted
+ * symbols.</li>
+ * <li>Fuzzy name: each query word adds the BM25 score of the closest name
+ * word of a stock within 0, 1 or 2 edits (by word length, transpositions
+ * counting as one), scaled down by {@code 1 - edits / length} as Lucene
+ * does. Words within reach are found through a bigram index over the name
+ * vocabulary and confirmed with a bounded edit distance.</li>
+ * <li>Phrase prefix: the query words in order, the last one as a prefix
+ * expanded to at most 50 name words, scored as the sum of their BM25
+ * scores.</li>
+ * </ul>
+ * Names are split on anything but letters and digits and lower cased.
+ * Ties go to the shorter, then alphabetically first, symbol.
+ */
+public final class SymbolIndex {
+
+    /** Terms a fuzzy word or the phrase's last word expands to, as in Elasticsearch. */
+    private static final int MAX_EXPANSIONS = 50;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    public record Stock(String symbol, String name) {
+    }
+
+    public record Hit(String symbol, String name, float score) {
+    }
+
+    private final String[] symbols;
+    private final String[] names;
+    /** Name words of each stock as term ids, in order. */
+    private final int[][] nameTerms;
+    /** BM25 length normalisation of each stock's name, for a term that occurs once. */
+    private final float[] norms;
+    /** Sorted name vocabulary. */
+    private final String[] terms;
+    private final float[] idf;
+    /** Stocks whose name has the term, ascending. */
+    private final int[][] postings;
+    /** Terms containing the bigram, ascending, keyed by the two chars packed into an int. */
+    private final Map<Integer, int[]> bigrams;
+
+    private SymbolIndex(String[] symbols, String[] names, int[][] nameTerms, float[] norms, String[] terms,
+                        float[] idf, int[][] postings, Map<Integer, int[]> bigrams) {
+        this.symbols = symbols;
+        this.names = names;
+        this.nameTerms = nameTerms;
+        this.norms = norms;
+        this.terms = terms;
+        this.idf = idf;
+        this.postings = postings;
+        this.bigrams = bigrams;
+    }
+
+    public static SymbolIndex build(List<Stock> catalog) {
+        TreeMap<String, Stock> bySymbol = new TreeMap<>();
+        for (Stock stock : catalog) {
+            if (stock.symbol() != null && !stock.symbol().isBlank()) {
+                String symbol = stock.symbol().trim().toUpperCase(Locale.ROOT);
+                bySymbol.putIfAbsent(symbol, new Stock(symbol, stock.name() == null ? "" : stock.name().trim()));
+            }
+        }
+        int count = bySymbol.size();
+        String[] symbols = new String[count];
+        String[] names = new String[count];
+        List<List<String>> words = new ArrayList<>(count);
+        TreeMap<String, Integer> vocabulary = new TreeMap<>();
+        int i = 0;
+        long totalLength = 0;
+        for (Stock stock : bySymbol.values()) {
+            symbols[i] = stock.symbol();
+            names[i] = stock.name();
+            List<String> tokens = tokenize(stock.name());
+            tokens.forEach(token -> vocabulary.put(token, 0));
+            words.add(tokens);
+            totalLength += tokens.size();
+            i++;
+        }
+
+        String[] terms = vocabulary.keySet().toArray(new String[0]);
+        for (int t = 0; t < terms.length; t++) {
+            vocabulary.put(terms[t], t);
+        }
+        float averageLength = count == 0 ? 1 : Math.max(1, totalLength / (float) count);
+        int[][] nameTerms = new int[count][];
+        float[] norms = new float[count];
+        List<List<Integer>> postingLists = new ArrayList<>(terms.length);
+        for (int t = 0; t < terms.length; t++) {
+            postingLists.add(new ArrayList<>(1));
+        }
+        for (int doc = 0; doc < count; doc++) {
+            List<String> tokens = words.get(doc);
+            nameTerms[doc] = new int[tokens.size()];
+            for (int w = 0; w < tokens.size(); w++) {
+                int term = vocabulary.get(tokens.get(w));
+                nameTerms[doc][w] = term;
+                List<Integer> posting = postingLists.get(term);
+                if (posting.isEmpty() || posting.get(posting.size() - 1) != doc) {
+                    posting.add(doc);
+                }
+            }
+            norms[doc] = (K1 + 1) / (1 + K1 * (1 - B + B * tokens.size() / averageLength));
+        }
+
+        int[][] postings = new int[terms.length][];
+        float[] idf = new float[terms.length];
+        Map<Integer, List<Integer>> bigramLists = new HashMap<>();
+        for (int t = 0; t < terms.length; t++) {
+            postings[t] = postingLists.get(t).stream().mapToInt(Integer::intValue).toArray();
+            idf[t] = (float) Math.log(1 + (count - postings[t].length + 0.5) / (postings[t].length + 0.5));
+            for (int gram : bigramsOf(terms[t])) {
+                bigramLists.computeIfAbsent(gram, key -> new ArrayList<>()).add(t);
+            }
+        }
+        Map<Integer, int[]> bigrams = new HashMap<>(bigramLists.size() * 2);
+        bigramLists.forEach((gram, list) -> bigrams.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+        return new SymbolIndex(symbols, names, nameTerms, norms, terms, idf, postings, bigrams);
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /** The best {@code size} stocks for a query, best first. */
+    public List<Hit> search(String query, int size) {
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.isEmpty() || symbols.length == 0) {
+            return List.of();
+        }
+        Scores scores = new Scores(symbols.length);
+        symbolPrefix(trimmed.toUpperCase(Locale.ROOT), scores);
+        List<String> words = tokenize(trimmed);
+        if (!words.isEmpty()) {
+            fuzzyName(words, scores);
+            phrasePrefix(words, scores);
+        }
+        return scores.top(size);
+    }
+
+    private void symbolPrefix(String prefix, Scores scores) {
+        int from = lowerBound(symbols, prefix);
+        for (int doc = from; doc < symbols.length && symbols[doc].startsWith(prefix); doc++) {
+            scores.add(doc, 1f);
+        }
+    }
+
+    private void fuzzyName(List<String> words, Scores scores) {
+        float[] best = new float[symbols.length];
+        int[] touched = new int[symbols.length];
+        for (String word : words) {
+            int touchedCount = 0;
+            for (Expansion expansion : fuzzyTerms(word)) {
+                float weight = idf[expansion.term()] * expansion.boost();
+                for (int doc : postings[expansion.term()]) {
+                    float score = weight * norms[doc];
+                    if (best[doc] == 0) {
+                        touched[touchedCount++] = doc;
+                    }
+                    best[doc] = Math.max(best[doc], score);
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                scores.add(doc, best[doc]);
+                best[doc] = 0;
+            }
+        }
+    }
+
+    private record Expansion(int term, int edits, float boost) {
+    }
+
+    /** Vocabulary terms within the AUTO edit distance of a word, closest first. */
+    private List<Expansion> fuzzyTerms(String word) {
+        int maxEdits = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+        if (maxEdits == 0) {
+            int term = Arrays.binarySearch(terms, word);
+            return term < 0 ? List.of() : List.of(new Expansion(term, 0, 1f));
+        }
+        int[] grams = bigramsOf(word);
+        // each edit removes at most three of the word's distinct bigrams, so a
+        // term within reach shares at least this many of them
+        int required = grams.length - 3 * maxEdits;
+        List<Expansion> found = new ArrayList<>();
+        if (required <= 0) {
+            for (int term = 0; term < terms.length; term++) {
+                addIfClose(word, term, maxEdits, found);
+            }
+        } else {
+            int[] shared = new int[terms.length];
+            int[] touched = new int[terms.length];
+            int touchedCount = 0;
+            for (int gram : grams) {
+                int[] containing = bigrams.get(gram);
+                if (containing != null) {
+                    for (int term : containing) {
+                        if (shared[term]++ == 0) {
+                            touched[touchedCount++] = term;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                if (shared[touched[i]] >= required) {
+                    addIfClose(word, touched[i], maxEdits, found);
+                }
+            }
+        }
+        found.sort(Comparator.comparingInt(Expansion::edits).thenComparingInt(Expansion::term));
+        return found.size() > MAX_EXPANSIONS ? found.subList(0, MAX_EXPANSIONS) : found;
+    }
+
+    private void addIfClose(String word, int term, int maxEdits, List<Expansion> found) {
+        String candidate = terms[term];
+        if (Math.abs(candidate.length() - word.length()) > maxEdits) {
+            return;
+        }
+        int edits = editDistance(word, candidate, maxEdits);
+        if (edits <= maxEdits) {
+            float boost = 1f - (float) edits / Math.min(word.length(), candidate.length());
+            if (boost > 0) {
+                found.add(new Expansion(term, edits, boost));
+            }
+        }
+    }
+
+    private void phrasePrefix(List<String> words, Scores scores) {
+        int last = words.size() - 1;
+        int[] leading = new int[last];
+        float leadingScore = 0;
+        for (int w = 0; w < last; w++) {
+            leading[w] = Arrays.binarySearch(terms, words.get(w));
+            if (leading[w] < 0) {
+                return;
+            }
+            leadingScore += idf[leading[w]];
+        }
+        String prefix = words.get(last);
+        int from = lowerBound(terms, prefix);
+        int to = from;
+        while (to < terms.length && to - from < MAX_EXPANSIONS && terms[to].startsWith(prefix)) {
+            to++;
+        }
+        if (from == to) {
+            return;
+        }
+
+        if (last == 0) {
+            float[] best = new float[symbols.length];
+            for (int term = from; term < to; term++) {
+                for (int doc : postings[term]) {
+                    best[doc] = Math.max(best[doc], idf[term]);
+                }
+            }
+            for (int term = from; term < to; term++) {
+                for (int doc : postings[term]) {
+                    if (best[doc] > 0) {
+                        scores.add(doc, best[doc] * norms[doc]);
+                        best[doc] = 0;
+                    }
+                }
+            }
+            return;
+        }
+        for (int doc : postings[leading[0]]) {
+            float matched = phraseAt(nameTerms[doc], leading, from, to);
+            if (matched > 0) {
+                scores.add(doc, (leadingScore + matched) * norms[doc]);
+            }
+        }
+    }
+
+    /** The idf of the best last term when the name has the phrase somewhere, otherwise 0. */
+    private float phraseAt(int[] name, int[] leading, int lastFrom, int lastTo) {
+        float best = 0;
+        for (int start = 0; start + leading.length < name.length; start++) {
+            boolean matches = true;
+            for (int w = 0; w < leading.length && matches; w++) {
+                matches = name[start + w] == leading[w];
+            }
+            int last = name[start + leading.length];
+            if (matches && last >= lastFrom && last < lastTo) {
+                best = Math.max(best, idf[last]);
+            }
+        }
+        return best;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /** Distinct bigrams of the word padded with a boundary marker on both ends. */
+    private static int[] bigramsOf(String word) {
+        String padded = '\0' + word + '\0';
+        int[] grams = new int[padded.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (padded.charAt(i) << 16) | padded.charAt(i + 1);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent
+     * transpositions), giving up with {@code max + 1} once it is certain
+     * to exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** Scores per stock for one query, with the stocks that got any. */
+    private final class Scores {
+
+        private final float[] values;
+        private final int[] scored;
+        private int count;
+
+        Scores(int size) {
+            values = new float[size];
+            scored = new int[size];
+        }
+
+        void add(int doc, float score) {
+            if (values[doc] == 0) {
+                scored[count++] = doc;
+            }
+            values[doc] += score;
+        }
+
+        List<Hit> top(int size) {
+            Comparator<Integer> better = Comparator.<Integer>comparingDouble(doc -> values[doc])
+                    .thenComparing(Comparator.<Integer>comparingInt(doc -> symbols[doc].length()).reversed())
+                    .thenComparing(Comparator.<Integer, String>comparing(doc -> symbols[doc]).reversed());
+            PriorityQueue<Integer> worstFirst = new PriorityQueue<>(size + 1, better);
+            for (int i = 0; i < count; i++) {
+                worstFirst.add(scored[i]);
+                if (worstFirst.size() > size) {
+                    worstFirst.poll();
+                }
+            }
+            Hit[] hits = new Hit[worstFirst.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int doc = worstFirst.poll();
+                hits[i] = new Hit(symbols[doc], names[doc], values[doc]);
+            }
+            return List.of(hits);
+        }
+    }
+}
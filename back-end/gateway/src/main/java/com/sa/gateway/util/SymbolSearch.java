@@ -0,0 +1,96 @@
+package com.sa.gateway.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Symbol search for the typeahead, answered from a {@link SymbolIndex} of
+ * the catalog in memory instead of by the alpha-service and Elasticsearch.
+ * <p>
+ * The catalog is checked every {@code search.reload-interval} and, when the
+ * file changed, indexed again and swapped in whole, so a search always
+ * sees one complete catalog. A catalog that cannot be read leaves the
+ * current index in place; without any, searches find nothing.
+ */
+@Service
+public class SymbolSearch implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SymbolSearch.class);
+
+    private final SearchProperties properties;
+    private final Resource catalog;
+    private final ObjectMapper objectMapper;
+    private final Disposable reloads;
+    private volatile SymbolIndex index = SymbolIndex.build(List.of());
+    private boolean loaded;
+    private long loadedModified;
+    private boolean failing;
+
+    public SymbolSearch(SearchProperties properties, ResourceLoader resourceLoader, ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.catalog = resourceLoader.getResource(properties.getCatalog());
+        this.objectMapper = objectMapper;
+        reload();
+        Gauge.builder("gateway.search.symbols", this, search -> search.index.size())
+                .description("Symbols in the search catalog")
+                .register(meterRegistry);
+        this.reloads = Flux.interval(properties.getReloadInterval(), properties.getReloadInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromRunnable(this::reload).subscribeOn(Schedulers.boundedElastic()))
+                .subscribe();
+    }
+
+    public List<SymbolIndex.Hit> search(String query) {
+        return index.search(query, properties.getSize());
+    }
+
+    /** Indexes the catalog again if it changed since it was last loaded. */
+    void reload() {
+        long modified;
+        try {
+            modified = catalog.lastModified();
+        } catch (IOException e) {
+            modified = 0;
+        }
+        if (loaded && modified == loadedModified) {
+            return;
+        }
+        try (InputStream in = catalog.getInputStream()) {
+            List<SymbolIndex.Stock> stocks = objectMapper.readValue(in, new TypeReference<>() {});
+            index = SymbolIndex.build(stocks);
+            loaded = true;
+            loadedModified = modified;
+            failing = false;
+            log.info("Indexed {} symbols from {}", index.size(), properties.getCatalog());
+        } catch (IOException | RuntimeException e) {
+            // warned once, then retried quietly every interval until it loads
+            if (!failing) {
+                log.warn("Could not load the symbol catalog {}, keeping {} symbols: {}",
+                         properties.getCatalog(), index.size(), e.getMessage());
+            }
+            failing = true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloads.dispose();
+    }
+}
@@ -0,0 +1,45 @@
+package com.sa.gateway.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Percentile-histogram timers of one name with a fixed set of tag keys.
+ * Each combination of tag values is registered once and looked up in a
+ * map afterwards, so recording stays cheap on the request path.
+ */
+public class TaggedTimers {
+
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final String description;
+    private final String[] tagKeys;
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    public TaggedTimers(MeterRegistry meterRegistry, String name, String description, String... tagKeys) {
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.description = description;
+        this.tagKeys = tagKeys.clone();
+    }
+
+    /** The timer for these values of the tag keys, in order. */
+    public Timer get(String... tagValues) {
+        if (tagValues.length != tagKeys.length) {
+            throw new IllegalArgumentException("expected values for " + String.join(", ", tagKeys));
+        }
+        return timers.computeIfAbsent(List.of(tagValues), this::register);
+    }
+
+    private Timer register(List<String> tagValues) {
+        Timer.Builder builder = Timer.builder(name).description(description).publishPercentileHistogram();
+        for (int i = 0; i < tagKeys.length; i++) {
+            builder.tag(tagKeys[i], tagValues.get(i));
+        }
+        return builder.register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.IdentityProperties;
+import com.sa.gateway.util.IdentitySigner;
+import com.sa.gateway.util.JwtUtil;
+import com.sa.identity.IdentityHeaders;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ForwardAuthHeaderFilterTests {
+
+    private final IdentitySigner signer = new IdentitySigner(properties("identity-secret"));
+    private final ForwardAuthHeaderFilter filter = new ForwardAuthHeaderFilter(signer);
+
+    @Test
+    void signsIdentityOfVerifiedToken() {
+        String userId = UUID.randomUUID().toString();
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        Claims claims = Jwts.claims().setSubject("a@b.c").setExpiration(expiration);
+        claims.put(JwtUtil.USER_ID_CLAIM, userId);
+        MockServerWebExchange exchange = exchange();
+        exchange.getAttributes().put(JwtUtil.CLAIMS_ATTRIBUTE, claims);
+
+        HttpHeaders forwarded = run(exchange);
+
+        long expiresAt = expiration.getTime() / 1000;
+        assertThat(forwarded.getFirst(IdentityHeaders.USER_ID)).isEqualTo(userId);
+        assertThat(forwarded.getFirst(IdentityHeaders.USER_EMAIL)).isEqualTo("a@b.c");
+        assertThat(forwarded.getFirst(IdentityHeaders.TOKEN_EXPIRES)).isEqualTo(Long.toString(expiresAt));
+        assertThat(forwarded.getFirst(IdentityHeaders.SIGNATURE)).isEqualTo(signer.sign(userId, "a@b.c", expiresAt));
+    }
+
+    @Test
+    void stripsIdentityHeadersSentByClients() {
+        MockServerWebExchange exchange = exchange(); // token not verified: no claims attribute
+
+        HttpHeaders forwarded = run(exchange);
+
+        IdentityHeaders.ALL.forEach(header -> assertThat(forwarded.containsKey(header)).isFalse());
+        assertThat(forwarded.getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer token");
+    }
+
+    private HttpHeaders run(ServerWebExchange exchange) {
+        AtomicReference<HttpHeaders> forwarded = new AtomicReference<>();
+        GatewayFilterChain chain = next -> {
+            forwarded.set(next.getRequest().getHeaders());
+            return Mono.empty();
+        };
+        filter.filter(exchange, chain).block();
+        return forwarded.get();
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/portfolio/me")
+                                                  .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                                                  .header(IdentityHeaders.USER_ID, UUID.randomUUID().toString())
+                                                  .header(IdentityHeaders.USER_EMAIL, "admin@example.com")
+                                                  .header(IdentityHeaders.SIGNATURE, "forged"));
+    }
+
+    private static IdentityProperties properties(String secret) {
+        IdentityProperties properties = new IdentityProperties();
+        properties.setSecret(secret);
+        return properties;
+    }
+}
@@ -0,0 +1,181 @@
+package com.sa.gateway.config;
+
+import com.sa.gateway.util.HedgeBudget;
+import com.sa.gateway.util.HedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.reactive.SimpleReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.reactive.SimpleReactiveDiscoveryProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link HedgingFilter} against a slow and a fast stub instance of the
+ * same service.
+ */
+class HedgingFilterTests {
+
+    private static final Duration SLOW = Duration.ofMillis(600);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HedgingProperties properties = new HedgingProperties();
+    private final CountDownLatch slowCancelled = new CountDownLatch(1);
+    private DisposableServer slow;
+    private DisposableServer fast;
+
+    @BeforeEach
+    void startInstances() {
+        slow = instance("slow", SLOW);
+        fast = instance("fast", Duration.ZERO);
+        HedgingProperties.Route route = new HedgingProperties.Route();
+        route.getPaths().add("/portfolio/*");
+        route.setMaximumDelay(Duration.ofMillis(50));
+        properties.getRoutes().put("portfolio_route", route);
+    }
+
+    @AfterEach
+    void stopInstances() {
+        slow.disposeNow();
+        fast.disposeNow();
+    }
+
+    @Test
+    void hedgesToAnotherInstanceAndTakesTheFirstAnswer() throws InterruptedException {
+        MockServerWebExchange exchange = exchange("GET", slow);
+
+        long start = System.nanoTime();
+        filter().filter(exchange, unexpectedChain()).block(Duration.ofSeconds(5));
+
+        assertThat(System.nanoTime() - start).isLessThan(SLOW.toNanos());
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(exchange.<URI>getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR).getPort())
+                .isEqualTo(fast.port());
+        assertThat(count("gateway.hedge.sent")).isEqualTo(1);
+        assertThat(count("gateway.hedge.wins")).isEqualTo(1);
+        // the slower call is abandoned, not left running
+        assertThat(slowCancelled.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void doesNotHedgeWhenTheFirstInstanceAnswersInTime() {
+        // generous, as the first call also sets up the client
+        properties.getRoutes().get("portfolio_route").setMaximumDelay(Duration.ofSeconds(2));
+        MockServerWebExchange exchange = exchange("GET", fast);
+
+        filter().filter(exchange, unexpectedChain()).block(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(count("gateway.hedge.requests")).isEqualTo(1);
+        assertThat(count("gateway.hedge.sent")).isZero();
+    }
+
+    @Test
+    void stopsHedgingWhenTheBudgetIsSpent() {
+        properties.getBudget().setRatio(0);
+        properties.getBudget().setMinimumPerSecond(1);
+        HedgingFilter filter = filter();
+
+        filter.filter(exchange("GET", slow), unexpectedChain()).block(Duration.ofSeconds(5));
+        MockServerWebExchange second = exchange("GET", slow);
+        filter.filter(second, unexpectedChain()).block(Duration.ofSeconds(5));
+
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("slow");
+        assertThat(count("gateway.hedge.sent")).isEqualTo(1);
+        assertThat(count("gateway.hedge.denied")).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOtherRequestsToTheRoutingFilter() {
+        AtomicBoolean routed = new AtomicBoolean();
+        GatewayFilterChain chain = exchange -> {
+            routed.set(true);
+            return Mono.empty();
+        };
+
+        filter().filter(exchange("POST", slow), chain).block();
+        assertThat(routed).isTrue();
+
+        routed.set(false);
+        MockServerWebExchange stream = exchange("GET", slow, "/portfolio/u1/stream");
+        filter().filter(stream, chain).block();
+        assertThat(routed).isTrue();
+        assertThat(count("gateway.hedge.requests")).isZero();
+    }
+
+    private HedgingFilter filter() {
+        SimpleReactiveDiscoveryProperties discovery = new SimpleReactiveDiscoveryProperties();
+        discovery.setInstances(Map.of("portfolio-service", List.of(
+                new DefaultServiceInstance("slow", "portfolio-service", "localhost", slow.port(), false),
+                new DefaultServiceInstance("fast", "portfolio-service", "localhost", fast.port(), false))));
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("discoveryClient", new SimpleReactiveDiscoveryClient(discovery));
+        return new HedgingFilter(properties, new HedgeBudget(properties),
+                                 beanFactory.getBeanProvider(ReactiveDiscoveryClient.class),
+                                 beanFactory.getBeanProvider(ResolvableType.forClassWithGenerics(List.class,
+                                         HttpHeadersFilter.class)),
+                                 registry, WebClient.builder());
+    }
+
+    private static MockServerWebExchange exchange(String method, DisposableServer primary) {
+        return exchange(method, primary, "/portfolio/u1");
+    }
+
+    private static MockServerWebExchange exchange(String method, DisposableServer primary, String path) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.method(HttpMethod.valueOf(method), path));
+        Route route = Route.async()
+                .id("portfolio_route")
+                .uri(URI.create("lb://portfolio-service"))
+                .predicate(e -> true)
+                .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                                     URI.create("http://localhost:" + primary.port() + path));
+        return exchange;
+    }
+
+    private static GatewayFilterChain unexpectedChain() {
+        return exchange -> Mono.error(new AssertionError("hedged requests are not routed again"));
+    }
+
+    private DisposableServer instance(String name, Duration delay) {
+        return HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> response
+                        .header("Content-Type", "text/plain")
+                        .sendString(Mono.delay(delay)
+                                            .doOnCancel(slowCancelled::countDown)
+                                            .thenReturn(name)))
+                .bindNow();
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("route", "portfolio_route").counter().count();
+    }
+}
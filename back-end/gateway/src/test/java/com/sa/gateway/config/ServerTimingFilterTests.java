@@ -0,0 +1,60 @@
+package com.sa.gateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ServerTimingFilter filter = new ServerTimingFilter(registry);
+
+    @Test
+    void reportsEachPhaseWhenTheResponseIsCommitted() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/stocks/AAPL"));
+        WebFilterChain chain = ex -> {
+            ex.getAttributes().put(ServerTimingFilter.AUTH_NANOS_ATTRIBUTE, 400_000L);
+            ex.getAttributes().put(ServerTimingFilter.UPSTREAM_NANOS_ATTRIBUTE, 12_000_000L);
+            ex.getResponse().setStatusCode(HttpStatus.OK);
+            return ex.getResponse().setComplete();
+        };
+
+        filter.filter(exchange, chain).block();
+
+        String timing = exchange.getResponse().getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING);
+        assertThat(timing).startsWith("auth;dur=0.40, upstream;dur=12.00, gateway;dur=").contains(", total;dur=");
+        assertThat(timing).doesNotContain("lb;");
+        assertThat(registry.get("gateway.requests").tag("route", "local").tag("status", "2xx").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void timesRequestsTheGatewayRejects() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/portfolio/me"));
+        WebFilterChain chain = ex -> {
+            ex.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return ex.getResponse().setComplete();
+        };
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING))
+                .matches("gateway;dur=[0-9.]+, total;dur=[0-9.]+");
+        assertThat(registry.get("gateway.requests").tag("status", "4xx").tag("instance", "none").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void serverTimingLeavesOutPhasesThatDidNotHappen() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+        exchange.getAttributes().put(ServerTimingFilter.LOAD_BALANCER_NANOS_ATTRIBUTE, 50_000L);
+
+        assertThat(ServerTimingFilter.serverTiming(exchange, 2_000_000L))
+                .isEqualTo("lb;dur=0.05, gateway;dur=2.00, total;dur=2.00");
+    }
+}
@@ -0,0 +1,193 @@
+package com.sa.gateway.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link AgentClient} against a stub agent that streams canned events.
+ */
+class AgentClientTests {
+
+    private DisposableServer agent;
+
+    @AfterEach
+    void stopAgent() {
+        if (agent != null) {
+            agent.disposeNow();
+        }
+    }
+
+    @Test
+    void relaysTokensAsTheyAreGenerated() {
+        startAgent(Flux.concat(
+                Flux.just(event("token", "{\"text\":\"Hel\"}"), event("token", "{\"text\":\"lo\"}")),
+                Flux.just(event("done", "{\"text\":\"Hello\",\"sources\":[]}")).delaySubscription(Duration.ofMillis(800))));
+        AgentClient client = client(Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        List<Long> arrivals = new ArrayList<>();
+        List<ServerSentEvent<JsonNode>> events = client.streamResponseFromAgent("hi", "user")
+                .doOnNext(event -> arrivals.add(System.nanoTime() - start))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("token", "token", "done");
+        assertThat(events.get(0).data().get("text").asText()).isEqualTo("Hel");
+        assertThat(events.get(2).data().get("text").asText()).isEqualTo("Hello");
+        // the first token is not held back until the answer is complete
+        assertThat(arrivals.get(2) - arrivals.get(0)).isGreaterThan(Duration.ofMillis(500).toNanos());
+    }
+
+    @Test
+    void endsWithAnErrorEventAtTheDeadline() {
+        startAgent(Flux.interval(Duration.ofMillis(100)).map(i -> event("token", "{\"text\":\"" + i + "\"}")));
+        AgentClient client = client(Duration.ofMillis(500));
+
+        List<ServerSentEvent<JsonNode>> events = client.streamResponseFromAgent("hi", "user")
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(events).isNotEmpty();
+        assertThat(events.get(events.size() - 1).event()).isEqualTo("error");
+        assertThat(events.get(events.size() - 1).data().get("text").asText()).contains("did not finish in time");
+    }
+
+    @Test
+    void cancellingTheStreamClosesTheAgentConnection() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        startAgent(Flux.interval(Duration.ofMillis(50))
+                           .map(i -> event("token", "{\"text\":\"" + i + "\"}"))
+                           .doOnCancel(cancelled::countDown));
+        AgentClient client = client(Duration.ofSeconds(30));
+
+        List<ServerSentEvent<JsonNode>> events = client.streamResponseFromAgent("hi", "user")
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(events).hasSize(2);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void reportsAnUnreachableAgent() {
+        startAgent(Flux.empty());
+        int port = agent.port();
+        agent.disposeNow();
+        agent = null;
+        AgentProperties properties = properties(Duration.ofSeconds(5));
+        properties.setBaseUrl("http://localhost:" + port);
+        AgentClient client = new AgentClient(WebClient.builder(), new ObjectMapper(), properties, new SimpleMeterRegistry());
+
+        List<ServerSentEvent<JsonNode>> events = client.streamResponseFromAgent("hi", "user")
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("error");
+    }
+
+    @Test
+    void identicalPromptsShareOneGenerationAndAreCached() {
+        AtomicInteger calls = new AtomicInteger();
+        startGeneratingAgent(calls, Duration.ofMillis(300));
+        AgentClient client = client(Duration.ofSeconds(5));
+
+        List<AgentClient.AgentResponse> answers = Flux.range(0, 5)
+                .flatMap(i -> client.generateResponseFromAgent(i % 2 == 0 ? "What is a P/E ratio?" : "  what is a  P/E RATIO? ", "user"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(answers).hasSize(5).allSatisfy(answer -> assertThat(answer.text()).isEqualTo("answer 1"));
+        assertThat(calls.get()).isEqualTo(1);
+
+        assertThat(client.generateResponseFromAgent("what is a p/e ratio?", "user").block().text()).isEqualTo("answer 1");
+        assertThat(client.generateResponseFromAgent("what is a p/e ratio?", "other-user").block().text()).isEqualTo("answer 2");
+        assertThat(calls.get()).isEqualTo(2);
+
+        // a streamed request for a cached answer gets it as a single done event
+        List<ServerSentEvent<JsonNode>> events = client.streamResponseFromAgent("What is a P/E ratio?", "user")
+                .collectList()
+                .block(Duration.ofSeconds(5));
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("done");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failedGenerationsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        startGeneratingAgent(calls, Duration.ZERO); // the first call fails
+        AgentClient client = client(Duration.ofSeconds(5));
+
+        assertThat(client.generateResponseFromAgent("hi", "user").block().text()).startsWith("Error:");
+        assertThat(client.generateResponseFromAgent("hi", "user").block().text()).isEqualTo("answer 2");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    private int startGeneratingAgent(AtomicInteger calls, Duration delay) {
+        agent = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post("/generate", (request, response) -> {
+                    int call = calls.incrementAndGet();
+                    if (call == 1 && delay.isZero()) {
+                        return response.status(500).sendString(Mono.just("{}"));
+                    }
+                    return response.header("Content-Type", "application/json")
+                            .sendString(Mono.delay(delay)
+                                                .thenReturn("{\"text\":\"answer " + call + "\",\"sources\":[]}"));
+                }))
+                .bindNow();
+        return agent.port();
+    }
+
+    private void startAgent(Flux<String> events) {
+        agent = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post("/generate/stream", (request, response) -> response
+                        .header("Content-Type", "text/event-stream")
+                        .send(events.map(AgentClientTests::buffer),
+                              buffer -> true)))
+                .bindNow();
+    }
+
+    private AgentClient client(Duration deadline) {
+        return new AgentClient(WebClient.builder(), new ObjectMapper(), properties(deadline), new SimpleMeterRegistry());
+    }
+
+    private AgentProperties properties(Duration deadline) {
+        AgentProperties properties = new AgentProperties();
+        properties.setBaseUrl(agent == null ? "http://localhost:1" : "http://localhost:" + agent.port());
+        properties.setDeadline(deadline);
+        return properties;
+    }
+
+    private static String event(String name, String data) {
+        return "event: " + name + "\ndata: " + data + "\n\n";
+    }
+
+    private static ByteBuf buffer(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+package com.sa.gateway.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void queuedCallsRunInArrivalOrderOnceAPermitFreesUp() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10, Duration.ofSeconds(5), registry);
+        Sinks.Empty<Void> first = Sinks.empty();
+        List<Integer> started = new CopyOnWriteArrayList<>();
+
+        bulkhead.call(() -> first.asMono().doOnSubscribe(s -> started.add(0))).subscribe();
+        for (int i = 1; i <= 3; i++) {
+            int call = i;
+            bulkhead.call(() -> Mono.fromRunnable(() -> started.add(call))).subscribe();
+        }
+
+        assertThat(started).containsExactly(0);
+        assertThat(bulkhead.active()).isEqualTo(1);
+        assertThat(bulkhead.queueDepth()).isEqualTo(3);
+        assertThat(registry.get("test.queue").gauge().value()).isEqualTo(3);
+
+        first.tryEmitEmpty();
+
+        assertThat(started).containsExactly(0, 1, 2, 3);
+        assertThat(bulkhead.active()).isZero();
+        assertThat(bulkhead.queueDepth()).isZero();
+        assertThat(registry.get("test.wait").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsAtOnceWhenTheQueueIsFull() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofSeconds(5), registry);
+        bulkhead.call(Mono::never).subscribe();
+        bulkhead.call(Mono::never).subscribe();
+
+        assertThatThrownBy(() -> bulkhead.call(() -> Mono.just(1)).block(Duration.ofMillis(100)))
+                .isInstanceOf(BulkheadFullException.class);
+        assertThat(registry.get("test.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void giveUpAfterTheMaximumWait() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 5, Duration.ofMillis(100), registry);
+        bulkhead.call(Mono::never).subscribe();
+
+        assertThatThrownBy(() -> bulkhead.call(() -> Mono.just(1)).block(Duration.ofSeconds(2)))
+                .isInstanceOf(BulkheadFullException.class);
+        assertThat(bulkhead.queueDepth()).isZero();
+    }
+
+    @Test
+    void cancellingReleasesThePermitAndTheQueueSlot() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 5, Duration.ofSeconds(5), registry);
+        Disposable running = bulkhead.call(Mono::never).subscribe();
+        Disposable waiting = bulkhead.call(Mono::never).subscribe();
+        assertThat(bulkhead.queueDepth()).isEqualTo(1);
+
+        waiting.dispose();
+        assertThat(bulkhead.queueDepth()).isZero();
+        running.dispose();
+        assertThat(bulkhead.active()).isZero();
+
+        assertThat(bulkhead.call(() -> Mono.just(1)).block(Duration.ofSeconds(1))).isEqualTo(1);
+    }
+}
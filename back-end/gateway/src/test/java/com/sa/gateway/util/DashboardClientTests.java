@@ -0,0 +1,204 @@
+package com.sa.gateway.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sa.identity.IdentityHeaders;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link DashboardClient} against one stub standing in for the auth,
+ * portfolio and quote services, with delays and failures injected per test.
+ */
+class DashboardClientTests {
+
+    private static final String USER_ID = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+
+    private final BffProperties properties = new BffProperties();
+    private final ResponseCache cache = new ResponseCache(cacheProperties());
+    private final IdentitySigner signer = new IdentitySigner(identityProperties());
+    private final AtomicInteger quoteCalls = new AtomicInteger();
+    private final Map<String, String> portfolioCalls = new ConcurrentHashMap<>();
+
+    private volatile Duration profileDelay = Duration.ZERO;
+    private volatile Duration holdingsDelay = Duration.ZERO;
+    private volatile String holdings = "AAPL";
+    private DisposableServer services;
+
+    @BeforeEach
+    void startServices() {
+        services = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get("/auth/me", (request, response) -> response
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.delay(profileDelay)
+                                                    .thenReturn("{\"email\":\"a@b.c\",\"id\":\"" + USER_ID + "\"}")))
+                        .get("/portfolio/{userId}", (request, response) -> {
+                            portfolioCalls.put(request.param("userId"),
+                                               String.valueOf(request.requestHeaders().get(IdentityHeaders.SIGNATURE)));
+                            StringBuilder body = new StringBuilder("{\"holdings\":[");
+                            String[] symbols = holdings.split(",");
+                            for (int i = 0; i < symbols.length; i++) {
+                                body.append(i == 0 ? "" : ",")
+                                        .append("{\"symbol\":\"").append(symbols[i]).append("\",\"quantity\":1}");
+                            }
+                            return response.header("Content-Type", "application/json")
+                                    .sendString(Mono.delay(holdingsDelay).thenReturn(body.append("]}").toString()));
+                        })
+                        .get("/stocks/{symbol}", (request, response) -> {
+                            quoteCalls.incrementAndGet();
+                            String symbol = request.param("symbol");
+                            if (symbol.equals("BAD")) {
+                                return response.status(500).sendString(Mono.just("{}"));
+                            }
+                            Duration delay = symbol.equals("SLOW") ? Duration.ofSeconds(3) : Duration.ZERO;
+                            return response.header("Content-Type", "application/json")
+                                    .sendString(Mono.delay(delay)
+                                                        .thenReturn("{\"symbol\":\"" + symbol + "\",\"current\":10.5}"));
+                        }))
+                .bindNow();
+        String baseUrl = "http://localhost:" + services.port();
+        properties.setAuthUrl(baseUrl);
+        properties.setPortfolioUrl(baseUrl);
+        properties.setQuotesUrl(baseUrl);
+    }
+
+    @AfterEach
+    void stopServices() {
+        services.disposeNow();
+    }
+
+    @Test
+    void composesProfileHoldingsAndQuotes() {
+        holdings = "AAPL,msft";
+
+        DashboardClient.Dashboard dashboard = client().dashboard(claims(USER_ID), "Bearer token").block();
+
+        assertThat(dashboard.profile().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(dashboard.profile().data().get("email").asText()).isEqualTo("a@b.c");
+        assertThat(dashboard.holdings().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(dashboard.quotes().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(dashboard.quotes().data()).containsOnlyKeys("AAPL", "MSFT");
+        assertThat(dashboard.quotes().data().get("MSFT").data().get("current").asDouble()).isEqualTo(10.5);
+        // the portfolio service got the signed identity, as with proxied requests
+        assertThat(portfolioCalls.get(USER_ID)).isNotEqualTo("null");
+    }
+
+    @Test
+    void answersWithinTheDeadlineWhenQuotesAreSlowOrFailing() {
+        holdings = "AAPL,SLOW,BAD";
+        properties.setDeadline(Duration.ofMillis(700));
+
+        long start = System.nanoTime();
+        DashboardClient.Dashboard dashboard = client().dashboard(claims(USER_ID), "Bearer token").block();
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(elapsed).isLessThan(Duration.ofMillis(1500).toNanos());
+        Map<String, DashboardClient.Section<JsonNode>> quotes = dashboard.quotes().data();
+        assertThat(dashboard.quotes().status()).isEqualTo(DashboardClient.Status.PARTIAL);
+        assertThat(dashboard.quotes().error()).isEqualTo("no quote for SLOW, BAD");
+        assertThat(quotes.get("AAPL").status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(quotes.get("SLOW").status()).isEqualTo(DashboardClient.Status.TIMEOUT);
+        assertThat(quotes.get("BAD").status()).isEqualTo(DashboardClient.Status.ERROR);
+        assertThat(quotes.get("BAD").error()).isEqualTo("upstream answered 500");
+    }
+
+    @Test
+    void aSlowProfileDoesNotHoldUpTheHoldings() {
+        profileDelay = Duration.ofSeconds(3);
+        properties.setProfileTimeout(Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        DashboardClient.Dashboard dashboard = client().dashboard(claims(USER_ID), "Bearer token").block();
+
+        assertThat(System.nanoTime() - start).isLessThan(Duration.ofSeconds(1).toNanos());
+        assertThat(dashboard.profile().status()).isEqualTo(DashboardClient.Status.TIMEOUT);
+        assertThat(dashboard.profile().data()).isNull();
+        assertThat(dashboard.holdings().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(dashboard.quotes().status()).isEqualTo(DashboardClient.Status.OK);
+    }
+
+    @Test
+    void skipsQuotesWhenTheHoldingsTimeOut() {
+        holdingsDelay = Duration.ofSeconds(3);
+        properties.setHoldingsTimeout(Duration.ofMillis(200));
+
+        DashboardClient.Dashboard dashboard = client().dashboard(claims(USER_ID), "Bearer token").block();
+
+        assertThat(dashboard.profile().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(dashboard.holdings().status()).isEqualTo(DashboardClient.Status.TIMEOUT);
+        assertThat(dashboard.holdings().error()).isEqualTo("no answer within 200ms");
+        assertThat(dashboard.quotes().status()).isEqualTo(DashboardClient.Status.SKIPPED);
+        assertThat(quoteCalls.get()).isZero();
+    }
+
+    @Test
+    void takesTheUserIdFromTheProfileForOlderTokens() {
+        DashboardClient.Dashboard dashboard = client().dashboard(claims(null), "Bearer token").block();
+
+        assertThat(dashboard.holdings().status()).isEqualTo(DashboardClient.Status.OK);
+        assertThat(portfolioCalls).containsKey(USER_ID);
+    }
+
+    @Test
+    void sharesQuotesWithTheResponseCache() {
+        DashboardClient client = client();
+
+        client.dashboard(claims(USER_ID), "Bearer token").block();
+        client.dashboard(claims(USER_ID), "Bearer token").block();
+
+        assertThat(quoteCalls.get()).isEqualTo(1);
+        String key = ResponseCache.baseKey("alpha_route", URI.create("/stocks/AAPL"));
+        assertThat(cache.lookup(key, new HttpHeaders())).isNotNull();
+    }
+
+    private DashboardClient client() {
+        return new DashboardClient(properties, signer, cache, new ObjectMapper(), new SimpleMeterRegistry(),
+                                   WebClient.builder(),
+                                   new StaticListableBeanFactory().getBeanProvider(ReactorLoadBalancerExchangeFilterFunction.class));
+    }
+
+    private static Claims claims(String userId) {
+        Claims claims = Jwts.claims().setSubject("a@b.c").setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        if (userId != null) {
+            claims.put(JwtUtil.USER_ID_CLAIM, userId);
+        }
+        return claims;
+    }
+
+    private static ResponseCacheProperties cacheProperties() {
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setTtl(Duration.ofSeconds(60));
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.getRoutes().put("alpha_route", route);
+        return properties;
+    }
+
+    private static IdentityProperties identityProperties() {
+        IdentityProperties properties = new IdentityProperties();
+        properties.setSecret("identity-secret");
+        return properties;
+    }
+}
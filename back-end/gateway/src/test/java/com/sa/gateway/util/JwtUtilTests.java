@@ -0,0 +1,73 @@
+package com.sa.gateway.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(properties(SECRET));
+
+    @Test
+    void verifiedClaimsAreCachedUntilExpiry() {
+        String token = token(SECRET, "user@example.com", 60_000);
+
+        Optional<Claims> first = jwtUtil.verify(token);
+        Optional<Claims> second = jwtUtil.verify(token);
+
+        assertThat(first).isPresent();
+        assertThat(first.get().getSubject()).isEqualTo("user@example.com");
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(jwtUtil.extractEmail(token)).isEqualTo("user@example.com");
+    }
+
+    @Test
+    void rejectsExpiredForgedAndMalformedTokens() {
+        assertThat(jwtUtil.verify(token(SECRET, "user@example.com", -1_000))).isEmpty();
+        assertThat(jwtUtil.verify(token("another-secret-another-secret-0123456789", "user@example.com", 60_000)))
+                .isEmpty();
+        assertThat(jwtUtil.verify("not.a.token")).isEmpty();
+        assertThat(jwtUtil.validateToken("")).isFalse();
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceItExpires() throws Exception {
+        String token = token(SECRET, "user@example.com", 1_500);
+        assertThat(jwtUtil.verify(token)).isPresent();
+
+        Thread.sleep(1_600);
+
+        assertThat(jwtUtil.verify(token)).isEmpty();
+    }
+
+    @Test
+    void withoutSecretNothingVerifies() {
+        JwtUtil unconfigured = new JwtUtil(new JwtProperties());
+        assertThat(unconfigured.verify(token(SECRET, "user@example.com", 60_000))).isEmpty();
+    }
+
+    private static String token(String secret, String subject, long expiresInMillis) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiresInMillis))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static JwtProperties properties(String secret) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(secret);
+        return properties;
+    }
+}
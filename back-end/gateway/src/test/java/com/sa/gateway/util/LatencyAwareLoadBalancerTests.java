@@ -0,0 +1,175 @@
+package com.sa.gateway.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link LatencyAwareLoadBalancer} against local stub instances with
+ * injected delays and failures, reporting outcomes the way the gateway's
+ * load balancer filter does.
+ */
+class LatencyAwareLoadBalancerTests {
+
+    private static final String SERVICE = "portfolio-service";
+
+    private final List<DisposableServer> servers = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpClient httpClient = HttpClient.create();
+
+    @AfterEach
+    void stopInstances() {
+        servers.forEach(DisposableServer::disposeNow);
+    }
+
+    @Test
+    void sendsLittleTrafficToASlowInstance() {
+        LatencyAwareLoadBalancer balancer = balancer(new LoadBalancingProperties(),
+                                                     instance("fast-1", Duration.ofMillis(5), 200),
+                                                     instance("fast-2", Duration.ofMillis(5), 200),
+                                                     instance("slow", Duration.ofMillis(250), 200));
+
+        Map<String, Long> chosen = callAll(balancer, 80, 4);
+
+        // round robin would send the slow instance a third
+        assertThat(chosen.getOrDefault("slow", 0L)).isLessThanOrEqualTo(6);
+        assertThat(chosen.get("fast-1") + chosen.get("fast-2")).isGreaterThanOrEqualTo(74);
+    }
+
+    @Test
+    void spreadsLoadOverEquallyFastInstances() {
+        LatencyAwareLoadBalancer balancer = balancer(new LoadBalancingProperties(),
+                                                     instance("a", Duration.ofMillis(20), 200),
+                                                     instance("b", Duration.ofMillis(20), 200));
+
+        Map<String, Long> chosen = callAll(balancer, 60, 4);
+
+        assertThat(chosen.get("a")).isBetween(15L, 45L);
+        assertThat(chosen.get("b")).isBetween(15L, 45L);
+    }
+
+    @Test
+    void ejectsAnInstanceThatKeepsFailing() {
+        LoadBalancingProperties properties = new LoadBalancingProperties();
+        properties.getEjection().setMinimumRequests(5);
+        LatencyAwareLoadBalancer balancer = balancer(properties,
+                                                     instance("healthy-1", Duration.ofMillis(20), 200),
+                                                     instance("healthy-2", Duration.ofMillis(20), 200),
+                                                     instance("failing", Duration.ZERO, 503));
+
+        Map<String, Long> before = callAll(balancer, 40, 1);
+        Map<String, Long> after = callAll(balancer, 30, 1);
+
+        // failing fast makes it look cheap until it is ejected
+        assertThat(before.get("failing")).isGreaterThanOrEqualTo(5);
+        assertThat(after).doesNotContainKey("failing");
+        assertThat(registry.get("gateway.loadbalancer.ejections").tag("service", SERVICE).counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void keepsTheLastInstancesEvenWhenTheyFail() {
+        LoadBalancingProperties properties = new LoadBalancingProperties();
+        properties.getEjection().setMinimumRequests(5);
+        LatencyAwareLoadBalancer balancer = balancer(properties, instance("only", Duration.ZERO, 500));
+
+        assertThat(callAll(balancer, 20, 1)).containsEntry("only", 20L);
+        assertThat(registry.get("gateway.loadbalancer.ejections").counter().count()).isZero();
+    }
+
+    @Test
+    void countsRequestsInFlightUntilTheyComplete() {
+        ServiceInstance instance = instance("a", Duration.ZERO, 200);
+        LatencyAwareLoadBalancer balancer = balancer(new LoadBalancingProperties(), instance);
+        Request<RequestDataContext> request = request();
+        Response<ServiceInstance> response = balancer.choose(request).block();
+
+        balancer.onStartRequest(request, response);
+        assertThat(balancer.stats(instance).inFlight()).isEqualTo(1);
+        balancer.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, new IllegalStateException(),
+                                                    request, response));
+        balancer.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, new IllegalStateException(),
+                                                    request, response));
+        assertThat(balancer.stats(instance).inFlight()).isZero();
+    }
+
+    private Map<String, Long> callAll(LatencyAwareLoadBalancer balancer, int requests, int concurrency) {
+        return Flux.range(0, requests)
+                .flatMap(i -> call(balancer), concurrency)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+                .block(Duration.ofSeconds(30));
+    }
+
+    /** One request as the gateway makes it: choose, start, call the instance, report the outcome. */
+    private Mono<String> call(LatencyAwareLoadBalancer balancer) {
+        Request<RequestDataContext> request = request();
+        return balancer.choose(request).flatMap(response -> {
+            balancer.onStartRequest(request, response);
+            ServiceInstance instance = response.getServer();
+            return httpClient.get()
+                    .uri(instance.getUri() + "/portfolio")
+                    .responseSingle((status, body) -> body.then(Mono.just(status.status().code())))
+                    .doOnNext(status -> balancer.onComplete(new CompletionContext<>(
+                            CompletionContext.Status.SUCCESS, request, response,
+                            new ResponseData(HttpStatusCode.valueOf(status), new HttpHeaders(),
+                                             new LinkedMultiValueMap<>(), request.getContext().getClientRequest()))))
+                    .thenReturn(instance.getInstanceId());
+        });
+    }
+
+    private static Request<RequestDataContext> request() {
+        return new DefaultRequest<>(new RequestDataContext(new RequestData(
+                HttpMethod.GET, URI.create("http://" + SERVICE + "/portfolio"), new HttpHeaders(),
+                new LinkedMultiValueMap<>(), new HashMap<>())));
+    }
+
+    private ServiceInstance instance(String id, Duration delay, int status) {
+        DisposableServer server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> response.status(status)
+                        .sendString(Mono.delay(delay).thenReturn("{}")))
+                .bindNow();
+        servers.add(server);
+        return new DefaultServiceInstance(id, SERVICE, "localhost", server.port(), false);
+    }
+
+    private LatencyAwareLoadBalancer balancer(LoadBalancingProperties properties, ServiceInstance... instances) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("supplier", ServiceInstanceListSuppliers.from(SERVICE, instances));
+        return new LatencyAwareLoadBalancer(SERVICE, beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                                            properties, registry);
+    }
+}
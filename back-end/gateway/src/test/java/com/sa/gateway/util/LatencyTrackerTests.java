@@ -0,0 +1,33 @@
+package com.sa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyTrackerTests {
+
+    @Test
+    void knowsNothingUntilEnoughLatenciesAreRecorded() {
+        LatencyTracker tracker = new LatencyTracker(100, 0.95);
+        for (int i = 0; i < 19; i++) {
+            tracker.record(1_000);
+        }
+        assertThat(tracker.percentile(0)).isEqualTo(-1);
+    }
+
+    @Test
+    void takesThePercentileOfTheMostRecentLatencies() {
+        LatencyTracker tracker = new LatencyTracker(100, 0.95);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.percentile(0)).isEqualTo(95);
+
+        // a full buffer later the old latencies are gone
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1_000 + i);
+        }
+        assertThat(tracker.percentile(0)).isEqualTo(95); // computed at most once a second
+        assertThat(tracker.percentile(2_000_000_000L)).isEqualTo(1_094);
+    }
+}
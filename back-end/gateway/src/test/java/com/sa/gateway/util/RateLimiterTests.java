@@ -0,0 +1,111 @@
+package com.sa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void admitsTheBurstThenTheSustainedRate() {
+        RateLimitProperties.Limit limit = limit(60, Duration.ofMinutes(1), 5);
+        RateLimiter limiter = new RateLimiter(properties(limit));
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            RateLimiter.Decision decision = limiter.tryAcquire("user:a", limit, now);
+            assertThat(decision.allowed()).isTrue();
+            assertThat(decision.limit()).isEqualTo(60);
+            assertThat(decision.remaining()).isEqualTo(4 - i);
+        }
+        RateLimiter.Decision denied = limiter.tryAcquire("user:a", limit, now);
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.retryAfterNanos()).isEqualTo(SECOND);
+        assertThat(denied.resetNanos()).isEqualTo(5 * SECOND);
+
+        assertThat(limiter.tryAcquire("user:a", limit, now + SECOND / 2).allowed()).isFalse();
+        assertThat(limiter.tryAcquire("user:a", limit, now + SECOND).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("user:a", limit, now + SECOND).allowed()).isFalse();
+
+        // after a full refill the whole burst is available again
+        RateLimiter.Decision refilled = limiter.tryAcquire("user:a", limit, now + 10 * SECOND);
+        assertThat(refilled.allowed()).isTrue();
+        assertThat(refilled.remaining()).isEqualTo(4);
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() {
+        RateLimitProperties.Limit limit = limit(1, Duration.ofMinutes(1), 1);
+        RateLimiter limiter = new RateLimiter(properties(limit));
+
+        assertThat(limiter.tryAcquire("user:a", limit, 0).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("user:a", limit, 0).allowed()).isFalse();
+        assertThat(limiter.tryAcquire("user:b", limit, 0).allowed()).isTrue();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", limit, 0).allowed()).isTrue();
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws Exception {
+        RateLimitProperties.Limit limit = limit(100, Duration.ofHours(1), 100);
+        RateLimiter limiter = new RateLimiter(properties(limit));
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("user:a", limit).allowed()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(admitted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void boundsTheNumberOfBuckets() {
+        RateLimitProperties.Limit limit = limit(10, Duration.ofMinutes(1), 10);
+        RateLimitProperties properties = properties(limit);
+        properties.setMaximumBuckets(1_000);
+        RateLimiter limiter = new RateLimiter(properties);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("ip:" + i, limit);
+        }
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(1_000);
+    }
+
+    private static RateLimitProperties.Limit limit(int requests, Duration period, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setLimit(requests);
+        limit.setPeriod(period);
+        limit.setBurst(burst);
+        return limit;
+    }
+
+    private static RateLimitProperties properties(RateLimitProperties.Limit limit) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getRoutes().put("alpha_route", limit);
+        return properties;
+    }
+}
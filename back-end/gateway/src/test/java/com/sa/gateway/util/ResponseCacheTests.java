@@ -0,0 +1,154 @@
+package com.sa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTests {
+
+    private static final ResponseCache.Policy POLICY = new ResponseCache.Policy(Duration.ofMinutes(1),
+                                                                                Duration.ofMinutes(5));
+    private static final String KEY = ResponseCache.baseKey("alpha_route", URI.create("/stocks/AAPL"));
+
+    private final ResponseCache cache = new ResponseCache(properties());
+
+    @Test
+    void pathPatternsOverrideTheRouteTtl() {
+        assertThat(cache.policy("alpha_route", "/stocks/AAPL").orElseThrow().ttl())
+                .isEqualTo(Duration.ofSeconds(60));
+        assertThat(cache.policy("alpha_route", "/stocks/AAPL/history").orElseThrow().ttl())
+                .isEqualTo(Duration.ofHours(6));
+        assertThat(cache.policy("alpha_route", "/stocks/AAPL").orElseThrow().staleWhileRevalidate())
+                .isEqualTo(Duration.ofMinutes(5));
+        assertThat(cache.policy("portfolio_route", "/portfolio/me")).isEmpty();
+    }
+
+    @Test
+    void storesAndServesOkResponses() {
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        upstream.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+
+        CachedResponse stored = cache.store(KEY, 200, upstream, body("{}"), new HttpHeaders(), POLICY);
+
+        CachedResponse found = cache.lookup(KEY, new HttpHeaders());
+        assertThat(found).isSameAs(stored);
+        assertThat(found.isFresh(System.nanoTime())).isTrue();
+        assertThat(found.headers().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("application/json");
+        assertThat(found.headers().containsKey(HttpHeaders.TRANSFER_ENCODING)).isFalse();
+    }
+
+    @Test
+    void respectsUpstreamCacheControl() {
+        assertThat(cache.store(KEY, 200, cacheControl("no-store"), body("a"), new HttpHeaders(), POLICY)).isNull();
+        assertThat(cache.store(KEY, 200, cacheControl("private, max-age=60"), body("a"), new HttpHeaders(), POLICY))
+                .isNull();
+        assertThat(cache.store(KEY, 404, new HttpHeaders(), body("a"), new HttpHeaders(), POLICY)).isNull();
+        assertThat(cache.lookup(KEY, new HttpHeaders())).isNull();
+
+        CachedResponse stale = cache.store(KEY, 200, cacheControl("max-age=0, stale-while-revalidate=30"),
+                                           body("a"), new HttpHeaders(), POLICY);
+        assertThat(stale.isFresh(System.nanoTime())).isFalse();
+        assertThat(stale.isUsable(System.nanoTime())).isTrue();
+    }
+
+    @Test
+    void keepsOneVariantPerVaryValue() {
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.setVary(List.of("Accept-Language"));
+        HttpHeaders english = requestHeaders("en");
+        HttpHeaders dutch = requestHeaders("nl");
+
+        cache.store(KEY, 200, upstream, body("hello"), english, POLICY);
+        assertThat(cache.lookup(KEY, dutch)).isNull();
+        cache.store(KEY, 200, upstream, body("hallo"), dutch, POLICY);
+
+        assertThat(new String(cache.lookup(KEY, english).body(), StandardCharsets.UTF_8)).isEqualTo("hello");
+        assertThat(new String(cache.lookup(KEY, dutch).body(), StandardCharsets.UTF_8)).isEqualTo("hallo");
+        assertThat(cache.key(KEY, english)).isNotEqualTo(cache.key(KEY, dutch));
+
+        upstream.setVary(List.of("*"));
+        assertThat(cache.store(KEY, 200, upstream, body("x"), english, POLICY)).isNull();
+    }
+
+    @Test
+    void concurrentCallsShareOneFlight() {
+        ResponseCache.Flight leader = cache.begin(KEY);
+        ResponseCache.Flight follower = cache.begin(KEY);
+
+        assertThat(leader.leader()).isTrue();
+        assertThat(follower.leader()).isFalse();
+        assertThat(follower.future()).isSameAs(leader.future());
+
+        CachedResponse response = cache.store(KEY, 200, new HttpHeaders(), body("a"), new HttpHeaders(), POLICY);
+        cache.finish(leader, response);
+        cache.finish(leader, null);
+
+        assertThat(follower.future().join()).contains(response);
+        assertThat(cache.begin(KEY).leader()).isTrue();
+    }
+
+    @Test
+    void readsRequestCacheControl() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-cache");
+        assertThat(ResponseCache.isNoCache(headers)).isTrue();
+        assertThat(ResponseCache.isNoStore(headers)).isFalse();
+        headers.setCacheControl("max-age=0");
+        assertThat(ResponseCache.isNoCache(headers)).isTrue();
+        headers.setCacheControl("no-store");
+        assertThat(ResponseCache.isNoStore(headers)).isTrue();
+    }
+
+    @Test
+    void evictsToStayWithinTheSizeBound() {
+        ResponseCacheProperties properties = properties();
+        properties.setMaximumSize(DataSize.ofKilobytes(16));
+        ResponseCache small = new ResponseCache(properties);
+        for (int i = 0; i < 64; i++) {
+            String key = ResponseCache.baseKey("alpha_route", URI.create("/stocks/S" + i));
+            small.store(key, 200, new HttpHeaders(), new byte[1024], new HttpHeaders(), POLICY);
+        }
+        small.cleanUp();
+
+        int cached = 0;
+        for (int i = 0; i < 64; i++) {
+            String key = ResponseCache.baseKey("alpha_route", URI.create("/stocks/S" + i));
+            cached += small.lookup(key, new HttpHeaders()) == null ? 0 : 1;
+        }
+        assertThat(cached).isBetween(1, 15);
+    }
+
+    private static HttpHeaders cacheControl(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(value);
+        return headers;
+    }
+
+    private static HttpHeaders requestHeaders(String language) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_LANGUAGE, language);
+        return headers;
+    }
+
+    private static byte[] body(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ResponseCacheProperties properties() {
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setTtl(Duration.ofSeconds(60));
+        route.setStaleWhileRevalidate(Duration.ofMinutes(5));
+        route.getPaths().put("/stocks/*/history", Duration.ofHours(6));
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.getRoutes().put("alpha_route", route);
+        return properties;
+    }
+}
@@ -0,0 +1,75 @@
+package com.sa.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolIndexTests {
+
+    private final SymbolIndex index = SymbolIndex.build(List.of(
+            new SymbolIndex.Stock("AAPL", "Apple Inc"),
+            new SymbolIndex.Stock("APLE", "Apple Hospitality REIT Inc"),
+            new SymbolIndex.Stock("APA", "APA Corporation"),
+            new SymbolIndex.Stock("MSFT", "Microsoft Corporation"),
+            new SymbolIndex.Stock("GS", "Goldman Sachs Group Inc"),
+            new SymbolIndex.Stock("GSBD", "Goldman Sachs BDC Inc"),
+            new SymbolIndex.Stock("SACH", "Sachem Capital Corp"),
+            new SymbolIndex.Stock("AAAU", "Goldman Sachs Physical Gold ETF"),
+            new SymbolIndex.Stock("TSLA", "Tesla Inc"),
+            new SymbolIndex.Stock("F", "Ford Motor Co")));
+
+    @Test
+    void findsSymbolsByPrefixShortestFirst() {
+        assertThat(symbols("ap")).startsWith("APA").contains("APLE");
+        assertThat(symbols("f")).containsExactly("F");
+    }
+
+    @Test
+    void toleratesTyposInNames() {
+        // APLE also gets the symbol prefix
+        assertThat(symbols("aple")).startsWith("APLE", "AAPL");
+        assertThat(symbols("appel")).startsWith("AAPL", "APLE");
+        assertThat(symbols("microsft")).containsExactly("MSFT");
+        // two letter words have to match exactly ("co") or as a prefix
+        assertThat(symbols("mt")).isEmpty();
+    }
+
+    @Test
+    void completesTheLastWordOfAPhrase() {
+        assertThat(symbols("goldman sa")).containsExactlyInAnyOrder("GS", "GSBD", "AAAU");
+        assertThat(symbols("goldman sachs ph")).first().isEqualTo("AAAU");
+        // out of order the words only match fuzzily, without the phrase's score
+        assertThat(index.search("sachs gol", 1).get(0).score())
+                .isLessThan(index.search("goldman sa", 1).get(0).score());
+    }
+
+    @Test
+    void addsUpTheClausesThatMatch() {
+        // a symbol prefix plus an exact name beats a name alone
+        assertThat(symbols("tesla")).containsExactly("TSLA");
+        List<SymbolIndex.Hit> apple = index.search("apple", 10);
+        assertThat(apple).extracting(SymbolIndex.Hit::symbol).containsExactly("AAPL", "APLE");
+        // the shorter name is the better match, as with BM25 in Elasticsearch
+        assertThat(apple.get(0).score()).isGreaterThan(apple.get(1).score());
+    }
+
+    @Test
+    void limitsAndIgnoresBlankQueries() {
+        assertThat(index.search("a", 2)).hasSize(2);
+        assertThat(index.search("  ", 10)).isEmpty();
+        assertThat(index.search("zzzz", 10)).isEmpty();
+    }
+
+    @Test
+    void boundedEditDistanceCountsTranspositionsAsOne() {
+        assertThat(SymbolIndex.editDistance("appel", "apple", 2)).isEqualTo(1);
+        assertThat(SymbolIndex.editDistance("microsft", "microsoft", 2)).isEqualTo(1);
+        assertThat(SymbolIndex.editDistance("tesla", "ford", 2)).isEqualTo(3);
+    }
+
+    private List<String> symbols(String query) {
+        return index.search(query, 10).stream().map(SymbolIndex.Hit::symbol).toList();
+    }
+}
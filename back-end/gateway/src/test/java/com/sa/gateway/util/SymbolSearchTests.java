@@ -0,0 +1,77 @@
+package com.sa.gateway.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolSearchTests {
+
+    @TempDir
+    Path directory;
+
+    private SymbolSearch search;
+
+    @AfterEach
+    void stop() {
+        if (search != null) {
+            search.destroy();
+        }
+    }
+
+    @Test
+    void swapsInTheCatalogWhenTheFileChanges() throws IOException {
+        Path catalog = write("[{\"symbol\":\"AAPL\",\"name\":\"Apple Inc\"}]", Instant.now().minusSeconds(60));
+        search = search(catalog);
+        assertThat(search.search("apple")).extracting(SymbolIndex.Hit::symbol).containsExactly("AAPL");
+
+        write("[{\"symbol\":\"AAPL\",\"name\":\"Apple Inc\"},{\"symbol\":\"APLE\",\"name\":\"Apple Hospitality\"}]",
+              Instant.now());
+        search.reload();
+
+        assertThat(search.search("apple")).extracting(SymbolIndex.Hit::symbol).containsExactly("AAPL", "APLE");
+    }
+
+    @Test
+    void keepsTheLastGoodCatalogWhenTheFileIsBroken() throws IOException {
+        Path catalog = write("[{\"symbol\":\"AAPL\",\"name\":\"Apple Inc\"}]", Instant.now().minusSeconds(60));
+        search = search(catalog);
+
+        write("[{\"symbol\":", Instant.now());
+        search.reload();
+
+        assertThat(search.search("aapl")).extracting(SymbolIndex.Hit::symbol).containsExactly("AAPL");
+    }
+
+    @Test
+    void findsNothingWithoutACatalog() {
+        search = search(directory.resolve("missing.json"));
+
+        assertThat(search.search("aapl")).isEmpty();
+    }
+
+    private Path write(String json, Instant modified) throws IOException {
+        Path catalog = directory.resolve("stocks.json");
+        Files.writeString(catalog, json);
+        Files.setLastModifiedTime(catalog, FileTime.from(modified));
+        return catalog;
+    }
+
+    private static SymbolSearch search(Path catalog) {
+        SearchProperties properties = new SearchProperties();
+        properties.setCatalog(catalog.toUri().toString());
+        properties.setReloadInterval(Duration.ofHours(1));
+        return new SymbolSearch(properties, new DefaultResourceLoader(), new ObjectMapper(), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,32 @@
+package com.sa.gateway.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaggedTimersTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TaggedTimers timers = new TaggedTimers(registry, "gateway.test", "test timer", "route", "status");
+
+    @Test
+    void registersEachTagSetOnce() {
+        timers.get("portfolio_route", "2xx").record(1, TimeUnit.MILLISECONDS);
+        timers.get("portfolio_route", "2xx").record(3, TimeUnit.MILLISECONDS);
+        timers.get("portfolio_route", "5xx").record(5, TimeUnit.MILLISECONDS);
+
+        assertThat(timers.get("portfolio_route", "2xx")).isSameAs(timers.get("portfolio_route", "2xx"));
+        assertThat(registry.find("gateway.test").timers()).hasSize(2);
+        assertThat(registry.get("gateway.test").tags("route", "portfolio_route", "status", "2xx").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void rejectsMissingTagValues() {
+        assertThatThrownBy(() -> timers.get("portfolio_route")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,19 @@
+package com.sa.identity;
+
+import java.util.List;
+
+/**
+ * Headers the gateway forwards for a verified token. Clients can't inject
+ * them: the gateway strips them from every incoming request.
+ */
+public final class IdentityHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_EMAIL = "X-User-Email";
+    public static final String TOKEN_EXPIRES = "X-User-Token-Expires";
+    public static final String SIGNATURE = "X-User-Signature";
+    public static final List<String> ALL = List.of(USER_ID, USER_EMAIL, TOKEN_EXPIRES, SIGNATURE);
+
+    private IdentityHeaders() {
+    }
+}
@@ -0,0 +1,97 @@
+package com.sa.identity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The signed identity the gateway forwards to services: an HMAC-SHA256 over
+ * {@code identity-v1\n<id>\n<email>\n<expires>} with the secret they share.
+ * The gateway signs after verifying the caller's token; services that
+ * verify the signature can trust the identity without parsing the token
+ * again. Headers for an expired token are rejected.
+ */
+public final class IdentitySignature {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Clock clock;
+
+    /**
+     * @param secret the shared secret, or null/empty to disable signing and ignore identity headers
+     */
+    public IdentitySignature(String secret) {
+        this(secret, Clock.systemUTC());
+    }
+
+    IdentitySignature(String secret, Clock clock) {
+        this.key = secret == null || secret.isEmpty()
+                ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * @param expiresAt token expiry in epoch seconds
+     * @return the {@link IdentityHeaders#SIGNATURE} header value
+     */
+    public String sign(String userId, String email, long expiresAt) {
+        if (key == null) {
+            throw new IllegalStateException("identity.secret is not configured");
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac(userId, email, expiresAt));
+    }
+
+    /**
+     * @param headers header value by name, e.g. {@code request::getHeader}
+     */
+    public Optional<TrustedIdentity> verify(Function<String, String> headers) {
+        String signature = headers.apply(IdentityHeaders.SIGNATURE);
+        if (key == null || signature == null) {
+            return Optional.empty();
+        }
+        String userId = headers.apply(IdentityHeaders.USER_ID);
+        String email = headers.apply(IdentityHeaders.USER_EMAIL);
+        String expires = headers.apply(IdentityHeaders.TOKEN_EXPIRES);
+        if (userId == null || email == null || expires == null) {
+            return Optional.empty();
+        }
+        try {
+            long expiresAt = Long.parseLong(expires);
+            if (expiresAt <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            byte[] expected = mac(userId, email, expiresAt);
+            byte[] actual = Base64.getUrlDecoder().decode(signature);
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Optional.empty();
+            }
+            return Optional.of(new TrustedIdentity(UUID.fromString(userId), email, Instant.ofEpochSecond(expiresAt)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] mac(String userId, String email, long expiresAt) {
+        String message = "identity-v1\n" + userId + "\n" + email + "\n" + expiresAt;
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
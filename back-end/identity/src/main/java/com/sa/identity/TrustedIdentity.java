@@ -0,0 +1,13 @@
+package com.sa.identity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Caller identity taken from the gateway's signed identity headers.
+ */
+public record TrustedIdentity(UUID userId, String email, Instant tokenExpiresAt) {
+
+    /** Request attribute holding the {@link TrustedIdentity} of the current request. */
+    public static final String ATTRIBUTE = "com.sa.identity.TrustedIdentity";
+}
@@ -0,0 +1,66 @@
+package com.sa.identity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentitySignatureTests {
+
+    private static final String SECRET = "identity-secret";
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final IdentitySignature signature = new IdentitySignature(SECRET, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void acceptsHeadersSignedByTheGateway() {
+        UUID userId = UUID.randomUUID();
+        long expires = NOW.getEpochSecond() + 60;
+
+        TrustedIdentity identity = signature.verify(headers(userId.toString(), "a@b.c", expires,
+                                                            signature.sign(userId.toString(), "a@b.c", expires))::get)
+                .orElseThrow();
+
+        assertThat(identity.userId()).isEqualTo(userId);
+        assertThat(identity.email()).isEqualTo("a@b.c");
+        assertThat(identity.tokenExpiresAt()).isEqualTo(Instant.ofEpochSecond(expires));
+    }
+
+    @Test
+    void rejectsTamperedExpiredOrMissingHeaders() {
+        String userId = UUID.randomUUID().toString();
+        long expires = NOW.getEpochSecond() + 60;
+        String signed = signature.sign(userId, "a@b.c", expires);
+
+        assertThat(signature.verify(headers(userId, "admin@b.c", expires, signed)::get)).isEmpty();
+        assertThat(signature.verify(headers(userId, "a@b.c", expires, "forged")::get)).isEmpty();
+        assertThat(signature.verify(Map.of(IdentityHeaders.USER_ID, userId)::get)).isEmpty();
+
+        long expired = NOW.getEpochSecond();
+        assertThat(signature.verify(headers(userId, "a@b.c", expired, signature.sign(userId, "a@b.c", expired))::get))
+                .isEmpty();
+    }
+
+    @Test
+    void ignoresHeadersWithoutASecret() {
+        String userId = UUID.randomUUID().toString();
+        long expires = NOW.getEpochSecond() + 60;
+
+        assertThat(new IdentitySignature("").isEnabled()).isFalse();
+        assertThat(new IdentitySignature(null).verify(headers(userId, "a@b.c", expires,
+                                                               signature.sign(userId, "a@b.c", expires))::get))
+                .isEmpty();
+    }
+
+    private static Map<String, String> headers(String userId, String email, long expires, String signed) {
+        return Map.of(IdentityHeaders.USER_ID, userId,
+                      IdentityHeaders.USER_EMAIL, email,
+                      IdentityHeaders.TOKEN_EXPIRES, Long.toString(expires),
+                      IdentityHeaders.SIGNATURE, signed);
+    }
+}
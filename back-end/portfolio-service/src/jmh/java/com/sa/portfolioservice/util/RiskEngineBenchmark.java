@@ -0,0 +1,63 @@
+package com.sa.portfolioservice.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full risk calculation for a 200-holding portfolio over five years of
+ * daily closes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RiskEngineBenchmark {
+
+    @Param({"200"})
+    int holdings;
+
+    @Param({"1261"})
+    int days;
+
+    private ForkJoinPool pool;
+    private RiskEngine engine;
+    private double[][] closes;
+    private double[] benchmark;
+    private double[] marketValues;
+    private final double[] confidence = {0.95, 0.99};
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        engine = new RiskEngine(pool);
+        Random random = new Random(7);
+        benchmark = randomWalk(random);
+        closes = new double[holdings][];
+        marketValues = new double[holdings];
+        for (int i = 0; i < holdings; i++) {
+            closes[i] = randomWalk(random);
+            marketValues[i] = 1_000 + random.nextInt(50_000);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public RiskEngine.Result compute() {
+        return engine.compute(closes, benchmark, marketValues, confidence);
+    }
+
+    private double[] randomWalk(Random random) {
+        double[] series = new double[days];
+        series[0] = 100;
+        for (int t = 1; t < days; t++) {
+            series[t] = series[t - 1] * (1 + random.nextGaussian() * 0.015);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,111 @@
+package com.sa.portfolioservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Values a 200-holding portfolio with {@code BigDecimal}, as the valuation
+ * endpoint used to, and with {@link ValuationKernel}: once from the
+ * {@code BigDecimal} amounts the entities hold, once revaluing after a
+ * price change. Run with the gc profiler (on by default in the build) to
+ * see the allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValuationKernelBenchmark {
+
+    @Param({"200"})
+    int holdings;
+
+    private BigDecimal[] quantities;
+    private BigDecimal[] averagePrices;
+    private BigDecimal[] prices;
+    private String[] symbols;
+    private long[] fixedQuantities;
+    private long[] fixedAverages;
+    private long[] fixedPrices;
+    private ValuationKernel kernel;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        quantities = new BigDecimal[holdings];
+        averagePrices = new BigDecimal[holdings];
+        prices = new BigDecimal[holdings];
+        symbols = new String[holdings];
+        fixedQuantities = new long[holdings];
+        fixedAverages = new long[holdings];
+        fixedPrices = new long[holdings];
+        for (int i = 0; i < holdings; i++) {
+            quantities[i] = BigDecimal.valueOf(1 + random.nextInt(500_000), 3).setScale(8);
+            averagePrices[i] = BigDecimal.valueOf(100 + random.nextInt(5_000_000), 4).setScale(8);
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(5_000_000), 4);
+            symbols[i] = "S" + i;
+            fixedQuantities[i] = FixedPoint.of(quantities[i]);
+            fixedAverages[i] = FixedPoint.of(averagePrices[i]);
+            fixedPrices[i] = FixedPoint.of(prices[i]);
+        }
+        kernel = load();
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        BigDecimal totalMarketValue = BigDecimal.ZERO;
+        BigDecimal totalCostBasis = BigDecimal.ZERO;
+        BigDecimal totalPnl = BigDecimal.ZERO;
+        for (int i = 0; i < holdings; i++) {
+            BigDecimal costBasis = quantities[i].multiply(averagePrices[i]).setScale(8, RoundingMode.HALF_UP);
+            BigDecimal marketValue = quantities[i].multiply(prices[i]).setScale(8, RoundingMode.HALF_UP);
+            BigDecimal pnl = marketValue.subtract(costBasis);
+            blackhole.consume(pnl);
+            totalCostBasis = totalCostBasis.add(costBasis);
+            totalMarketValue = totalMarketValue.add(marketValue);
+            totalPnl = totalPnl.add(pnl);
+        }
+        blackhole.consume(totalMarketValue);
+        blackhole.consume(totalCostBasis);
+        blackhole.consume(totalPnl);
+    }
+
+    /** What a valuation request does: convert, value, read the figures. */
+    @Benchmark
+    public long fixedPointFromBigDecimal() {
+        ValuationKernel loaded = load();
+        loaded.valuate();
+        return loaded.totalUnrealizedPnl();
+    }
+
+    @Benchmark
+    public long fixedPointRevalue() {
+        kernel.valuate();
+        return kernel.totalUnrealizedPnl();
+    }
+
+    @Benchmark
+    public BigDecimal weightedAverageBigDecimal() {
+        BigDecimal newQty = quantities[0].add(quantities[1]);
+        return averagePrices[0].multiply(quantities[0]).add(prices[1].multiply(quantities[1]))
+                .divide(newQty, 8, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public long weightedAverageFixedPoint() {
+        return FixedPoint.weightedAverage(fixedQuantities[0], fixedAverages[0], fixedQuantities[1], fixedPrices[1]);
+    }
+
+    private ValuationKernel load() {
+        ValuationKernel loaded = new ValuationKernel(holdings);
+        for (int i = 0; i < holdings; i++) {
+            int symbol = loaded.symbol(symbols[i]);
+            loaded.price(symbol, FixedPoint.of(prices[i]));
+            loaded.add(symbol, FixedPoint.of(quantities[i]), FixedPoint.of(averagePrices[i]));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sa.portfolioservice.components.controllers;
+
+import com.sa.portfolioservice.components.entities.HeldSymbol;
+import com.sa.portfolioservice.components.services.PortfolioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Endpoints for other services. The gateway only routes
+ * {@code /portfolio/**}, so these are not reachable from outside.
+ */
+@RestController
+@RequestMapping("/internal")
+@RequiredArgsConstructor
+public class InternalController {
+
+    private final PortfolioService service;
+
+    /**
+     * Symbols held by anyone, for the quote-service to keep warm.
+     * GET /internal/held-symbols
+     * response: [{ "symbol": "AAPL", "holders": 12 }, ...]
+     */
+    @GetMapping("/held-symbols")
+    public List<HeldSymbol> heldSymbols() {
+        return service.getHeldSymbols();
+    }
+}
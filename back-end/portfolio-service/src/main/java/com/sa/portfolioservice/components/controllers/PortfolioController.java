@@ -2,12 +2,28 @@ package com.sa.portfolioservice.components.controllers;
 
 import com.sa.portfolioservice.components.entities.PortfolioItem;
 import com.sa.portfolioservice.components.dto.AddHoldingRequest;
+import com.sa.portfolioservice.components.dto.HoldingImportResponse;
+import com.sa.portfolioservice.components.dto.HoldingPageResponse;
 import com.sa.portfolioservice.components.dto.PortfolioResponse;
+import com.sa.portfolioservice.components.dto.PortfolioRiskResponse;
+import com.sa.portfolioservice.components.dto.PortfolioValuationResponse;
+import com.sa.portfolioservice.components.services.HoldingImportService;
+import com.sa.portfolioservice.components.services.PortfolioReadCache;
 import com.sa.portfolioservice.components.services.PortfolioService;
+import com.sa.portfolioservice.components.services.RiskService;
+import com.sa.portfolioservice.components.services.ValuationService;
+import com.sa.portfolioservice.components.services.ValuationStreamService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -16,6 +32,11 @@ import java.util.UUID;
 public class PortfolioController {
 
     private final PortfolioService service;
+    private final ValuationService valuationService;
+    private final HoldingImportService importService;
+    private final PortfolioReadCache readCache;
+    private final ValuationStreamService valuationStreamService;
+    private final RiskService riskService;
 
     /**
      * Add or update a holding for a user.
@@ -32,6 +53,34 @@ public class PortfolioController {
         return ResponseEntity.ok(saved);
     }
 
+    /**
+     * Import many holdings at once. Rows for the same symbol are merged and
+     * invalid rows are reported in the response instead of failing the batch.
+     * POST /portfolio/{userId}/holdings/batch
+     * body: [{ "symbol": "AAPL", "quantity": 1.5, "buyPrice": 170 }, ...]
+     */
+    @PostMapping(value = "/{userId}/holdings/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HoldingImportResponse> importHoldings(
+            @PathVariable("userId") UUID userId,
+            @RequestBody List<AddHoldingRequest> request) {
+
+        return ResponseEntity.ok(importService.importHoldings(userId, request));
+    }
+
+    /**
+     * CSV variant of the batch import.
+     * POST /portfolio/{userId}/holdings/batch (Content-Type: text/csv)
+     * body: symbol,quantity,buyPrice
+     *       AAPL,1.5,170
+     */
+    @PostMapping(value = "/{userId}/holdings/batch", consumes = "text/csv")
+    public ResponseEntity<HoldingImportResponse> importHoldingsCsv(
+            @PathVariable("userId") UUID userId,
+            @RequestBody String csv) {
+
+        return ResponseEntity.ok(importService.importCsv(userId, csv));
+    }
+
     /**
      * Remove a holding.
      * DELETE /portfolio/{userId}/holdings/{symbol}
@@ -46,10 +95,75 @@ public class PortfolioController {
     /**
      * Get portfolio without current market values.
      * GET /portfolio/{userId}
+     * Responses carry an ETag; a matching If-None-Match gets a 304.
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<PortfolioResponse> getPortfolio(@PathVariable("userId") UUID userId) {
-        PortfolioResponse response = service.getPortfolio(userId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PortfolioResponse> getPortfolio(
+            @PathVariable("userId") UUID userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String etag = readCache.etag(userId);
+        if (readCache.notModified(etag, ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        PortfolioReadCache.CachedPortfolio portfolio = readCache.get(userId, () -> service.getPortfolio(userId));
+        return ResponseEntity.ok().eTag(portfolio.etag()).body(portfolio.response());
+    }
+
+    /**
+     * List holdings a page at a time, ordered by symbol.
+     * GET /portfolio/{userId}/holdings?limit=100&sort=-symbol&symbolPrefix=A&cursor=...
+     * Follow {@code nextCursor} from the response until {@code hasMore} is false.
+     */
+    @GetMapping("/{userId}/holdings")
+    public ResponseEntity<HoldingPageResponse> listHoldings(
+            @PathVariable("userId") UUID userId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "symbolPrefix", required = false) String symbolPrefix) {
+
+        return ResponseEntity.ok(service.getHoldingsPage(userId, limit, cursor, sort, symbolPrefix));
+    }
+
+    /**
+     * Get portfolio as it was at a point in time, derived from the ledger.
+     * GET /portfolio/{userId}/history?asOf=2025-01-31T00:00:00Z
+     */
+    @GetMapping("/{userId}/history")
+    public ResponseEntity<PortfolioResponse> getPortfolioAsOf(@PathVariable("userId") UUID userId,
+                                                              @RequestParam("asOf") Instant asOf) {
+        return ResponseEntity.ok(service.getPortfolioAsOf(userId, asOf));
+    }
+
+    /**
+     * Get portfolio valued at current market prices, with quotes for all
+     * holdings fetched server-side in one go.
+     * GET /portfolio/{userId}/valuation
+     */
+    @GetMapping("/{userId}/valuation")
+    public Mono<ResponseEntity<PortfolioValuationResponse>> getValuation(@PathVariable("userId") UUID userId) {
+        return valuationService.valuate(userId).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Risk figures from daily returns: volatility, beta against the
+     * benchmark, one-day VaR/CVaR and the holdings' correlation matrix.
+     * GET /portfolio/{userId}/risk
+     */
+    @GetMapping("/{userId}/risk")
+    public Mono<ResponseEntity<PortfolioRiskResponse>> getRisk(@PathVariable("userId") UUID userId) {
+        return riskService.risk(userId).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Stream live valuation updates as server-sent events: a "snapshot"
+     * event with the full valuation, then a "delta" event per quote change
+     * of a held symbol.
+     * GET /portfolio/{userId}/stream
+     */
+    @GetMapping(value = "/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamValuation(@PathVariable("userId") UUID userId) {
+        return valuationStreamService.emitter(userId);
     }
 }
@@ -0,0 +1,14 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingImportError {
+    private int row;
+    private String symbol;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingImportResponse {
+    private int receivedRows;
+    private int importedRows;
+    private int upsertedHoldings;
+    private List<HoldingImportError> errors;
+}
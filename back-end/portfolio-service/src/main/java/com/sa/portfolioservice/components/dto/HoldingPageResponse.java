@@ -0,0 +1,17 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingPageResponse {
+    private List<HoldingResponse> holdings;
+    /** Pass as {@code cursor} to get the next page; null on the last page. */
+    private String nextCursor;
+    private boolean hasMore;
+}
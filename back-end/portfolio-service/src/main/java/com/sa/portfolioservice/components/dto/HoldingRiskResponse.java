@@ -0,0 +1,19 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingRiskResponse {
+    private String symbol;
+    private BigDecimal marketValue;
+    private double weight;
+    /** Annualized volatility of daily returns. */
+    private double volatility;
+    private double beta;
+}
@@ -0,0 +1,31 @@
+package com.sa.portfolioservice.components.dto;
+
+/**
+ * Sort orders of the paginated holdings listing; {@code id} breaks ties.
+ */
+public enum HoldingSort {
+    SYMBOL_ASC("symbol"),
+    SYMBOL_DESC("-symbol");
+
+    private final String parameter;
+
+    HoldingSort(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+
+    public static HoldingSort fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return SYMBOL_ASC;
+        }
+        for (HoldingSort sort : values()) {
+            if (sort.parameter.equalsIgnoreCase(value.trim())) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("sort must be one of: symbol, -symbol");
+    }
+}
@@ -0,0 +1,25 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingValuationResponse {
+    private String symbol;
+    private BigDecimal quantity;
+    private BigDecimal averagePrice;
+    private BigDecimal price;
+    private BigDecimal change;
+    private BigDecimal changePercent;
+    private BigDecimal marketValue;
+    private BigDecimal costBasis;
+    private BigDecimal unrealizedPnl;
+    private QuoteStatus quoteStatus;
+    private Instant quoteAsOf;
+}
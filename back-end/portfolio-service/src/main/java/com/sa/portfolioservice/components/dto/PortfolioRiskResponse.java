@@ -0,0 +1,31 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioRiskResponse {
+    private String benchmark;
+    private LocalDate from;
+    private LocalDate to;
+    /** Number of daily returns the figures are based on. */
+    private int observations;
+    private BigDecimal totalMarketValue;
+    /** Annualized volatility of the portfolio's daily returns. */
+    private double volatility;
+    private double beta;
+    private List<ValueAtRiskResponse> valueAtRisk;
+    private List<HoldingRiskResponse> holdings;
+    /** Symbols in the row/column order of {@code correlation}. */
+    private List<String> correlationSymbols;
+    private double[][] correlation;
+    /** Holdings left out because no price history was available. */
+    private List<String> missingHistory;
+}
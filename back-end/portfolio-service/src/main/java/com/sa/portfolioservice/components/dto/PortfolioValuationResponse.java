@@ -0,0 +1,21 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioValuationResponse {
+    private List<HoldingValuationResponse> holdings;
+    private BigDecimal totalMarketValue;
+    private BigDecimal totalCostBasis;
+    private BigDecimal totalUnrealizedPnl;
+    private int staleQuotes;
+    private int missingQuotes;
+    private boolean complete;
+}
@@ -0,0 +1,10 @@
+package com.sa.portfolioservice.components.dto;
+
+/**
+ * Freshness of the quote used to value a holding.
+ */
+public enum QuoteStatus {
+    LIVE,
+    STALE,
+    MISSING
+}
@@ -1,5 +1,7 @@
 package com.sa.portfolioservice.components.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -9,7 +11,11 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class TickerPriceResponse {
     private String symbol;
+    @JsonAlias("current")
     private BigDecimal price;
+    private BigDecimal change;
+    private BigDecimal percent;
 }
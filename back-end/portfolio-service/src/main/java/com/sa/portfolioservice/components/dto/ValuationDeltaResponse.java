@@ -0,0 +1,23 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValuationDeltaResponse {
+    private String symbol;
+    private BigDecimal quantity;
+    private BigDecimal price;
+    private BigDecimal change;
+    private BigDecimal changePercent;
+    private BigDecimal marketValue;
+    private BigDecimal dayChange;
+    private BigDecimal totalMarketValue;
+    private Instant quoteAsOf;
+}
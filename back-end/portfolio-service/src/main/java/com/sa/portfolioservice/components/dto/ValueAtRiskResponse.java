@@ -0,0 +1,26 @@
+package com.sa.portfolioservice.components.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One-day value at risk and expected shortfall at one confidence level,
+ * both as a fraction of the portfolio value and as an amount.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValueAtRiskResponse {
+    private double confidence;
+    private double historicalVar;
+    private double historicalCvar;
+    private double parametricVar;
+    private double parametricCvar;
+    private BigDecimal historicalVarAmount;
+    private BigDecimal historicalCvarAmount;
+    private BigDecimal parametricVarAmount;
+    private BigDecimal parametricCvarAmount;
+}
@@ -0,0 +1,10 @@
+package com.sa.portfolioservice.components.entities;
+
+/**
+ * A symbol and how many users hold it.
+ */
+public interface HeldSymbol {
+    String getSymbol();
+
+    long getHolders();
+}
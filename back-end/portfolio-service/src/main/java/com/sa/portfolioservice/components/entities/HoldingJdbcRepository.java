@@ -0,0 +1,139 @@
+package com.sa.portfolioservice.components.entities;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to the portfolio table for set-based writes that JPA
+ * can't express in a single round trip, and for read-only listings that
+ * map rows straight into projections.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HoldingJdbcRepository {
+
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * Insert a holding or buy into an existing one. On conflict the
+     * quantities are summed and the average price follows the
+     * {@link com.sa.portfolioservice.util.HoldingMath} rule: a non-positive
+     * buy price keeps the old average, otherwise the weighted average is
+     * rounded HALF_UP to 8 decimals. The rounding is done with exact integer
+     * division, floor((2 * 10^8 * cost + qty) / (2 * qty)), so it matches
+     * BigDecimal for the non-negative values stored here.
+     */
+    static final String UPSERT_SQL = """
+            INSERT INTO portfolio AS p (id, user_id, symbol, quantity, avg_price, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, symbol) DO UPDATE SET
+                quantity = p.quantity + EXCLUDED.quantity,
+                avg_price = CASE
+                    WHEN EXCLUDED.avg_price <= 0 THEN p.avg_price
+                    ELSE div(200000000 * (p.avg_price * p.quantity + EXCLUDED.avg_price * EXCLUDED.quantity)
+                                 + (p.quantity + EXCLUDED.quantity),
+                             2 * (p.quantity + EXCLUDED.quantity)) / 100000000
+                END,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String RETURNING_SQL = " RETURNING id, user_id, symbol, quantity, avg_price, created_at, updated_at";
+
+    private static final RowMapper<PortfolioItem> ITEM_MAPPER = (rs, rowNum) -> PortfolioItem.builder()
+            .id(rs.getObject("id", UUID.class))
+            .userId(rs.getObject("user_id", UUID.class))
+            .symbol(rs.getString("symbol"))
+            .quantity(rs.getBigDecimal("quantity"))
+            .averagePrice(rs.getBigDecimal("avg_price"))
+            .createdAt(rs.getTimestamp("created_at").toInstant())
+            .updatedAt(rs.getTimestamp("updated_at").toInstant())
+            .build();
+
+    private static final RowMapper<HoldingRow> ROW_MAPPER = (rs, rowNum) -> new HoldingRow(
+            rs.getObject("id", UUID.class),
+            rs.getString("symbol"),
+            rs.getBigDecimal("quantity"),
+            rs.getBigDecimal("avg_price"));
+
+    private static final String SELECT_ROWS = "SELECT id, symbol, quantity, avg_price FROM portfolio WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Atomically insert a holding or buy into an existing one in a single
+     * statement, so concurrent buys of the same symbol neither lose updates
+     * nor trip the (user_id, symbol) unique constraint.
+     *
+     * @param averagePrice the buy price, or zero to keep the current average
+     * @return the holding as stored after the merge
+     */
+    public PortfolioItem upsert(UUID userId, String symbol, BigDecimal quantity, BigDecimal averagePrice) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.queryForObject(UPSERT_SQL + RETURNING_SQL, ITEM_MAPPER,
+                                           UUID.randomUUID(), userId, symbol, quantity, averagePrice, now, now);
+    }
+
+    /**
+     * Upsert all holdings for a user with JDBC batching. Symbols must be
+     * normalized and unique within {@code holdings}.
+     */
+    public void batchUpsert(UUID userId, Collection<PortfolioItem> holdings) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, holdings, BATCH_SIZE, (ps, item) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, userId);
+            ps.setString(3, item.getSymbol());
+            ps.setBigDecimal(4, item.getQuantity());
+            ps.setBigDecimal(5, item.getAveragePrice());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    /**
+     * All holdings of a user ordered by symbol.
+     */
+    public List<HoldingRow> findHoldings(UUID userId) {
+        return jdbcTemplate.query(SELECT_ROWS + " ORDER BY symbol, id", ROW_MAPPER, userId);
+    }
+
+    /**
+     * One page of a user's holdings in {@code (symbol, id)} order, starting
+     * after the given position. The row-value comparison lets Postgres seek
+     * into the {@code (user_id, symbol)} index instead of skipping an offset,
+     * so deep pages cost the same as the first one.
+     *
+     * @param symbolPrefix only symbols starting with this, or null for all
+     * @param afterSymbol  symbol of the last row of the previous page, or null for the first page
+     * @param afterId      id of the last row of the previous page
+     */
+    public List<HoldingRow> findPage(UUID userId, boolean descending, String symbolPrefix,
+                                     String afterSymbol, UUID afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_ROWS);
+        List<Object> args = new ArrayList<>(5);
+        args.add(userId);
+        if (symbolPrefix != null) {
+            sql.append(" AND starts_with(symbol, ?)");
+            args.add(symbolPrefix);
+        }
+        if (afterSymbol != null) {
+            sql.append(descending ? " AND (symbol, id) < (?, ?)" : " AND (symbol, id) > (?, ?)");
+            args.add(afterSymbol);
+            args.add(afterId);
+        }
+        sql.append(descending ? " ORDER BY symbol DESC, id DESC" : " ORDER BY symbol, id");
+        sql.append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+}
@@ -0,0 +1,11 @@
+package com.sa.portfolioservice.components.entities;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only projection of a portfolio row, mapped straight from JDBC so no
+ * entity is loaded into the persistence context.
+ */
+public record HoldingRow(UUID id, String symbol, BigDecimal quantity, BigDecimal averagePrice) {
+}
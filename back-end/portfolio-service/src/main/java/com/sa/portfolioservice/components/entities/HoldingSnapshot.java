@@ -0,0 +1,46 @@
+package com.sa.portfolioservice.components.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Holdings of a user after applying every ledger entry up to and including
+ * the one with sequence {@code lastSequence}. There is at most one
+ * snapshot per user and sequence.
+ */
+@Entity
+@Table(name = "portfolio_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_snapshots_user_sequence",
+                                              columnNames = {"user_id", "last_sequence"}),
+        indexes = @Index(name = "idx_portfolio_snapshots_user_time", columnList = "user_id, taken_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldingSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Column(name = "user_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(name = "last_sequence", nullable = false, updatable = false)
+    private long lastSequence;
+
+    @Column(name = "taken_at", nullable = false, updatable = false)
+    private Instant takenAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "holdings", columnDefinition = "jsonb", nullable = false, updatable = false)
+    private List<SnapshotHolding> holdings;
+}
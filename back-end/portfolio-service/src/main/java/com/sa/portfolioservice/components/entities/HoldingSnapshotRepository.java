@@ -0,0 +1,14 @@
+package com.sa.portfolioservice.components.entities;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HoldingSnapshotRepository extends JpaRepository<HoldingSnapshot, Long> {
+    Optional<HoldingSnapshot> findFirstByUserIdOrderByLastSequenceDesc(UUID userId);
+    Optional<HoldingSnapshot> findFirstByUserIdAndTakenAtLessThanEqualOrderByLastSequenceDesc(UUID userId, Instant asOf);
+}
@@ -2,6 +2,7 @@ package com.sa.portfolioservice.components.entities;
 
 import com.sa.portfolioservice.components.entities.PortfolioItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +13,10 @@ import java.util.UUID;
 public interface PortfolioRepository extends JpaRepository<PortfolioItem, UUID> {
     List<PortfolioItem> findByUserId(UUID userId);
     Optional<PortfolioItem> findByUserIdAndSymbolIgnoreCase(UUID userId, String symbol);
+    boolean existsByUserIdAndSymbol(UUID userId, String symbol);
     void deleteByUserIdAndSymbolIgnoreCase(UUID userId, String symbol);
+
+    @Query("select upper(p.symbol) as symbol, count(distinct p.userId) as holders from PortfolioItem p"
+            + " where p.quantity > 0 group by upper(p.symbol)")
+    List<HeldSymbol> findHeldSymbols();
 }
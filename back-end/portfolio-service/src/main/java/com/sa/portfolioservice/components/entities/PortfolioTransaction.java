@@ -0,0 +1,64 @@
+package com.sa.portfolioservice.components.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Append-only ledger entry. Rows are never updated; holdings are derived
+ * from the latest {@link HoldingSnapshot} plus the entries after it.
+ * <p>
+ * Entries are ordered by {@code sequence}, which counts a user's changes
+ * and is assigned while their {@link PortfolioVersion} row is locked. The
+ * id comes from a pooled sequence and says nothing about order.
+ */
+@Entity
+@Table(name = "portfolio_transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_transactions_user_sequence",
+                                              columnNames = {"user_id", "sequence"}),
+        indexes = @Index(name = "idx_portfolio_transactions_user_time", columnList = "user_id, occurred_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "portfolio_transactions_seq")
+    @SequenceGenerator(name = "portfolio_transactions_seq", sequenceName = "portfolio_transactions_seq", allocationSize = 50)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Long id;
+
+    @Column(name = "user_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(name = "sequence", nullable = false, updatable = false)
+    private long sequence;
+
+    @Column(name = "symbol", nullable = false, updatable = false)
+    private String symbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, updatable = false, length = 16)
+    private TransactionType type;
+
+    @Column(name = "quantity", nullable = false, updatable = false, scale = 8, precision = 20)
+    private BigDecimal quantity;
+
+    @Column(name = "price", updatable = false, scale = 8, precision = 20)
+    private BigDecimal price;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private Instant occurredAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (occurredAt == null) {
+            occurredAt = Instant.now();
+        }
+    }
+}
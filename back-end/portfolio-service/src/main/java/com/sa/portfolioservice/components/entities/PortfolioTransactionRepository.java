@@ -0,0 +1,15 @@
+package com.sa.portfolioservice.components.entities;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PortfolioTransactionRepository extends JpaRepository<PortfolioTransaction, Long> {
+    List<PortfolioTransaction> findByUserIdAndSequenceGreaterThanOrderBySequenceAsc(UUID userId, long afterSequence);
+    List<PortfolioTransaction> findByUserIdAndSequenceGreaterThanAndOccurredAtLessThanEqualOrderBySequenceAsc(
+            UUID userId, long afterSequence, Instant asOf);
+}
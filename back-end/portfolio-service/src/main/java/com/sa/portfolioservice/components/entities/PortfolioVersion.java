@@ -0,0 +1,28 @@
+package com.sa.portfolioservice.components.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Number of changes committed to a user's holdings. The row is bumped in
+ * the same transaction as every change, so all instances agree on it, and
+ * its value is the sequence of the user's latest ledger entry.
+ */
+@Entity
+@Table(name = "portfolio_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortfolioVersion {
+
+    @Id
+    @Column(name = "user_id", columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID userId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,46 @@
+package com.sa.portfolioservice.components.entities;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access to {@link PortfolioVersion} rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PortfolioVersionJdbcRepository {
+
+    private static final String INCREMENT_SQL = """
+            INSERT INTO portfolio_versions AS v (user_id, version)
+            VALUES (?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET version = v.version + EXCLUDED.version
+            RETURNING version
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add {@code changes} to a user's version in a single statement. The row
+     * stays locked until the surrounding transaction ends, so concurrent
+     * writers of the same user are serialized.
+     *
+     * @return the version after the increment
+     */
+    public long increment(UUID userId, int changes) {
+        Long version = jdbcTemplate.queryForObject(INCREMENT_SQL, Long.class, userId, changes);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Committed version of a user's holdings, or 0 if they never changed.
+     */
+    public long current(UUID userId) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM portfolio_versions WHERE user_id = ?", Long.class, userId);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+}
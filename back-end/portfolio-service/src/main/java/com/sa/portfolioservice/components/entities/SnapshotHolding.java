@@ -0,0 +1,19 @@
+package com.sa.portfolioservice.components.entities;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One holding inside a {@link HoldingSnapshot}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotHolding {
+    private String symbol;
+    private BigDecimal quantity;
+    private BigDecimal averagePrice;
+}
@@ -0,0 +1,15 @@
+package com.sa.portfolioservice.components.entities;
+
+/**
+ * Kind of event recorded in the holdings ledger.
+ * <ul>
+ *     <li>BUY adds shares; a price updates the weighted average.</li>
+ *     <li>SELL removes shares at the current average.</li>
+ *     <li>ADJUST sets quantity (and average, if given) outright; zero removes the holding.</li>
+ * </ul>
+ */
+public enum TransactionType {
+    BUY,
+    SELL,
+    ADJUST
+}
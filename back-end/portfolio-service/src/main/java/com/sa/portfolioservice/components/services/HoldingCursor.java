@@ -0,0 +1,44 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position after the last holding of a page. Clients get it as an opaque
+ * token; it records the sort it was issued for so it can't be replayed
+ * against another order.
+ */
+record HoldingCursor(HoldingSort sort, String symbol, UUID id) {
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = '\n';
+
+    String encode() {
+        String raw = VERSION + SEPARATOR + sort.parameter() + SEPARATOR + id + SEPARATOR + symbol;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static HoldingCursor decode(String token, HoldingSort expectedSort) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        HoldingSort sort = HoldingSort.fromParameter(parts[1]);
+        if (sort != expectedSort) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + sort.parameter());
+        }
+        try {
+            return new HoldingCursor(sort, parts[3], UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
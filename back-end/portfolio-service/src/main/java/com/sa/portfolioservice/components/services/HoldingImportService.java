@@ -0,0 +1,200 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.AddHoldingRequest;
+import com.sa.portfolioservice.components.dto.HoldingImportError;
+import com.sa.portfolioservice.components.dto.HoldingImportResponse;
+import com.sa.portfolioservice.components.entities.HoldingJdbcRepository;
+import com.sa.portfolioservice.components.entities.PortfolioItem;
+import com.sa.portfolioservice.components.entities.PortfolioTransaction;
+import com.sa.portfolioservice.components.entities.TransactionType;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.util.HoldingMath;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Bulk import of holdings, e.g. from broker exports. Rows are validated and
+ * merged per symbol in memory, then written with batched upserts.
+ */
+@Service
+@RequiredArgsConstructor
+public class HoldingImportService {
+
+    private final HoldingJdbcRepository jdbcRepository;
+    private final LedgerService ledgerService;
+    private final PortfolioProperties properties;
+
+    /**
+     * Import holdings for a user. Invalid rows are skipped and reported by
+     * their 1-based position; all valid rows are written in one transaction.
+     * The result is the same as adding the rows one by one. Consecutive rows
+     * for a symbol that are all priced or all unpriced are merged with the
+     * regular weighted-average rule; an unpriced row keeps the average it is
+     * applied to, so a change between priced and unpriced rows starts a new
+     * buy, written in a later batch.
+     */
+    @Transactional
+    public HoldingImportResponse importHoldings(UUID userId, List<AddHoldingRequest> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("at least one holding is required");
+        }
+        int maxRows = properties.getImporting().getMaxRows();
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("at most " + maxRows + " holdings can be imported at once");
+        }
+
+        Map<String, List<PortfolioItem>> buys = new LinkedHashMap<>();
+        List<HoldingImportError> errors = new ArrayList<>();
+        int imported = 0;
+
+        for (int i = 0; i < rows.size(); i++) {
+            AddHoldingRequest row = rows.get(i);
+            String error = validate(row);
+            if (error != null) {
+                errors.add(new HoldingImportError(i + 1, row == null ? null : row.getSymbol(), error));
+                continue;
+            }
+
+            String symbol = row.getSymbol().toUpperCase(Locale.ROOT).trim();
+            BigDecimal price = HoldingMath.initialAverage(row.getBuyPrice());
+            List<PortfolioItem> symbolBuys = buys.computeIfAbsent(symbol, s -> new ArrayList<>());
+            PortfolioItem last = symbolBuys.isEmpty() ? null : symbolBuys.getLast();
+            if (last == null || last.getAveragePrice().signum() != price.signum()) {
+                symbolBuys.add(PortfolioItem.builder()
+                        .userId(userId)
+                        .symbol(symbol)
+                        .quantity(row.getQuantity())
+                        .averagePrice(price)
+                        .build());
+            } else {
+                last.setAveragePrice(HoldingMath.weightedAverage(last.getQuantity(), last.getAveragePrice(),
+                                                                 row.getQuantity(), row.getBuyPrice()));
+                last.setQuantity(last.getQuantity().add(row.getQuantity()));
+            }
+            imported++;
+        }
+
+        // the n-th buy of every symbol goes into the n-th batch, so symbols are unique within a batch
+        List<List<PortfolioItem>> batches = new ArrayList<>();
+        for (List<PortfolioItem> symbolBuys : buys.values()) {
+            for (int i = 0; i < symbolBuys.size(); i++) {
+                if (batches.size() == i) {
+                    batches.add(new ArrayList<>());
+                }
+                batches.get(i).add(symbolBuys.get(i));
+            }
+        }
+
+        if (!batches.isEmpty()) {
+            // the ledger records the buys in the order the upserts apply them
+            ledgerService.appendAll(userId, batches.stream()
+                    .flatMap(List::stream)
+                    .map(item -> PortfolioTransaction.builder()
+                            .userId(userId)
+                            .type(TransactionType.BUY)
+                            .symbol(item.getSymbol())
+                            .quantity(item.getQuantity())
+                            .price(item.getAveragePrice().signum() > 0 ? item.getAveragePrice() : null)
+                            .build())
+                    .toList());
+            for (List<PortfolioItem> batch : batches) {
+                jdbcRepository.batchUpsert(userId, batch);
+            }
+        }
+
+        return HoldingImportResponse.builder()
+                .receivedRows(rows.size())
+                .importedRows(imported)
+                .upsertedHoldings(buys.size())
+                .errors(errors)
+                .build();
+    }
+
+    /**
+     * Import holdings from CSV with the columns {@code symbol,quantity,buyPrice}.
+     * A header line is optional and the buy price may be left empty. Lines
+     * that can't be parsed are reported by line number.
+     */
+    @Transactional
+    public HoldingImportResponse importCsv(UUID userId, String csv) {
+        if (csv == null || csv.isBlank()) {
+            throw new IllegalArgumentException("at least one holding is required");
+        }
+
+        List<AddHoldingRequest> rows = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        List<HoldingImportError> parseErrors = new ArrayList<>();
+
+        String[] lines = csv.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (rows.isEmpty() && parseErrors.isEmpty() && isHeader(fields)) {
+                continue;
+            }
+            if (fields.length < 2 || fields.length > 3) {
+                parseErrors.add(new HoldingImportError(i + 1, unquote(fields[0]), "expected symbol,quantity[,buyPrice]"));
+                continue;
+            }
+            try {
+                String price = fields.length == 3 ? unquote(fields[2]) : "";
+                rows.add(AddHoldingRequest.builder()
+                        .symbol(unquote(fields[0]))
+                        .quantity(new BigDecimal(unquote(fields[1])))
+                        .buyPrice(price.isEmpty() ? null : new BigDecimal(price))
+                        .build());
+                lineNumbers.add(i + 1);
+            } catch (NumberFormatException e) {
+                parseErrors.add(new HoldingImportError(i + 1, unquote(fields[0]), "quantity and buyPrice must be numbers"));
+            }
+        }
+
+        HoldingImportResponse response = rows.isEmpty()
+                ? HoldingImportResponse.builder().errors(new ArrayList<>()).build()
+                : importHoldings(userId, rows);
+
+        // report row errors by CSV line rather than by position among parsed rows
+        List<HoldingImportError> errors = new ArrayList<>(parseErrors);
+        for (HoldingImportError error : response.getErrors()) {
+            error.setRow(lineNumbers.get(error.getRow() - 1));
+            errors.add(error);
+        }
+        errors.sort(Comparator.comparingInt(HoldingImportError::getRow));
+
+        response.setReceivedRows(rows.size() + parseErrors.size());
+        response.setErrors(errors);
+        return response;
+    }
+
+    private static String validate(AddHoldingRequest row) {
+        if (row == null) {
+            return "holding is required";
+        }
+        if (row.getSymbol() == null || row.getSymbol().isBlank()) {
+            return "symbol is required";
+        }
+        if (row.getQuantity() == null || row.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+            return "quantity must be > 0";
+        }
+        return null;
+    }
+
+    private static boolean isHeader(String[] fields) {
+        return fields.length >= 2 && unquote(fields[1]).equalsIgnoreCase("quantity");
+    }
+
+    private static String unquote(String field) {
+        String value = field.strip();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).strip();
+        }
+        return value;
+    }
+}
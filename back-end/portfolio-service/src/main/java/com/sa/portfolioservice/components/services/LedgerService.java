@@ -0,0 +1,176 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingResponse;
+import com.sa.portfolioservice.components.entities.*;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.util.HoldingMath;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Append-only ledger of holding changes with periodic snapshots.
+ * <p>
+ * Every change is recorded as a {@link PortfolioTransaction}. Once
+ * {@code portfolio.ledger.snapshot-interval} entries have accumulated after
+ * a user's latest snapshot, a new snapshot is folded from it, so deriving
+ * holdings never replays more than one interval of history. The first
+ * append for a user seeds a snapshot from the holdings that existed before
+ * the ledger did.
+ * <p>
+ * An append first bumps the user's {@link PortfolioVersion}, which locks
+ * that row until the transaction ends. Entries are numbered from the new
+ * version, so a user's sequences follow commit order on every instance,
+ * and seeding and snapshotting never run concurrently for one user. The
+ * version is also what read caches and ETags are keyed on.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    private final PortfolioTransactionRepository transactionRepository;
+    private final HoldingSnapshotRepository snapshotRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioVersionJdbcRepository versionRepository;
+    private final PortfolioProperties properties;
+
+    /**
+     * Record a single change. Must be called before the change is applied
+     * to the portfolio table.
+     */
+    @Transactional
+    public void append(UUID userId, TransactionType type, String symbol, BigDecimal quantity, BigDecimal price) {
+        appendAll(userId, List.of(PortfolioTransaction.builder()
+                .userId(userId)
+                .type(type)
+                .symbol(symbol)
+                .quantity(quantity)
+                .price(price)
+                .build()));
+    }
+
+    /**
+     * Record several changes for one user in a single batch. Must be called
+     * before the changes are applied to the portfolio table.
+     */
+    @Transactional
+    public void appendAll(UUID userId, List<PortfolioTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        long version = versionRepository.increment(userId, transactions.size());
+        long firstSequence = version - transactions.size() + 1;
+
+        HoldingSnapshot latest = snapshotRepository.findFirstByUserIdOrderByLastSequenceDesc(userId)
+                .orElseGet(() -> snapshotRepository.save(seedSnapshot(userId, firstSequence - 1)));
+
+        for (int i = 0; i < transactions.size(); i++) {
+            transactions.get(i).setSequence(firstSequence + i);
+        }
+        transactionRepository.saveAll(transactions);
+
+        if (version - latest.getLastSequence() >= properties.getLedger().getSnapshotInterval()) {
+            takeSnapshot(latest);
+        }
+    }
+
+    /**
+     * Holdings of a user as they were at {@code asOf}, derived from the
+     * latest snapshot taken at or before that time plus later entries.
+     */
+    public List<HoldingResponse> holdingsAsOf(UUID userId, Instant asOf) {
+        Optional<HoldingSnapshot> snapshot =
+                snapshotRepository.findFirstByUserIdAndTakenAtLessThanEqualOrderByLastSequenceDesc(userId, asOf);
+
+        SortedMap<String, SnapshotHolding> holdings = new TreeMap<>();
+        long afterSequence = 0;
+        if (snapshot.isPresent()) {
+            snapshot.get().getHoldings().forEach(h -> holdings.put(h.getSymbol(), h));
+            afterSequence = snapshot.get().getLastSequence();
+        }
+        transactionRepository
+                .findByUserIdAndSequenceGreaterThanAndOccurredAtLessThanEqualOrderBySequenceAsc(userId, afterSequence, asOf)
+                .forEach(tx -> apply(holdings, tx));
+
+        return holdings.values().stream()
+                .map(h -> HoldingResponse.builder()
+                        .symbol(h.getSymbol())
+                        .quantity(h.getQuantity())
+                        .averagePrice(h.getAveragePrice())
+                        .build())
+                .toList();
+    }
+
+    private void takeSnapshot(HoldingSnapshot base) {
+        List<PortfolioTransaction> transactions =
+                transactionRepository.findByUserIdAndSequenceGreaterThanOrderBySequenceAsc(base.getUserId(), base.getLastSequence());
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        SortedMap<String, SnapshotHolding> holdings = new TreeMap<>();
+        base.getHoldings().forEach(h -> holdings.put(h.getSymbol(), h));
+        transactions.forEach(tx -> apply(holdings, tx));
+
+        PortfolioTransaction last = transactions.get(transactions.size() - 1);
+        snapshotRepository.save(HoldingSnapshot.builder()
+                .userId(base.getUserId())
+                .lastSequence(last.getSequence())
+                .takenAt(last.getOccurredAt())
+                .holdings(new ArrayList<>(holdings.values()))
+                .build());
+    }
+
+    private HoldingSnapshot seedSnapshot(UUID userId, long lastSequence) {
+        List<SnapshotHolding> holdings = portfolioRepository.findByUserId(userId).stream()
+                .map(item -> new SnapshotHolding(item.getSymbol(), item.getQuantity(), item.getAveragePrice()))
+                .sorted(Comparator.comparing(SnapshotHolding::getSymbol))
+                .toList();
+        return HoldingSnapshot.builder()
+                .userId(userId)
+                .lastSequence(lastSequence)
+                .takenAt(Instant.now())
+                .holdings(new ArrayList<>(holdings))
+                .build();
+    }
+
+    private static void apply(Map<String, SnapshotHolding> holdings, PortfolioTransaction tx) {
+        SnapshotHolding current = holdings.get(tx.getSymbol());
+        switch (tx.getType()) {
+            case BUY -> {
+                if (current == null) {
+                    holdings.put(tx.getSymbol(), new SnapshotHolding(tx.getSymbol(), tx.getQuantity(),
+                                                                     HoldingMath.initialAverage(tx.getPrice())));
+                } else {
+                    holdings.put(tx.getSymbol(), new SnapshotHolding(tx.getSymbol(),
+                            current.getQuantity().add(tx.getQuantity()),
+                            HoldingMath.weightedAverage(current.getQuantity(), current.getAveragePrice(),
+                                                        tx.getQuantity(), tx.getPrice())));
+                }
+            }
+            case SELL -> {
+                if (current != null) {
+                    BigDecimal remaining = current.getQuantity().subtract(tx.getQuantity());
+                    if (remaining.signum() <= 0) {
+                        holdings.remove(tx.getSymbol());
+                    } else {
+                        holdings.put(tx.getSymbol(), new SnapshotHolding(tx.getSymbol(), remaining, current.getAveragePrice()));
+                    }
+                }
+            }
+            case ADJUST -> {
+                if (tx.getQuantity().signum() <= 0) {
+                    holdings.remove(tx.getSymbol());
+                } else {
+                    BigDecimal average = tx.getPrice() != null ? tx.getPrice()
+                            : current != null ? current.getAveragePrice() : BigDecimal.ZERO;
+                    holdings.put(tx.getSymbol(), new SnapshotHolding(tx.getSymbol(), tx.getQuantity(), average));
+                }
+            }
+        }
+    }
+}
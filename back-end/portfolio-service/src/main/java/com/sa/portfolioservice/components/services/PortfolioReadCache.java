@@ -0,0 +1,99 @@
+package com.sa.portfolioservice.components.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sa.portfolioservice.components.dto.PortfolioResponse;
+import com.sa.portfolioservice.components.entities.PortfolioVersionJdbcRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of {@link PortfolioResponse} with version-based ETags.
+ * <p>
+ * ETags are derived from the user's row in {@code portfolio_versions},
+ * which {@link LedgerService} bumps in the same transaction as every change
+ * to their holdings. Checking an {@code If-None-Match} or a cached entry
+ * costs one primary-key lookup instead of loading the holdings, and since
+ * the version is persisted, a write committed through any instance is seen
+ * by all of them on the next request. Entries expire after
+ * {@code portfolio.read-cache.ttl} only to bound memory; they are never
+ * served once the version has moved on.
+ */
+@Component
+public class PortfolioReadCache {
+
+    private final PortfolioVersionJdbcRepository versionRepository;
+    private final Cache<UUID, CachedPortfolio> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    public PortfolioReadCache(PortfolioVersionJdbcRepository versionRepository, PortfolioProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.versionRepository = versionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getReadCache().getMaximumSize())
+                .expireAfterWrite(properties.getReadCache().getTtl())
+                .build();
+        this.hits = meterRegistry.counter("portfolio.read.requests", "result", "hit");
+        this.misses = meterRegistry.counter("portfolio.read.requests", "result", "miss");
+        this.notModified = meterRegistry.counter("portfolio.read.requests", "result", "not_modified");
+    }
+
+    /**
+     * Current ETag of a user's portfolio.
+     */
+    public String etag(UUID userId) {
+        return etag(versionRepository.current(userId));
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the given current
+     * ETag; counts the request as a 304 if so.
+     */
+    public boolean notModified(String etag, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals(etag) || tag.equals("*")) {
+                notModified.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the cached portfolio of a user, loading it if the cached entry
+     * is missing or older than the committed version. The version is read
+     * before loading, so a response is never tagged newer than its data.
+     */
+    public CachedPortfolio get(UUID userId, Supplier<PortfolioResponse> loader) {
+        long version = versionRepository.current(userId);
+        CachedPortfolio cached = cache.getIfPresent(userId);
+        if (cached != null && cached.version() == version) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        CachedPortfolio loaded = new CachedPortfolio(version, etag(version), loader.get());
+        // a concurrent load may already have cached a newer version
+        cache.asMap().merge(userId, loaded, (current, candidate) -> current.version() >= candidate.version() ? current : candidate);
+        return loaded;
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    public record CachedPortfolio(long version, String etag, PortfolioResponse response) {
+    }
+}
@@ -1,16 +1,24 @@
 package com.sa.portfolioservice.components.services;
 
+import com.sa.portfolioservice.components.entities.HeldSymbol;
+import com.sa.portfolioservice.components.entities.HoldingJdbcRepository;
+import com.sa.portfolioservice.components.entities.HoldingRow;
 import com.sa.portfolioservice.components.entities.PortfolioItem;
 import com.sa.portfolioservice.components.entities.PortfolioRepository;
+import com.sa.portfolioservice.components.entities.TransactionType;
 import com.sa.portfolioservice.components.dto.AddHoldingRequest;
 import com.sa.portfolioservice.components.dto.PortfolioResponse;
 import com.sa.portfolioservice.components.dto.HoldingResponse;
+import com.sa.portfolioservice.components.dto.HoldingPageResponse;
+import com.sa.portfolioservice.components.dto.HoldingSort;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.util.HoldingMath;
 import jakarta.transaction.Transactional;
-import java.math.RoundingMode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,10 +27,14 @@ import java.util.stream.Collectors;
 public class PortfolioService {
 
     private final PortfolioRepository repository;
+    private final HoldingJdbcRepository jdbcRepository;
+    private final LedgerService ledgerService;
+    private final PortfolioProperties properties;
 
     /**
      * Add or update a holding for a user. If an existing holding exists,
-     * average the price and sum quantities (weighted average).
+     * average the price and sum quantities (weighted average). The merge
+     * runs as one upsert in the database, so concurrent buys are safe.
      */
     @Transactional
     public PortfolioItem addOrUpdateHolding(UUID userId, AddHoldingRequest req) {
@@ -37,58 +49,100 @@ public class PortfolioService {
         BigDecimal quantityToAdd = req.getQuantity();
         BigDecimal buyPrice = req.getBuyPrice() == null ? BigDecimal.ZERO : req.getBuyPrice();
 
-        Optional<PortfolioItem> existingOpt = repository.findByUserIdAndSymbolIgnoreCase(userId, symbol);
-
-        if (existingOpt.isPresent()) {
-            PortfolioItem existing = existingOpt.get();
-            BigDecimal oldQty = existing.getQuantity();
-            BigDecimal oldAvg = existing.getAveragePrice();
-
-            BigDecimal newQty = oldQty.add(quantityToAdd);
-            BigDecimal newAvg = (buyPrice.compareTo(BigDecimal.ZERO) <= 0) ?
-                    oldAvg :
-                    (oldAvg.multiply(oldQty).add(buyPrice.multiply(quantityToAdd))).divide(newQty,
-                                                                                           8,
-                                                                                           RoundingMode.HALF_UP);
-
-            existing.setQuantity(newQty);
-            existing.setAveragePrice(newAvg);
-            return repository.save(existing);
-        } else {
-            PortfolioItem item = PortfolioItem.builder()
-                    .userId(userId)
-                    .symbol(symbol)
-                    .quantity(quantityToAdd)
-                    .averagePrice(buyPrice.compareTo(BigDecimal.ZERO) <= 0 ? BigDecimal.ZERO : buyPrice)
-                    .build();
-            return repository.save(item);
-        }
+        ledgerService.append(userId, TransactionType.BUY, symbol, quantityToAdd,
+                             buyPrice.compareTo(BigDecimal.ZERO) > 0 ? buyPrice : null);
+        return jdbcRepository.upsert(userId, symbol, quantityToAdd, HoldingMath.initialAverage(buyPrice));
     }
 
     @Transactional
     public void removeHolding(UUID userId, String symbol) {
         if (symbol == null || symbol.isBlank()) throw new IllegalArgumentException("symbol is required");
-        repository.deleteByUserIdAndSymbolIgnoreCase(userId, symbol.trim().toUpperCase(Locale.ROOT));
+        String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+        if (!repository.existsByUserIdAndSymbol(userId, normalized)) {
+            return;
+        }
+        ledgerService.append(userId, TransactionType.ADJUST, normalized, BigDecimal.ZERO, null);
+        repository.deleteByUserIdAndSymbolIgnoreCase(userId, normalized);
     }
 
     public List<PortfolioItem> getHoldings(UUID userId) {
         return repository.findByUserId(userId);
     }
 
+    /**
+     * Every symbol held by at least one user, with the number of users holding it.
+     */
+    public List<HeldSymbol> getHeldSymbols() {
+        return repository.findHeldSymbols();
+    }
+
     /**
      * Return portfolio.
      */
     public PortfolioResponse getPortfolio(UUID userId) {
-        List<PortfolioItem> items = getHoldings(userId);
-
-        List<HoldingResponse> holdings = items.stream()
-                .map(item -> HoldingResponse.builder()
-                        .symbol(item.getSymbol())
-                        .quantity(item.getQuantity())
-                        .averagePrice(item.getAveragePrice())
-                        .build())
+        List<HoldingResponse> holdings = jdbcRepository.findHoldings(userId).stream()
+                .map(PortfolioService::toHolding)
                 .collect(Collectors.toList());
 
+        return toResponse(holdings);
+    }
+
+    /**
+     * One page of a user's holdings. Pages are keyed on the last
+     * {@code (symbol, id)} seen rather than an offset, so they stay stable
+     * while holdings are added or removed and deep pages stay cheap.
+     *
+     * @param cursor       token from the previous page's {@code nextCursor}, or null for the first page
+     * @param symbolPrefix only holdings whose symbol starts with this
+     */
+    public HoldingPageResponse getHoldingsPage(UUID userId, Integer limit, String cursor, String sort,
+                                               String symbolPrefix) {
+        PortfolioProperties.Paging paging = properties.getPaging();
+        int pageSize = limit == null ? paging.getDefaultLimit() : limit;
+        if (pageSize < 1 || pageSize > paging.getMaxLimit()) {
+            throw new IllegalArgumentException("limit must be between 1 and " + paging.getMaxLimit());
+        }
+        HoldingSort order = HoldingSort.fromParameter(sort);
+        HoldingCursor after = cursor == null || cursor.isBlank() ? null : HoldingCursor.decode(cursor, order);
+        String prefix = symbolPrefix == null || symbolPrefix.isBlank()
+                ? null : symbolPrefix.trim().toUpperCase(Locale.ROOT);
+
+        // one extra row tells whether another page follows
+        List<HoldingRow> rows = jdbcRepository.findPage(userId, order == HoldingSort.SYMBOL_DESC, prefix,
+                                                        after == null ? null : after.symbol(),
+                                                        after == null ? null : after.id(),
+                                                        pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<HoldingRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            HoldingRow last = page.get(page.size() - 1);
+            nextCursor = new HoldingCursor(order, last.symbol(), last.id()).encode();
+        }
+        return HoldingPageResponse.builder()
+                .holdings(page.stream().map(PortfolioService::toHolding).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Return portfolio as it was at the given time, derived from the ledger.
+     */
+    public PortfolioResponse getPortfolioAsOf(UUID userId, Instant asOf) {
+        return toResponse(ledgerService.holdingsAsOf(userId, asOf));
+    }
+
+    private static HoldingResponse toHolding(HoldingRow row) {
+        return HoldingResponse.builder()
+                .symbol(row.symbol())
+                .quantity(row.quantity())
+                .averagePrice(row.averagePrice())
+                .build();
+    }
+
+    private static PortfolioResponse toResponse(List<HoldingResponse> holdings) {
         BigDecimal total = holdings.stream()
                 .map(HoldingResponse::getAveragePrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -0,0 +1,18 @@
+package com.sa.portfolioservice.components.services;
+
+/**
+ * Daily closes of a symbol, oldest first.
+ *
+ * @param days   trading days as epoch days, strictly increasing
+ * @param closes close per day
+ */
+public record PriceHistory(int[] days, double[] closes) {
+
+    public int size() {
+        return days.length;
+    }
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+}
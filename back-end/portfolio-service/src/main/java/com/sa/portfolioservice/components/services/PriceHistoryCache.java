@@ -0,0 +1,86 @@
+package com.sa.portfolioservice.components.services;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.util.DailyBars;
+import com.sa.portfolioservice.util.PriceHistoryStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Recent daily closes per symbol for the risk engine.
+ * <p>
+ * Bars are kept in the {@link PriceHistoryStore}; the upstream is only
+ * asked for a symbol when the store has nothing newer than
+ * {@code portfolio.history.max-age}, and the new bars are appended to the
+ * store. The closes of the last {@code portfolio.risk.lookback-days} are
+ * held in memory for {@code portfolio.risk.history-ttl} so concurrent risk
+ * requests share one load. Unknown symbols resolve to an empty history;
+ * failed loads are not cached.
+ */
+@Component
+public class PriceHistoryCache {
+
+    static final String CACHE_NAME = "price-history";
+
+    private static final PriceHistory EMPTY = new PriceHistory(new int[0], new double[0]);
+
+    private final PriceHistoryClient client;
+    private final PriceHistoryStore store;
+    private final PortfolioProperties properties;
+    private final AsyncLoadingCache<String, PriceHistory> cache;
+
+    public PriceHistoryCache(PriceHistoryClient client, PriceHistoryStore store,
+                             PortfolioProperties portfolioProperties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.store = store;
+        this.properties = portfolioProperties;
+        PortfolioProperties.Risk risk = portfolioProperties.getRisk();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(risk.getHistoryMaximumSize())
+                .expireAfterWrite(risk.getHistoryTtl())
+                .recordStats()
+                .buildAsync((symbol, executor) -> load(symbol).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Recent daily history of a symbol; empty when the symbol is unknown.
+     */
+    public Mono<PriceHistory> history(String symbol) {
+        String key = symbol.toUpperCase(Locale.ROOT).trim();
+        return Mono.fromFuture(cache.get(key), true);
+    }
+
+    private Mono<PriceHistory> load(String symbol) {
+        // store access maps files, so keep it off the caller's (possibly event loop) thread
+        return Mono.defer(() -> {
+            int today = (int) LocalDate.now().toEpochDay();
+            if (store.latestDay(symbol) >= today - properties.getHistory().getMaxAge().toDays()) {
+                return Mono.just(read(symbol, today));
+            }
+            return client.fetch(symbol)
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(bars -> {
+                        store.appendAll(symbol, bars);
+                        return read(symbol, today);
+                    })
+                    .defaultIfEmpty(EMPTY);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private PriceHistory read(String symbol, int today) {
+        // calendar days covering the lookback in trading days, with room for holidays
+        int lookback = properties.getRisk().getLookbackDays();
+        int from = today - (lookback * 7 / 5 + 30);
+        DailyBars bars = store.bars(symbol, from, today);
+        return bars.isEmpty() ? EMPTY : new PriceHistory(bars.days(), bars.close());
+    }
+}
@@ -0,0 +1,74 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.PriceHistoryResponse;
+import com.sa.portfolioservice.config.QuoteProperties;
+import com.sa.portfolioservice.util.DailyBars;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Fetches daily price history from the alpha-service.
+ */
+@Service
+public class PriceHistoryClient {
+
+    private final WebClient webClient;
+    private final QuoteProperties properties;
+
+    public PriceHistoryClient(@Qualifier("quoteWebClient") WebClient webClient, QuoteProperties properties) {
+        this.webClient = webClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Fetch the full daily history of a symbol. Completes empty when the
+     * symbol is unknown. Histories are large, so the timeout is a multiple
+     * of the quote timeout.
+     */
+    public Mono<DailyBars> fetch(String symbol) {
+        return webClient.get()
+                .uri("/stocks/{symbol}/history", symbol)
+                .retrieve()
+                .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(), response -> Mono.empty())
+                .bodyToMono(PriceHistoryResponse.class)
+                .timeout(properties.getTimeout().multipliedBy(5))
+                .map(PriceHistoryClient::toBars)
+                .filter(bars -> !bars.isEmpty());
+    }
+
+    private static DailyBars toBars(PriceHistoryResponse response) {
+        List<LocalDate> dates = response.getDates() == null ? List.of() : response.getDates();
+        double[] closes = orEmpty(response.getCloses());
+        int n = Math.min(dates.size(), closes.length);
+        int[] days = new int[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        long[] volume = new long[n];
+        double[] opens = orEmpty(response.getOpens());
+        double[] highs = orEmpty(response.getHighs());
+        double[] lows = orEmpty(response.getLows());
+        long[] volumes = response.getVolumes() == null ? new long[0] : response.getVolumes();
+        for (int i = 0; i < n; i++) {
+            days[i] = (int) dates.get(i).toEpochDay();
+            close[i] = closes[i];
+            // older alpha-service versions only send closes
+            open[i] = i < opens.length ? opens[i] : closes[i];
+            high[i] = i < highs.length ? highs[i] : closes[i];
+            low[i] = i < lows.length ? lows[i] : closes[i];
+            volume[i] = i < volumes.length ? volumes[i] : 0;
+        }
+        return new DailyBars(days, open, high, low, close, volume);
+    }
+
+    private static double[] orEmpty(double[] values) {
+        return values == null ? new double[0] : values;
+    }
+}
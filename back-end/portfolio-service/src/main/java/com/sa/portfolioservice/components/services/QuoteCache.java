@@ -0,0 +1,150 @@
+package com.sa.portfolioservice.components.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+import com.sa.portfolioservice.config.QuoteProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process quote cache in front of {@link QuoteClient}.
+ * <p>
+ * Bounded by size with frequency-aware (W-TinyLFU) eviction. Concurrent
+ * lookups of a missing symbol share a single upstream call, and symbols
+ * that keep being read are refreshed in the background once they are
+ * older than {@code quotes.cache.refresh-after}, so hot symbols never
+ * block on the upstream. A failed refresh keeps the previous quote, which
+ * is then reported as stale until it expires; so does a refresh the
+ * upstream answers with a 404, since the alpha-service also uses that when
+ * its API limit is reached. Only a first load caches a symbol as unknown.
+ * Loads that change a quote are published on the {@link QuoteUpdateBus}.
+ */
+@Component
+public class QuoteCache {
+
+    static final String CACHE_NAME = "quotes";
+
+    private final QuoteClient quoteClient;
+    private final QuoteUpdateBus updateBus;
+    private final QuoteProperties.Cache properties;
+    private final AsyncLoadingCache<String, CachedQuote> cache;
+
+    public QuoteCache(QuoteClient quoteClient, QuoteUpdateBus updateBus, QuoteProperties quoteProperties,
+                      MeterRegistry meterRegistry) {
+        this.quoteClient = quoteClient;
+        this.updateBus = updateBus;
+        this.properties = quoteProperties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new QuoteExpiry())
+                .refreshAfterWrite(properties.getRefreshAfter())
+                .recordStats()
+                .buildAsync(new QuoteLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Look up the quote for a symbol, loading it on a miss. Never errors:
+     * unavailable quotes resolve to a missing lookup.
+     */
+    public Mono<QuoteLookup> lookup(String symbol) {
+        String key = symbol.toUpperCase(Locale.ROOT).trim();
+        // suppressCancel: one subscriber going away must not cancel the load shared with others
+        return Mono.fromFuture(cache.get(key), true)
+                .map(this::toLookup)
+                .onErrorResume(e -> Mono.just(QuoteLookup.missing()));
+    }
+
+    private QuoteLookup toLookup(CachedQuote cached) {
+        if (cached.quote() == null) {
+            return QuoteLookup.missing();
+        }
+        Duration age = Duration.between(cached.fetchedAt(), Instant.now());
+        return age.compareTo(properties.getStaleAfter()) > 0
+                ? QuoteLookup.stale(cached.quote(), cached.fetchedAt())
+                : QuoteLookup.live(cached.quote(), cached.fetchedAt());
+    }
+
+    /**
+     * Cached quote; {@code quote} is null when the symbol is unknown upstream.
+     */
+    record CachedQuote(TickerPriceResponse quote, Instant fetchedAt) {
+    }
+
+    private class QuoteLoader implements AsyncCacheLoader<String, CachedQuote> {
+
+        @Override
+        public CompletableFuture<CachedQuote> asyncLoad(String symbol, Executor executor) {
+            return quoteClient.fetch(symbol)
+                    .map(quote -> new CachedQuote(quote, Instant.now()))
+                    .doOnNext(loaded -> publish(symbol, loaded))
+                    .defaultIfEmpty(new CachedQuote(null, Instant.now()))
+                    .toFuture();
+        }
+
+        @Override
+        public CompletableFuture<CachedQuote> asyncReload(String symbol, CachedQuote oldValue, Executor executor) {
+            return quoteClient.fetch(symbol)
+                    .map(quote -> new CachedQuote(quote, Instant.now()))
+                    .doOnNext(loaded -> {
+                        if (changed(oldValue.quote(), loaded.quote())) {
+                            publish(symbol, loaded);
+                        }
+                    })
+                    .defaultIfEmpty(oldValue.quote() != null ? oldValue : new CachedQuote(null, Instant.now()))
+                    .onErrorReturn(oldValue)
+                    .toFuture();
+        }
+
+        private void publish(String symbol, CachedQuote loaded) {
+            updateBus.publish(new QuoteUpdate(symbol, loaded.quote(), loaded.fetchedAt()));
+        }
+
+        private static boolean changed(TickerPriceResponse previous, TickerPriceResponse current) {
+            return previous == null
+                    || previous.getPrice().compareTo(current.getPrice()) != 0
+                    || !Objects.equals(previous.getChange(), current.getChange());
+        }
+    }
+
+    /**
+     * Entries live for {@code ttl} (or {@code negative-ttl} for unknown
+     * symbols) counted from when the quote was fetched, so keeping an old
+     * quote after a failed refresh does not extend its life.
+     */
+    private class QuoteExpiry implements Expiry<String, CachedQuote> {
+
+        @Override
+        public long expireAfterCreate(String symbol, CachedQuote value, long currentTime) {
+            return remaining(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String symbol, CachedQuote value, long currentTime, long currentDuration) {
+            return remaining(value);
+        }
+
+        @Override
+        public long expireAfterRead(String symbol, CachedQuote value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remaining(CachedQuote value) {
+            Duration ttl = value.quote() == null ? properties.getNegativeTtl() : properties.getTtl();
+            Duration age = Duration.between(value.fetchedAt(), Instant.now());
+            return Math.max(0, ttl.minus(age).toNanos());
+        }
+    }
+}
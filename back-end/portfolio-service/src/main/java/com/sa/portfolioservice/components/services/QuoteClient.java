@@ -0,0 +1,38 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+import com.sa.portfolioservice.config.QuoteProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fetches quotes from the alpha-service.
+ */
+@Service
+public class QuoteClient {
+
+    private final WebClient webClient;
+    private final QuoteProperties properties;
+
+    public QuoteClient(@Qualifier("quoteWebClient") WebClient webClient, QuoteProperties properties) {
+        this.webClient = webClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Fetch the current quote for a symbol. Completes empty when the symbol
+     * is unknown and errors when the quote service can't be reached.
+     */
+    public Mono<TickerPriceResponse> fetch(String symbol) {
+        return webClient.get()
+                .uri("/stocks/{symbol}", symbol)
+                .retrieve()
+                .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(), response -> Mono.empty())
+                .bodyToMono(TickerPriceResponse.class)
+                .timeout(properties.getTimeout())
+                .filter(quote -> quote.getPrice() != null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.QuoteStatus;
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+
+import java.time.Instant;
+
+/**
+ * Result of looking up a quote: the quote itself (null when missing),
+ * how fresh it is and when it was fetched from the quote service.
+ */
+public record QuoteLookup(TickerPriceResponse quote, QuoteStatus status, Instant asOf) {
+
+    public static QuoteLookup live(TickerPriceResponse quote, Instant asOf) {
+        return new QuoteLookup(quote, QuoteStatus.LIVE, asOf);
+    }
+
+    public static QuoteLookup stale(TickerPriceResponse quote, Instant asOf) {
+        return new QuoteLookup(quote, QuoteStatus.STALE, asOf);
+    }
+
+    public static QuoteLookup missing() {
+        return new QuoteLookup(null, QuoteStatus.MISSING, null);
+    }
+
+    public boolean hasPrice() {
+        return quote != null && quote.getPrice() != null;
+    }
+}
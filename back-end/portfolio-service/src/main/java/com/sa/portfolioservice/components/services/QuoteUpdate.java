@@ -0,0 +1,11 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+
+import java.time.Instant;
+
+/**
+ * A newly fetched quote for a symbol.
+ */
+public record QuoteUpdate(String symbol, TickerPriceResponse quote, Instant asOf) {
+}
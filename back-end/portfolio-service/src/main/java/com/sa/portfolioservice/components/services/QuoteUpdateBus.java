@@ -0,0 +1,24 @@
+package com.sa.portfolioservice.components.services;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Broadcasts quote changes to live subscribers. Publishing never blocks:
+ * a subscriber that can't keep up misses updates rather than slowing
+ * down the publisher, so subscribers are expected to conflate.
+ */
+@Component
+public class QuoteUpdateBus {
+
+    private final Sinks.Many<QuoteUpdate> sink = Sinks.many().multicast().directBestEffort();
+
+    public synchronized void publish(QuoteUpdate update) {
+        sink.tryEmitNext(update);
+    }
+
+    public Flux<QuoteUpdate> updates() {
+        return sink.asFlux();
+    }
+}
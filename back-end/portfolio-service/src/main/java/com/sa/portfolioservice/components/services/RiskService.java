@@ -0,0 +1,184 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingRiskResponse;
+import com.sa.portfolioservice.components.dto.PortfolioRiskResponse;
+import com.sa.portfolioservice.components.dto.ValueAtRiskResponse;
+import com.sa.portfolioservice.components.entities.PortfolioItem;
+import com.sa.portfolioservice.components.entities.PortfolioRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.config.QuoteProperties;
+import com.sa.portfolioservice.util.RiskEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class RiskService {
+
+    private final PortfolioRepository repository;
+    private final PriceHistoryCache historyCache;
+    private final RiskEngine riskEngine;
+    private final PortfolioProperties portfolioProperties;
+    private final QuoteProperties quoteProperties;
+
+    /**
+     * Risk figures of a user's portfolio from daily closes over the last
+     * {@code portfolio.risk.lookback-days} trading days of the benchmark.
+     * Holdings are valued at their last close. All series are cut to the
+     * window in which every holding has a price, so a recent listing
+     * shortens the window for the whole portfolio; the response reports
+     * the dates and number of observations actually used.
+     */
+    public Mono<PortfolioRiskResponse> risk(UUID userId) {
+        PortfolioProperties.Risk properties = portfolioProperties.getRisk();
+        String benchmark = properties.getBenchmark().toUpperCase(Locale.ROOT);
+
+        Map<String, BigDecimal> quantities = new LinkedHashMap<>();
+        for (PortfolioItem item : repository.findByUserId(userId)) {
+            quantities.merge(item.getSymbol().toUpperCase(Locale.ROOT), item.getQuantity(), BigDecimal::add);
+        }
+
+        Set<String> symbols = new LinkedHashSet<>(quantities.keySet());
+        symbols.add(benchmark);
+
+        return Flux.fromIterable(symbols)
+                .flatMap(symbol -> historyCache.history(symbol).map(history -> Map.entry(symbol, history)),
+                         quoteProperties.getMaxConcurrency())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                // the engine blocks on its own fork-join pool; keep that off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .map(histories -> compute(benchmark, quantities, histories, properties));
+    }
+
+    private PortfolioRiskResponse compute(String benchmark, Map<String, BigDecimal> quantities,
+                                          Map<String, PriceHistory> histories, PortfolioProperties.Risk properties) {
+        PriceHistory benchmarkHistory = histories.get(benchmark);
+        if (benchmarkHistory == null || benchmarkHistory.isEmpty()) {
+            throw new IllegalStateException("No price history available for benchmark " + benchmark);
+        }
+
+        List<String> symbols = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        List<PriceHistory> series = new ArrayList<>();
+        for (String symbol : quantities.keySet()) {
+            PriceHistory history = histories.get(symbol);
+            if (history == null || history.isEmpty()) {
+                missing.add(symbol);
+            } else {
+                symbols.add(symbol);
+                series.add(history);
+            }
+        }
+
+        int[] days = tail(benchmarkHistory.days(), properties.getLookbackDays() + 1);
+        double[] benchmarkCloses = Arrays.copyOfRange(benchmarkHistory.closes(),
+                                                      benchmarkHistory.size() - days.length, benchmarkHistory.size());
+        double[][] closes = new double[series.size()][];
+        int start = 0;
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = new double[days.length];
+            start = Math.max(start, align(series.get(i), days, closes[i]));
+        }
+        int observations = days.length - start - 1;
+
+        PortfolioRiskResponse.PortfolioRiskResponseBuilder response = PortfolioRiskResponse.builder()
+                .benchmark(benchmark)
+                .observations(Math.max(observations, 0))
+                .missingHistory(missing);
+        if (symbols.isEmpty() || observations < properties.getMinObservations()) {
+            return response.holdings(List.of()).valueAtRisk(List.of())
+                    .correlationSymbols(List.of()).correlation(new double[0][0])
+                    .totalMarketValue(BigDecimal.ZERO)
+                    .build();
+        }
+
+        double[] marketValues = new double[symbols.size()];
+        BigDecimal[] exactValues = new BigDecimal[symbols.size()];
+        BigDecimal totalMarketValue = BigDecimal.ZERO;
+        for (int i = 0; i < closes.length; i++) {
+            if (start > 0) closes[i] = Arrays.copyOfRange(closes[i], start, days.length);
+            exactValues[i] = quantities.get(symbols.get(i))
+                    .multiply(BigDecimal.valueOf(closes[i][closes[i].length - 1]))
+                    .setScale(8, RoundingMode.HALF_UP);
+            marketValues[i] = exactValues[i].doubleValue();
+            totalMarketValue = totalMarketValue.add(exactValues[i]);
+        }
+        if (start > 0) benchmarkCloses = Arrays.copyOfRange(benchmarkCloses, start, days.length);
+
+        double[] confidence = properties.getConfidenceLevels().stream().mapToDouble(Double::doubleValue).toArray();
+        RiskEngine.Result result = riskEngine.compute(closes, benchmarkCloses, marketValues, confidence);
+
+        List<HoldingRiskResponse> holdings = new ArrayList<>(symbols.size());
+        for (int i = 0; i < symbols.size(); i++) {
+            holdings.add(HoldingRiskResponse.builder()
+                                 .symbol(symbols.get(i))
+                                 .marketValue(exactValues[i])
+                                 .weight(result.weights()[i])
+                                 .volatility(result.volatility()[i])
+                                 .beta(result.beta()[i])
+                                 .build());
+        }
+        List<ValueAtRiskResponse> valueAtRisk = new ArrayList<>(confidence.length);
+        for (int k = 0; k < confidence.length; k++) {
+            valueAtRisk.add(ValueAtRiskResponse.builder()
+                                    .confidence(confidence[k])
+                                    .historicalVar(result.historicalVar()[k])
+                                    .historicalCvar(result.historicalCvar()[k])
+                                    .parametricVar(result.parametricVar()[k])
+                                    .parametricCvar(result.parametricCvar()[k])
+                                    .historicalVarAmount(amount(totalMarketValue, result.historicalVar()[k]))
+                                    .historicalCvarAmount(amount(totalMarketValue, result.historicalCvar()[k]))
+                                    .parametricVarAmount(amount(totalMarketValue, result.parametricVar()[k]))
+                                    .parametricCvarAmount(amount(totalMarketValue, result.parametricCvar()[k]))
+                                    .build());
+        }
+
+        return response
+                .from(LocalDate.ofEpochDay(days[start]))
+                .to(LocalDate.ofEpochDay(days[days.length - 1]))
+                .totalMarketValue(totalMarketValue)
+                .volatility(result.portfolioVolatility())
+                .beta(result.portfolioBeta())
+                .valueAtRisk(valueAtRisk)
+                .holdings(holdings)
+                .correlationSymbols(symbols)
+                .correlation(result.correlation())
+                .build();
+    }
+
+    /**
+     * Lay {@code history} out on {@code days}, carrying the last close forward
+     * over days it has no bar for. Returns the index of the first day with a
+     * price ({@code days.length} if there is none).
+     */
+    static int align(PriceHistory history, int[] days, double[] out) {
+        int[] historyDays = history.days();
+        double[] historyCloses = history.closes();
+        int first = days.length;
+        int p = -1;
+        for (int t = 0; t < days.length; t++) {
+            while (p + 1 < historyDays.length && historyDays[p + 1] <= days[t]) p++;
+            if (p >= 0) {
+                out[t] = historyCloses[p];
+                if (first == days.length) first = t;
+            }
+        }
+        return first;
+    }
+
+    private static int[] tail(int[] values, int length) {
+        return values.length <= length ? values : Arrays.copyOfRange(values, values.length - length, values.length);
+    }
+
+    private static BigDecimal amount(BigDecimal total, double fraction) {
+        return total.multiply(BigDecimal.valueOf(fraction)).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,166 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingValuationResponse;
+import com.sa.portfolioservice.components.dto.PortfolioValuationResponse;
+import com.sa.portfolioservice.components.dto.QuoteStatus;
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+import com.sa.portfolioservice.components.entities.PortfolioItem;
+import com.sa.portfolioservice.components.entities.PortfolioRepository;
+import com.sa.portfolioservice.config.QuoteProperties;
+import com.sa.portfolioservice.util.FixedPoint;
+import com.sa.portfolioservice.util.ValuationKernel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class ValuationService {
+
+    private final PortfolioRepository repository;
+    private final QuoteCache quoteCache;
+    private final QuoteProperties quoteProperties;
+
+    /**
+     * Value every holding of a user at current market prices. Quotes are
+     * fetched concurrently, once per distinct symbol, with at most
+     * {@code quotes.max-concurrency} requests in flight. Holdings whose quote
+     * is unavailable are reported as missing and left out of the totals.
+     */
+    public Mono<PortfolioValuationResponse> valuate(UUID userId) {
+        List<PortfolioItem> items = repository.findByUserId(userId);
+
+        Set<String> symbols = new LinkedHashSet<>();
+        for (PortfolioItem item : items) {
+            symbols.add(item.getSymbol().toUpperCase(Locale.ROOT));
+        }
+
+        return Flux.fromIterable(symbols)
+                .flatMap(symbol -> quoteCache.lookup(symbol).map(lookup -> Map.entry(symbol, lookup)),
+                         quoteProperties.getMaxConcurrency())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(quotes -> toResponse(items, quotes));
+    }
+
+    /**
+     * Values the holdings in fixed point, which gives the same figures as
+     * {@link #toResponseExact} without a {@code BigDecimal} per operation;
+     * amounts with more than eight decimals or too large for a long are
+     * valued with {@code BigDecimal}.
+     */
+    private PortfolioValuationResponse toResponse(List<PortfolioItem> items, Map<String, QuoteLookup> quotes) {
+        ValuationKernel kernel = new ValuationKernel(items.size());
+        QuoteLookup[] lookups = new QuoteLookup[items.size()];
+        try {
+            for (int i = 0; i < lookups.length; i++) {
+                PortfolioItem item = items.get(i);
+                String symbol = item.getSymbol().toUpperCase(Locale.ROOT);
+                QuoteLookup lookup = quotes.getOrDefault(symbol, QuoteLookup.missing());
+                int id = kernel.symbol(symbol);
+                if (lookup.hasPrice()) {
+                    kernel.price(id, FixedPoint.of(lookup.quote().getPrice()));
+                }
+                kernel.add(id, FixedPoint.of(item.getQuantity()), FixedPoint.of(item.getAveragePrice()));
+                lookups[i] = lookup;
+            }
+            kernel.valuate();
+        } catch (ArithmeticException e) {
+            return toResponseExact(items, quotes);
+        }
+
+        List<HoldingValuationResponse> holdings = new ArrayList<>(items.size());
+        int stale = 0;
+        for (int i = 0; i < lookups.length; i++) {
+            QuoteLookup lookup = lookups[i];
+            BigDecimal costBasis = FixedPoint.toBigDecimal(kernel.costBasis(i));
+            if (lookup.hasPrice()) {
+                holdings.add(holding(items.get(i), lookup, costBasis,
+                                     FixedPoint.toBigDecimal(kernel.marketValue(i)),
+                                     FixedPoint.toBigDecimal(kernel.unrealizedPnl(i))));
+                if (lookup.status() == QuoteStatus.STALE) stale++;
+            } else {
+                holdings.add(holding(items.get(i), lookup, costBasis, null, null));
+            }
+        }
+
+        // sums of nothing stay the unscaled zero the BigDecimal valuation starts from
+        boolean anyPriced = kernel.pricedHoldings() > 0;
+        return response(holdings,
+                        anyPriced ? FixedPoint.toBigDecimal(kernel.totalMarketValue()) : BigDecimal.ZERO,
+                        kernel.size() > 0 ? FixedPoint.toBigDecimal(kernel.totalCostBasis()) : BigDecimal.ZERO,
+                        anyPriced ? FixedPoint.toBigDecimal(kernel.totalUnrealizedPnl()) : BigDecimal.ZERO,
+                        stale, items.size() - kernel.pricedHoldings());
+    }
+
+    private PortfolioValuationResponse toResponseExact(List<PortfolioItem> items, Map<String, QuoteLookup> quotes) {
+        List<HoldingValuationResponse> holdings = new ArrayList<>(items.size());
+        BigDecimal totalMarketValue = BigDecimal.ZERO;
+        BigDecimal totalCostBasis = BigDecimal.ZERO;
+        BigDecimal totalPnl = BigDecimal.ZERO;
+        int stale = 0;
+        int missing = 0;
+
+        for (PortfolioItem item : items) {
+            QuoteLookup lookup = quotes.getOrDefault(item.getSymbol().toUpperCase(Locale.ROOT), QuoteLookup.missing());
+            BigDecimal costBasis = scale(item.getQuantity().multiply(item.getAveragePrice()));
+            totalCostBasis = totalCostBasis.add(costBasis);
+
+            if (lookup.hasPrice()) {
+                BigDecimal marketValue = scale(item.getQuantity().multiply(lookup.quote().getPrice()));
+                BigDecimal pnl = marketValue.subtract(costBasis);
+                holdings.add(holding(item, lookup, costBasis, marketValue, pnl));
+                totalMarketValue = totalMarketValue.add(marketValue);
+                totalPnl = totalPnl.add(pnl);
+                if (lookup.status() == QuoteStatus.STALE) stale++;
+            } else {
+                holdings.add(holding(item, lookup, costBasis, null, null));
+                missing++;
+            }
+        }
+
+        return response(holdings, totalMarketValue, totalCostBasis, totalPnl, stale, missing);
+    }
+
+    private static HoldingValuationResponse holding(PortfolioItem item, QuoteLookup lookup, BigDecimal costBasis,
+                                                    BigDecimal marketValue, BigDecimal pnl) {
+        HoldingValuationResponse.HoldingValuationResponseBuilder holding = HoldingValuationResponse.builder()
+                .symbol(item.getSymbol())
+                .quantity(item.getQuantity())
+                .averagePrice(item.getAveragePrice())
+                .costBasis(costBasis)
+                .quoteStatus(lookup.hasPrice() ? lookup.status() : QuoteStatus.MISSING)
+                .quoteAsOf(lookup.asOf());
+        if (lookup.hasPrice()) {
+            TickerPriceResponse quote = lookup.quote();
+            holding.price(quote.getPrice())
+                    .change(quote.getChange())
+                    .changePercent(quote.getPercent())
+                    .marketValue(marketValue)
+                    .unrealizedPnl(pnl);
+        }
+        return holding.build();
+    }
+
+    private static PortfolioValuationResponse response(List<HoldingValuationResponse> holdings,
+                                                       BigDecimal totalMarketValue, BigDecimal totalCostBasis,
+                                                       BigDecimal totalPnl, int stale, int missing) {
+        return PortfolioValuationResponse.builder()
+                .holdings(holdings)
+                .totalMarketValue(totalMarketValue)
+                .totalCostBasis(totalCostBasis)
+                .totalUnrealizedPnl(totalPnl)
+                .staleQuotes(stale)
+                .missingQuotes(missing)
+                .complete(stale == 0 && missing == 0)
+                .build();
+    }
+
+    private static BigDecimal scale(BigDecimal value) {
+        return value.setScale(8, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,202 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingResponse;
+import com.sa.portfolioservice.components.dto.HoldingValuationResponse;
+import com.sa.portfolioservice.components.dto.PortfolioValuationResponse;
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+import com.sa.portfolioservice.components.dto.ValuationDeltaResponse;
+import com.sa.portfolioservice.config.QuoteProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Live valuation of a portfolio as a stream of server-sent events.
+ * <p>
+ * A stream starts with a {@code snapshot} event holding the full valuation
+ * and then sends a {@code delta} event whenever the quote of a held symbol
+ * changes. Quote changes arrive from the {@link QuoteUpdateBus}; held
+ * symbols are also looked up periodically, which keeps them hot in the
+ * {@link QuoteCache} so its refresh-ahead picks up new prices. Updates are
+ * conflated per symbol: a slow client only ever has the latest quote of
+ * each symbol pending. Deltas are worked out on a bounded-elastic thread,
+ * since a change in holdings means a trip to the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class ValuationStreamService {
+
+    /** Valuation streams are long-lived; only they opt out of the async request timeout. */
+    private static final long NO_TIMEOUT = -1;
+
+    private final ValuationService valuationService;
+    private final PortfolioService portfolioService;
+    private final PortfolioReadCache readCache;
+    private final QuoteCache quoteCache;
+    private final QuoteUpdateBus updateBus;
+    private final QuoteProperties quoteProperties;
+
+    public Flux<ServerSentEvent<Object>> stream(UUID userId) {
+        return Flux.defer(() -> {
+            StreamState state = new StreamState(userId);
+
+            Flux<ServerSentEvent<Object>> snapshot = valuationService.valuate(userId)
+                    .doOnNext(state::init)
+                    .map(valuation -> ServerSentEvent.<Object>builder(valuation).event("snapshot").build())
+                    .flux();
+
+            Flux<QuoteUpdate> pushed = updateBus.updates()
+                    .filter(update -> state.holds(update.symbol()));
+
+            // a poll or heartbeat that finds the client still busy is skipped, not queued
+            Flux<QuoteUpdate> polled = Flux.interval(quoteProperties.getStream().getPollInterval())
+                    .onBackpressureDrop()
+                    .concatMap(tick -> Flux.fromIterable(state.symbols())
+                            .flatMap(symbol -> quoteCache.lookup(symbol)
+                                             .filter(QuoteLookup::hasPrice)
+                                             .map(lookup -> new QuoteUpdate(symbol, lookup.quote(), lookup.asOf())),
+                                     quoteProperties.getMaxConcurrency()));
+
+            Flux<ServerSentEvent<Object>> deltas = Flux.merge(pushed, polled)
+                    .groupBy(QuoteUpdate::symbol)
+                    .flatMap(bySymbol -> bySymbol.onBackpressureLatest(), Integer.MAX_VALUE, 1)
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .concatMap(update -> Flux.fromStream(state.apply(update).stream()), 1)
+                    .map(delta -> ServerSentEvent.<Object>builder(delta).event("delta").id(delta.getSymbol()).build());
+
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(quoteProperties.getStream().getHeartbeatInterval())
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.builder().comment("keep-alive").build());
+
+            return snapshot.concatWith(Flux.merge(deltas, heartbeats));
+        });
+    }
+
+    /**
+     * {@link #stream} written to an {@link SseEmitter} without a timeout.
+     * Events are sent from a bounded-elastic thread one at a time, so a slow
+     * client still only holds up its own conflated stream, and a closed
+     * connection cancels it.
+     */
+    public SseEmitter emitter(UUID userId) {
+        SseEmitter emitter = new SseEmitter(NO_TIMEOUT);
+        Disposable subscription = stream(userId)
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .subscribe(event -> send(emitter, event), emitter::completeWithError, emitter::complete);
+        emitter.onCompletion(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, ServerSentEvent<Object> event) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+        if (event.id() != null) {
+            builder.id(event.id());
+        }
+        if (event.event() != null) {
+            builder.name(event.event());
+        }
+        if (event.comment() != null) {
+            builder.comment(event.comment());
+        }
+        if (event.data() != null) {
+            builder.data(event.data());
+        }
+        try {
+            emitter.send(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Last valuation sent to one client. Only touched from the serialized
+     * delta pipeline after the snapshot has been emitted.
+     */
+    private class StreamState {
+
+        private final UUID userId;
+        private final Map<String, BigDecimal> lastPrices = new HashMap<>();
+        private final Map<String, BigDecimal> marketValues = new HashMap<>();
+        private volatile List<String> symbols = List.of();
+
+        StreamState(UUID userId) {
+            this.userId = userId;
+        }
+
+        void init(PortfolioValuationResponse valuation) {
+            for (HoldingValuationResponse holding : valuation.getHoldings()) {
+                String symbol = holding.getSymbol().toUpperCase(Locale.ROOT);
+                if (holding.getPrice() != null) {
+                    lastPrices.put(symbol, holding.getPrice());
+                    marketValues.put(symbol, holding.getMarketValue());
+                }
+            }
+            symbols = valuation.getHoldings().stream()
+                    .map(holding -> holding.getSymbol().toUpperCase(Locale.ROOT))
+                    .toList();
+        }
+
+        boolean holds(String symbol) {
+            return symbols.contains(symbol);
+        }
+
+        List<String> symbols() {
+            return symbols;
+        }
+
+        Optional<ValuationDeltaResponse> apply(QuoteUpdate update) {
+            TickerPriceResponse quote = update.quote();
+            BigDecimal previous = lastPrices.get(update.symbol());
+            if (previous != null && previous.compareTo(quote.getPrice()) == 0) {
+                return Optional.empty();
+            }
+
+            // holdings may have changed since the stream started; the read cache makes this cheap
+            List<HoldingResponse> holdings = readCache.get(userId, () -> portfolioService.getPortfolio(userId))
+                    .response().getHoldings();
+            symbols = holdings.stream().map(holding -> holding.getSymbol().toUpperCase(Locale.ROOT)).toList();
+            marketValues.keySet().retainAll(symbols);
+
+            Optional<HoldingResponse> holding = holdings.stream()
+                    .filter(h -> h.getSymbol().equalsIgnoreCase(update.symbol()))
+                    .findFirst();
+            if (holding.isEmpty()) {
+                return Optional.empty();
+            }
+
+            BigDecimal quantity = holding.get().getQuantity();
+            BigDecimal marketValue = quantity.multiply(quote.getPrice()).setScale(8, RoundingMode.HALF_UP);
+            lastPrices.put(update.symbol(), quote.getPrice());
+            marketValues.put(update.symbol(), marketValue);
+
+            return Optional.of(ValuationDeltaResponse.builder()
+                    .symbol(update.symbol())
+                    .quantity(quantity)
+                    .price(quote.getPrice())
+                    .change(quote.getChange())
+                    .changePercent(quote.getPercent())
+                    .marketValue(marketValue)
+                    .dayChange(quote.getChange() == null ? null
+                                       : quantity.multiply(quote.getChange()).setScale(8, RoundingMode.HALF_UP))
+                    .totalMarketValue(marketValues.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add))
+                    .quoteAsOf(update.asOf())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.sa.portfolioservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "portfolio")
+public class PortfolioProperties {
+    private Import importing = new Import();
+    private Ledger ledger = new Ledger();
+    private ReadCache readCache = new ReadCache();
+    private Risk risk = new Risk();
+    private History history = new History();
+    private Paging paging = new Paging();
+
+    @Getter
+    @Setter
+    public static class Import {
+        private int maxRows = 50_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Ledger {
+        private int snapshotInterval = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class ReadCache {
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    @Getter
+    @Setter
+    public static class Risk {
+        private String benchmark = "SPY";
+        /** Trading days of history to use; 1260 is about five years. */
+        private int lookbackDays = 1260;
+        private int minObservations = 60;
+        private List<Double> confidenceLevels = List.of(0.95, 0.99);
+        /** Fork-join parallelism of the risk engine; 0 uses all processors. */
+        private int parallelism = 0;
+        private long historyMaximumSize = 2_000;
+        private Duration historyTtl = Duration.ofHours(6);
+    }
+
+    @Getter
+    @Setter
+    public static class History {
+        /**
+         * Directory of the memory-mapped per-symbol bar files, created if
+         * missing. Keep it on persistent, local storage: the files are the
+         * only copy of history fetched so far, and mapping them over a
+         * network file system defeats the page cache.
+         */
+        private String directory = Path.of(System.getProperty("user.home"), ".portfolio-service", "price-history")
+                .toString();
+        /** Stored bars older than this are topped up from the alpha-service; covers weekends. */
+        private Duration maxAge = Duration.ofDays(4);
+        /** Optional directory of {@code <SYMBOL>.csv} files bulk loaded at startup. */
+        private String importDirectory;
+    }
+
+    @Getter
+    @Setter
+    public static class Paging {
+        private int defaultLimit = 100;
+        private int maxLimit = 1000;
+    }
+}
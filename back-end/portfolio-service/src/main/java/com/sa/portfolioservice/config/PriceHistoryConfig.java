@@ -0,0 +1,31 @@
+package com.sa.portfolioservice.config;
+
+import com.sa.portfolioservice.util.PriceHistoryStore;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class PriceHistoryConfig {
+
+    @Bean
+    public PriceHistoryStore priceHistoryStore(PortfolioProperties portfolioProperties) {
+        return new PriceHistoryStore(Path.of(portfolioProperties.getHistory().getDirectory()).toAbsolutePath());
+    }
+
+    /**
+     * Bulk load CSV files from {@code portfolio.history.import-directory}, if set.
+     * Each file replaces the stored history of its symbol.
+     */
+    @Bean
+    public ApplicationRunner priceHistoryImport(PriceHistoryStore store, PortfolioProperties portfolioProperties) {
+        return args -> {
+            String importDirectory = portfolioProperties.getHistory().getImportDirectory();
+            if (importDirectory != null && !importDirectory.isBlank()) {
+                store.loadCsvDirectory(Path.of(importDirectory));
+            }
+        };
+    }
+}
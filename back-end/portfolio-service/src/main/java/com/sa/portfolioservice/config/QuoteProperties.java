@@ -0,0 +1,37 @@
+package com.sa.portfolioservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "quotes")
+public class QuoteProperties {
+    private String baseUrl = "http://alpha-service:8000";
+    private int maxConcurrency = 8;
+    private Duration timeout = Duration.ofSeconds(3);
+    private Cache cache = new Cache();
+    private Stream stream = new Stream();
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(15);
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        private Duration refreshAfter = Duration.ofSeconds(30);
+        private Duration staleAfter = Duration.ofMinutes(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+        private Duration pollInterval = Duration.ofSeconds(15);
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+    }
+}
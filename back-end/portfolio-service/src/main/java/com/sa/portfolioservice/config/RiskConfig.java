@@ -0,0 +1,26 @@
+package com.sa.portfolioservice.config;
+
+import com.sa.portfolioservice.util.RiskEngine;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class RiskConfig {
+
+    /**
+     * Dedicated pool so risk calculations don't compete with the common
+     * pool used by parallel streams and CompletableFutures.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool riskPool(PortfolioProperties portfolioProperties) {
+        int parallelism = portfolioProperties.getRisk().getParallelism();
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean
+    public RiskEngine riskEngine(ForkJoinPool riskPool) {
+        return new RiskEngine(riskPool);
+    }
+}
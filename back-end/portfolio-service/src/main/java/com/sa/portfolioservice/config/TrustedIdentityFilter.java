@@ -0,0 +1,86 @@
+package com.sa.portfolioservice.config;
+
+import com.sa.identity.IdentitySignature;
+import com.sa.identity.TrustedIdentity;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Resolves the caller from the gateway's signed identity headers and
+ * serves {@code /portfolio/me/**} as {@code /portfolio/{userId}/**} for
+ * that caller, so clients don't need to look up their own id first.
+ * Requests to {@code /portfolio/me} without a valid identity get a 401.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrustedIdentityFilter extends OncePerRequestFilter {
+
+    private static final String ME_PATH = "/portfolio/me";
+
+    private final IdentitySignature identitySignature;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Optional<TrustedIdentity> identity = identitySignature.verify(request::getHeader);
+        identity.ifPresent(value -> request.setAttribute(TrustedIdentity.ATTRIBUTE, value));
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.equals(ME_PATH) && !path.startsWith(ME_PATH + "/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (identity.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":\"error\",\"message\":\"Missing or invalid identity\"}");
+            return;
+        }
+        String resolved = "/portfolio/" + identity.get().userId() + path.substring(ME_PATH.length());
+        chain.doFilter(new ResolvedPathRequest(request, resolved), response);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // async dispatches of /me streams must resolve to the same handler
+        return false;
+    }
+
+    private static final class ResolvedPathRequest extends HttpServletRequestWrapper {
+        private final String path;
+
+        ResolvedPathRequest(HttpServletRequest request, String path) {
+            super(request);
+            this.path = path;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return getContextPath() + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            StringBuffer url = new StringBuffer();
+            url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort())
+                    .append(getRequestURI());
+            return url;
+        }
+
+        @Override
+        public String getServletPath() {
+            return path;
+        }
+    }
+}
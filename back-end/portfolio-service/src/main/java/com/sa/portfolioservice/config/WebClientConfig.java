@@ -13,4 +13,11 @@ public class WebClientConfig {
                 .baseUrl("http://auth-service:8081") // direct internal call
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public WebClient quoteWebClient(QuoteProperties quoteProperties) {
+        return WebClient.builder()
+                .baseUrl(quoteProperties.getBaseUrl()) // alpha-service is not registered with Eureka
+                .build();
+    }
+}
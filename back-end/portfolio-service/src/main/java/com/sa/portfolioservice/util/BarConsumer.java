@@ -0,0 +1,10 @@
+package com.sa.portfolioservice.util;
+
+/**
+ * Receives daily bars one at a time as primitives, so scanning a range
+ * doesn't allocate per bar.
+ */
+@FunctionalInterface
+public interface BarConsumer {
+    void accept(int epochDay, double open, double high, double low, double close, long volume);
+}
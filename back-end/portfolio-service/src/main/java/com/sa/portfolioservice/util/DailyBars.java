@@ -0,0 +1,19 @@
+package com.sa.portfolioservice.util;
+
+/**
+ * Daily bars of one symbol in columns, oldest first. All columns have the
+ * same length and {@code days} is strictly increasing.
+ */
+public record DailyBars(int[] days, double[] open, double[] high, double[] low, double[] close, long[] volume) {
+
+    public static final DailyBars EMPTY = new DailyBars(new int[0], new double[0], new double[0],
+                                                        new double[0], new double[0], new long[0]);
+
+    public int size() {
+        return days.length;
+    }
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+}
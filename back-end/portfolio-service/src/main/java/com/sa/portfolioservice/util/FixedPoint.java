@@ -0,0 +1,153 @@
+package com.sa.portfolioservice.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts as {@code long} counts of 1e-8 units, the scale of the portfolio
+ * columns, with the same results as the {@link BigDecimal} math at
+ * {@link HoldingMath#SCALE} and {@code RoundingMode.HALF_UP}.
+ * <p>
+ * Products and weighted sums are carried in 128 bits and rounded once, so
+ * nothing is lost in between. Anything that does not fit a {@code long},
+ * on the way in or out, throws {@link ArithmeticException}; callers fall
+ * back to {@code BigDecimal} for those.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = HoldingMath.SCALE;
+    public static final long ONE = 100_000_000L;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+    private static final long MASK_32 = 0xFFFF_FFFFL;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * The value in 1e-8 units. Throws when it has more than eight decimals
+     * or does not fit a {@code long}.
+     */
+    public static long of(BigDecimal value) {
+        int scale = value.scale();
+        if (scale > SCALE || scale < 0 || value.precision() > 18) {
+            // rare enough to pay for the exact conversion
+            return value.setScale(SCALE).unscaledValue().longValueExact();
+        }
+        return Math.multiplyExact(value.unscaledValue().longValue(), POWERS_OF_TEN[SCALE - scale]);
+    }
+
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /** {@code a * b} rounded half up to eight decimals. */
+    public static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divideHalfUp(low, ONE);
+        }
+        return divideHalfUp(high, low, ONE);
+    }
+
+    /**
+     * {@link HoldingMath#weightedAverage} in 1e-8 units: the average price
+     * after buying {@code addedQty} at {@code buyPrice} on top of
+     * {@code oldQty} at {@code oldAvg}, or the old average when the buy
+     * price is not positive.
+     */
+    public static long weightedAverage(long oldQty, long oldAvg, long addedQty, long buyPrice) {
+        if (buyPrice <= 0) {
+            return oldAvg;
+        }
+        long newQty = Math.addExact(oldQty, addedQty);
+        if (newQty == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long high = Math.multiplyHigh(oldAvg, oldQty);
+        long low = oldAvg * oldQty;
+        long addedHigh = Math.multiplyHigh(buyPrice, addedQty);
+        long addedLow = buyPrice * addedQty;
+        long sumLow = low + addedLow;
+        long sumHigh = high + addedHigh + (Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0);
+        if (((high ^ sumHigh) & (addedHigh ^ sumHigh)) < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        // both sums are in 1e-16 units, so over a quantity in 1e-8 units the quotient is in 1e-8 units
+        return divideHalfUp(sumHigh, sumLow, newQty);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= divisor - remainder) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /** The signed 128-bit {@code high:low} over {@code divisor}, half up, which has to fit a long. */
+    private static long divideHalfUp(long high, long low, long divisor) {
+        boolean negative = (high < 0) != (divisor < 0);
+        if (high < 0) {
+            low = -low;
+            high = low == 0 ? -high : ~high;
+        }
+        if (divisor == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        long magnitude = Math.abs(divisor);
+        if (high < 0 || Long.compareUnsigned(high, magnitude) >= 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        long quotient = divideUnsigned(high, low, magnitude);
+        long remainder = low - quotient * magnitude;
+        if (quotient < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        if (Long.compareUnsigned(remainder, magnitude - remainder) >= 0) {
+            quotient++;
+        }
+        if (quotient < 0) {
+            throw new ArithmeticException("long overflow");
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    /**
+     * Unsigned {@code high:low / divisor} for {@code high < divisor}, long
+     * division in 32-bit digits (Hacker's Delight, divlu).
+     */
+    private static long divideUnsigned(long high, long low, long divisor) {
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long vHigh = v >>> 32;
+        long vLow = v & MASK_32;
+        long top = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long bottom = low << shift;
+        long bottomHigh = bottom >>> 32;
+        long bottomLow = bottom & MASK_32;
+
+        long q1 = Long.divideUnsigned(top, vHigh);
+        long rest = top - q1 * vHigh;
+        while (Long.compareUnsigned(q1, MASK_32) > 0
+                || Long.compareUnsigned(q1 * vLow, (rest << 32) | bottomHigh) > 0) {
+            q1--;
+            rest += vHigh;
+            if (Long.compareUnsigned(rest, MASK_32) > 0) break;
+        }
+
+        long middle = (top << 32) + bottomHigh - q1 * v;
+        long q0 = Long.divideUnsigned(middle, vHigh);
+        rest = middle - q0 * vHigh;
+        while (Long.compareUnsigned(q0, MASK_32) > 0
+                || Long.compareUnsigned(q0 * vLow, (rest << 32) | bottomLow) > 0) {
+            q0--;
+            rest += vHigh;
+            if (Long.compareUnsigned(rest, MASK_32) > 0) break;
+        }
+        return (q1 << 32) | q0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.sa.portfolioservice.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Weighted-average rule used whenever shares are added to a holding.
+ */
+public final class HoldingMath {
+
+    public static final int SCALE = 8;
+
+    private HoldingMath() {
+    }
+
+    /**
+     * Average price after buying {@code addedQty} shares at {@code buyPrice}
+     * on top of {@code oldQty} shares at {@code oldAvg}. A missing or
+     * non-positive buy price keeps the old average. Worked out in
+     * {@link FixedPoint} when the amounts fit, with the same result.
+     */
+    public static BigDecimal weightedAverage(BigDecimal oldQty, BigDecimal oldAvg,
+                                             BigDecimal addedQty, BigDecimal buyPrice) {
+        if (buyPrice == null || buyPrice.compareTo(BigDecimal.ZERO) <= 0) {
+            return oldAvg;
+        }
+        try {
+            return FixedPoint.toBigDecimal(FixedPoint.weightedAverage(
+                    FixedPoint.of(oldQty), FixedPoint.of(oldAvg), FixedPoint.of(addedQty), FixedPoint.of(buyPrice)));
+        } catch (ArithmeticException e) {
+            // more than eight decimals or too large for a long
+        }
+        BigDecimal newQty = oldQty.add(addedQty);
+        return oldAvg.multiply(oldQty).add(buyPrice.multiply(addedQty)).divide(newQty, SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Average price of a new holding bought at {@code buyPrice}.
+     */
+    public static BigDecimal initialAverage(BigDecimal buyPrice) {
+        return buyPrice == null || buyPrice.compareTo(BigDecimal.ZERO) <= 0 ? BigDecimal.ZERO : buyPrice;
+    }
+}
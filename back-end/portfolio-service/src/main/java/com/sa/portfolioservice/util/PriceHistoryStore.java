@@ -0,0 +1,585 @@
+package com.sa.portfolioservice.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * On-disk daily bars, one memory-mapped file per symbol.
+ * <p>
+ * A file is a 16 byte header ({@code magic, version, capacity, count})
+ * followed by six primitive columns of {@code capacity} entries each:
+ * epoch day (int), open, high, low, close (double) and volume (long). A
+ * bar is 44 bytes, so 20 years of one symbol is about 220 KB; the data
+ * lives in the page cache rather than on the heap, and the heap only holds
+ * one small descriptor per opened symbol.
+ * <p>
+ * Reads go straight to the mapping: range lookups binary search the day
+ * column and hand each bar to a {@link BarConsumer} without allocating.
+ * Writers are serialized per symbol. Appends write the bar before bumping
+ * the count, so concurrent readers and a crash mid-append never see a half
+ * written bar. The latest bar is the only one ever rewritten in place; it
+ * is guarded by a version counter that is odd while a replacement is being
+ * written, and readers of that bar check it before and after and retry, so
+ * they never see a torn bar either. A crash in the middle of a replacement
+ * can leave that one bar mixed until it is next updated. A full file is
+ * copied into one of twice the capacity and swapped in atomically; readers
+ * still holding the old mapping finish on it.
+ */
+public final class PriceHistoryStore {
+
+    private static final int MAGIC = 0x50485331; // "PHS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 12;
+    private static final int BAR_BYTES = 4 + 8 * 5;
+    private static final int MIN_CAPACITY = 256;
+    private static final String EXTENSION = ".bars";
+
+    private final Path directory;
+    private final ConcurrentMap<String, SymbolFile> files = new ConcurrentHashMap<>();
+
+    public PriceHistoryStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create price history directory " + directory, e);
+        }
+    }
+
+    public boolean contains(String symbol) {
+        return file(symbol) != null;
+    }
+
+    /** Number of stored bars of a symbol. */
+    public int size(String symbol) {
+        SymbolFile file = file(symbol);
+        return file == null ? 0 : file.mapping.count;
+    }
+
+    /**
+     * Pass the bars with {@code fromDay <= epochDay <= toDay} to
+     * {@code consumer}, oldest first. Returns the number of bars visited.
+     */
+    public int range(String symbol, int fromDay, int toDay, BarConsumer consumer) {
+        SymbolFile file = file(symbol);
+        if (file == null) {
+            return 0;
+        }
+        Mapping mapping = file.mapping;
+        int count = mapping.count;
+        int from = mapping.lowerBound(fromDay, count);
+        int to = mapping.lowerBound(toDay + 1, count);
+        for (int i = from; i < to; i++) {
+            mapping.visit(i, count, consumer);
+        }
+        return to - from;
+    }
+
+    /** Pass the most recent bar to {@code consumer}; false if there is none. */
+    public boolean latest(String symbol, BarConsumer consumer) {
+        SymbolFile file = file(symbol);
+        if (file == null) {
+            return false;
+        }
+        Mapping mapping = file.mapping;
+        int count = mapping.count;
+        if (count == 0) {
+            return false;
+        }
+        mapping.visit(count - 1, count, consumer);
+        return true;
+    }
+
+    /** Epoch day of the most recent bar, or {@link Integer#MIN_VALUE} if there is none. */
+    public int latestDay(String symbol) {
+        SymbolFile file = file(symbol);
+        if (file == null) {
+            return Integer.MIN_VALUE;
+        }
+        Mapping mapping = file.mapping;
+        int count = mapping.count;
+        return count == 0 ? Integer.MIN_VALUE : mapping.day(count - 1);
+    }
+
+    /**
+     * Bars between two days copied into fresh arrays, for callers that
+     * need whole series rather than a scan.
+     */
+    public DailyBars bars(String symbol, int fromDay, int toDay) {
+        SymbolFile file = file(symbol);
+        if (file == null) {
+            return DailyBars.EMPTY;
+        }
+        Mapping mapping = file.mapping;
+        int count = mapping.count;
+        int from = mapping.lowerBound(fromDay, count);
+        int to = mapping.lowerBound(toDay + 1, count);
+        return mapping.copy(from, to, count);
+    }
+
+    /**
+     * Append one bar. A bar for the latest stored day replaces it (intraday
+     * updates of today's bar); bars older than that are rejected.
+     */
+    public void append(String symbol, int epochDay, double open, double high, double low, double close, long volume) {
+        SymbolFile file = openOrCreate(symbol);
+        synchronized (file) {
+            Mapping mapping = file.mapping;
+            int count = mapping.count;
+            int index = count;
+            if (count > 0) {
+                int last = mapping.day(count - 1);
+                if (epochDay < last) {
+                    throw new IllegalArgumentException("Bar for " + LocalDate.ofEpochDay(epochDay)
+                                                       + " is older than the latest stored bar of " + symbol);
+                }
+                if (epochDay == last) index = count - 1;
+            }
+            if (index < count) {
+                mapping.replace(index, epochDay, open, high, low, close, volume);
+                return;
+            }
+            if (index == mapping.capacity) {
+                mapping = file.grow(index + 1);
+            }
+            mapping.write(index, epochDay, open, high, low, close, volume);
+            mapping.publish(count + 1);
+        }
+    }
+
+    /**
+     * Append the bars that are newer than the latest stored one; older bars
+     * are skipped and one for the latest stored day replaces it. Returns
+     * the number of bars written.
+     */
+    public int appendAll(String symbol, DailyBars bars) {
+        if (bars.isEmpty()) {
+            return 0;
+        }
+        SymbolFile file = openOrCreate(symbol);
+        synchronized (file) {
+            Mapping mapping = file.mapping;
+            int count = mapping.count;
+            int last = count == 0 ? Integer.MIN_VALUE : mapping.day(count - 1);
+            int start = 0;
+            while (start < bars.size() && bars.days()[start] < last) start++;
+            if (start == bars.size()) {
+                return 0;
+            }
+            int index = bars.days()[start] == last ? count - 1 : count;
+            int newCount = index + bars.size() - start;
+            if (newCount > mapping.capacity) {
+                mapping = file.grow(newCount);
+            }
+            for (int i = start; i < bars.size(); i++, index++) {
+                if (index < count) {
+                    mapping.replace(index, bars.days()[i], bars.open()[i], bars.high()[i], bars.low()[i],
+                                    bars.close()[i], bars.volume()[i]);
+                } else {
+                    mapping.write(index, bars.days()[i], bars.open()[i], bars.high()[i], bars.low()[i],
+                                  bars.close()[i], bars.volume()[i]);
+                }
+            }
+            mapping.publish(newCount);
+            mapping.buffer.force();
+            return bars.size() - start;
+        }
+    }
+
+    /**
+     * Replace the history of a symbol with bars read from CSV
+     * ({@code date,open,high,low,close,volume} with ISO dates; a header line
+     * and rows in any order are fine, and the last row for a date wins).
+     * Returns the number of bars stored.
+     */
+    public int loadCsv(String symbol, Reader csv) throws IOException {
+        DailyBars bars = parseCsv(csv);
+        SymbolFile file = openOrCreate(symbol);
+        synchronized (file) {
+            file.replace(bars, Math.max(MIN_CAPACITY, bars.size() + bars.size() / 8));
+        }
+        return bars.size();
+    }
+
+    /**
+     * Bulk load every {@code <SYMBOL>.csv} in a directory. Returns the number
+     * of symbols loaded.
+     */
+    public int loadCsvDirectory(Path csvDirectory) throws IOException {
+        int loaded = 0;
+        try (DirectoryStream<Path> csvFiles = Files.newDirectoryStream(csvDirectory, "*.csv")) {
+            for (Path csvFile : csvFiles) {
+                String name = csvFile.getFileName().toString();
+                try (Reader reader = Files.newBufferedReader(csvFile)) {
+                    loadCsv(name.substring(0, name.length() - 4), reader);
+                }
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private SymbolFile file(String symbol) {
+        String key = key(symbol);
+        SymbolFile file = files.get(key);
+        if (file != null) {
+            return file;
+        }
+        Path path = path(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return files.computeIfAbsent(key, k -> new SymbolFile(path, Mapping.map(path)));
+    }
+
+    private SymbolFile openOrCreate(String symbol) {
+        SymbolFile file = file(symbol);
+        if (file != null) {
+            return file;
+        }
+        String key = key(symbol);
+        return files.computeIfAbsent(key, k -> {
+            Path path = path(k);
+            try {
+                writeFile(path, DailyBars.EMPTY, MIN_CAPACITY);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new SymbolFile(path, Mapping.map(path));
+        });
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static String key(String symbol) {
+        String key = symbol.trim().toUpperCase(Locale.ROOT);
+        if (key.isEmpty() || key.contains("/") || key.contains("\\") || key.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        return key;
+    }
+
+    private static void writeFile(Path path, DailyBars bars, int capacity) throws IOException {
+        capacity = (capacity + 1) & ~1; // keeps the double columns 8-byte aligned
+        Files.deleteIfExists(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            Mapping mapping = new Mapping(buffer, capacity, 0);
+            for (int i = 0; i < bars.size(); i++) {
+                mapping.write(i, bars.days()[i], bars.open()[i], bars.high()[i], bars.low()[i],
+                              bars.close()[i], bars.volume()[i]);
+            }
+            mapping.publish(bars.size());
+            buffer.force();
+        }
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) capacity * BAR_BYTES;
+    }
+
+    static DailyBars parseCsv(Reader csv) throws IOException {
+        BufferedReader reader = csv instanceof BufferedReader b ? b : new BufferedReader(csv);
+        ColumnBuffer columns = new ColumnBuffer();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            String[] cells = line.split(",", -1);
+            if (cells.length < 6) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 6 columns");
+            }
+            String date = cells[0].trim();
+            if (lineNumber == 1 && !date.isEmpty() && !Character.isDigit(date.charAt(0))) {
+                continue; // header
+            }
+            try {
+                columns.add((int) LocalDate.parse(date).toEpochDay(),
+                            Double.parseDouble(cells[1].trim()), Double.parseDouble(cells[2].trim()),
+                            Double.parseDouble(cells[3].trim()), Double.parseDouble(cells[4].trim()),
+                            (long) Double.parseDouble(cells[5].trim()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return columns.sortedUnique();
+    }
+
+    /** Open file of one symbol; also the monitor writers of that symbol synchronize on. */
+    private static final class SymbolFile {
+        private final Path path;
+        private volatile Mapping mapping;
+
+        SymbolFile(Path path, Mapping mapping) {
+            this.path = path;
+            this.mapping = mapping;
+        }
+
+        /** Copy into a file of at least twice the capacity and swap it in. Caller holds the monitor. */
+        Mapping grow(int required) {
+            Mapping old = mapping;
+            try {
+                return replace(old.copy(0, old.count, old.count), Math.max(required, old.capacity * 2));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot grow " + path, e);
+            }
+        }
+
+        /** Write {@code bars} to a new file and swap it in. Caller holds the monitor. */
+        Mapping replace(DailyBars bars, int capacity) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            writeFile(temp, bars, capacity);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            mapping = Mapping.map(path);
+            return mapping;
+        }
+    }
+
+    /** A mapped file and the offsets of its columns. */
+    private static final class Mapping {
+
+        private static final VarHandle VERSION_HANDLE;
+
+        static {
+            try {
+                VERSION_HANDLE = MethodHandles.lookup()
+                        .findVarHandle(Mapping.class, "version", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final int openOffset;
+        private final int highOffset;
+        private final int lowOffset;
+        private final int closeOffset;
+        private final int volumeOffset;
+        private volatile int count;
+        /** Odd while the latest bar is being replaced in place. */
+        private long version;
+
+        Mapping(MappedByteBuffer buffer, int capacity, int count) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.openOffset = HEADER_BYTES + 4 * capacity;
+            this.highOffset = openOffset + 8 * capacity;
+            this.lowOffset = highOffset + 8 * capacity;
+            this.closeOffset = lowOffset + 8 * capacity;
+            this.volumeOffset = closeOffset + 8 * capacity;
+            this.count = count;
+        }
+
+        static Mapping map(Path path) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IllegalStateException("Not a price history file: " + path);
+                }
+                int capacity = buffer.getInt(8);
+                if (channel.size() < fileSize(capacity)) {
+                    throw new IllegalStateException("Truncated price history file: " + path);
+                }
+                return new Mapping(buffer, capacity, buffer.getInt(COUNT_OFFSET));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map " + path, e);
+            }
+        }
+
+        int day(int i) {
+            return buffer.getInt(HEADER_BYTES + 4 * i);
+        }
+
+        /** First index in {@code [0, count)} whose day is at least {@code day}. */
+        int lowerBound(int day, int count) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day(mid) < day) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        /**
+         * Pass bar {@code i} to {@code consumer}. Bars before the latest of
+         * the {@code count} a reader saw are never written again; that one
+         * may be replaced concurrently, so it is read until the version is
+         * even and unchanged around the read.
+         */
+        void visit(int i, int count, BarConsumer consumer) {
+            if (i < count - 1) {
+                consumer.accept(day(i),
+                                buffer.getDouble(openOffset + 8 * i),
+                                buffer.getDouble(highOffset + 8 * i),
+                                buffer.getDouble(lowOffset + 8 * i),
+                                buffer.getDouble(closeOffset + 8 * i),
+                                buffer.getLong(volumeOffset + 8 * i));
+                return;
+            }
+            while (true) {
+                long before = (long) VERSION_HANDLE.getAcquire(this);
+                int day = day(i);
+                double open = buffer.getDouble(openOffset + 8 * i);
+                double high = buffer.getDouble(highOffset + 8 * i);
+                double low = buffer.getDouble(lowOffset + 8 * i);
+                double close = buffer.getDouble(closeOffset + 8 * i);
+                long volume = buffer.getLong(volumeOffset + 8 * i);
+                VarHandle.loadLoadFence();
+                long after = (long) VERSION_HANDLE.getOpaque(this);
+                if ((before & 1) == 0 && before == after) {
+                    consumer.accept(day, open, high, low, close, volume);
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        void write(int i, int day, double open, double high, double low, double close, long volume) {
+            buffer.putInt(HEADER_BYTES + 4 * i, day);
+            buffer.putDouble(openOffset + 8 * i, open);
+            buffer.putDouble(highOffset + 8 * i, high);
+            buffer.putDouble(lowOffset + 8 * i, low);
+            buffer.putDouble(closeOffset + 8 * i, close);
+            buffer.putLong(volumeOffset + 8 * i, volume);
+        }
+
+        /** Rewrite a published bar in place, bracketed by version bumps. Caller holds the monitor. */
+        void replace(int i, int day, double open, double high, double low, double close, long volume) {
+            long current = version;
+            VERSION_HANDLE.setOpaque(this, current + 1);
+            VarHandle.storeStoreFence();
+            write(i, day, open, high, low, close, volume);
+            VERSION_HANDLE.setRelease(this, current + 2);
+        }
+
+        /** Make the first {@code newCount} bars visible; the volatile write orders it after the bar writes. */
+        void publish(int newCount) {
+            buffer.putInt(COUNT_OFFSET, newCount);
+            count = newCount;
+        }
+
+        /** Bars {@code [from, to)} of the {@code count} a reader saw. */
+        DailyBars copy(int from, int to, int count) {
+            int n = Math.max(0, to - from);
+            int[] days = new int[n];
+            double[] open = new double[n];
+            double[] high = new double[n];
+            double[] low = new double[n];
+            double[] close = new double[n];
+            long[] volume = new long[n];
+            for (int k = 0; k < n; k++) {
+                int i = from + k;
+                days[k] = day(i);
+                open[k] = buffer.getDouble(openOffset + 8 * i);
+                high[k] = buffer.getDouble(highOffset + 8 * i);
+                low[k] = buffer.getDouble(lowOffset + 8 * i);
+                close[k] = buffer.getDouble(closeOffset + 8 * i);
+                volume[k] = buffer.getLong(volumeOffset + 8 * i);
+            }
+            if (n > 0 && to == count) {
+                int last = n - 1;
+                visit(count - 1, count, (d, o, h, l, c, v) -> {
+                    days[last] = d;
+                    open[last] = o;
+                    high[last] = h;
+                    low[last] = l;
+                    close[last] = c;
+                    volume[last] = v;
+                });
+            }
+            return new DailyBars(days, open, high, low, close, volume);
+        }
+    }
+
+    /** Growable primitive columns used while parsing. */
+    private static final class ColumnBuffer {
+        private int size;
+        private int[] days = new int[1024];
+        private double[] open = new double[1024];
+        private double[] high = new double[1024];
+        private double[] low = new double[1024];
+        private double[] close = new double[1024];
+        private long[] volume = new long[1024];
+
+        void add(int day, double o, double h, double l, double c, long v) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                open = Arrays.copyOf(open, capacity);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                close = Arrays.copyOf(close, capacity);
+                volume = Arrays.copyOf(volume, capacity);
+            }
+            days[size] = day;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size] = v;
+            size++;
+        }
+
+        DailyBars sortedUnique() {
+            boolean ascending = true;
+            boolean descending = true;
+            for (int i = 1; i < size; i++) {
+                ascending &= days[i - 1] < days[i];
+                descending &= days[i - 1] > days[i];
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = descending ? size - 1 - i : i;
+            if (!ascending && !descending) {
+                // stable, so the last row for a date stays last
+                Integer[] boxed = Arrays.stream(order).boxed().toArray(Integer[]::new);
+                Arrays.sort(boxed, (a, b) -> Integer.compare(days[a], days[b]));
+                for (int i = 0; i < size; i++) order[i] = boxed[i];
+            }
+            int n = 0;
+            int[] outOrder = new int[size];
+            for (int k = 0; k < size; k++) {
+                int row = order[k];
+                if (n > 0 && days[outOrder[n - 1]] == days[row]) {
+                    outOrder[n - 1] = row; // last row for a date wins
+                } else {
+                    outOrder[n++] = row;
+                }
+            }
+            DailyBars bars = new DailyBars(new int[n], new double[n], new double[n], new double[n],
+                                           new double[n], new long[n]);
+            for (int k = 0; k < n; k++) {
+                int row = outOrder[k];
+                bars.days()[k] = days[row];
+                bars.open()[k] = open[row];
+                bars.high()[k] = high[row];
+                bars.low()[k] = low[row];
+                bars.close()[k] = close[row];
+                bars.volume()[k] = volume[row];
+            }
+            return bars;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.sa.portfolioservice.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Risk statistics of a portfolio from aligned daily close series.
+ * <p>
+ * Everything runs on primitive arrays. Per-holding returns and moments,
+ * the portfolio return series and the correlation matrix are each split
+ * over the given fork-join pool; the pairwise pass correlates returns that
+ * were standardized once up front, so every pair costs a single dot product.
+ * VaR and CVaR are one-day figures expressed as a positive fraction of the
+ * portfolio value.
+ */
+public final class RiskEngine {
+
+    public static final int TRADING_DAYS = 252;
+
+    /** Holdings (or days, for the portfolio series) handled by one leaf task. */
+    private static final int HOLDINGS_PER_TASK = 4;
+    private static final int DAYS_PER_TASK = 512;
+
+    private final ForkJoinPool pool;
+
+    public RiskEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param closes       {@code closes[i][t]}: close of holding {@code i} on day {@code t}, oldest first
+     * @param benchmark    benchmark closes on the same days
+     * @param marketValues current market value per holding, used as weights
+     * @param confidence   confidence levels for VaR/CVaR, e.g. {@code 0.95}
+     */
+    public Result compute(double[][] closes, double[] benchmark, double[] marketValues, double[] confidence) {
+        int n = closes.length;
+        int days = benchmark.length;
+        if (days < 3) {
+            throw new IllegalArgumentException("At least three observations are required");
+        }
+        for (double[] series : closes) {
+            if (series.length != days) {
+                throw new IllegalArgumentException("Close series must be aligned with the benchmark");
+            }
+        }
+        int m = days - 1;
+
+        double[] benchmarkReturns = new double[m];
+        returns(benchmark, benchmarkReturns);
+        double benchmarkMean = mean(benchmarkReturns);
+        double benchmarkVariance = 0;
+        for (int t = 0; t < m; t++) {
+            double d = benchmarkReturns[t] - benchmarkMean;
+            benchmarkVariance += d * d;
+        }
+        benchmarkVariance /= (m - 1);
+
+        double totalValue = 0;
+        for (double value : marketValues) totalValue += value;
+        double[] weights = new double[n];
+        if (totalValue > 0) {
+            for (int i = 0; i < n; i++) weights[i] = marketValues[i] / totalValue;
+        }
+
+        double[][] returns = new double[n][m];
+        double[][] standardized = new double[n][m];
+        double[] volatility = new double[n];
+        double[] beta = new double[n];
+        pool.invoke(new HoldingTask(closes, returns, standardized, volatility, beta,
+                                    benchmarkReturns, benchmarkMean, benchmarkVariance, 0, n));
+
+        double[] portfolioReturns = new double[m];
+        pool.invoke(new PortfolioTask(returns, weights, portfolioReturns, 0, m));
+
+        double[][] correlation = new double[n][n];
+        pool.invoke(new CorrelationTask(standardized, correlation, 0, n));
+
+        double portfolioMean = mean(portfolioReturns);
+        double portfolioVariance = 0;
+        double portfolioCovariance = 0;
+        for (int t = 0; t < m; t++) {
+            double d = portfolioReturns[t] - portfolioMean;
+            portfolioVariance += d * d;
+            portfolioCovariance += d * (benchmarkReturns[t] - benchmarkMean);
+        }
+        portfolioVariance /= (m - 1);
+        portfolioCovariance /= (m - 1);
+        double portfolioSigma = Math.sqrt(portfolioVariance);
+
+        double[] sorted = portfolioReturns.clone();
+        Arrays.sort(sorted);
+        int levels = confidence.length;
+        double[] historicalVar = new double[levels];
+        double[] historicalCvar = new double[levels];
+        double[] parametricVar = new double[levels];
+        double[] parametricCvar = new double[levels];
+        for (int k = 0; k < levels; k++) {
+            double c = confidence[k];
+            if (!(c > 0 && c < 1)) {
+                throw new IllegalArgumentException("Confidence level must be between 0 and 1: " + c);
+            }
+            // the epsilon keeps e.g. (1 - 0.95) * 100 = 5.000000000000004 from rounding up to 6
+            int tail = Math.max(1, (int) Math.ceil((1 - c) * m - 1e-9));
+            historicalVar[k] = -sorted[tail - 1];
+            double tailSum = 0;
+            for (int t = 0; t < tail; t++) tailSum += sorted[t];
+            historicalCvar[k] = -tailSum / tail;
+
+            double z = inverseNormal(c);
+            parametricVar[k] = z * portfolioSigma - portfolioMean;
+            parametricCvar[k] = portfolioSigma * normalDensity(z) / (1 - c) - portfolioMean;
+        }
+
+        return new Result(m, weights, volatility, beta,
+                          portfolioSigma * Math.sqrt(TRADING_DAYS),
+                          benchmarkVariance > 0 ? portfolioCovariance / benchmarkVariance : 0,
+                          historicalVar, historicalCvar, parametricVar, parametricCvar, correlation);
+    }
+
+    /**
+     * @param observations number of daily returns the figures are based on
+     * @param volatility   annualized volatility per holding
+     */
+    public record Result(int observations,
+                         double[] weights,
+                         double[] volatility,
+                         double[] beta,
+                         double portfolioVolatility,
+                         double portfolioBeta,
+                         double[] historicalVar,
+                         double[] historicalCvar,
+                         double[] parametricVar,
+                         double[] parametricCvar,
+                         double[][] correlation) {
+    }
+
+    private static void returns(double[] closes, double[] out) {
+        for (int t = 0; t < out.length; t++) {
+            double previous = closes[t];
+            out[t] = previous > 0 ? closes[t + 1] / previous - 1 : 0;
+        }
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) sum += v;
+        return sum / values.length;
+    }
+
+    /** Returns, moments and beta of each holding; also scales returns so that correlation is a dot product. */
+    private static final class HoldingTask extends RecursiveAction {
+        private final double[][] closes;
+        private final double[][] returns;
+        private final double[][] standardized;
+        private final double[] volatility;
+        private final double[] beta;
+        private final double[] benchmarkReturns;
+        private final double benchmarkMean;
+        private final double benchmarkVariance;
+        private final int from;
+        private final int to;
+
+        HoldingTask(double[][] closes, double[][] returns, double[][] standardized, double[] volatility,
+                    double[] beta, double[] benchmarkReturns, double benchmarkMean, double benchmarkVariance,
+                    int from, int to) {
+            this.closes = closes;
+            this.returns = returns;
+            this.standardized = standardized;
+            this.volatility = volatility;
+            this.beta = beta;
+            this.benchmarkReturns = benchmarkReturns;
+            this.benchmarkMean = benchmarkMean;
+            this.benchmarkVariance = benchmarkVariance;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > HOLDINGS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new HoldingTask(closes, returns, standardized, volatility, beta,
+                                          benchmarkReturns, benchmarkMean, benchmarkVariance, from, mid),
+                          new HoldingTask(closes, returns, standardized, volatility, beta,
+                                          benchmarkReturns, benchmarkMean, benchmarkVariance, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                double[] r = returns[i];
+                int m = r.length;
+                returns(closes[i], r);
+                double mean = mean(r);
+                double sumSquares = 0;
+                double covariance = 0;
+                for (int t = 0; t < m; t++) {
+                    double d = r[t] - mean;
+                    sumSquares += d * d;
+                    covariance += d * (benchmarkReturns[t] - benchmarkMean);
+                }
+                volatility[i] = Math.sqrt(sumSquares / (m - 1) * TRADING_DAYS);
+                beta[i] = benchmarkVariance > 0 ? covariance / (m - 1) / benchmarkVariance : 0;
+
+                double[] z = standardized[i];
+                if (sumSquares > 0) {
+                    double scale = 1 / Math.sqrt(sumSquares);
+                    for (int t = 0; t < m; t++) z[t] = (r[t] - mean) * scale;
+                }
+            }
+        }
+    }
+
+    /** Weighted sum of holding returns per day, holding by holding over a block of days. */
+    private static final class PortfolioTask extends RecursiveAction {
+        private final double[][] returns;
+        private final double[] weights;
+        private final double[] out;
+        private final int from;
+        private final int to;
+
+        PortfolioTask(double[][] returns, double[] weights, double[] out, int from, int to) {
+            this.returns = returns;
+            this.weights = weights;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > DAYS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PortfolioTask(returns, weights, out, from, mid),
+                          new PortfolioTask(returns, weights, out, mid, to));
+                return;
+            }
+            for (int i = 0; i < returns.length; i++) {
+                double w = weights[i];
+                if (w == 0) continue;
+                double[] r = returns[i];
+                for (int t = from; t < to; t++) out[t] += w * r[t];
+            }
+        }
+    }
+
+    /** Upper triangle of the correlation matrix for a range of rows, mirrored into the lower one. */
+    private static final class CorrelationTask extends RecursiveAction {
+        private final double[][] z;
+        private final double[][] out;
+        private final int from;
+        private final int to;
+
+        CorrelationTask(double[][] z, double[][] out, int from, int to) {
+            this.z = z;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > HOLDINGS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CorrelationTask(z, out, from, mid), new CorrelationTask(z, out, mid, to));
+                return;
+            }
+            int n = z.length;
+            for (int i = from; i < to; i++) {
+                double[] a = z[i];
+                out[i][i] = 1;
+                for (int j = i + 1; j < n; j++) {
+                    double c = dot(a, z[j]);
+                    out[i][j] = c;
+                    out[j][i] = c;
+                }
+            }
+        }
+
+        private static double dot(double[] a, double[] b) {
+            // independent accumulators so the additions don't serialize on one register
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int m = a.length;
+            int t = 0;
+            for (; t + 3 < m; t += 4) {
+                s0 += a[t] * b[t];
+                s1 += a[t + 1] * b[t + 1];
+                s2 += a[t + 2] * b[t + 2];
+                s3 += a[t + 3] * b[t + 3];
+            }
+            for (; t < m; t++) s0 += a[t] * b[t];
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+
+    private static double normalDensity(double z) {
+        return Math.exp(-0.5 * z * z) / Math.sqrt(2 * Math.PI);
+    }
+
+    /** Inverse of the standard normal CDF (Acklam's rational approximation, relative error below 1.2e-9). */
+    static double inverseNormal(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
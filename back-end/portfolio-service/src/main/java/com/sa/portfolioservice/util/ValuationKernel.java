@@ -0,0 +1,158 @@
+package com.sa.portfolioservice.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cost basis, market value and unrealized P&L of a portfolio in
+ * {@link FixedPoint} 1e-8 units, rounded exactly as the {@code BigDecimal}
+ * valuation rounds them.
+ * <p>
+ * Symbols are interned to ids; holdings are parallel arrays of symbol id,
+ * quantity and average price, prices an array by symbol id. Once filled,
+ * {@link #valuate()} runs over the arrays without creating objects, and can
+ * be run again after prices change. Amounts that overflow a {@code long}
+ * throw {@link ArithmeticException} and the caller values the portfolio
+ * with {@code BigDecimal} instead.
+ */
+public final class ValuationKernel {
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private long[] prices;
+    private boolean[] priced;
+
+    private int size;
+    private int[] symbolOf;
+    private long[] quantities;
+    private long[] averagePrices;
+    private long[] costBases;
+    private long[] marketValues;
+    private long[] pnls;
+
+    private long totalCostBasis;
+    private long totalMarketValue;
+    private long totalPnl;
+    private int pricedHoldings;
+
+    public ValuationKernel(int expectedHoldings) {
+        int capacity = Math.max(1, expectedHoldings);
+        prices = new long[capacity];
+        priced = new boolean[capacity];
+        symbolOf = new int[capacity];
+        quantities = new long[capacity];
+        averagePrices = new long[capacity];
+        costBases = new long[capacity];
+        marketValues = new long[capacity];
+        pnls = new long[capacity];
+    }
+
+    /** The id of {@code symbol}, assigned on first use. */
+    public int symbol(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        int next = symbolIds.size();
+        if (next == prices.length) {
+            prices = Arrays.copyOf(prices, next * 2);
+            priced = Arrays.copyOf(priced, next * 2);
+        }
+        symbolIds.put(symbol, next);
+        return next;
+    }
+
+    /** Adds a holding and returns its index. */
+    public int add(int symbol, long quantity, long averagePrice) {
+        if (size == symbolOf.length) {
+            int capacity = size * 2;
+            symbolOf = Arrays.copyOf(symbolOf, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            averagePrices = Arrays.copyOf(averagePrices, capacity);
+            costBases = Arrays.copyOf(costBases, capacity);
+            marketValues = Arrays.copyOf(marketValues, capacity);
+            pnls = Arrays.copyOf(pnls, capacity);
+        }
+        symbolOf[size] = symbol;
+        quantities[size] = quantity;
+        averagePrices[size] = averagePrice;
+        return size++;
+    }
+
+    public void price(int symbol, long price) {
+        prices[symbol] = price;
+        priced[symbol] = true;
+    }
+
+    public void clearPrice(int symbol) {
+        priced[symbol] = false;
+    }
+
+    /**
+     * Values every holding. Holdings without a price count towards the cost
+     * basis only, as in the {@code BigDecimal} valuation.
+     */
+    public void valuate() {
+        long costTotal = 0;
+        long marketTotal = 0;
+        long pnlTotal = 0;
+        int pricedCount = 0;
+        for (int i = 0; i < size; i++) {
+            long costBasis = FixedPoint.multiply(quantities[i], averagePrices[i]);
+            costBases[i] = costBasis;
+            costTotal = Math.addExact(costTotal, costBasis);
+            int symbol = symbolOf[i];
+            if (priced[symbol]) {
+                long marketValue = FixedPoint.multiply(quantities[i], prices[symbol]);
+                long pnl = Math.subtractExact(marketValue, costBasis);
+                marketValues[i] = marketValue;
+                pnls[i] = pnl;
+                marketTotal = Math.addExact(marketTotal, marketValue);
+                pnlTotal = Math.addExact(pnlTotal, pnl);
+                pricedCount++;
+            }
+        }
+        totalCostBasis = costTotal;
+        totalMarketValue = marketTotal;
+        totalPnl = pnlTotal;
+        pricedHoldings = pricedCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isPriced(int holding) {
+        return priced[symbolOf[holding]];
+    }
+
+    public long costBasis(int holding) {
+        return costBases[holding];
+    }
+
+    /** Only meaningful when the holding {@link #isPriced is priced}. */
+    public long marketValue(int holding) {
+        return marketValues[holding];
+    }
+
+    /** Only meaningful when the holding {@link #isPriced is priced}. */
+    public long unrealizedPnl(int holding) {
+        return pnls[holding];
+    }
+
+    public long totalCostBasis() {
+        return totalCostBasis;
+    }
+
+    public long totalMarketValue() {
+        return totalMarketValue;
+    }
+
+    public long totalUnrealizedPnl() {
+        return totalPnl;
+    }
+
+    public int pricedHoldings() {
+        return pricedHoldings;
+    }
+}
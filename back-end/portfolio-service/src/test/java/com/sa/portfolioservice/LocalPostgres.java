@@ -0,0 +1,60 @@
+package com.sa.portfolioservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+/**
+ * Connection to a local Postgres for tests that need real database
+ * semantics. Those tests only run when {@code PORTFOLIO_TEST_DB_URL} is set,
+ * e.g. {@code jdbc:postgresql://localhost:5432/postgres} for the compose db.
+ */
+public final class LocalPostgres {
+
+    public static final String URL_ENV = "PORTFOLIO_TEST_DB_URL";
+
+    private LocalPostgres() {
+    }
+
+    public static DataSource dataSource() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv(URL_ENV),
+                envOrDefault("PORTFOLIO_TEST_DB_USERNAME", "postgres"),
+                envOrDefault("PORTFOLIO_TEST_DB_PASSWORD", "database"));
+        Properties properties = new Properties();
+        properties.setProperty("reWriteBatchedInserts", "true");
+        dataSource.setConnectionProperties(properties);
+        return dataSource;
+    }
+
+    public static TransactionTemplate transactionTemplate(DataSource dataSource) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Create the portfolio table the way Hibernate generates it.
+     */
+    public static void createSchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS portfolio (
+                    id uuid NOT NULL PRIMARY KEY,
+                    user_id uuid NOT NULL,
+                    symbol varchar(255) NOT NULL,
+                    quantity numeric(20, 8) NOT NULL,
+                    avg_price numeric(20, 8) NOT NULL,
+                    created_at timestamp(6) with time zone NOT NULL,
+                    updated_at timestamp(6) with time zone NOT NULL,
+                    UNIQUE (user_id, symbol)
+                )
+                """);
+    }
+
+    private static String envOrDefault(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
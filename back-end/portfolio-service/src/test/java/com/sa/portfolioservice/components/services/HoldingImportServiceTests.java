@@ -0,0 +1,130 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.LocalPostgres;
+import com.sa.portfolioservice.components.dto.AddHoldingRequest;
+import com.sa.portfolioservice.components.dto.HoldingImportResponse;
+import com.sa.portfolioservice.components.entities.HoldingJdbcRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@EnabledIfEnvironmentVariable(named = LocalPostgres.URL_ENV, matches = ".+")
+class HoldingImportServiceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private HoldingImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = LocalPostgres.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = LocalPostgres.transactionTemplate(dataSource);
+        LocalPostgres.createSchema(jdbcTemplate);
+        importService = new HoldingImportService(new HoldingJdbcRepository(jdbcTemplate), mock(LedgerService.class),
+                                                 new PortfolioProperties());
+    }
+
+    @Test
+    void importsTenThousandRowsWellUnderASecond() {
+        List<AddHoldingRequest> rows = randomRows(10_000, 8_000, new Random(42));
+
+        // warm up connections, JIT and the prepared statement
+        runImport(UUID.randomUUID(), rows);
+
+        UUID userId = UUID.randomUUID();
+        long start = System.nanoTime();
+        HoldingImportResponse response = runImport(userId, rows);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(response.getImportedRows()).isEqualTo(10_000);
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM portfolio WHERE user_id = ?", Integer.class, userId))
+                .isEqualTo(response.getUpsertedHoldings());
+        assertThat(elapsedMillis).as("import time in ms").isLessThan(1_000);
+    }
+
+    @Test
+    void mergesDuplicatesAndReportsRowErrors() {
+        UUID userId = UUID.randomUUID();
+        String csv = """
+                symbol,quantity,buyPrice
+                aapl,2,100
+                AAPL ,1,130
+                ,1,10
+                MSFT,-1,10
+                MSFT,abc,10
+                MSFT,3,
+                """;
+
+        HoldingImportResponse response = transactionTemplate.execute(status -> importService.importCsv(userId, csv));
+
+        assertThat(response.getReceivedRows()).isEqualTo(6);
+        assertThat(response.getImportedRows()).isEqualTo(3);
+        assertThat(response.getErrors()).extracting("row").containsExactly(4, 5, 6);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT avg_price FROM portfolio WHERE user_id = ? AND symbol = 'AAPL'",
+                                               BigDecimal.class, userId)).isEqualByComparingTo("110");
+        assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM portfolio WHERE user_id = ? AND symbol = 'MSFT'",
+                                               BigDecimal.class, userId)).isEqualByComparingTo("3");
+    }
+
+    @Test
+    void appliesMixedPricedAndUnpricedRowsLikeSingleAdds() {
+        UUID userId = UUID.randomUUID();
+        HoldingJdbcRepository repository = new HoldingJdbcRepository(jdbcTemplate);
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.upsert(userId, "AAPL", BigDecimal.TEN, new BigDecimal("100"));
+            repository.upsert(userId, "MSFT", BigDecimal.TEN, new BigDecimal("100"));
+        });
+        String csv = """
+                AAPL,10
+                AAPL,10,100
+                MSFT,10,200
+                MSFT,10
+                MSFT,10,100
+                """;
+
+        HoldingImportResponse response = transactionTemplate.execute(status -> importService.importCsv(userId, csv));
+
+        assertThat(response.getImportedRows()).isEqualTo(5);
+        assertThat(response.getUpsertedHoldings()).isEqualTo(2);
+        // 10 @ 100, +10 keeping the average, +10 @ 100
+        assertThat(jdbcTemplate.queryForObject("SELECT avg_price FROM portfolio WHERE user_id = ? AND symbol = 'AAPL'",
+                                               BigDecimal.class, userId)).isEqualByComparingTo("100");
+        // 10 @ 100, +10 @ 200 -> 20 @ 150, +10 keeping 150, +10 @ 100 -> 40 @ 137.5
+        assertThat(jdbcTemplate.queryForObject("SELECT avg_price FROM portfolio WHERE user_id = ? AND symbol = 'MSFT'",
+                                               BigDecimal.class, userId)).isEqualByComparingTo("137.5");
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(quantity) FROM portfolio WHERE user_id = ?",
+                                               BigDecimal.class, userId)).isEqualByComparingTo("70");
+    }
+
+    private HoldingImportResponse runImport(UUID userId, List<AddHoldingRequest> rows) {
+        return transactionTemplate.execute(status -> importService.importHoldings(userId, rows));
+    }
+
+    private static List<AddHoldingRequest> randomRows(int count, int symbols, Random random) {
+        List<AddHoldingRequest> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(AddHoldingRequest.builder()
+                    .symbol("SYM" + random.nextInt(symbols))
+                    .quantity(BigDecimal.valueOf(1 + random.nextInt(1_000)))
+                    .buyPrice(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .build());
+        }
+        return rows;
+    }
+}
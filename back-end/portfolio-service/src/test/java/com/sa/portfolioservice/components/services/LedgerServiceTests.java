@@ -0,0 +1,156 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.HoldingResponse;
+import com.sa.portfolioservice.components.entities.*;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the ledger against in-memory repositories. Ids are handed out in
+ * descending order, the way pooled blocks of two instances can interleave,
+ * so anything that still ordered by id would replay backwards.
+ */
+class LedgerServiceTests {
+
+    private static final Instant T0 = Instant.parse("2026-01-05T10:00:00Z");
+
+    private final PortfolioTransactionRepository transactionRepository = mock(PortfolioTransactionRepository.class);
+    private final HoldingSnapshotRepository snapshotRepository = mock(HoldingSnapshotRepository.class);
+    private final PortfolioRepository portfolioRepository = mock(PortfolioRepository.class);
+    private final PortfolioVersionJdbcRepository versionRepository = mock(PortfolioVersionJdbcRepository.class);
+    private final PortfolioProperties properties = new PortfolioProperties();
+    private final LedgerService ledger = new LedgerService(transactionRepository, snapshotRepository, portfolioRepository,
+                                                           versionRepository, properties);
+
+    private final List<PortfolioTransaction> transactions = new ArrayList<>();
+    private final List<HoldingSnapshot> snapshots = new ArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong nextId = new AtomicLong(1_000_000);
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(versionRepository.increment(eq(userId), anyInt()))
+                .thenAnswer(invocation -> version.addAndGet(invocation.<Integer>getArgument(1)));
+        when(portfolioRepository.findByUserId(userId)).thenReturn(List.of());
+
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> {
+            for (PortfolioTransaction tx : invocation.<Iterable<PortfolioTransaction>>getArgument(0)) {
+                tx.setId(nextId.decrementAndGet());
+                transactions.add(tx);
+            }
+            return invocation.getArgument(0);
+        });
+        when(transactionRepository.findByUserIdAndSequenceGreaterThanOrderBySequenceAsc(eq(userId), anyLong()))
+                .thenAnswer(invocation -> transactions.stream()
+                        .filter(tx -> tx.getSequence() > invocation.<Long>getArgument(1))
+                        .sorted(Comparator.comparingLong(PortfolioTransaction::getSequence))
+                        .toList());
+        when(transactionRepository.findByUserIdAndSequenceGreaterThanAndOccurredAtLessThanEqualOrderBySequenceAsc(
+                eq(userId), anyLong(), any()))
+                .thenAnswer(invocation -> transactions.stream()
+                        .filter(tx -> tx.getSequence() > invocation.<Long>getArgument(1))
+                        .filter(tx -> !tx.getOccurredAt().isAfter(invocation.getArgument(2)))
+                        .sorted(Comparator.comparingLong(PortfolioTransaction::getSequence))
+                        .toList());
+
+        when(snapshotRepository.save(any())).thenAnswer(invocation -> {
+            snapshots.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(snapshotRepository.findFirstByUserIdOrderByLastSequenceDesc(userId))
+                .thenAnswer(invocation -> snapshots.stream().max(Comparator.comparingLong(HoldingSnapshot::getLastSequence)));
+        when(snapshotRepository.findFirstByUserIdAndTakenAtLessThanEqualOrderByLastSequenceDesc(eq(userId), any()))
+                .thenAnswer(invocation -> snapshots.stream()
+                        .filter(s -> !s.getTakenAt().isAfter(invocation.getArgument(1)))
+                        .max(Comparator.comparingLong(HoldingSnapshot::getLastSequence)));
+    }
+
+    @Test
+    void replaysInAppendOrderRegardlessOfIds() {
+        append(0, TransactionType.BUY, "AAPL", "10", "100");
+        append(1, TransactionType.SELL, "AAPL", "10", null);
+        append(2, TransactionType.BUY, "AAPL", "5", "200");
+
+        assertThat(transactions).extracting(PortfolioTransaction::getSequence).containsExactly(1L, 2L, 3L);
+        // in id order the sell would come first and leave 10 shares at 100
+        List<HoldingResponse> holdings = ledger.holdingsAsOf(userId, T0.plusSeconds(60));
+        assertThat(holdings).singleElement().satisfies(h -> {
+            assertThat(h.getQuantity()).isEqualByComparingTo("5");
+            assertThat(h.getAveragePrice()).isEqualByComparingTo("200");
+        });
+    }
+
+    @Test
+    void snapshotWatermarkIsTheLastFoldedSequence() {
+        properties.getLedger().setSnapshotInterval(3);
+        when(portfolioRepository.findByUserId(userId)).thenReturn(List.of(PortfolioItem.builder()
+                .symbol("MSFT").quantity(new BigDecimal("2")).averagePrice(new BigDecimal("300")).build()));
+
+        append(0, TransactionType.BUY, "AAPL", "10", "100");
+        append(1, TransactionType.BUY, "AAPL", "10", "200");
+        assertThat(snapshots).extracting(HoldingSnapshot::getLastSequence).containsExactly(0L);
+
+        append(2, TransactionType.BUY, "MSFT", "2", "400");
+        assertThat(snapshots).extracting(HoldingSnapshot::getLastSequence).containsExactly(0L, 3L);
+
+        // the latest entry has the lowest id, yet is not skipped by the next snapshot
+        append(3, TransactionType.SELL, "AAPL", "5", null);
+        append(4, TransactionType.BUY, "TSLA", "1", "250");
+        append(5, TransactionType.ADJUST, "MSFT", "0", null);
+        assertThat(snapshots).extracting(HoldingSnapshot::getLastSequence).containsExactly(0L, 3L, 6L);
+
+        assertThat(snapshots.get(2).getHoldings()).extracting(SnapshotHolding::getSymbol).containsExactly("AAPL", "TSLA");
+        assertThat(snapshots.get(2).getHoldings().get(0).getQuantity()).isEqualByComparingTo("15");
+        assertThat(snapshots.get(2).getHoldings().get(0).getAveragePrice()).isEqualByComparingTo("150");
+    }
+
+    @Test
+    void holdingsAsOfStartFromTheNearestEarlierSnapshot() {
+        properties.getLedger().setSnapshotInterval(2);
+
+        append(0, TransactionType.BUY, "AAPL", "10", "100");
+        append(10, TransactionType.BUY, "AAPL", "10", "200");
+        append(20, TransactionType.BUY, "MSFT", "1", "300");
+        append(30, TransactionType.SELL, "AAPL", "20", null);
+
+        assertThat(ledger.holdingsAsOf(userId, T0.plusSeconds(5)))
+                .singleElement().satisfies(h -> assertThat(h.getQuantity()).isEqualByComparingTo("10"));
+
+        List<HoldingResponse> afterThird = ledger.holdingsAsOf(userId, T0.plusSeconds(25));
+        assertThat(afterThird).extracting(HoldingResponse::getSymbol).containsExactly("AAPL", "MSFT");
+        assertThat(afterThird.get(0).getQuantity()).isEqualByComparingTo("20");
+        assertThat(afterThird.get(0).getAveragePrice()).isEqualByComparingTo("150");
+
+        assertThat(ledger.holdingsAsOf(userId, T0.plusSeconds(30)))
+                .extracting(HoldingResponse::getSymbol).containsExactly("MSFT");
+    }
+
+    private void append(int second, TransactionType type, String symbol, String quantity, String price) {
+        ledger.appendAll(userId, List.of(PortfolioTransaction.builder()
+                .userId(userId)
+                .type(type)
+                .symbol(symbol)
+                .quantity(new BigDecimal(quantity))
+                .price(price == null ? null : new BigDecimal(price))
+                .occurredAt(T0.plusSeconds(second))
+                .build()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.PortfolioResponse;
+import com.sa.portfolioservice.components.entities.PortfolioVersionJdbcRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioReadCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PortfolioVersionJdbcRepository versionRepository = mock(PortfolioVersionJdbcRepository.class);
+    private final PortfolioReadCache readCache =
+            new PortfolioReadCache(versionRepository, new PortfolioProperties(), meterRegistry);
+    private final UUID userId = UUID.randomUUID();
+    private final AtomicLong version = new AtomicLong(3);
+
+    @BeforeEach
+    void setUp() {
+        when(versionRepository.current(userId)).thenAnswer(invocation -> version.get());
+    }
+
+    @Test
+    void servesFromCacheUntilTheVersionMoves() {
+        AtomicInteger loads = new AtomicInteger();
+
+        PortfolioReadCache.CachedPortfolio first = readCache.get(userId, () -> load(loads));
+        PortfolioReadCache.CachedPortfolio second = readCache.get(userId, () -> load(loads));
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(first.etag()).isEqualTo(readCache.etag(userId));
+
+        version.incrementAndGet();
+
+        PortfolioReadCache.CachedPortfolio third = readCache.get(userId, () -> load(loads));
+        assertThat(loads).hasValue(2);
+        assertThat(third.etag()).isNotEqualTo(first.etag());
+        assertThat(meterRegistry.counter("portfolio.read.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("portfolio.read.requests", "result", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    void ifNoneMatchOnlyMatchesCurrentVersion() {
+        String etag = readCache.get(userId, PortfolioResponse::new).etag();
+
+        assertThat(readCache.notModified(readCache.etag(userId), etag)).isTrue();
+        assertThat(readCache.notModified(readCache.etag(userId), "\"other\", " + etag)).isTrue();
+
+        version.incrementAndGet();
+
+        assertThat(readCache.notModified(readCache.etag(userId), etag)).isFalse();
+        assertThat(readCache.notModified(readCache.etag(userId), null)).isFalse();
+    }
+
+    @Test
+    void writesThroughAnotherInstanceAreSeen() {
+        PortfolioReadCache otherInstance =
+                new PortfolioReadCache(versionRepository, new PortfolioProperties(), new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        String etag = readCache.get(userId, () -> load(loads)).etag();
+        assertThat(otherInstance.get(userId, () -> load(loads)).etag()).isEqualTo(etag);
+
+        version.incrementAndGet(); // a write committed through either instance
+
+        assertThat(readCache.notModified(readCache.etag(userId), etag)).isFalse();
+        assertThat(otherInstance.notModified(otherInstance.etag(userId), etag)).isFalse();
+        readCache.get(userId, () -> load(loads));
+        otherInstance.get(userId, () -> load(loads));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void loadRacingAWriteIsReloaded() {
+        AtomicInteger loads = new AtomicInteger();
+
+        PortfolioReadCache.CachedPortfolio racing = readCache.get(userId, () -> {
+            version.incrementAndGet(); // a change commits while the load reads the database
+            return load(loads);
+        });
+        PortfolioReadCache.CachedPortfolio next = readCache.get(userId, () -> load(loads));
+
+        assertThat(loads).hasValue(2);
+        assertThat(next.version()).isGreaterThan(racing.version());
+        assertThat(readCache.notModified(readCache.etag(userId), racing.etag())).isFalse();
+    }
+
+    private static PortfolioResponse load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new PortfolioResponse();
+    }
+}
@@ -0,0 +1,95 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.LocalPostgres;
+import com.sa.portfolioservice.components.dto.HoldingPageResponse;
+import com.sa.portfolioservice.components.dto.HoldingResponse;
+import com.sa.portfolioservice.components.entities.HoldingJdbcRepository;
+import com.sa.portfolioservice.components.entities.PortfolioItem;
+import com.sa.portfolioservice.components.entities.PortfolioRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@EnabledIfEnvironmentVariable(named = LocalPostgres.URL_ENV, matches = ".+")
+class PortfolioServicePagingTests {
+
+    private final UUID userId = UUID.randomUUID();
+    private HoldingJdbcRepository jdbcRepository;
+    private PortfolioService service;
+    private List<String> symbols;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(LocalPostgres.dataSource());
+        LocalPostgres.createSchema(jdbcTemplate);
+        jdbcRepository = new HoldingJdbcRepository(jdbcTemplate);
+        service = new PortfolioService(mock(PortfolioRepository.class), jdbcRepository, mock(LedgerService.class),
+                                       new PortfolioProperties());
+
+        symbols = new ArrayList<>();
+        List<PortfolioItem> items = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            String symbol = (i % 2 == 0 ? "A" : "B") + String.format("%03d", i);
+            symbols.add(symbol);
+            items.add(PortfolioItem.builder().symbol(symbol).quantity(BigDecimal.ONE).averagePrice(BigDecimal.TEN).build());
+        }
+        symbols.sort(Comparator.naturalOrder());
+        jdbcRepository.batchUpsert(userId, items);
+    }
+
+    @Test
+    void walksAllHoldingsPageByPage() {
+        assertThat(collect(null, null, 40)).containsExactlyElementsOf(symbols);
+        assertThat(collect("-symbol", null, 40)).containsExactlyElementsOf(symbols.reversed());
+        assertThat(collect(null, "b", 7)).containsExactlyElementsOf(symbols.stream().filter(s -> s.startsWith("B")).toList());
+    }
+
+    @Test
+    void pagesStayStableWhenEarlierHoldingsAreRemoved() {
+        HoldingPageResponse first = service.getHoldingsPage(userId, 10, null, null, null);
+        new JdbcTemplate(LocalPostgres.dataSource())
+                .update("DELETE FROM portfolio WHERE user_id = ? AND symbol = ?", userId, symbols.get(0));
+
+        HoldingPageResponse second = service.getHoldingsPage(userId, 10, first.getNextCursor(), null, null);
+
+        assertThat(second.getHoldings().get(0).getSymbol()).isEqualTo(symbols.get(10));
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortAndBadLimits() {
+        String cursor = service.getHoldingsPage(userId, 5, null, "symbol", null).getNextCursor();
+
+        assertThatThrownBy(() -> service.getHoldingsPage(userId, 5, cursor, "-symbol", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getHoldingsPage(userId, 5, "not-a-cursor", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getHoldingsPage(userId, 0, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<String> collect(String sort, String prefix, int limit) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        HoldingPageResponse page;
+        do {
+            page = service.getHoldingsPage(userId, limit, cursor, sort, prefix);
+            assertThat(page.getHoldings()).hasSizeLessThanOrEqualTo(limit);
+            page.getHoldings().stream().map(HoldingResponse::getSymbol).forEach(seen::add);
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+        assertThat(cursor).isNull();
+        return seen;
+    }
+}
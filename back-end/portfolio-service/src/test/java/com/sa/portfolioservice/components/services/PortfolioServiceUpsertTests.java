@@ -0,0 +1,106 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.LocalPostgres;
+import com.sa.portfolioservice.components.dto.AddHoldingRequest;
+import com.sa.portfolioservice.components.entities.HoldingJdbcRepository;
+import com.sa.portfolioservice.components.entities.PortfolioItem;
+import com.sa.portfolioservice.components.entities.PortfolioRepository;
+import com.sa.portfolioservice.config.PortfolioProperties;
+import com.sa.portfolioservice.util.HoldingMath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@EnabledIfEnvironmentVariable(named = LocalPostgres.URL_ENV, matches = ".+")
+class PortfolioServiceUpsertTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private PortfolioService service;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = LocalPostgres.dataSource();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalPostgres.createSchema(jdbcTemplate);
+        service = new PortfolioService(mock(PortfolioRepository.class), new HoldingJdbcRepository(jdbcTemplate),
+                                       mock(LedgerService.class), new PortfolioProperties());
+    }
+
+    @Test
+    void parallelBuysOfTheSameSymbolAreNeverLost() throws Exception {
+        UUID userId = UUID.randomUUID();
+        int threads = 16;
+        int buysPerThread = 50;
+        BigDecimal quantity = new BigDecimal("0.5");
+        BigDecimal price = new BigDecimal("123.45678901");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < buysPerThread; i++) {
+                    service.addOrUpdateHolding(userId, new AddHoldingRequest("aapl", quantity, price));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        PortfolioItem stored = jdbcTemplate.queryForObject(
+                "SELECT quantity, avg_price FROM portfolio WHERE user_id = ? AND symbol = 'AAPL'",
+                (rs, rowNum) -> PortfolioItem.builder()
+                        .quantity(rs.getBigDecimal("quantity"))
+                        .averagePrice(rs.getBigDecimal("avg_price"))
+                        .build(),
+                userId);
+
+        assertThat(stored.getQuantity()).isEqualByComparingTo(quantity.multiply(BigDecimal.valueOf(threads * buysPerThread)));
+        assertThat(stored.getAveragePrice()).isEqualByComparingTo(price);
+    }
+
+    @Test
+    void databaseRoundingMatchesBigDecimalHalfUp() {
+        UUID userId = UUID.randomUUID();
+        Random random = new Random(7);
+        BigDecimal expectedQty = BigDecimal.ZERO;
+        BigDecimal expectedAvg = BigDecimal.ZERO;
+
+        for (int i = 0; i < 500; i++) {
+            BigDecimal quantity = BigDecimal.valueOf(1 + random.nextInt(1_000_000), random.nextInt(9));
+            BigDecimal price = random.nextInt(10) == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(random.nextInt(100_000_000), random.nextInt(9));
+
+            expectedAvg = i == 0
+                    ? HoldingMath.initialAverage(price)
+                    : HoldingMath.weightedAverage(expectedQty, expectedAvg, quantity, price);
+            expectedQty = expectedQty.add(quantity);
+
+            PortfolioItem stored = service.addOrUpdateHolding(userId, new AddHoldingRequest("XYZ", quantity, price));
+
+            assertThat(stored.getQuantity()).isEqualByComparingTo(expectedQty);
+            assertThat(stored.getAveragePrice()).as("average after buy %d", i).isEqualByComparingTo(expectedAvg);
+        }
+    }
+}
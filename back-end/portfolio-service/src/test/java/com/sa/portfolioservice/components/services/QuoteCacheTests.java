@@ -0,0 +1,95 @@
+package com.sa.portfolioservice.components.services;
+
+import com.sa.portfolioservice.components.dto.QuoteStatus;
+import com.sa.portfolioservice.components.dto.TickerPriceResponse;
+import com.sa.portfolioservice.config.QuoteProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuoteCacheTests {
+
+    private final QuoteClient quoteClient = mock(QuoteClient.class);
+    private final QuoteCache quoteCache = new QuoteCache(quoteClient, new QuoteUpdateBus(), new QuoteProperties(),
+                                                     new SimpleMeterRegistry());
+
+    @Test
+    void concurrentLookupsShareOneUpstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+        when(quoteClient.fetch(anyString())).thenAnswer(invocation -> Mono.delay(Duration.ofMillis(200))
+                .doOnSubscribe(s -> calls.incrementAndGet())
+                .map(tick -> quote(invocation.getArgument(0), "190.12")));
+
+        List<QuoteLookup> lookups = Flux.range(0, 500)
+                .flatMap(i -> quoteCache.lookup("aapl"), 500)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(calls).hasValue(1);
+        assertThat(lookups).hasSize(500).allSatisfy(lookup -> {
+            assertThat(lookup.status()).isEqualTo(QuoteStatus.LIVE);
+            assertThat(lookup.quote().getPrice()).isEqualByComparingTo("190.12");
+        });
+    }
+
+    @Test
+    void unknownSymbolIsMissingAndNegativelyCached() {
+        AtomicInteger calls = new AtomicInteger();
+        when(quoteClient.fetch(anyString())).thenAnswer(invocation -> Mono.<TickerPriceResponse>empty()
+                .doOnSubscribe(s -> calls.incrementAndGet()));
+
+        assertThat(quoteCache.lookup("NOPE").block().status()).isEqualTo(QuoteStatus.MISSING);
+        assertThat(quoteCache.lookup("NOPE").block().status()).isEqualTo(QuoteStatus.MISSING);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void upstreamFailureIsMissingAndNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        when(quoteClient.fetch(anyString())).thenAnswer(invocation -> Mono.<TickerPriceResponse>error(new IllegalStateException("down"))
+                .doOnSubscribe(s -> calls.incrementAndGet()));
+
+        assertThat(quoteCache.lookup("MSFT").block().status()).isEqualTo(QuoteStatus.MISSING);
+        assertThat(quoteCache.lookup("MSFT").block().status()).isEqualTo(QuoteStatus.MISSING);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void aRefreshAnsweredWithNotFoundKeepsTheOldQuote() throws InterruptedException {
+        QuoteProperties properties = new QuoteProperties();
+        properties.getCache().setRefreshAfter(Duration.ofMillis(10));
+        QuoteCache refreshing = new QuoteCache(quoteClient, new QuoteUpdateBus(), properties, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        // the alpha-service answers 404 once its API limit is reached
+        when(quoteClient.fetch(anyString())).thenAnswer(invocation -> calls.incrementAndGet() == 1
+                ? Mono.just(quote("AAPL", "190.12"))
+                : Mono.<TickerPriceResponse>empty());
+
+        assertThat(refreshing.lookup("AAPL").block().status()).isEqualTo(QuoteStatus.LIVE);
+        for (int i = 0; i < 100 && calls.get() < 2; i++) {
+            Thread.sleep(20);
+            refreshing.lookup("AAPL").block();
+        }
+        Thread.sleep(50);
+
+        QuoteLookup lookup = refreshing.lookup("AAPL").block();
+        assertThat(calls.get()).isGreaterThanOrEqualTo(2);
+        assertThat(lookup.status()).isEqualTo(QuoteStatus.LIVE);
+        assertThat(lookup.quote().getPrice()).isEqualByComparingTo("190.12");
+    }
+
+    private static TickerPriceResponse quote(String symbol, String price) {
+        return TickerPriceResponse.builder().symbol(symbol).price(new BigDecimal(price)).build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.sa.portfolioservice.config;
+
+import com.sa.identity.IdentityHeaders;
+import com.sa.identity.IdentitySignature;
+import com.sa.identity.TrustedIdentity;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrustedIdentityFilterTests {
+
+    private final IdentitySignature signature = new IdentitySignature("identity-secret");
+    private final TrustedIdentityFilter filter = new TrustedIdentityFilter(signature);
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void resolvesMeRoutesForSignedIdentity() throws Exception {
+        long expires = Instant.now().getEpochSecond() + 300;
+        MockHttpServletRequest request = request("/portfolio/me/valuation", userId.toString(), "a@b.c", expires,
+                                                 signature.sign(userId.toString(), "a@b.c", expires));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        HttpServletRequest forwarded = (HttpServletRequest) chain.getRequest();
+        assertThat(forwarded.getRequestURI()).isEqualTo("/portfolio/" + userId + "/valuation");
+        TrustedIdentity identity = (TrustedIdentity) forwarded.getAttribute(TrustedIdentity.ATTRIBUTE);
+        assertThat(identity.userId()).isEqualTo(userId);
+        assertThat(identity.email()).isEqualTo("a@b.c");
+    }
+
+    @Test
+    void rejectsTamperedOrExpiredIdentity() throws Exception {
+        long expires = Instant.now().getEpochSecond() + 300;
+        String signed = signature.sign(userId.toString(), "a@b.c", expires);
+
+        assertUnauthorized(request("/portfolio/me", UUID.randomUUID().toString(), "a@b.c", expires, signed));
+        assertUnauthorized(request("/portfolio/me", userId.toString(), "a@b.c", expires + 1, signed));
+        long expired = Instant.now().getEpochSecond() - 1;
+        assertUnauthorized(request("/portfolio/me", userId.toString(), "a@b.c", expired,
+                                   signature.sign(userId.toString(), "a@b.c", expired)));
+        assertUnauthorized(new MockHttpServletRequest("GET", "/portfolio/me"));
+    }
+
+    @Test
+    void otherRoutesPassThroughUnchanged() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/portfolio/" + userId);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    private void assertUnauthorized(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    private static MockHttpServletRequest request(String path, String userId, String email, long expires,
+                                                  String signature) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader(IdentityHeaders.USER_ID, userId);
+        request.addHeader(IdentityHeaders.USER_EMAIL, email);
+        request.addHeader(IdentityHeaders.TOKEN_EXPIRES, Long.toString(expires));
+        request.addHeader(IdentityHeaders.SIGNATURE, signature);
+        return request;
+    }
+}
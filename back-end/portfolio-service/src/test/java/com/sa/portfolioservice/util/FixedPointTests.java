@@ -0,0 +1,126 @@
+package com.sa.portfolioservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks {@link FixedPoint} against the {@code BigDecimal} math it stands in
+ * for, over random amounts of every size from a fraction of a cent to past
+ * what a long holds, ties included.
+ */
+class FixedPointTests {
+
+    private static final int RUNS = 200_000;
+    private static final BigDecimal MIN = BigDecimal.valueOf(Long.MIN_VALUE, FixedPoint.SCALE);
+    private static final BigDecimal MAX = BigDecimal.valueOf(Long.MAX_VALUE, FixedPoint.SCALE);
+
+    private final Random random = new Random(20_250_303);
+
+    @Test
+    void multipliesLikeBigDecimalRoundedHalfUp() {
+        for (int run = 0; run < RUNS; run++) {
+            long a = amount();
+            long b = amount();
+            BigDecimal expected = decimal(a).multiply(decimal(b)).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+
+            if (fits(expected)) {
+                assertThat(FixedPoint.toBigDecimal(FixedPoint.multiply(a, b)))
+                        .as("%s * %s", decimal(a), decimal(b))
+                        .isEqualTo(expected);
+            } else {
+                assertThatThrownBy(() -> FixedPoint.multiply(a, b)).isInstanceOf(ArithmeticException.class);
+            }
+        }
+    }
+
+    @Test
+    void averagesLikeHoldingMathDidWithBigDecimal() {
+        for (int run = 0; run < RUNS; run++) {
+            long oldQty = amount();
+            long oldAvg = amount();
+            long addedQty = amount();
+            long buyPrice = amount();
+            if (buyPrice <= 0 || oldQty + addedQty == 0) {
+                continue;
+            }
+            BigDecimal expected = decimal(oldAvg).multiply(decimal(oldQty))
+                    .add(decimal(buyPrice).multiply(decimal(addedQty)))
+                    .divide(decimal(oldQty).add(decimal(addedQty)), FixedPoint.SCALE, RoundingMode.HALF_UP);
+            boolean quantitiesFit = fits(decimal(oldQty).add(decimal(addedQty)));
+
+            if (fits(expected) && quantitiesFit) {
+                assertThat(FixedPoint.toBigDecimal(FixedPoint.weightedAverage(oldQty, oldAvg, addedQty, buyPrice)))
+                        .as("%s @ %s + %s @ %s", decimal(oldQty), decimal(oldAvg), decimal(addedQty), decimal(buyPrice))
+                        .isEqualTo(expected);
+            } else {
+                assertThatThrownBy(() -> FixedPoint.weightedAverage(oldQty, oldAvg, addedQty, buyPrice))
+                        .isInstanceOf(ArithmeticException.class);
+            }
+        }
+    }
+
+    @Test
+    void roundsTiesAwayFromZero() {
+        // 0.00000001 * 0.5 and its negative land exactly halfway
+        assertThat(FixedPoint.multiply(1, 50_000_000)).isEqualTo(1);
+        assertThat(FixedPoint.multiply(-1, 50_000_000)).isEqualTo(-1);
+        assertThat(FixedPoint.multiply(1, 49_999_999)).isZero();
+        // one share at nothing and one at 0.00000001 average to half of it
+        assertThat(FixedPoint.weightedAverage(FixedPoint.ONE, 0, FixedPoint.ONE, 1)).isEqualTo(1);
+        assertThat(FixedPoint.weightedAverage(FixedPoint.ONE, -2, FixedPoint.ONE, 1)).isEqualTo(-1);
+        assertThat(FixedPoint.weightedAverage(2 * FixedPoint.ONE, 0, FixedPoint.ONE, 2)).isEqualTo(1);
+        assertThat(FixedPoint.weightedAverage(2 * FixedPoint.ONE, 0, FixedPoint.ONE, 1)).isZero();
+    }
+
+    @Test
+    void convertsOnlyWhatFitsEightDecimals() {
+        assertThat(FixedPoint.of(new BigDecimal("170.25"))).isEqualTo(17_025_000_000L);
+        assertThat(FixedPoint.of(new BigDecimal("1E+3"))).isEqualTo(1_000 * FixedPoint.ONE);
+        assertThat(FixedPoint.of(new BigDecimal("-0.000000010000"))).isEqualTo(-1);
+        assertThat(FixedPoint.of(MAX)).isEqualTo(Long.MAX_VALUE);
+        assertThat(FixedPoint.toBigDecimal(FixedPoint.of(new BigDecimal("42.1")))).isEqualTo("42.10000000");
+
+        assertThatThrownBy(() -> FixedPoint.of(new BigDecimal("0.000000001")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.of(MAX.add(BigDecimal.ONE)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> FixedPoint.of(new BigDecimal("100000000000")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void keepsTheOldAverageWithoutABuyPrice() {
+        assertThat(FixedPoint.weightedAverage(FixedPoint.ONE, 5 * FixedPoint.ONE, FixedPoint.ONE, 0))
+                .isEqualTo(5 * FixedPoint.ONE);
+        assertThatThrownBy(() -> FixedPoint.weightedAverage(FixedPoint.ONE, 1, -FixedPoint.ONE, 1))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    /** Mostly realistic amounts, some with the digits to force ties, some near the limits. */
+    private long amount() {
+        long value = switch (random.nextInt(6)) {
+            case 0 -> random.nextInt(1_000);
+            case 1 -> random.nextLong(1_000_000L * FixedPoint.ONE);
+            case 2 -> random.nextInt(100_000) * 50_000_000L;
+            case 3 -> random.nextLong(Long.MAX_VALUE / FixedPoint.ONE);
+            case 4 -> random.nextLong(1L << (1 + random.nextInt(62)));
+            default -> random.nextLong(Long.MAX_VALUE);
+        };
+        return random.nextInt(8) == 0 ? -value : value;
+    }
+
+    private static BigDecimal decimal(long value) {
+        return BigDecimal.valueOf(value, FixedPoint.SCALE);
+    }
+
+    private static boolean fits(BigDecimal value) {
+        // the kernel gives up on Long.MIN_VALUE, which has no positive counterpart
+        return value.compareTo(MIN) > 0 && value.compareTo(MAX) <= 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.sa.portfolioservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceHistoryStoreTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsCsvInAnyOrderAndServesRanges() throws Exception {
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        String csv = """
+                timestamp,open,high,low,close,volume
+                2024-01-04,3,4,2,3.5,300
+                2024-01-02,1,2,0.5,1.5,100
+                2024-01-03,2,3,1,2.5,200
+                2024-01-03,2,3,1,2.75,250
+                """;
+
+        assertThat(store.loadCsv("aapl", new StringReader(csv))).isEqualTo(3);
+
+        List<String> seen = new ArrayList<>();
+        int visited = store.range("AAPL", day("2024-01-03"), day("2024-12-31"),
+                                  (d, o, h, l, c, v) -> seen.add(LocalDate.ofEpochDay(d) + "=" + c + "/" + v));
+        assertThat(visited).isEqualTo(2);
+        assertThat(seen).containsExactly("2024-01-03=2.75/250", "2024-01-04=3.5/300");
+
+        double[] latest = new double[1];
+        assertThat(store.latest("AAPL", (d, o, h, l, c, v) -> latest[0] = c)).isTrue();
+        assertThat(latest[0]).isEqualTo(3.5);
+        assertThat(store.range("MSFT", 0, Integer.MAX_VALUE, (d, o, h, l, c, v) -> { })).isZero();
+    }
+
+    @Test
+    void appendsGrowTheFileAndSurviveReopening() {
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        int start = day("2000-01-03");
+        int bars = 5_000; // well past the initial capacity
+        for (int i = 0; i < bars; i++) {
+            store.append("SPY", start + i, i, i + 1, i - 1, i + 0.5, i * 10L);
+        }
+        store.append("SPY", start + bars - 1, 0, 0, 0, 42, 7); // replaces today's bar
+
+        PriceHistoryStore reopened = new PriceHistoryStore(directory);
+        assertThat(reopened.size("SPY")).isEqualTo(bars);
+        assertThat(reopened.latestDay("SPY")).isEqualTo(start + bars - 1);
+
+        DailyBars range = reopened.bars("SPY", start + 10, start + 12);
+        assertThat(range.days()).containsExactly(start + 10, start + 11, start + 12);
+        assertThat(range.close()).containsExactly(10.5, 11.5, 12.5);
+        assertThat(range.volume()).containsExactly(100L, 110L, 120L);
+        double[] latest = new double[1];
+        reopened.latest("SPY", (d, o, h, l, c, v) -> latest[0] = c);
+        assertThat(latest[0]).isEqualTo(42);
+
+        assertThatThrownBy(() -> reopened.append("SPY", start, 1, 1, 1, 1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void appendAllOnlyWritesNewerBars() {
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        store.appendAll("MSFT", bars(100, 101, 102));
+
+        int written = store.appendAll("MSFT", bars(99, 100, 101, 102, 103, 104));
+
+        assertThat(written).isEqualTo(3); // 102 replaced, 103 and 104 added
+        assertThat(store.bars("MSFT", 0, 1_000).days()).containsExactly(100, 101, 102, 103, 104);
+    }
+
+    @Test
+    void readersNeverSeeAHalfReplacedLatestBar() throws Exception {
+        PriceHistoryStore store = new PriceHistoryStore(directory);
+        store.append("AAPL", 100, 0, 0, 0, 0, 0);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int k = 1; k <= 200_000; k++) {
+                store.append("AAPL", 100, k, k, k, k, k); // intraday updates of the same day
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        List<String> torn = new ArrayList<>();
+        BarConsumer check = (d, o, h, l, c, v) -> {
+            if (o != h || o != l || o != c || o != v) {
+                torn.add(o + "/" + h + "/" + l + "/" + c + "/" + v);
+            }
+        };
+        while (!done.get() && torn.isEmpty()) {
+            store.latest("AAPL", check);
+            store.range("AAPL", 0, 1_000, check);
+            DailyBars bars = store.bars("AAPL", 0, 1_000);
+            check.accept(bars.days()[0], bars.open()[0], bars.high()[0], bars.low()[0], bars.close()[0],
+                         bars.volume()[0]);
+        }
+        writer.join();
+
+        assertThat(torn).isEmpty();
+        assertThat(store.size("AAPL")).isEqualTo(1);
+    }
+
+    private static DailyBars bars(int... days) {
+        int n = days.length;
+        double[] close = new double[n];
+        for (int i = 0; i < n; i++) close[i] = days[i];
+        return new DailyBars(days, close, close, close, close, new long[n]);
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
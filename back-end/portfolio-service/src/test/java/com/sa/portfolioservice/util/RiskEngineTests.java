@@ -0,0 +1,120 @@
+package com.sa.portfolioservice.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RiskEngineTests {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private final RiskEngine engine = new RiskEngine(pool);
+
+    @AfterAll
+    static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesStraightforwardCalculation() {
+        Random random = new Random(42);
+        int n = 23;
+        int days = 700;
+        double[] benchmark = randomWalk(random, days, 0.01);
+        double[][] closes = new double[n][];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            closes[i] = randomWalk(random, days, 0.005 + 0.001 * i);
+            values[i] = 1_000 + random.nextInt(10_000);
+        }
+
+        RiskEngine.Result result = engine.compute(closes, benchmark, values, new double[]{0.95, 0.99});
+
+        double[] benchmarkReturns = returns(benchmark);
+        double total = 0;
+        for (double v : values) total += v;
+        double[] portfolio = new double[days - 1];
+        for (int i = 0; i < n; i++) {
+            double[] r = returns(closes[i]);
+            assertThat(result.volatility()[i]).isCloseTo(Math.sqrt(covariance(r, r) * 252), within(1e-12));
+            assertThat(result.beta()[i])
+                    .isCloseTo(covariance(r, benchmarkReturns) / covariance(benchmarkReturns, benchmarkReturns),
+                               within(1e-12));
+            for (int j = 0; j < n; j++) {
+                double[] s = returns(closes[j]);
+                double expected = covariance(r, s) / Math.sqrt(covariance(r, r) * covariance(s, s));
+                assertThat(result.correlation()[i][j]).isCloseTo(expected, within(1e-12));
+            }
+            for (int t = 0; t < portfolio.length; t++) portfolio[t] += values[i] / total * r[t];
+        }
+        assertThat(result.observations()).isEqualTo(days - 1);
+        assertThat(result.portfolioVolatility())
+                .isCloseTo(Math.sqrt(covariance(portfolio, portfolio) * 252), within(1e-12));
+        assertThat(result.portfolioBeta())
+                .isCloseTo(covariance(portfolio, benchmarkReturns) / covariance(benchmarkReturns, benchmarkReturns),
+                           within(1e-12));
+        assertThat(result.historicalCvar()[0]).isGreaterThanOrEqualTo(result.historicalVar()[0]);
+        assertThat(result.historicalVar()[1]).isGreaterThanOrEqualTo(result.historicalVar()[0]);
+        assertThat(result.parametricCvar()[1]).isGreaterThan(result.parametricVar()[1]);
+    }
+
+    @Test
+    void historicalVarIsTheLossAtTheTailQuantile() {
+        // 100 returns: -10%, -9%, ..., -1%, then 90 flat days
+        int days = 101;
+        double[] closes = new double[days];
+        closes[0] = 100;
+        for (int t = 1; t < days; t++) {
+            double r = t <= 10 ? -(11 - t) / 100.0 : 0;
+            closes[t] = closes[t - 1] * (1 + r);
+        }
+
+        RiskEngine.Result result = engine.compute(new double[][]{closes}, closes, new double[]{1}, new double[]{0.95});
+
+        // 5 tail observations: -10% .. -6%
+        assertThat(result.historicalVar()[0]).isCloseTo(0.06, within(1e-12));
+        assertThat(result.historicalCvar()[0]).isCloseTo(0.08, within(1e-12));
+        assertThat(result.portfolioBeta()).isCloseTo(1, within(1e-12));
+        assertThat(result.correlation()[0][0]).isEqualTo(1);
+    }
+
+    @Test
+    void parametricVarUsesNormalQuantile() {
+        assertThat(RiskEngine.inverseNormal(0.95)).isCloseTo(1.6448536, within(1e-6));
+        assertThat(RiskEngine.inverseNormal(0.99)).isCloseTo(2.3263479, within(1e-6));
+        assertThat(RiskEngine.inverseNormal(0.01)).isCloseTo(-2.3263479, within(1e-6));
+        assertThat(RiskEngine.inverseNormal(0.5)).isCloseTo(0, within(1e-12));
+    }
+
+    private static double[] randomWalk(Random random, int days, double sigma) {
+        double[] closes = new double[days];
+        closes[0] = 100;
+        for (int t = 1; t < days; t++) {
+            closes[t] = closes[t - 1] * (1 + random.nextGaussian() * sigma);
+        }
+        return closes;
+    }
+
+    private static double[] returns(double[] closes) {
+        double[] r = new double[closes.length - 1];
+        for (int t = 0; t < r.length; t++) r[t] = closes[t + 1] / closes[t] - 1;
+        return r;
+    }
+
+    private static double covariance(double[] a, double[] b) {
+        double meanA = 0, meanB = 0;
+        for (int t = 0; t < a.length; t++) {
+            meanA += a[t];
+            meanB += b[t];
+        }
+        meanA /= a.length;
+        meanB /= b.length;
+        double sum = 0;
+        for (int t = 0; t < a.length; t++) sum += (a[t] - meanA) * (b[t] - meanB);
+        return sum / (a.length - 1);
+    }
+}
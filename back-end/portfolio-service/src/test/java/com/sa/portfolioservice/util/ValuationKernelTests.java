@@ -0,0 +1,106 @@
+package com.sa.portfolioservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Values random portfolios with {@link ValuationKernel} and with the
+ * {@code BigDecimal} arithmetic of the valuation endpoint, and expects the
+ * same figures to the last digit.
+ */
+class ValuationKernelTests {
+
+    private final Random random = new Random(7);
+
+    @Test
+    void valuesRandomPortfoliosLikeBigDecimal() {
+        for (int run = 0; run < 2_000; run++) {
+            int holdings = 1 + random.nextInt(60);
+            int symbols = 1 + random.nextInt(holdings);
+            ValuationKernel kernel = new ValuationKernel(random.nextInt(4));
+            BigDecimal[] prices = new BigDecimal[symbols];
+            for (int s = 0; s < symbols; s++) {
+                int id = kernel.symbol("S" + s);
+                if (random.nextInt(5) > 0) {
+                    prices[s] = decimal(random.nextLong(10_000L * FixedPoint.ONE));
+                    kernel.price(id, FixedPoint.of(prices[s]));
+                }
+            }
+
+            BigDecimal[] costBases = new BigDecimal[holdings];
+            BigDecimal[] marketValues = new BigDecimal[holdings];
+            BigDecimal totalCost = BigDecimal.ZERO;
+            BigDecimal totalMarket = BigDecimal.ZERO;
+            BigDecimal totalPnl = BigDecimal.ZERO;
+            for (int h = 0; h < holdings; h++) {
+                int symbol = random.nextInt(symbols);
+                BigDecimal quantity = decimal(random.nextLong(10_000L * FixedPoint.ONE));
+                BigDecimal average = decimal(random.nextLong(10_000L * FixedPoint.ONE));
+                kernel.add(kernel.symbol("S" + symbol), FixedPoint.of(quantity), FixedPoint.of(average));
+
+                costBases[h] = quantity.multiply(average).setScale(8, RoundingMode.HALF_UP);
+                totalCost = totalCost.add(costBases[h]);
+                if (prices[symbol] != null) {
+                    marketValues[h] = quantity.multiply(prices[symbol]).setScale(8, RoundingMode.HALF_UP);
+                    totalMarket = totalMarket.add(marketValues[h]);
+                    totalPnl = totalPnl.add(marketValues[h].subtract(costBases[h]));
+                }
+            }
+
+            kernel.valuate();
+
+            for (int h = 0; h < holdings; h++) {
+                assertThat(FixedPoint.toBigDecimal(kernel.costBasis(h))).isEqualTo(costBases[h]);
+                assertThat(kernel.isPriced(h)).isEqualTo(marketValues[h] != null);
+                if (marketValues[h] != null) {
+                    assertThat(FixedPoint.toBigDecimal(kernel.marketValue(h))).isEqualTo(marketValues[h]);
+                    assertThat(FixedPoint.toBigDecimal(kernel.unrealizedPnl(h)))
+                            .isEqualTo(marketValues[h].subtract(costBases[h]));
+                }
+            }
+            assertThat(FixedPoint.toBigDecimal(kernel.totalCostBasis())).isEqualByComparingTo(totalCost);
+            assertThat(FixedPoint.toBigDecimal(kernel.totalMarketValue())).isEqualByComparingTo(totalMarket);
+            assertThat(FixedPoint.toBigDecimal(kernel.totalUnrealizedPnl())).isEqualByComparingTo(totalPnl);
+        }
+    }
+
+    @Test
+    void revaluesAfterAPriceMoves() {
+        ValuationKernel kernel = new ValuationKernel(2);
+        int aapl = kernel.symbol("AAPL");
+        kernel.add(aapl, 10 * FixedPoint.ONE, 150 * FixedPoint.ONE);
+        kernel.add(kernel.symbol("MSFT"), FixedPoint.ONE, 300 * FixedPoint.ONE);
+        kernel.price(aapl, 160 * FixedPoint.ONE);
+
+        kernel.valuate();
+        assertThat(kernel.pricedHoldings()).isEqualTo(1);
+        assertThat(kernel.totalUnrealizedPnl()).isEqualTo(100 * FixedPoint.ONE);
+
+        kernel.price(aapl, 140 * FixedPoint.ONE);
+        kernel.valuate();
+        assertThat(kernel.totalMarketValue()).isEqualTo(1_400 * FixedPoint.ONE);
+        assertThat(kernel.totalCostBasis()).isEqualTo(1_800 * FixedPoint.ONE);
+        assertThat(kernel.unrealizedPnl(0)).isEqualTo(-100 * FixedPoint.ONE);
+    }
+
+    @Test
+    void reportsTotalsTooLargeForALong() {
+        ValuationKernel kernel = new ValuationKernel(2);
+        int symbol = kernel.symbol("BRK.A");
+        // each cost basis fits, their sum does not
+        kernel.add(symbol, 100 * FixedPoint.ONE, 500_000_000 * FixedPoint.ONE);
+        kernel.add(symbol, 100 * FixedPoint.ONE, 500_000_000 * FixedPoint.ONE);
+
+        assertThatThrownBy(kernel::valuate).isInstanceOf(ArithmeticException.class);
+    }
+
+    private static BigDecimal decimal(long value) {
+        return BigDecimal.valueOf(value, FixedPoint.SCALE);
+    }
+}
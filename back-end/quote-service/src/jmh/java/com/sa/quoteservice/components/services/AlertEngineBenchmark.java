@@ -0,0 +1,112 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.entities.AlertType;
+import com.sa.quoteservice.util.LatestTicks;
+import com.sa.quoteservice.util.SymbolIds;
+import com.sa.quoteservice.util.Ticks;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks per second through the alert engine with 1M alerts over 10k
+ * symbols: ABOVE, BELOW and MOVE alerts within 10% of the price, and
+ * ticks random walking each symbol by up to 0.5%. For comparison, the
+ * same ticks checked against every alert of their symbol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AlertEngineBenchmark {
+
+    private static final int BATCH = 1_024;
+    private static final int TICKS = 1 << 20;
+
+    @Param({"10000"})
+    int symbolCount;
+
+    @Param({"1000000"})
+    int alertCount;
+
+    private AlertEngine engine;
+    private int[] tickSymbols;
+    private long[] tickPrices;
+    private int position;
+    /** The naive way: every threshold of a symbol, checked on every tick. */
+    private long[][] thresholds;
+    private long[] last;
+
+    @Setup
+    public void setUp() {
+        SymbolIds ids = new SymbolIds(symbolCount);
+        LatestTicks latest = new LatestTicks(symbolCount);
+        engine = new AlertEngine(ids, latest, 0.005);
+        Random random = new Random(7);
+        long[] prices = new long[symbolCount];
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            ids.id("S" + symbol);
+            prices[symbol] = Ticks.toPrice(BigDecimal.valueOf(10 + random.nextInt(500)));
+            latest.update(symbol, prices[symbol], 0, 0);
+        }
+
+        UUID user = UUID.randomUUID();
+        int perSymbol = alertCount / symbolCount;
+        thresholds = new long[symbolCount][perSymbol];
+        for (int i = 0; i < alertCount; i++) {
+            int symbol = i % symbolCount;
+            long threshold = Math.round(prices[symbol] * (0.9 + random.nextDouble() * 0.2));
+            AlertType type = AlertType.values()[random.nextInt(3)];
+            if (i / symbolCount < perSymbol) {
+                thresholds[symbol][i / symbolCount] = threshold;
+            }
+            engine.add(new AlertEngine.Alert(new UUID(0, i), user, "S" + symbol, type,
+                                             Ticks.toDecimal(threshold), BigDecimal.valueOf(1 + random.nextInt(10)),
+                                             null, true, 0));
+        }
+
+        tickSymbols = new int[TICKS];
+        tickPrices = new long[TICKS];
+        long[] walk = prices.clone();
+        for (int i = 0; i < TICKS; i++) {
+            int symbol = random.nextInt(symbolCount);
+            walk[symbol] = Math.max(1, Math.round(walk[symbol] * (1 + (random.nextDouble() - 0.5) * 0.01)));
+            tickSymbols[i] = symbol;
+            tickPrices[i] = walk[symbol];
+        }
+        last = prices.clone();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sortedThresholds() {
+        for (int i = 0; i < BATCH; i++) {
+            int at = (position + i) & (TICKS - 1);
+            engine.onTick(tickSymbols[at], tickPrices[at], at);
+        }
+        engine.onBatchEnd();
+        position += BATCH;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int scanEveryAlertOfTheSymbol() {
+        int crossed = 0;
+        for (int i = 0; i < BATCH; i++) {
+            int at = (position + i) & (TICKS - 1);
+            int symbol = tickSymbols[at];
+            long from = last[symbol];
+            long to = tickPrices[at];
+            for (long threshold : thresholds[symbol]) {
+                if (from < threshold == threshold <= to) {
+                    crossed++;
+                }
+            }
+            last[symbol] = to;
+        }
+        position += BATCH;
+        return crossed;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sa.quoteservice.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks per second through the pipeline's core on one thread: a looping
+ * file feed of 5,000 symbols published into the ring and the latest-value
+ * table a batch at a time, and the same with a consumer reading every
+ * batch back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TickRingBufferBenchmark {
+
+    private static final int BATCH = 1_024;
+
+    @Param({"5000"})
+    int symbolCount;
+
+    private TickRingBuffer ring;
+    private LatestTicks latest;
+    private FileTickFeed feed;
+    private TickHandler publisher;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        SymbolIds ids = new SymbolIds(symbolCount);
+        ring = new TickRingBuffer(65_536);
+        latest = new LatestTicks(symbolCount);
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            lines.add(i + ",S" + random.nextInt(symbolCount) + "," + (100 + random.nextInt(10_000) / 100.0));
+        }
+        feed = new FileTickFeed(lines, ids, true);
+        publisher = (symbol, price, timestamp) -> latest.update(symbol, price, timestamp,
+                                                                ring.publish(symbol, price, timestamp));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void ingest() {
+        feed.read(publisher, BATCH);
+        ring.commit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void ingestAndConsume(Blackhole blackhole) {
+        feed.read(publisher, BATCH);
+        ring.commit();
+        long published = ring.published();
+        TickHandler consumer = (symbol, price, timestamp) -> blackhole.consume(price);
+        while (next <= published) {
+            ring.read(next++, consumer);
+        }
+    }
+}
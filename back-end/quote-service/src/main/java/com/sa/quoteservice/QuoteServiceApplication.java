@@ -0,0 +1,17 @@
+package com.sa.quoteservice;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableDiscoveryClient
+@EnableScheduling
+public class QuoteServiceApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(QuoteServiceApplication.class, args);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.sa.quoteservice.components.controllers;
+
+import com.sa.identity.IdentitySignature;
+import com.sa.identity.TrustedIdentity;
+import com.sa.quoteservice.components.dto.CreateAlertRequest;
+import com.sa.quoteservice.components.services.AlertService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Price alerts of the calling user, who is taken from the gateway's signed
+ * identity headers; requests without a valid identity get a 401.
+ */
+@RestController
+@RequestMapping("/alerts")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "quotes.alerts", name = "enabled", matchIfMissing = true)
+public class AlertController {
+
+    private final AlertService service;
+    private final IdentitySignature identitySignature;
+
+    /**
+     * POST /alerts
+     * body: { "symbol": "AAPL", "type": "ABOVE", "threshold": 200 }
+     *    or { "symbol": "AAPL", "type": "MOVE", "percent": 5 }
+     */
+    @PostMapping
+    public ResponseEntity<?> create(HttpServletRequest request, @RequestBody CreateAlertRequest body) {
+        Optional<TrustedIdentity> identity = identitySignature.verify(request::getHeader);
+        if (identity.isEmpty()) {
+            return unauthorized();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.create(identity.get().userId(), body));
+    }
+
+    /**
+     * GET /alerts
+     */
+    @GetMapping
+    public ResponseEntity<?> list(HttpServletRequest request) {
+        Optional<TrustedIdentity> identity = identitySignature.verify(request::getHeader);
+        if (identity.isEmpty()) {
+            return unauthorized();
+        }
+        return ResponseEntity.ok(service.list(identity.get().userId()));
+    }
+
+    /**
+     * DELETE /alerts/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(HttpServletRequest request, @PathVariable("id") UUID id) {
+        Optional<TrustedIdentity> identity = identitySignature.verify(request::getHeader);
+        if (identity.isEmpty()) {
+            return unauthorized();
+        }
+        return service.delete(identity.get().userId(), id)
+                ? ResponseEntity.noContent().build()
+                : error(HttpStatus.NOT_FOUND, "No alert " + id);
+    }
+
+    /**
+     * Stream the caller's alerts as they fire, as server-sent "alert" events.
+     * GET /alerts/stream
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> stream(HttpServletRequest request) {
+        Optional<TrustedIdentity> identity = identitySignature.verify(request::getHeader);
+        if (identity.isEmpty()) {
+            return unauthorized();
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(service.stream(identity.get().userId()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalState(IllegalStateException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, String>> unauthorized() {
+        return error(HttpStatus.UNAUTHORIZED, "Missing or invalid identity");
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", "error", "message", message));
+    }
+}
@@ -0,0 +1,121 @@
+package com.sa.quoteservice.components.controllers;
+
+import com.sa.quoteservice.components.dto.QuoteResponse;
+import com.sa.quoteservice.components.services.QuoteStore;
+import com.sa.quoteservice.components.services.QuoteStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Serves quotes from memory. Reading a symbol makes it wanted by the
+ * refresher; a symbol that has no quote yet gets a 503 and is fetched
+ * ahead of refreshes as soon as the budget allows.
+ */
+@RestController
+@RequestMapping("/quotes")
+@RequiredArgsConstructor
+public class QuoteController {
+
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-]{1,12}");
+    private static final int MAX_SYMBOLS = 100;
+
+    private final QuoteStore store;
+    private final QuoteStreamService streamService;
+
+    /**
+     * GET /quotes/AAPL
+     * response: { "symbol": "AAPL", "current": 190.12, "change": 1.2, "percent": 0.63, "asOf": "..." }
+     */
+    @GetMapping("/{symbol}")
+    public ResponseEntity<?> quote(@PathVariable("symbol") String symbol) {
+        String key = normalize(symbol);
+        if (key == null) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid symbol");
+        }
+        store.recordAccess(key, Instant.now());
+        QuoteStore.StoredQuote stored = store.get(key);
+        if (stored == null) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "No quote for " + key + " yet");
+        }
+        if (stored.quote() == null) {
+            return error(HttpStatus.NOT_FOUND, "Unknown symbol " + key);
+        }
+        return ResponseEntity.ok(QuoteResponse.of(stored.quote(), stored.fetchedAt()));
+    }
+
+    /**
+     * Quotes for many symbols at once; symbols without a quote are left out.
+     * GET /quotes?symbols=AAPL,MSFT
+     */
+    @GetMapping
+    public ResponseEntity<?> quotes(@RequestParam("symbols") List<String> symbols) {
+        if (symbols.size() > MAX_SYMBOLS) {
+            return error(HttpStatus.BAD_REQUEST, "At most " + MAX_SYMBOLS + " symbols");
+        }
+        Instant now = Instant.now();
+        List<QuoteResponse> quotes = new ArrayList<>();
+        for (String symbol : symbols) {
+            String key = normalize(symbol);
+            if (key == null) {
+                continue;
+            }
+            store.recordAccess(key, now);
+            QuoteStore.StoredQuote stored = store.get(key);
+            if (stored != null && stored.quote() != null) {
+                quotes.add(QuoteResponse.of(stored.quote(), stored.fetchedAt()));
+            }
+        }
+        return ResponseEntity.ok(quotes);
+    }
+
+    /**
+     * Stream prices as server-sent events: a "snapshot" event with the
+     * latest price of each symbol that has one, then a "quote" event per
+     * price change.
+     * GET /quotes/stream?symbols=AAPL,MSFT
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(@RequestParam("symbols") List<String> symbols) {
+        if (symbols.size() > streamService.maxSymbols()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + streamService.maxSymbols() + " symbols");
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        Instant now = Instant.now();
+        for (String symbol : symbols) {
+            String key = normalize(symbol);
+            if (key != null) {
+                store.recordAccess(key, now);
+                keys.add(key);
+            }
+        }
+        return streamService.stream(keys);
+    }
+
+    private static String normalize(String symbol) {
+        String key = symbol.trim().toUpperCase(Locale.ROOT);
+        return SYMBOL.matcher(key).matches() ? key : null;
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("status", "error", "message", message));
+    }
+}
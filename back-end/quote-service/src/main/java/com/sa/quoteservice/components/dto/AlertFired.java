@@ -0,0 +1,21 @@
+package com.sa.quoteservice.components.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sa.quoteservice.components.entities.AlertType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An alert that fired.
+ *
+ * @param threshold for ABOVE and BELOW alerts, the level crossed
+ * @param reference for MOVE alerts, the price the move was measured from
+ * @param sequence  how many times the alert has fired, this time included
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AlertFired(UUID alertId, UUID userId, String symbol, AlertType type,
+                         BigDecimal threshold, BigDecimal reference, BigDecimal price,
+                         Instant firedAt, long sequence) {
+}
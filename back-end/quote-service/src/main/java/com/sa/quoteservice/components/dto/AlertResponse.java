@@ -0,0 +1,21 @@
+package com.sa.quoteservice.components.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sa.quoteservice.components.entities.AlertType;
+import com.sa.quoteservice.components.entities.PriceAlert;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AlertResponse(UUID id, String symbol, AlertType type, BigDecimal threshold, BigDecimal percent,
+                            BigDecimal reference, boolean armed, long fireCount, Instant lastFiredAt,
+                            BigDecimal lastFiredPrice, Instant createdAt) {
+
+    public static AlertResponse of(PriceAlert alert) {
+        return new AlertResponse(alert.getId(), alert.getSymbol(), alert.getType(), alert.getThreshold(),
+                                 alert.getPercent(), alert.getReference(), alert.isArmed(), alert.getFireCount(),
+                                 alert.getLastFiredAt(), alert.getLastFiredPrice(), alert.getCreatedAt());
+    }
+}
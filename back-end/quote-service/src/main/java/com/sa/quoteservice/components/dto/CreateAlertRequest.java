@@ -0,0 +1,12 @@
+package com.sa.quoteservice.components.dto;
+
+import com.sa.quoteservice.components.entities.AlertType;
+
+import java.math.BigDecimal;
+
+/**
+ * { "symbol": "AAPL", "type": "ABOVE", "threshold": 200 }
+ * or { "symbol": "AAPL", "type": "MOVE", "percent": 5 }
+ */
+public record CreateAlertRequest(String symbol, AlertType type, BigDecimal threshold, BigDecimal percent) {
+}
@@ -0,0 +1,7 @@
+package com.sa.quoteservice.components.dto;
+
+/**
+ * One row of the portfolio-service's {@code /internal/held-symbols}.
+ */
+public record HeldSymbol(String symbol, long holders) {
+}
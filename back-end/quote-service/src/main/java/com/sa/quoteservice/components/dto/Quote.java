@@ -0,0 +1,10 @@
+package com.sa.quoteservice.components.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A quote as the provider reported it, named like the alpha-service's
+ * {@code /stocks/{symbol}} answer.
+ */
+public record Quote(String symbol, BigDecimal current, BigDecimal change, BigDecimal percent) {
+}
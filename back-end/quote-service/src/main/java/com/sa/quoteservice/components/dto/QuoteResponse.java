@@ -0,0 +1,15 @@
+package com.sa.quoteservice.components.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A quote served from memory, with when it was fetched from the provider.
+ */
+public record QuoteResponse(String symbol, BigDecimal current, BigDecimal change, BigDecimal percent,
+                            Instant asOf) {
+
+    public static QuoteResponse of(Quote quote, Instant asOf) {
+        return new QuoteResponse(quote.symbol(), quote.current(), quote.change(), quote.percent(), asOf);
+    }
+}
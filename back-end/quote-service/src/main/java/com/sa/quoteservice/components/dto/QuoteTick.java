@@ -0,0 +1,10 @@
+package com.sa.quoteservice.components.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The latest price of a symbol as streamed from the tick pipeline.
+ */
+public record QuoteTick(String symbol, BigDecimal price, Instant asOf) {
+}
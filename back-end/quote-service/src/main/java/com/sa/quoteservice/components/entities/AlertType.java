@@ -0,0 +1,10 @@
+package com.sa.quoteservice.components.entities;
+
+public enum AlertType {
+    /** Fires when the price rises through the threshold. */
+    ABOVE,
+    /** Fires when the price falls through the threshold. */
+    BELOW,
+    /** Fires when the price moved a percentage away from the reference, which then becomes that price. */
+    MOVE
+}
@@ -0,0 +1,69 @@
+package com.sa.quoteservice.components.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "price_alert", indexes = @Index(columnList = "user_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceAlert {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", columnDefinition = "uuid", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "user_id", columnDefinition = "uuid", nullable = false)
+    private UUID userId;
+
+    @Column(name = "symbol", nullable = false)
+    private String symbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private AlertType type;
+
+    /** ABOVE and BELOW alerts. */
+    @Column(name = "threshold", scale = 4, precision = 20)
+    private BigDecimal threshold;
+
+    /** MOVE alerts, in percent. */
+    @Column(name = "percent", scale = 4, precision = 10)
+    private BigDecimal percent;
+
+    /** Price a MOVE alert is measured from; null until the symbol has one. */
+    @Column(name = "reference", scale = 4, precision = 20)
+    private BigDecimal reference;
+
+    /** False after an ABOVE or BELOW alert fired, until the price moved back past the hysteresis band. */
+    @Column(name = "armed", nullable = false)
+    private boolean armed;
+
+    @Column(name = "fire_count", nullable = false)
+    private long fireCount;
+
+    @Column(name = "last_fired_at")
+    private Instant lastFiredAt;
+
+    @Column(name = "last_fired_price", scale = 4, precision = 20)
+    private BigDecimal lastFiredPrice;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = Instant.now();
+        if (id == null) {
+            id = UUID.randomUUID();
+        }
+    }
+}
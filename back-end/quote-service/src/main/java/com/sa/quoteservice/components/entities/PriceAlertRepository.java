@@ -0,0 +1,24 @@
+package com.sa.quoteservice.components.entities;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, UUID> {
+    List<PriceAlert> findByUserIdOrderByCreatedAt(UUID userId);
+    Optional<PriceAlert> findByIdAndUserId(UUID id, UUID userId);
+    long countByUserId(UUID userId);
+
+    @Modifying
+    @Query("update PriceAlert a set a.armed = :armed, a.reference = :reference, a.fireCount = :fireCount,"
+            + " a.lastFiredAt = :firedAt, a.lastFiredPrice = :price where a.id = :id")
+    int recordFiring(UUID id, boolean armed, BigDecimal reference, long fireCount, Instant firedAt, BigDecimal price);
+}
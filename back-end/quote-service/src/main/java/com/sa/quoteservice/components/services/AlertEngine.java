@@ -0,0 +1,363 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.AlertFired;
+import com.sa.quoteservice.components.entities.AlertType;
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.LatestTicks;
+import com.sa.quoteservice.util.SymbolIds;
+import com.sa.quoteservice.util.ThresholdIndex;
+import com.sa.quoteservice.util.TickConsumer;
+import com.sa.quoteservice.util.Ticks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fires price alerts from the tick stream without looking at alerts a
+ * price move did not cross.
+ * <p>
+ * Each symbol has a book of two {@link ThresholdIndex}es: levels that
+ * matter when the price rises and levels that matter when it falls. A
+ * tick moving the price from p0 to p1 finds the entries between the two
+ * with one search of the tree and takes them level by level. Taking them
+ * and putting each back at its next level is O(log n) per level and per
+ * alert, so a tick that crosses k of n alerts costs O(log n + k log n),
+ * and a single search when it crosses none. An entry either fires its alert
+ * or re-arms it:
+ * <ul>
+ *     <li>An ABOVE alert waits at its threshold among the rising levels.
+ *     Once fired it waits among the falling levels at the threshold less
+ *     the hysteresis band, and only re-arms when the price gets there, so
+ *     a price hovering around the threshold fires it once. BELOW is the
+ *     mirror image. Re-arming is not persisted, so an alert loaded while
+ *     disarmed waits for the first price to tell whether it re-armed
+ *     meanwhile.</li>
+ *     <li>A MOVE alert waits at its reference plus and minus the percentage.
+ *     When either is crossed it fires and is measured from that price
+ *     from then on.</li>
+ * </ul>
+ * Firings are collected per batch of ticks and published as one list.
+ * Ticks a consumer skipped only ever come back as the latest price of a
+ * symbol, so a move is judged from the last price the engine saw, and an
+ * alert never fires twice for the same crossing.
+ */
+@Component
+public class AlertEngine implements TickConsumer {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final SymbolIds ids;
+    private final LatestTicks latest;
+    private final double hysteresis;
+    private final AtomicReferenceArray<Book> books;
+    private final Map<UUID, Alert> alerts = new ConcurrentHashMap<>();
+    private final Sinks.Many<List<AlertFired>> fired = Sinks.many().multicast().directBestEffort();
+    /** Firings of the current batch; only touched by the consumer thread. */
+    private final List<AlertFired> pending = new ArrayList<>();
+    /** Alerts a tick crossed; only touched by the consumer thread. */
+    private final List<Alert> crossed = new ArrayList<>();
+
+    @Autowired
+    public AlertEngine(TickPipeline pipeline, QuoteProperties properties) {
+        this(pipeline.symbols(), pipeline.latest(), properties.getAlerts().getHysteresis());
+        pipeline.subscribe("alerts", this);
+    }
+
+    AlertEngine(SymbolIds ids, LatestTicks latest, double hysteresis) {
+        this.ids = ids;
+        this.latest = latest;
+        this.hysteresis = hysteresis;
+        this.books = new AtomicReferenceArray<>(ids.capacity());
+    }
+
+    /** Firings, a batch of ticks at a time. */
+    public Flux<List<AlertFired>> fired() {
+        return fired.asFlux();
+    }
+
+    public int size() {
+        return alerts.size();
+    }
+
+    /** Symbols with alerts, with how many each. */
+    public Map<String, Long> watchedSymbols() {
+        Map<String, Long> watched = new HashMap<>();
+        for (int symbol = 0; symbol < ids.size(); symbol++) {
+            Book book = books.get(symbol);
+            if (book != null && book.alerts > 0) {
+                watched.put(ids.symbol(symbol), (long) book.alerts);
+            }
+        }
+        return watched;
+    }
+
+    public void add(Alert alert) {
+        int symbol = ids.id(alert.symbol);
+        if (symbol < 0) {
+            throw new IllegalStateException("No room for alerts on more symbols");
+        }
+        Book book = book(symbol);
+        synchronized (book) {
+            // set before the alert is published, remove() locks the book it names
+            alert.book = symbol;
+            if (alerts.putIfAbsent(alert.id, alert) != null) {
+                return;
+            }
+            book.alerts++;
+            place(book, alert);
+        }
+    }
+
+    public boolean remove(UUID id) {
+        Alert alert = alerts.get(id);
+        if (alert == null) {
+            return false;
+        }
+        Book book = books.get(alert.book);
+        synchronized (book) {
+            if (alerts.remove(id) == null) {
+                return false;
+            }
+            book.alerts--;
+            if (alert.up != NONE) {
+                book.rising.remove(alert.up, alert);
+            }
+            if (alert.down != NONE) {
+                book.falling.remove(alert.down, alert);
+            }
+            book.unpriced.remove(alert);
+            return true;
+        }
+    }
+
+    @Override
+    public void onTick(int symbol, long price, long timestamp) {
+        Book book = symbol < books.length() ? books.get(symbol) : null;
+        if (book == null) {
+            return;
+        }
+        synchronized (book) {
+            long last = book.last;
+            book.last = price;
+            if (!book.unpriced.isEmpty()) {
+                for (Alert alert : book.unpriced) {
+                    place(book, alert);
+                }
+                book.unpriced.clear();
+            }
+            if (last == NONE || price == last) {
+                return;
+            }
+            if (price > last) {
+                rise(book, last, price, timestamp);
+            } else {
+                fall(book, last, price, timestamp);
+            }
+        }
+    }
+
+    @Override
+    public void onBatchEnd() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        fired.tryEmitNext(List.copyOf(pending));
+        pending.clear();
+    }
+
+    /** Everything waiting at a level in {@code (last, price]}. */
+    private void rise(Book book, long last, long price, long timestamp) {
+        book.rising.take(last, price, crossed);
+        for (int i = 0; i < crossed.size(); i++) {
+            Alert alert = crossed.get(i);
+            alert.up = NONE;
+            switch (alert.type) {
+                case ABOVE -> {
+                    fire(alert, price, timestamp);
+                    alert.armed = false;
+                    alert.down = add(book.falling, alert.threshold - band(alert.threshold), alert);
+                }
+                case BELOW -> {
+                    alert.armed = true;
+                    alert.down = add(book.falling, alert.threshold, alert);
+                }
+                case MOVE -> moved(book, alert, price, timestamp);
+            }
+        }
+        crossed.clear();
+    }
+
+    /** Everything waiting at a level in {@code [price, last)}. */
+    private void fall(Book book, long last, long price, long timestamp) {
+        book.falling.take(price - 1, last - 1, crossed);
+        for (int i = 0; i < crossed.size(); i++) {
+            Alert alert = crossed.get(i);
+            alert.down = NONE;
+            switch (alert.type) {
+                case BELOW -> {
+                    fire(alert, price, timestamp);
+                    alert.armed = false;
+                    alert.up = add(book.rising, alert.threshold + band(alert.threshold), alert);
+                }
+                case ABOVE -> {
+                    alert.armed = true;
+                    alert.up = add(book.rising, alert.threshold, alert);
+                }
+                case MOVE -> moved(book, alert, price, timestamp);
+            }
+        }
+        crossed.clear();
+    }
+
+    private void moved(Book book, Alert alert, long price, long timestamp) {
+        if (alert.up != NONE) {
+            book.rising.remove(alert.up, alert);
+            alert.up = NONE;
+        }
+        if (alert.down != NONE) {
+            book.falling.remove(alert.down, alert);
+            alert.down = NONE;
+        }
+        fire(alert, price, timestamp);
+        alert.reference = price;
+        place(book, alert);
+    }
+
+    private void place(Book book, Alert alert) {
+        switch (alert.type) {
+            case ABOVE -> {
+                long rearm = alert.threshold - band(alert.threshold);
+                if (!alert.armed && book.last == NONE) {
+                    book.unpriced.add(alert);
+                    return;
+                }
+                if (!alert.armed && book.last <= rearm) {
+                    alert.armed = true;
+                }
+                if (alert.armed) {
+                    alert.up = add(book.rising, alert.threshold, alert);
+                } else {
+                    alert.down = add(book.falling, rearm, alert);
+                }
+            }
+            case BELOW -> {
+                long rearm = alert.threshold + band(alert.threshold);
+                if (!alert.armed && book.last == NONE) {
+                    book.unpriced.add(alert);
+                    return;
+                }
+                if (!alert.armed && book.last >= rearm) {
+                    alert.armed = true;
+                }
+                if (alert.armed) {
+                    alert.down = add(book.falling, alert.threshold, alert);
+                } else {
+                    alert.up = add(book.rising, rearm, alert);
+                }
+            }
+            case MOVE -> {
+                if (alert.reference == NONE) {
+                    if (book.last == NONE) {
+                        book.unpriced.add(alert);
+                        return;
+                    }
+                    alert.reference = book.last;
+                }
+                long distance = Math.max(1, Math.round(alert.reference * alert.move));
+                alert.up = add(book.rising, alert.reference + distance, alert);
+                alert.down = add(book.falling, alert.reference - distance, alert);
+            }
+        }
+    }
+
+    private static long add(ThresholdIndex<Alert> index, long level, Alert alert) {
+        index.add(level, alert);
+        return level;
+    }
+
+    private long band(long threshold) {
+        return Math.max(1, Math.round(threshold * hysteresis));
+    }
+
+    private void fire(Alert alert, long price, long timestamp) {
+        alert.fireCount++;
+        boolean move = alert.type == AlertType.MOVE;
+        pending.add(new AlertFired(alert.id, alert.userId, alert.symbol, alert.type,
+                                   move ? null : Ticks.toDecimal(alert.threshold),
+                                   move ? Ticks.toDecimal(alert.reference) : null,
+                                   Ticks.toDecimal(price), Instant.ofEpochMilli(timestamp), alert.fireCount));
+    }
+
+    private Book book(int symbol) {
+        Book book = books.get(symbol);
+        if (book != null) {
+            return book;
+        }
+        Book created = new Book();
+        latest.read(symbol, (ignored, price, timestamp) -> created.last = price);
+        return books.compareAndSet(symbol, null, created) ? created : books.get(symbol);
+    }
+
+    /**
+     * An alert as the engine tracks it. Everything that changes is guarded
+     * by the book of its symbol.
+     */
+    public static final class Alert {
+
+        private final UUID id;
+        private final UUID userId;
+        private final String symbol;
+        private final AlertType type;
+        private final long threshold;
+        private final double move;
+        private long reference;
+        private boolean armed;
+        private long fireCount;
+        private int book;
+        /** Levels the alert waits at among the rising and falling levels, NONE when not there. */
+        private long up = NONE;
+        private long down = NONE;
+
+        /**
+         * @param threshold for ABOVE and BELOW alerts
+         * @param percent   for MOVE alerts
+         * @param reference for MOVE alerts, null to take the next price
+         */
+        public Alert(UUID id, UUID userId, String symbol, AlertType type, BigDecimal threshold, BigDecimal percent,
+                     BigDecimal reference, boolean armed, long fireCount) {
+            this.id = id;
+            this.userId = userId;
+            this.symbol = symbol;
+            this.type = type;
+            this.threshold = threshold == null ? 0 : Ticks.toPrice(threshold);
+            this.move = percent == null ? 0 : percent.doubleValue() / 100;
+            this.reference = reference == null ? NONE : Ticks.toPrice(reference);
+            this.armed = armed;
+            this.fireCount = fireCount;
+        }
+    }
+
+    private static final class Book {
+
+        final ThresholdIndex<Alert> rising = new ThresholdIndex<>();
+        final ThresholdIndex<Alert> falling = new ThresholdIndex<>();
+        /**
+         * Alerts waiting for a first price: MOVE alerts to be measured from
+         * it, disarmed ABOVE and BELOW alerts to tell whether they re-armed.
+         */
+        final List<Alert> unpriced = new ArrayList<>();
+        long last = NONE;
+        volatile int alerts;
+    }
+}
@@ -0,0 +1,184 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.AlertFired;
+import com.sa.quoteservice.components.dto.AlertResponse;
+import com.sa.quoteservice.components.dto.CreateAlertRequest;
+import com.sa.quoteservice.components.entities.AlertType;
+import com.sa.quoteservice.components.entities.PriceAlert;
+import com.sa.quoteservice.components.entities.PriceAlertRepository;
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.Ticks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Price alerts of users: kept in Postgres, evaluated by the
+ * {@link AlertEngine} and delivered as server-sent events.
+ * <p>
+ * All alerts are loaded into the engine on startup. Firings are written
+ * back in the background a batch at a time, so a restart neither loses a
+ * MOVE alert's reference nor re-fires an alert that is waiting to re-arm.
+ * <p>
+ * Publishes {@code quotes.alerts.active} and {@code quotes.alerts.fired}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "quotes.alerts", name = "enabled", matchIfMissing = true)
+public class AlertService implements ApplicationRunner, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertService.class);
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-]{1,12}");
+    private static final BigDecimal MAX_PERCENT = BigDecimal.valueOf(1_000);
+
+    private final PriceAlertRepository repository;
+    private final AlertEngine engine;
+    private final TickPipeline pipeline;
+    private final TransactionTemplate transactions;
+    private final QuoteProperties.Alerts properties;
+    private final Counter firings;
+    private final Disposable recorder;
+
+    public AlertService(PriceAlertRepository repository, AlertEngine engine, TickPipeline pipeline,
+                        TransactionTemplate transactions, QuoteProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.engine = engine;
+        this.pipeline = pipeline;
+        this.transactions = transactions;
+        this.properties = properties.getAlerts();
+        this.firings = Counter.builder("quotes.alerts.fired")
+                .description("Price alerts fired")
+                .register(meterRegistry);
+        Gauge.builder("quotes.alerts.active", engine, AlertEngine::size)
+                .description("Price alerts being watched")
+                .register(meterRegistry);
+        this.recorder = engine.fired()
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(this::record, e -> log.error("Stopped recording alert firings", e));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<PriceAlert> alerts = repository.findAll();
+        alerts.forEach(alert -> engine.add(toEngine(alert)));
+        log.info("Watching {} price alerts", alerts.size());
+    }
+
+    public AlertResponse create(UUID userId, CreateAlertRequest request) {
+        String symbol = request.symbol() == null ? "" : request.symbol().trim().toUpperCase(Locale.ROOT);
+        if (!SYMBOL.matcher(symbol).matches()) {
+            throw new IllegalArgumentException("Invalid symbol");
+        }
+        if (request.type() == null) {
+            throw new IllegalArgumentException("type must be ABOVE, BELOW or MOVE");
+        }
+        boolean move = request.type() == AlertType.MOVE;
+        if (!move && (request.threshold() == null || request.threshold().signum() <= 0)) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        if (move && (request.percent() == null || request.percent().signum() <= 0
+                || request.percent().compareTo(MAX_PERCENT) > 0)) {
+            throw new IllegalArgumentException("percent must be above 0 and at most " + MAX_PERCENT);
+        }
+        if (repository.countByUserId(userId) >= properties.getMaxPerUser()) {
+            throw new IllegalStateException("At most " + properties.getMaxPerUser() + " alerts per user");
+        }
+
+        PriceAlert alert = PriceAlert.builder()
+                .userId(userId)
+                .symbol(symbol)
+                .type(request.type())
+                .threshold(move ? null : request.threshold())
+                .percent(move ? request.percent() : null)
+                .reference(move ? latestPrice(symbol) : null)
+                .armed(true)
+                .build();
+        PriceAlert saved = repository.save(alert);
+        engine.add(toEngine(saved));
+        return AlertResponse.of(saved);
+    }
+
+    public List<AlertResponse> list(UUID userId) {
+        return repository.findByUserIdOrderByCreatedAt(userId).stream().map(AlertResponse::of).toList();
+    }
+
+    public boolean delete(UUID userId, UUID alertId) {
+        return repository.findByIdAndUserId(alertId, userId)
+                .map(alert -> {
+                    repository.delete(alert);
+                    engine.remove(alert.getId());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Firings of a user's alerts as "alert" events, with the alert id and
+     * firing sequence as event id so a client can drop one it already saw.
+     */
+    public Flux<ServerSentEvent<Object>> stream(UUID userId) {
+        Flux<ServerSentEvent<Object>> alerts = engine.fired()
+                .flatMapIterable(batch -> batch)
+                .filter(fired -> fired.userId().equals(userId))
+                .onBackpressureBuffer(256, BufferOverflowStrategy.DROP_OLDEST)
+                .map(fired -> ServerSentEvent.<Object>builder(fired)
+                        .event("alert")
+                        .id(fired.alertId() + ":" + fired.sequence())
+                        .build());
+
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(properties.getHeartbeatInterval())
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.builder().comment("keep-alive").build());
+
+        return Flux.merge(alerts, heartbeats);
+    }
+
+    @Override
+    public void destroy() {
+        recorder.dispose();
+    }
+
+    private void record(List<AlertFired> batch) {
+        firings.increment(batch.size());
+        transactions.executeWithoutResult(status -> {
+            for (AlertFired fired : batch) {
+                boolean move = fired.type() == AlertType.MOVE;
+                repository.recordFiring(fired.alertId(), move, move ? fired.price() : null, fired.sequence(),
+                                        fired.firedAt(), fired.price());
+            }
+        });
+    }
+
+    private BigDecimal latestPrice(String symbol) {
+        int id = pipeline.symbols().find(symbol);
+        BigDecimal[] price = new BigDecimal[1];
+        if (id >= 0) {
+            pipeline.latest().read(id, (ignored, value, timestamp) -> price[0] = Ticks.toDecimal(value));
+        }
+        return price[0];
+    }
+
+    private static AlertEngine.Alert toEngine(PriceAlert alert) {
+        return new AlertEngine.Alert(alert.getId(), alert.getUserId(), alert.getSymbol(), alert.getType(),
+                                     alert.getThreshold(), alert.getPercent(), alert.getReference(),
+                                     alert.isArmed(), alert.getFireCount());
+    }
+}
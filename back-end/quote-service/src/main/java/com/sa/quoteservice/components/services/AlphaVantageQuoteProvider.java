@@ -0,0 +1,92 @@
+package com.sa.quoteservice.components.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sa.quoteservice.components.dto.Quote;
+import com.sa.quoteservice.config.QuoteProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Quotes from Alpha Vantage: one GLOBAL_QUOTE call per symbol, or with
+ * {@code quotes.alpha.bulk} up to {@code bulk-size} symbols per
+ * REALTIME_BULK_QUOTES call. Alpha Vantage answers calls over the quota
+ * with a 200 and a "Note" or "Information" message instead of data; those
+ * are reported as rate limited rather than as unknown symbols.
+ */
+@Component
+@ConditionalOnProperty(name = "quotes.provider", havingValue = "alpha", matchIfMissing = true)
+public class AlphaVantageQuoteProvider implements QuoteProvider {
+
+    private final RestTemplate restTemplate;
+    private final QuoteProperties.Alpha properties;
+
+    public AlphaVantageQuoteProvider(@Qualifier("alphaRestTemplate") RestTemplate restTemplate,
+                                     QuoteProperties properties) {
+        this.restTemplate = restTemplate;
+        this.properties = properties.getAlpha();
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return properties.isBulk() ? properties.getBulkSize() : 1;
+    }
+
+    @Override
+    public Map<String, Quote> fetch(List<String> symbols) {
+        if (properties.getApiKey() == null || properties.getApiKey().isBlank()) {
+            throw new QuoteProviderException("quotes.alpha.api-key is not set", false);
+        }
+        return properties.isBulk() ? bulkQuotes(symbols) : globalQuote(symbols.get(0));
+    }
+
+    private Map<String, Quote> globalQuote(String symbol) {
+        JsonNode quote = query("GLOBAL_QUOTE", symbol).path("Global Quote");
+        if (quote.path("05. price").isMissingNode()) {
+            return Map.of();
+        }
+        return Map.of(symbol, new Quote(symbol,
+                                        new BigDecimal(quote.path("05. price").asText()),
+                                        new BigDecimal(quote.path("09. change").asText()),
+                                        new BigDecimal(quote.path("10. change percent").asText().replace("%", ""))));
+    }
+
+    private Map<String, Quote> bulkQuotes(List<String> symbols) {
+        Map<String, Quote> quotes = new HashMap<>();
+        for (JsonNode row : query("REALTIME_BULK_QUOTES", String.join(",", symbols)).path("data")) {
+            String symbol = row.path("symbol").asText("").toUpperCase(Locale.ROOT);
+            if (symbols.contains(symbol) && row.hasNonNull("close")) {
+                quotes.put(symbol, new Quote(symbol,
+                                             new BigDecimal(row.path("close").asText()),
+                                             new BigDecimal(row.path("change").asText("0")),
+                                             new BigDecimal(row.path("change_percent").asText("0"))));
+            }
+        }
+        return quotes;
+    }
+
+    private JsonNode query(String function, String symbol) {
+        JsonNode body;
+        try {
+            body = restTemplate.getForObject("/query?function={function}&symbol={symbol}&apikey={key}",
+                                             JsonNode.class, function, symbol, properties.getApiKey());
+        } catch (RestClientException e) {
+            throw new QuoteProviderException("Alpha Vantage " + function + " failed", e);
+        }
+        if (body == null) {
+            throw new QuoteProviderException("Alpha Vantage " + function + " answered without a body", false);
+        }
+        if (body.has("Note") || body.has("Information")) {
+            throw new QuoteProviderException("Alpha Vantage quota reached", true);
+        }
+        return body;
+    }
+}
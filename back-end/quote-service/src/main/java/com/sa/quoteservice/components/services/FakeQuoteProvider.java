@@ -0,0 +1,70 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.Quote;
+import com.sa.quoteservice.config.QuoteProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Deterministic provider for running without an API key and for tests.
+ * A symbol's price is derived from the symbol and moves by a fixed step
+ * each time it is fetched; symbols starting with {@code ZZ} are unknown.
+ * Every call is kept in {@link #calls()}.
+ */
+@Component
+@ConditionalOnProperty(name = "quotes.provider", havingValue = "fake")
+public class FakeQuoteProvider implements QuoteProvider {
+
+    private final int batchSize;
+    private final Map<String, Integer> fetches = new ConcurrentHashMap<>();
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public FakeQuoteProvider(QuoteProperties properties) {
+        this(properties.getFake().getBatchSize());
+    }
+
+    public FakeQuoteProvider(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public Map<String, Quote> fetch(List<String> symbols) {
+        calls.add(List.copyOf(symbols));
+        Map<String, Quote> quotes = new HashMap<>();
+        for (String symbol : symbols) {
+            if (!symbol.startsWith("ZZ")) {
+                quotes.put(symbol, quote(symbol, fetches.merge(symbol, 1, Integer::sum)));
+            }
+        }
+        return quotes;
+    }
+
+    public List<List<String>> calls() {
+        return new ArrayList<>(calls);
+    }
+
+    private static Quote quote(String symbol, int fetch) {
+        BigDecimal base = BigDecimal.valueOf(1_000 + Math.floorMod(symbol.hashCode(), 49_000), 2);
+        // up 1% on odd fetches, back down on even ones
+        BigDecimal change = fetch % 2 == 1 ? base.movePointLeft(2).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        BigDecimal current = base.add(change);
+        BigDecimal percent = change.multiply(BigDecimal.valueOf(100)).divide(base, 4, RoundingMode.HALF_UP);
+        return new Quote(symbol, current, change, percent);
+    }
+}
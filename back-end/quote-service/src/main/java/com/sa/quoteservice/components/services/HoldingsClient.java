@@ -0,0 +1,59 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.HeldSymbol;
+import com.sa.quoteservice.config.QuoteProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Which symbols are held and by how many users, polled from the
+ * portfolio-service. The last answer is kept while the portfolio-service
+ * is unreachable.
+ */
+@Component
+public class HoldingsClient {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldingsClient.class);
+
+    private final RestTemplate restTemplate;
+    private final QuoteProperties.Holdings properties;
+    private volatile Map<String, Long> held = Map.of();
+
+    public HoldingsClient(@Qualifier("loadBalancedRestTemplate") RestTemplate restTemplate,
+                          QuoteProperties properties) {
+        this.restTemplate = restTemplate;
+        this.properties = properties.getHoldings();
+    }
+
+    /** Holders by upper case symbol. */
+    public Map<String, Long> heldSymbols() {
+        return held;
+    }
+
+    @Scheduled(fixedDelayString = "${quotes.holdings.refresh-interval:5m}")
+    public void refresh() {
+        HeldSymbol[] rows;
+        try {
+            rows = restTemplate.getForObject(properties.getUrl() + "/internal/held-symbols", HeldSymbol[].class);
+        } catch (RestClientException e) {
+            log.warn("Could not load held symbols, keeping the last {}: {}", held.size(), e.getMessage());
+            return;
+        }
+        Map<String, Long> loaded = new HashMap<>();
+        if (rows != null) {
+            for (HeldSymbol row : rows) {
+                loaded.merge(row.symbol().trim().toUpperCase(Locale.ROOT), row.holders(), Long::sum);
+            }
+        }
+        held = Map.copyOf(loaded);
+    }
+}
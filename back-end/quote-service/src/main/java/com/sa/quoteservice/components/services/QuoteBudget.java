@@ -0,0 +1,59 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The provider's request quota, per minute and per day. The daily bucket
+ * refills evenly over the day rather than all at once at midnight, so the
+ * budget is never spent in one burst.
+ * <p>
+ * The buckets assume this service owns the quota of its key
+ * ({@code QUOTE_ALPHA_API_KEY}); alpha-service calls the provider with its
+ * own {@code ALPHA_API_KEY} and is not counted here. A shared key needs the
+ * budget lowered to this service's share.
+ */
+@Component
+public class QuoteBudget {
+
+    private final TokenBucket perMinute;
+    private final TokenBucket perDay;
+
+    @Autowired
+    public QuoteBudget(QuoteProperties properties) {
+        this(properties.getBudget(), Instant.now());
+    }
+
+    QuoteBudget(QuoteProperties.Budget budget, Instant now) {
+        this.perMinute = new TokenBucket(budget.getRequestsPerMinute(), Duration.ofMinutes(1), now);
+        this.perDay = budget.getRequestsPerDay() > 0
+                ? new TokenBucket(budget.getRequestsPerDay(), Duration.ofDays(1), now)
+                : null;
+    }
+
+    /** Takes one request from both quotas, or none when either is spent. */
+    public synchronized boolean tryAcquire(Instant now) {
+        if (perDay != null && perDay.available(now) < 1) {
+            return false;
+        }
+        if (!perMinute.tryAcquire(now)) {
+            return false;
+        }
+        return perDay == null || perDay.tryAcquire(now);
+    }
+
+    /** The provider refused a call for the quota: wait for the minute to refill before trying again. */
+    public void exhausted(Instant now) {
+        perMinute.drain(now);
+    }
+
+    public double available(Instant now) {
+        double minute = perMinute.available(now);
+        return perDay == null ? minute : Math.min(minute, perDay.available(now));
+    }
+}
@@ -0,0 +1,25 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.Quote;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of quotes. Each call to {@link #fetch} costs one request of the
+ * provider's budget, however many symbols it asks for.
+ */
+public interface QuoteProvider {
+
+    /** Symbols one {@link #fetch} call may ask for. */
+    int maxBatchSize();
+
+    /**
+     * Current quotes by symbol; symbols the provider does not know are
+     * left out.
+     *
+     * @param symbols upper case, at most {@link #maxBatchSize()} of them
+     * @throws QuoteProviderException when the call failed as a whole
+     */
+    Map<String, Quote> fetch(List<String> symbols);
+}
@@ -0,0 +1,24 @@
+package com.sa.quoteservice.components.services;
+
+/**
+ * A provider call that failed as a whole; {@code rateLimited} when the
+ * provider refused it for being over the quota.
+ */
+public class QuoteProviderException extends RuntimeException {
+
+    private final boolean rateLimited;
+
+    public QuoteProviderException(String message, boolean rateLimited) {
+        super(message);
+        this.rateLimited = rateLimited;
+    }
+
+    public QuoteProviderException(String message, Throwable cause) {
+        super(message, cause);
+        this.rateLimited = false;
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+}
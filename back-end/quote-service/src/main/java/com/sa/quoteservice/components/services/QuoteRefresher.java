@@ -0,0 +1,164 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.Quote;
+import com.sa.quoteservice.config.QuoteProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Keeps the quotes of held and recently read symbols warm, spending the
+ * provider's budget on the ones that matter most.
+ * <p>
+ * Every {@code quotes.refresh.interval}, each tracked symbol whose quote
+ * is older than {@code max-age} is ranked by how much it is wanted, one
+ * point per user holding it plus {@code access-weight} halving every
+ * {@code access-half-life} since it was last read, times how many
+ * {@code max-age}s old its quote is; a price alert on a symbol counts like
+ * a user holding it. A symbol without a quote yet ranks as if its quote
+ * were {@code max-age} old and only wins ties, so reads of arbitrary
+ * tickers cannot spend the budget ahead of stale held symbols. The queue is
+ * then drained a provider batch at a time for as long as
+ * {@link QuoteBudget} allows, so with a bulk provider one request
+ * refreshes many symbols. Fetched quotes are also handed to the
+ * {@link TickPipeline} as ticks.
+ * <p>
+ * Publishes {@code quotes.provider.calls} by outcome, the number of
+ * symbols with a quote as {@code quotes.tracked} and the requests left as
+ * {@code quotes.budget.available}.
+ */
+@Component
+public class QuoteRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteRefresher.class);
+
+    private final QuoteProvider provider;
+    private final QuoteStore store;
+    private final QuoteBudget budget;
+    private final HoldingsClient holdings;
+    private final AlertEngine alerts;
+    private final TickPipeline ticks;
+    private final QuoteProperties.Refresh properties;
+    private final MeterRegistry meterRegistry;
+
+    public QuoteRefresher(QuoteProvider provider, QuoteStore store, QuoteBudget budget, HoldingsClient holdings,
+                          AlertEngine alerts, TickPipeline ticks, QuoteProperties properties, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.store = store;
+        this.budget = budget;
+        this.holdings = holdings;
+        this.alerts = alerts;
+        this.ticks = ticks;
+        this.properties = properties.getRefresh();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("quotes.tracked", store, QuoteStore::size)
+                .description("Symbols with a quote in memory")
+                .register(meterRegistry);
+        Gauge.builder("quotes.budget.available", budget, value -> value.available(Instant.now()))
+                .description("Provider requests that can be made right now")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${quotes.refresh.interval:1s}")
+    public void refresh() {
+        // an alert on a symbol counts like a holder of it
+        Map<String, Long> wanted = new HashMap<>(holdings.heldSymbols());
+        alerts.watchedSymbols().forEach((symbol, count) -> wanted.merge(symbol, count, Long::sum));
+        refresh(wanted, Instant.now());
+    }
+
+    void refresh(Map<String, Long> held, Instant now) {
+        store.forget(held.keySet(), now.minus(properties.getAccessTtl()));
+        PriorityQueue<Candidate> due = due(held, now);
+        int batchSize = Math.max(1, provider.maxBatchSize());
+        while (!due.isEmpty() && budget.tryAcquire(now)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize && !due.isEmpty()) {
+                batch.add(due.poll().symbol());
+            }
+            if (!fetch(batch, now)) {
+                return;
+            }
+        }
+    }
+
+    private PriorityQueue<Candidate> due(Map<String, Long> held, Instant now) {
+        Map<String, Instant> accesses = store.accesses();
+        Set<String> symbols = new HashSet<>(held.keySet());
+        symbols.addAll(accesses.keySet());
+        List<Candidate> candidates = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            QuoteStore.StoredQuote stored = store.get(symbol);
+            double age = stored == null ? 1 : ratio(Duration.between(stored.fetchedAt(), now), properties.getMaxAge());
+            if (stored != null && age < 1) {
+                continue;
+            }
+            double weight = held.getOrDefault(symbol, 0L);
+            Instant access = accesses.get(symbol);
+            if (access != null) {
+                double halfLives = ratio(Duration.between(access, now), properties.getAccessHalfLife());
+                weight += properties.getAccessWeight() * Math.pow(0.5, Math.max(0, halfLives));
+            }
+            candidates.add(new Candidate(symbol, stored == null, weight * Math.max(age, 1)));
+        }
+        // heapified in linear time; only as many as the budget allows are polled
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Math.max(1, candidates.size()), Candidate.MOST_WANTED);
+        queue.addAll(candidates);
+        return queue;
+    }
+
+    private boolean fetch(List<String> batch, Instant now) {
+        Map<String, Quote> quotes;
+        try {
+            quotes = provider.fetch(batch);
+        } catch (QuoteProviderException e) {
+            if (e.isRateLimited()) {
+                budget.exhausted(now);
+            }
+            count(e.isRateLimited() ? "rate_limited" : "failed");
+            log.warn("Could not refresh {}: {}", batch, e.getMessage());
+            return false;
+        }
+        count("ok");
+        for (String symbol : batch) {
+            Quote quote = quotes.get(symbol);
+            if (quote != null) {
+                store.put(symbol, quote, now);
+                if (quote.current() != null) {
+                    ticks.offer(symbol, quote.current(), now);
+                }
+            } else {
+                store.unknown(symbol, now);
+            }
+        }
+        return true;
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("quotes.provider.calls", "outcome", outcome).increment();
+    }
+
+    private static double ratio(Duration duration, Duration unit) {
+        return duration.toNanos() / (double) unit.toNanos();
+    }
+
+    private record Candidate(String symbol, boolean missing, double priority) {
+
+        static final Comparator<Candidate> MOST_WANTED = Comparator.comparingDouble(Candidate::priority).reversed()
+                .thenComparing(Comparator.comparing(Candidate::missing).reversed());
+    }
+}
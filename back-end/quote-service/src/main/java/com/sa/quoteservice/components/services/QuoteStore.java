@@ -0,0 +1,73 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.Quote;
+import com.sa.quoteservice.config.QuoteProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The latest quote of every tracked symbol, and when each symbol was last
+ * read. Quotes are only ever served from here; the provider is called by
+ * {@link QuoteRefresher} alone.
+ */
+@Component
+public class QuoteStore {
+
+    private final int maxTracked;
+    private final Map<String, StoredQuote> quotes = new ConcurrentHashMap<>();
+    private final Map<String, Instant> accesses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QuoteStore(QuoteProperties properties) {
+        this(properties.getRefresh().getMaxTracked());
+    }
+
+    QuoteStore(int maxTracked) {
+        this.maxTracked = maxTracked;
+    }
+
+    /**
+     * A fetched quote; {@code quote} is null when the provider did not
+     * know the symbol.
+     */
+    public record StoredQuote(Quote quote, Instant fetchedAt) {
+    }
+
+    public StoredQuote get(String symbol) {
+        return quotes.get(symbol);
+    }
+
+    /** Symbols beyond {@code max-tracked} are not tracked until others are dropped. */
+    public void recordAccess(String symbol, Instant now) {
+        if (accesses.containsKey(symbol) || accesses.size() < maxTracked) {
+            accesses.put(symbol, now);
+        }
+    }
+
+    public Map<String, Instant> accesses() {
+        return accesses;
+    }
+
+    public void put(String symbol, Quote quote, Instant now) {
+        quotes.put(symbol, new StoredQuote(quote, now));
+    }
+
+    public void unknown(String symbol, Instant now) {
+        quotes.put(symbol, new StoredQuote(null, now));
+    }
+
+    /** Drops symbols nobody holds that were not read since {@code readSince}. */
+    public void forget(Set<String> held, Instant readSince) {
+        accesses.values().removeIf(access -> access.isBefore(readSince));
+        quotes.keySet().removeIf(symbol -> !held.contains(symbol) && !accesses.containsKey(symbol));
+    }
+
+    public int size() {
+        return quotes.size();
+    }
+}
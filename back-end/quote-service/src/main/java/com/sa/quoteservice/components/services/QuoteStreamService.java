@@ -0,0 +1,118 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.QuoteTick;
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.SymbolIds;
+import com.sa.quoteservice.util.TickConsumer;
+import com.sa.quoteservice.util.Ticks;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Live prices as server-sent events, fed from the {@link TickPipeline}.
+ * <p>
+ * As a tick consumer it only notes which symbols a batch changed, in
+ * arrays allocated up front, and publishes the latest price of each once
+ * per batch, so a burst of ticks for one symbol becomes one event. A
+ * stream starts with a {@code snapshot} of the symbols asked for and then
+ * sends a {@code quote} event per change, conflated per symbol for a
+ * client that reads slowly.
+ */
+@Service
+public class QuoteStreamService implements TickConsumer {
+
+    private final TickPipeline pipeline;
+    private final QuoteProperties.Ticks.Stream properties;
+    private final Sinks.Many<List<QuoteTick>> updates = Sinks.many().multicast().directBestEffort();
+    private final SymbolIds ids;
+    private final boolean[] changed;
+    private final int[] changedSymbols;
+    private final long[] prices;
+    private final long[] timestamps;
+    private int changedCount;
+
+    public QuoteStreamService(TickPipeline pipeline, QuoteProperties properties) {
+        this.pipeline = pipeline;
+        this.properties = properties.getTicks().getStream();
+        this.ids = pipeline.symbols();
+        int capacity = ids.capacity();
+        this.changed = new boolean[capacity];
+        this.changedSymbols = new int[capacity];
+        this.prices = new long[capacity];
+        this.timestamps = new long[capacity];
+        pipeline.subscribe("stream", this);
+    }
+
+    public int maxSymbols() {
+        return properties.getMaxSymbols();
+    }
+
+    public Flux<ServerSentEvent<Object>> stream(Set<String> symbols) {
+        return Flux.defer(() -> {
+            List<QuoteTick> current = new ArrayList<>();
+            for (String symbol : symbols) {
+                int id = ids.find(symbol);
+                if (id >= 0) {
+                    pipeline.latest().read(id, (ignored, price, timestamp) -> current.add(tick(symbol, price, timestamp)));
+                }
+            }
+            Flux<ServerSentEvent<Object>> snapshot = Flux.just(
+                    ServerSentEvent.<Object>builder(current).event("snapshot").build());
+
+            Flux<ServerSentEvent<Object>> quotes = updates.asFlux()
+                    .publishOn(Schedulers.boundedElastic())
+                    .flatMapIterable(batch -> batch)
+                    .filter(tick -> symbols.contains(tick.symbol()))
+                    .groupBy(QuoteTick::symbol)
+                    .flatMap(bySymbol -> bySymbol.onBackpressureLatest(), Integer.MAX_VALUE, 1)
+                    .map(tick -> ServerSentEvent.<Object>builder(tick).event("quote").id(tick.symbol()).build());
+
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(properties.getHeartbeatInterval())
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.builder().comment("keep-alive").build());
+
+            return snapshot.concatWith(Flux.merge(quotes, heartbeats));
+        });
+    }
+
+    @Override
+    public void onTick(int symbol, long price, long timestamp) {
+        prices[symbol] = price;
+        timestamps[symbol] = timestamp;
+        if (!changed[symbol]) {
+            changed[symbol] = true;
+            changedSymbols[changedCount++] = symbol;
+        }
+    }
+
+    @Override
+    public void onBatchEnd() {
+        if (changedCount == 0) {
+            return;
+        }
+        List<QuoteTick> batch = updates.currentSubscriberCount() == 0 ? null : new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            int symbol = changedSymbols[i];
+            changed[symbol] = false;
+            if (batch != null) {
+                batch.add(tick(ids.symbol(symbol), prices[symbol], timestamps[symbol]));
+            }
+        }
+        changedCount = 0;
+        if (batch != null) {
+            updates.tryEmitNext(batch);
+        }
+    }
+
+    private static QuoteTick tick(String symbol, long price, long timestamp) {
+        return new QuoteTick(symbol, Ticks.toDecimal(price), Instant.ofEpochMilli(timestamp));
+    }
+}
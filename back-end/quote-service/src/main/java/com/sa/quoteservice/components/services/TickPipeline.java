@@ -0,0 +1,279 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.FileTickFeed;
+import com.sa.quoteservice.util.LatestTicks;
+import com.sa.quoteservice.util.SymbolIds;
+import com.sa.quoteservice.util.TickConsumer;
+import com.sa.quoteservice.util.TickHandler;
+import com.sa.quoteservice.util.TickRingBuffer;
+import com.sa.quoteservice.util.TickSource;
+import com.sa.quoteservice.util.Ticks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes quote ticks from their sources to the consumers that react to
+ * them.
+ * <p>
+ * One ingest thread polls the sources, a batch at a time, into a
+ * {@link TickRingBuffer} and records each tick in the {@link LatestTicks}
+ * table. Every consumer runs on a thread of its own and reads the ring at
+ * its own pace, in batches. Nothing ever waits for a consumer: a consumer
+ * that falls a whole ring behind skips to the recent end and is handed the
+ * latest tick of every symbol it skipped from the table, so slow consumers
+ * see conflated prices instead of slowing down ingest or each other.
+ * Quotes fetched by the {@link QuoteRefresher} enter through a bounded
+ * queue that drops them when full. Ticks from a file are replayed when
+ * {@code quotes.ticks.replay.file} is set.
+ * <p>
+ * Publishes {@code quotes.ticks.published}, {@code quotes.ticks.skipped}
+ * by consumer (ticks a consumer did not see one by one) and
+ * {@code quotes.ticks.rejected} (quotes dropped from a full queue).
+ */
+@Component
+public class TickPipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TickPipeline.class);
+
+    private final QuoteProperties.Ticks properties;
+    private final SymbolIds ids;
+    private final TickRingBuffer ring;
+    private final LatestTicks latest;
+    private final List<TickSource> sources = new CopyOnWriteArrayList<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Offered> offered;
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final Counter rejected;
+    private final TickHandler publisher;
+    private volatile boolean running;
+    private Thread ingest;
+
+    public TickPipeline(QuoteProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getTicks();
+        this.ids = new SymbolIds(this.properties.getMaxSymbols());
+        this.ring = new TickRingBuffer(this.properties.getCapacity());
+        this.latest = new LatestTicks(this.properties.getMaxSymbols());
+        this.offered = new ArrayBlockingQueue<>(this.properties.getQueueSize());
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder("quotes.ticks.published")
+                .description("Ticks taken into the pipeline")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("quotes.ticks.rejected")
+                .description("Quotes dropped because the ingest queue was full")
+                .register(meterRegistry);
+        this.publisher = (symbol, price, timestamp) -> latest.update(symbol, price, timestamp,
+                                                                     ring.publish(symbol, price, timestamp));
+        sources.add(this::drainOffered);
+        String replay = this.properties.getReplay().getFile();
+        if (replay != null && !replay.isBlank()) {
+            FileTickFeed feed = new FileTickFeed(Path.of(replay), ids, this.properties.getReplay().isLoop());
+            log.info("Replaying {} ticks from {}", feed.size(), replay);
+            sources.add(feed);
+        }
+    }
+
+    public SymbolIds symbols() {
+        return ids;
+    }
+
+    public LatestTicks latest() {
+        return latest;
+    }
+
+    public void addSource(TickSource source) {
+        sources.add(source);
+    }
+
+    /**
+     * Feeds a consumer every tick from now on, on a thread of its own
+     * while the pipeline runs.
+     */
+    public Subscription subscribe(String name, TickConsumer consumer) {
+        Subscription subscription = new Subscription(name, consumer, ring.published() + 1);
+        subscriptions.add(subscription);
+        if (running) {
+            subscription.start();
+        }
+        return subscription;
+    }
+
+    /**
+     * Hands a quote to the ingest thread without waiting.
+     *
+     * @return false when it was dropped, because the queue is full or the
+     *         pipeline carries as many symbols as it can
+     */
+    public boolean offer(String symbol, BigDecimal price, Instant timestamp) {
+        int id = ids.id(symbol);
+        if (id < 0 || !offered.offer(new Offered(id, Ticks.toPrice(price), timestamp.toEpochMilli()))) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private int drainOffered(TickHandler sink, int max) {
+        int read = 0;
+        Offered next;
+        while (read < max && (next = offered.poll()) != null) {
+            sink.onTick(next.symbol(), next.price(), next.timestamp());
+            read++;
+        }
+        return read;
+    }
+
+    /**
+     * One pass of the ingest thread: takes up to a batch from the sources
+     * and makes it visible to consumers.
+     *
+     * @return how many ticks were taken
+     */
+    int ingest() {
+        int batchSize = properties.getBatchSize();
+        int read = 0;
+        for (TickSource source : sources) {
+            read += source.read(publisher, batchSize - read);
+            if (read == batchSize) {
+                break;
+            }
+        }
+        if (read > 0) {
+            ring.commit();
+            published.increment(read);
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        ingest = Thread.ofPlatform().name("tick-ingest").daemon().start(() -> {
+            long idle = properties.getIdleWait().toNanos();
+            while (running) {
+                if (ingest() == 0) {
+                    LockSupport.parkNanos(idle);
+                }
+            }
+        });
+        subscriptions.forEach(Subscription::start);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        join(ingest);
+        subscriptions.forEach(subscription -> join(subscription.thread));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Offered(int symbol, long price, long timestamp) {
+    }
+
+    /** A consumer and how far it has read. */
+    public final class Subscription {
+
+        private final String name;
+        private final TickConsumer consumer;
+        private final Counter skipped;
+        /** Sequence of the next tick to hand over; only touched by the consumer's thread. */
+        private long next;
+        private Thread thread;
+
+        Subscription(String name, TickConsumer consumer, long next) {
+            this.name = name;
+            this.consumer = consumer;
+            this.next = next;
+            this.skipped = Counter.builder("quotes.ticks.skipped")
+                    .description("Ticks a consumer fell too far behind to see one by one")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+        }
+
+        synchronized void start() {
+            if (thread != null && thread.isAlive()) {
+                return;
+            }
+            thread = Thread.ofPlatform().name("tick-" + name).daemon().start(() -> {
+                long idle = properties.getIdleWait().toNanos();
+                while (running) {
+                    try {
+                        if (poll() == 0) {
+                            LockSupport.parkNanos(idle);
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Tick consumer {} failed", name, e);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Hands the consumer up to a batch of ticks.
+         *
+         * @return how many ticks were handed over, counting replayed ones
+         */
+        int poll() {
+            long available = ring.published();
+            if (available < next) {
+                return 0;
+            }
+            long end = Math.min(available + 1, next + properties.getBatchSize());
+            int handed = 0;
+            while (next < end) {
+                if (!ring.read(next, consumer)) {
+                    handed += catchUp();
+                    break;
+                }
+                next++;
+                handed++;
+            }
+            consumer.onBatchEnd();
+            return handed;
+        }
+
+        /**
+         * Skips to the recent end of the ring, leaving the producer half a
+         * ring of headroom, and replays what was skipped from the table.
+         */
+        private int catchUp() {
+            long resume = Math.max(next, ring.published() - ring.capacity() / 2 + 1);
+            int replayed = latest.replay(next, resume, ids.size(), consumer);
+            skipped.increment(resume - next);
+            next = resume;
+            return replayed;
+        }
+    }
+}
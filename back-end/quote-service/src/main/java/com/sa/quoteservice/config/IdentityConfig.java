@@ -0,0 +1,14 @@
+package com.sa.quoteservice.config;
+
+import com.sa.identity.IdentitySignature;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdentityConfig {
+
+    @Bean
+    public IdentitySignature identitySignature(IdentityProperties identityProperties) {
+        return new IdentitySignature(identityProperties.getSecret());
+    }
+}
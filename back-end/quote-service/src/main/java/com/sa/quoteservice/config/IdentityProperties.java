@@ -0,0 +1,18 @@
+package com.sa.quoteservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Secret shared with the gateway for the signed identity headers. Without
+ * one, identity headers are ignored and the /alerts routes answer 401.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "identity")
+public class IdentityProperties {
+    private String secret;
+}
@@ -0,0 +1,118 @@
+package com.sa.quoteservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "quotes")
+public class QuoteProperties {
+    /** Where quotes come from: alpha or fake. */
+    private String provider = "alpha";
+    private Alpha alpha = new Alpha();
+    private Fake fake = new Fake();
+    private Budget budget = new Budget();
+    private Refresh refresh = new Refresh();
+    private Holdings holdings = new Holdings();
+    private Ticks ticks = new Ticks();
+    private Alerts alerts = new Alerts();
+
+    @Getter
+    @Setter
+    public static class Alpha {
+        private String baseUrl = "https://www.alphavantage.co";
+        private String apiKey;
+        /** Use REALTIME_BULK_QUOTES, which needs a premium key, instead of one GLOBAL_QUOTE per symbol. */
+        private boolean bulk = false;
+        private int bulkSize = 100;
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Fake {
+        private int batchSize = 100;
+    }
+
+    /** Provider calls allowed; a bulk call counts as one. */
+    @Getter
+    @Setter
+    public static class Budget {
+        private int requestsPerMinute = 5;
+        /** 0 for no daily limit. */
+        private int requestsPerDay = 25;
+    }
+
+    @Getter
+    @Setter
+    public static class Refresh {
+        /** How often the budget is spent on the most wanted quotes. */
+        private Duration interval = Duration.ofSeconds(1);
+        /** Quotes younger than this are not refreshed. */
+        private Duration maxAge = Duration.ofMinutes(5);
+        /** Weight of a symbol read just now, against 1 per user holding it. */
+        private double accessWeight = 1;
+        private Duration accessHalfLife = Duration.ofMinutes(15);
+        /** Symbols nobody holds are dropped once not read for this long. */
+        private Duration accessTtl = Duration.ofHours(24);
+        /** Symbols read but not held that are tracked at most. */
+        private int maxTracked = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Holdings {
+        /** Base URL of the portfolio-service, resolved through Eureka. */
+        private String url = "http://portfolio-service";
+        private Duration refreshInterval = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Ticks {
+        /** Ticks kept for consumers, rounded up to a power of two; a consumer further behind skips ahead. */
+        private int capacity = 65_536;
+        /** Distinct symbols the pipeline can carry. */
+        private int maxSymbols = 65_536;
+        /** Ticks taken from the sources, or handed to a consumer, at a time. */
+        private int batchSize = 1_024;
+        /** Quotes from the refresher waiting to be ingested; more are dropped. */
+        private int queueSize = 4_096;
+        /** How long a pipeline thread sleeps when there is nothing to do. */
+        private Duration idleWait = Duration.ofMillis(1);
+        private Replay replay = new Replay();
+        private Stream stream = new Stream();
+
+        @Getter
+        @Setter
+        public static class Replay {
+            /** A file of timestampMillis,symbol,price lines to feed in; none by default. */
+            private String file;
+            private boolean loop = false;
+        }
+
+        @Getter
+        @Setter
+        public static class Stream {
+            private Duration heartbeatInterval = Duration.ofSeconds(15);
+            /** Symbols one stream can follow. */
+            private int maxSymbols = 100;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Alerts {
+        /** Alerts need the database; without it they are switched off. */
+        private boolean enabled = true;
+        /** How far past its threshold, as a fraction of it, the price has to move back before an alert can fire again. */
+        private double hysteresis = 0.005;
+        private int maxPerUser = 100;
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+    }
+}
@@ -0,0 +1,26 @@
+package com.sa.quoteservice.config;
+
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class RestTemplateConfig {
+
+    @Bean
+    @LoadBalanced
+    public RestTemplate loadBalancedRestTemplate() {
+        return new RestTemplate();
+    }
+
+    @Bean
+    public RestTemplate alphaRestTemplate(RestTemplateBuilder builder, QuoteProperties properties) {
+        return builder
+                .rootUri(properties.getAlpha().getBaseUrl()) // external, not registered with Eureka
+                .connectTimeout(properties.getAlpha().getTimeout())
+                .readTimeout(properties.getAlpha().getTimeout())
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.sa.quoteservice.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Replays ticks from a file, for tests and load runs. Lines are
+ * {@code timestampMillis,symbol,price}; blank lines and lines starting
+ * with {@code #} are skipped. The file is parsed up front into primitive
+ * arrays, so replaying allocates nothing and runs as fast as the pipeline
+ * takes ticks.
+ * <p>
+ * A looping feed starts over at the end, shifting timestamps by the span
+ * of the file each time so they keep increasing.
+ */
+public final class FileTickFeed implements TickSource {
+
+    private final int[] symbols;
+    private final long[] prices;
+    private final long[] timestamps;
+    private final boolean loop;
+    private final long span;
+    private int position;
+    private long offset;
+
+    public FileTickFeed(Path file, SymbolIds ids, boolean loop) {
+        this(lines(file), ids, loop);
+    }
+
+    public FileTickFeed(List<String> lines, SymbolIds ids, boolean loop) {
+        int[] symbols = new int[lines.size()];
+        long[] prices = new long[lines.size()];
+        long[] timestamps = new long[lines.size()];
+        int count = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected timestamp,symbol,price");
+            }
+            int symbol = ids.id(fields[1].trim().toUpperCase(Locale.ROOT));
+            if (symbol < 0) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": more than " + ids.capacity() + " symbols");
+            }
+            try {
+                timestamps[count] = Long.parseLong(fields[0].trim());
+                prices[count] = Ticks.toPrice(new BigDecimal(fields[2].trim()));
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+            symbols[count++] = symbol;
+        }
+        this.symbols = Arrays.copyOf(symbols, count);
+        this.prices = Arrays.copyOf(prices, count);
+        this.timestamps = Arrays.copyOf(timestamps, count);
+        this.loop = loop;
+        this.span = count == 0 ? 0 : this.timestamps[count - 1] - this.timestamps[0] + 1;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /** Starts the replay over. */
+    public void rewind() {
+        position = 0;
+        offset = 0;
+    }
+
+    @Override
+    public int read(TickHandler sink, int max) {
+        int read = 0;
+        while (read < max) {
+            if (position == symbols.length) {
+                if (!loop || symbols.length == 0) {
+                    break;
+                }
+                position = 0;
+                offset += span;
+            }
+            int end = Math.min(symbols.length, position + max - read);
+            for (int i = position; i < end; i++) {
+                sink.onTick(symbols[i], prices[i], timestamps[i] + offset);
+            }
+            read += end - position;
+            position = end;
+        }
+        return read;
+    }
+
+    private static List<String> lines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ticks from " + file, e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.sa.quoteservice.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The latest tick of every symbol, indexed by {@link SymbolIds} id: the
+ * conflated view of the tick stream. Written by the ingest thread only,
+ * read by anyone; each entry is a seqlock, odd while being written, so
+ * readers never block the writer and retry instead of seeing a torn
+ * entry.
+ */
+public final class LatestTicks {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] versions;
+    private final long[] prices;
+    private final long[] timestamps;
+    /** Ring sequence of the tick that last updated the entry. */
+    private final long[] sequences;
+
+    public LatestTicks(int capacity) {
+        this.versions = new long[capacity];
+        this.prices = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.sequences = new long[capacity];
+    }
+
+    public int capacity() {
+        return versions.length;
+    }
+
+    /** Only ever called from the ingest thread. */
+    public void update(int symbol, long price, long timestamp, long sequence) {
+        long version = versions[symbol];
+        LONGS.setOpaque(versions, symbol, version + 1);
+        VarHandle.storeStoreFence();
+        prices[symbol] = price;
+        timestamps[symbol] = timestamp;
+        sequences[symbol] = sequence;
+        LONGS.setRelease(versions, symbol, version + 2);
+    }
+
+    /**
+     * Passes the latest tick of a symbol to {@code handler}.
+     *
+     * @return false when the symbol never had a tick
+     */
+    public boolean read(int symbol, TickHandler handler) {
+        return read(symbol, Long.MIN_VALUE, Long.MAX_VALUE, handler);
+    }
+
+    /**
+     * Passes on the latest tick of every symbol whose last update has a
+     * ring sequence in {@code [from, to)}: what a consumer that skipped
+     * those ticks would otherwise never see.
+     *
+     * @return how many symbols were passed on
+     */
+    public int replay(long from, long to, int symbolCount, TickHandler handler) {
+        int replayed = 0;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            if (read(symbol, from, to, handler)) {
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private boolean read(int symbol, long from, long to, TickHandler handler) {
+        while (true) {
+            long before = (long) LONGS.getAcquire(versions, symbol);
+            if (before == 0) {
+                return false;
+            }
+            long price = prices[symbol];
+            long timestamp = timestamps[symbol];
+            long sequence = sequences[symbol];
+            VarHandle.loadLoadFence();
+            long after = (long) LONGS.getOpaque(versions, symbol);
+            if ((before & 1) == 0 && before == after) {
+                if (sequence < from || sequence >= to) {
+                    return false;
+                }
+                handler.onTick(symbol, price, timestamp);
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
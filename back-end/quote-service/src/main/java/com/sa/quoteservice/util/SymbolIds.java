@@ -0,0 +1,53 @@
+package com.sa.quoteservice.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Dense ids for symbols, so ticks carry an int instead of a string and
+ * per-symbol state can live in arrays. Ids are never reused.
+ */
+public final class SymbolIds {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> symbols;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public SymbolIds(int capacity) {
+        this.symbols = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** The id of a symbol, assigning one if it has none; -1 once all ids are taken. */
+    public int id(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(symbol, key -> {
+            int assigned = next.get() < symbols.length() ? next.getAndIncrement() : -1;
+            if (assigned >= 0) {
+                symbols.set(assigned, key);
+            }
+            return assigned;
+        });
+    }
+
+    /** The id of a symbol, or -1 when it has none. */
+    public int find(String symbol) {
+        return ids.getOrDefault(symbol, -1);
+    }
+
+    public String symbol(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return Math.min(next.get(), symbols.length());
+    }
+
+    public int capacity() {
+        return symbols.length();
+    }
+}
@@ -0,0 +1,66 @@
+package com.sa.quoteservice.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Items sorted by a fixed point price level, grouped per level in a tree,
+ * so taking everything a price move from one level to another crossed
+ * costs O(log n) to find the range plus O(log n) per level in it, and
+ * adding or removing an item costs O(log n) plus the items at its level.
+ * Items at the same level keep the order they were added in. Not thread
+ * safe.
+ */
+public final class ThresholdIndex<T> {
+
+    private final TreeMap<Long, List<T>> levels = new TreeMap<>();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long level, T item) {
+        levels.computeIfAbsent(level, ignored -> new ArrayList<>(1)).add(item);
+        size++;
+    }
+
+    public boolean remove(long level, T item) {
+        List<T> items = levels.get(level);
+        if (items == null) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == item) {
+                items.remove(i);
+                if (items.isEmpty()) {
+                    levels.remove(level);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the items with a level in {@code (above, upTo]}, adding them
+     * to {@code into} by level.
+     */
+    public void take(long above, long upTo, List<? super T> into) {
+        if (upTo <= above) {
+            return;
+        }
+        Iterator<List<T>> crossed = levels.subMap(above, false, upTo, true).values().iterator();
+        while (crossed.hasNext()) {
+            List<T> items = crossed.next();
+            for (int i = 0; i < items.size(); i++) {
+                into.add(items.get(i));
+            }
+            size -= items.size();
+            crossed.remove();
+        }
+    }
+}
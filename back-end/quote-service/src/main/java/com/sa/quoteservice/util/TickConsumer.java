@@ -0,0 +1,15 @@
+package com.sa.quoteservice.util;
+
+/**
+ * Something fed from the tick ring on a thread of its own, such as
+ * valuation, alerts or streaming. Ticks are handed over in batches;
+ * a consumer that fell so far behind that ticks were overwritten gets the
+ * latest tick of each symbol it missed instead, so it always ends up with
+ * current prices but may not see every intermediate one.
+ */
+public interface TickConsumer extends TickHandler {
+
+    /** Called after each batch of ticks, e.g. to publish what they changed. */
+    default void onBatchEnd() {
+    }
+}
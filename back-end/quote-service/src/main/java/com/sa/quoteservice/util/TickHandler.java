@@ -0,0 +1,11 @@
+package com.sa.quoteservice.util;
+
+/**
+ * Receives ticks as primitives, so passing one on allocates nothing.
+ * Prices are fixed point with {@link Ticks#PRICE_SCALE} decimals.
+ */
+@FunctionalInterface
+public interface TickHandler {
+
+    void onTick(int symbol, long price, long timestamp);
+}
@@ -0,0 +1,100 @@
+package com.sa.quoteservice.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated single-producer, multi-consumer ring of ticks. Every
+ * consumer sees every tick (it is a broadcast, not a work queue) and
+ * keeps its own position.
+ * <p>
+ * The producer never waits for consumers: it overwrites the oldest slot,
+ * and a consumer that falls a whole ring behind notices it from
+ * {@link #read} failing and skips ahead. Ticks are kept in parallel
+ * primitive arrays; each slot carries the sequence it holds, written last
+ * and checked before and after reading, so a read that raced with an
+ * overwrite is detected instead of returning a torn tick.
+ * <p>
+ * {@link #publish} makes a tick readable only after the next
+ * {@link #commit}, so the producer pays for one release store per batch.
+ */
+public final class TickRingBuffer {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long WRITING = -1;
+
+    private final int mask;
+    private final long[] sequences;
+    private final int[] symbols;
+    private final long[] prices;
+    private final long[] timestamps;
+    private final AtomicLong published = new AtomicLong(-1);
+    /** Producer only. */
+    private long next;
+
+    /**
+     * @param capacity slots, rounded up to a power of two
+     */
+    public TickRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new long[size];
+        this.symbols = new int[size];
+        this.prices = new long[size];
+        this.timestamps = new long[size];
+        Arrays.fill(sequences, WRITING);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Writes a tick into the next slot; only ever called from one thread.
+     *
+     * @return the tick's sequence
+     */
+    public long publish(int symbol, long price, long timestamp) {
+        long sequence = next++;
+        int slot = (int) sequence & mask;
+        LONGS.setOpaque(sequences, slot, WRITING);
+        VarHandle.storeStoreFence();
+        symbols[slot] = symbol;
+        prices[slot] = price;
+        timestamps[slot] = timestamp;
+        LONGS.setRelease(sequences, slot, sequence);
+        return sequence;
+    }
+
+    /** Makes everything published so far visible to consumers. */
+    public void commit() {
+        published.setRelease(next - 1);
+    }
+
+    /** Sequence of the newest committed tick, -1 before the first. */
+    public long published() {
+        return published.getAcquire();
+    }
+
+    /**
+     * Passes the tick with the given sequence to {@code handler}.
+     *
+     * @return false when the slot has been overwritten by a newer tick
+     */
+    public boolean read(long sequence, TickHandler handler) {
+        int slot = (int) sequence & mask;
+        long before = (long) LONGS.getAcquire(sequences, slot);
+        int symbol = symbols[slot];
+        long price = prices[slot];
+        long timestamp = timestamps[slot];
+        VarHandle.loadLoadFence();
+        long after = (long) LONGS.getOpaque(sequences, slot);
+        if (before != sequence || after != sequence) {
+            return false;
+        }
+        handler.onTick(symbol, price, timestamp);
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.sa.quoteservice.util;
+
+/**
+ * Where ticks come from. Sources are polled by the single ingest thread,
+ * so they never publish concurrently and need no locking of their own
+ * beyond handing ticks over to that thread.
+ */
+public interface TickSource {
+
+    /**
+     * Passes up to {@code max} ticks that are ready to {@code sink}.
+     *
+     * @return how many were passed, 0 when none are ready
+     */
+    int read(TickHandler sink, int max);
+}
@@ -0,0 +1,24 @@
+package com.sa.quoteservice.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between quote prices and the fixed point longs ticks carry.
+ */
+public final class Ticks {
+
+    /** Decimals of a tick price: 190.1234 is carried as 1901234. */
+    public static final int PRICE_SCALE = 4;
+
+    private Ticks() {
+    }
+
+    public static long toPrice(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long price) {
+        return BigDecimal.valueOf(price, PRICE_SCALE);
+    }
+}
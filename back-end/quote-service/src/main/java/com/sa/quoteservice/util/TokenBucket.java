@@ -0,0 +1,50 @@
+package com.sa.quoteservice.util;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Token bucket that starts full and refills continuously at
+ * {@code capacity} tokens per {@code period}.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private Instant updated;
+
+    public TokenBucket(int capacity, Duration period, Instant now) {
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) period.toNanos();
+        this.tokens = capacity;
+        this.updated = now;
+    }
+
+    public synchronized boolean tryAcquire(Instant now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double available(Instant now) {
+        refill(now);
+        return tokens;
+    }
+
+    /** Takes every token, for when the other side says the budget is spent. */
+    public synchronized void drain(Instant now) {
+        refill(now);
+        tokens = 0;
+    }
+
+    private void refill(Instant now) {
+        if (now.isAfter(updated)) {
+            tokens = Math.min(capacity, tokens + Duration.between(updated, now).toNanos() * tokensPerNano);
+            updated = now;
+        }
+    }
+}
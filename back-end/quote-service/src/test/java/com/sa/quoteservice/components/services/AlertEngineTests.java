@@ -0,0 +1,208 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.AlertFired;
+import com.sa.quoteservice.components.entities.AlertType;
+import com.sa.quoteservice.util.LatestTicks;
+import com.sa.quoteservice.util.SymbolIds;
+import com.sa.quoteservice.util.Ticks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Feeds {@link AlertEngine} prices one tick at a time, as the pipeline
+ * would, and looks at what fired.
+ */
+class AlertEngineTests {
+
+    private static final UUID USER = UUID.fromString("7c9e6679-7425-40de-944b-e07fc1f90ae7");
+
+    private final SymbolIds ids = new SymbolIds(100);
+    private final LatestTicks latest = new LatestTicks(100);
+    private final AlertEngine engine = new AlertEngine(ids, latest, 0.005);
+    private final List<List<AlertFired>> batches = new ArrayList<>();
+    private long time = 1_000;
+
+    @BeforeEach
+    void collect() {
+        engine.fired().subscribe(batches::add);
+    }
+
+    @Test
+    void firesExactlyTheAlertsAMoveCrossed() {
+        UUID at200 = add("AAPL", AlertType.ABOVE, "200");
+        UUID at210 = add("AAPL", AlertType.ABOVE, "210");
+        add("AAPL", AlertType.ABOVE, "220");
+        add("AAPL", AlertType.BELOW, "180");
+        add("MSFT", AlertType.ABOVE, "200");
+
+        tick("AAPL", "190");
+        tick("MSFT", "190");
+        tick("AAPL", "215");
+        engine.onBatchEnd();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(AlertFired::alertId).containsExactly(at200, at210);
+        assertThat(batches.get(0).get(0).price()).isEqualByComparingTo("215");
+        assertThat(batches.get(0).get(0).threshold()).isEqualByComparingTo("200");
+    }
+
+    @Test
+    void firesOnReachingTheThresholdFromEitherSide() {
+        UUID above = add("AAPL", AlertType.ABOVE, "200");
+        UUID below = add("AAPL", AlertType.BELOW, "180");
+
+        tick("AAPL", "190");
+        tick("AAPL", "200");
+        tick("AAPL", "180");
+
+        assertThat(fired()).containsExactly(above, below);
+    }
+
+    @Test
+    void firesAgainOnlyAfterThePriceMovedBackPastTheHysteresisBand() {
+        UUID alert = add("AAPL", AlertType.ABOVE, "200");
+
+        tick("AAPL", "199");
+        tick("AAPL", "201");
+        // within half a percent of the threshold: still disarmed
+        tick("AAPL", "199.5");
+        tick("AAPL", "201");
+        tick("AAPL", "198.9");
+        tick("AAPL", "200.1");
+
+        assertThat(fired()).containsExactly(alert, alert);
+        assertThat(batches.get(0)).extracting(AlertFired::sequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void measuresAMoveFromThePriceItLastFiredAt() {
+        UUID alert = add("AAPL", AlertType.MOVE, null, "5", "100");
+
+        tick("AAPL", "104.9");
+        tick("AAPL", "95.1");
+        tick("AAPL", "105");
+        tick("AAPL", "110");
+        tick("AAPL", "110.25");
+        tick("AAPL", "104.7");
+
+        engine.onBatchEnd();
+        List<AlertFired> fired = batches.get(0);
+        assertThat(fired).extracting(AlertFired::alertId).containsExactly(alert, alert, alert);
+        assertThat(fired).extracting(AlertFired::reference).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("105"), new BigDecimal("110.25"));
+    }
+
+    @Test
+    void aMoveAlertWithoutAReferenceIsMeasuredFromTheNextPrice() {
+        UUID alert = add("AAPL", AlertType.MOVE, null, "10", null);
+
+        tick("AAPL", "50");
+        tick("AAPL", "54");
+        tick("AAPL", "45");
+
+        assertThat(fired()).containsExactly(alert);
+    }
+
+    @Test
+    void startsFromTheLatestPriceWhenTheFirstAlertOnASymbolIsAdded() {
+        latest.update(ids.id("AAPL"), Ticks.toPrice(new BigDecimal("190")), time, 0);
+        UUID alert = add("AAPL", AlertType.ABOVE, "200");
+
+        tick("AAPL", "205");
+
+        assertThat(fired()).containsExactly(alert);
+    }
+
+    @Test
+    void anAlertLoadedWhileWaitingToReArmIsArmedWhenThePriceIsAlreadyBack() {
+        latest.update(ids.id("AAPL"), Ticks.toPrice(new BigDecimal("150")), time, 0);
+        UUID alert = UUID.randomUUID();
+        engine.add(new AlertEngine.Alert(alert, USER, "AAPL", AlertType.ABOVE, new BigDecimal("200"), null, null,
+                                         false, 1));
+
+        tick("AAPL", "201");
+
+        assertThat(fired()).containsExactly(alert);
+        assertThat(batches.get(0).get(0).sequence()).isEqualTo(2);
+    }
+
+    @Test
+    void anAlertLoadedWhileWaitingToReArmIsJudgedByTheFirstPrice() {
+        UUID above = UUID.randomUUID();
+        UUID below = UUID.randomUUID();
+        UUID stillDisarmed = UUID.randomUUID();
+        engine.add(new AlertEngine.Alert(above, USER, "AAPL", AlertType.ABOVE, new BigDecimal("200"), null, null,
+                                         false, 1));
+        engine.add(new AlertEngine.Alert(below, USER, "MSFT", AlertType.BELOW, new BigDecimal("100"), null, null,
+                                         false, 3));
+        engine.add(new AlertEngine.Alert(stillDisarmed, USER, "TSLA", AlertType.ABOVE, new BigDecimal("300"), null,
+                                         null, false, 1));
+
+        // first prices after a restart: AAPL and MSFT are back past the band, TSLA is not
+        tick("AAPL", "150");
+        tick("MSFT", "120");
+        tick("TSLA", "299");
+        tick("AAPL", "201");
+        tick("MSFT", "99");
+        tick("TSLA", "301");
+
+        assertThat(fired()).containsExactly(above, below);
+        assertThat(batches.get(0)).extracting(AlertFired::sequence).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void aRemovedAlertNoLongerFires() {
+        UUID removed = add("AAPL", AlertType.ABOVE, "200");
+        UUID kept = add("AAPL", AlertType.ABOVE, "200");
+        tick("AAPL", "190");
+
+        assertThat(engine.remove(removed)).isTrue();
+        assertThat(engine.remove(removed)).isFalse();
+        tick("AAPL", "200");
+
+        assertThat(fired()).containsExactly(kept);
+        assertThat(engine.watchedSymbols()).containsEntry("AAPL", 1L);
+    }
+
+    @Test
+    void publishesNothingForABatchWithoutFirings() {
+        add("AAPL", AlertType.ABOVE, "200");
+
+        tick("AAPL", "190");
+        tick("AAPL", "195");
+        engine.onBatchEnd();
+
+        assertThat(batches).isEmpty();
+    }
+
+    private UUID add(String symbol, AlertType type, String threshold) {
+        return add(symbol, type, threshold, null, null);
+    }
+
+    private UUID add(String symbol, AlertType type, String threshold, String percent, String reference) {
+        UUID id = UUID.randomUUID();
+        engine.add(new AlertEngine.Alert(id, USER, symbol, type, decimal(threshold), decimal(percent),
+                                         decimal(reference), true, 0));
+        return id;
+    }
+
+    private void tick(String symbol, String price) {
+        engine.onTick(ids.id(symbol), Ticks.toPrice(new BigDecimal(price)), time++);
+    }
+
+    private List<UUID> fired() {
+        engine.onBatchEnd();
+        return batches.stream().flatMap(List::stream).map(AlertFired::alertId).toList();
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+}
@@ -0,0 +1,191 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.components.dto.Quote;
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.Ticks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@link QuoteRefresher} tick by tick against the fake provider,
+ * with a clock that only moves when the test says so.
+ */
+class QuoteRefresherTests {
+
+    private static final Instant START = Instant.parse("2025-03-03T15:00:00Z");
+
+    private final QuoteProperties properties = new QuoteProperties();
+    private final QuoteStore store = new QuoteStore(1_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TickPipeline ticks = new TickPipeline(properties, registry);
+
+    @Test
+    void spendsTheBudgetOnTheMostHeldSymbolsFirst() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        QuoteRefresher refresher = refresher(provider, 3, 0);
+
+        refresher.refresh(Map.of("AAPL", 40L, "MSFT", 12L, "NVDA", 30L, "IBM", 1L, "F", 2L), START);
+
+        assertThat(provider.calls()).containsExactly(List.of("AAPL"), List.of("NVDA"), List.of("MSFT"));
+        assertThat(store.get("AAPL").quote().current()).isPositive();
+        assertThat(store.get("IBM")).isNull();
+    }
+
+    @Test
+    void aSymbolJustReadComesBeforeOneHeldBySomeone() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        properties.getRefresh().setAccessWeight(5);
+        QuoteRefresher refresher = refresher(provider, 1, 0);
+        store.recordAccess("TSLA", START);
+
+        refresher.refresh(Map.of("AAPL", 3L), START);
+
+        assertThat(provider.calls()).containsExactly(List.of("TSLA"));
+    }
+
+    @Test
+    void readsOfUnknownTickersDoNotCrowdOutStaleHeldSymbols() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        properties.getRefresh().setMaxAge(Duration.ofMinutes(5));
+        QuoteRefresher refresher = refresher(provider, 2, 0);
+        store.put("AAPL", quote("AAPL"), START.minus(Duration.ofMinutes(20)));
+        store.put("MSFT", quote("MSFT"), START.minus(Duration.ofMinutes(10)));
+        for (String symbol : List.of("AAAA", "BBBB", "CCCC", "DDDD", "EEEE")) {
+            store.recordAccess(symbol, START);
+        }
+
+        refresher.refresh(Map.of("AAPL", 1L, "MSFT", 1L), START);
+
+        assertThat(provider.calls()).containsExactly(List.of("AAPL"), List.of("MSFT"));
+    }
+
+    @Test
+    void asksForManySymbolsPerRequestWhenTheProviderTakesBatches() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(2);
+        QuoteRefresher refresher = refresher(provider, 1, 0);
+
+        refresher.refresh(Map.of("AAPL", 3L, "MSFT", 2L, "NVDA", 1L), START);
+
+        assertThat(provider.calls()).containsExactly(List.of("AAPL", "MSFT"));
+    }
+
+    @Test
+    void handsFetchedQuotesToTheTickPipeline() {
+        QuoteRefresher refresher = refresher(new FakeQuoteProvider(10), 1, 0);
+
+        refresher.refresh(Map.of("AAPL", 1L, "ZZZZ", 1L), START);
+        ticks.ingest();
+
+        long[] latest = new long[2];
+        assertThat(ticks.latest().read(ticks.symbols().find("AAPL"), (symbol, price, timestamp) -> {
+            latest[0] = price;
+            latest[1] = timestamp;
+        })).isTrue();
+        assertThat(Ticks.toDecimal(latest[0])).isEqualByComparingTo(store.get("AAPL").quote().current());
+        assertThat(latest[1]).isEqualTo(START.toEpochMilli());
+        assertThat(ticks.symbols().find("ZZZZ")).isNegative();
+    }
+
+    @Test
+    void refreshesTheStalestOfEquallyHeldQuotesOnceOlderThanTheMaxAge() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        properties.getRefresh().setMaxAge(Duration.ofMinutes(5));
+        QuoteRefresher refresher = refresher(provider, 60, 0);
+        store.put("AAPL", quote("AAPL"), START.minus(Duration.ofMinutes(20)));
+        store.put("MSFT", quote("MSFT"), START.minus(Duration.ofMinutes(8)));
+        store.put("NVDA", quote("NVDA"), START.minus(Duration.ofMinutes(1)));
+        Map<String, Long> held = Map.of("AAPL", 1L, "MSFT", 1L, "NVDA", 1L);
+
+        refresher.refresh(held, START);
+        refresher.refresh(held, START.plusSeconds(1));
+
+        assertThat(provider.calls()).containsExactly(List.of("AAPL"), List.of("MSFT"));
+        assertThat(store.get("NVDA").fetchedAt()).isEqualTo(START.minus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void staysWithinTheMinuteAndDayBudgets() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        properties.getRefresh().setMaxAge(Duration.ofSeconds(1));
+        QuoteRefresher refresher = refresher(provider, 5, 8);
+        Map<String, Long> held = Map.of("A", 1L, "B", 1L, "C", 1L, "D", 1L, "E", 1L, "F", 1L, "G", 1L);
+
+        for (int second = 0; second < 300; second++) {
+            refresher.refresh(held, START.plusSeconds(second));
+        }
+
+        // five at once, then the daily bucket lets through three more over five minutes
+        assertThat(provider.calls()).hasSize(8);
+        assertThat(provider.calls().subList(0, 5)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void unknownSymbolsWaitForTheMaxAgeBeforeBeingAskedForAgain() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(1);
+        QuoteRefresher refresher = refresher(provider, 60, 0);
+
+        refresher.refresh(Map.of("ZZZZ", 1L), START);
+        refresher.refresh(Map.of("ZZZZ", 1L), START.plusSeconds(30));
+
+        assertThat(provider.calls()).hasSize(1);
+        assertThat(store.get("ZZZZ").quote()).isNull();
+    }
+
+    @Test
+    void stopsForTheMinuteWhenTheProviderSaysTheQuotaIsSpent() {
+        AtomicInteger calls = new AtomicInteger();
+        QuoteProvider limited = new QuoteProvider() {
+            @Override
+            public int maxBatchSize() {
+                return 1;
+            }
+
+            @Override
+            public Map<String, Quote> fetch(List<String> symbols) {
+                calls.incrementAndGet();
+                throw new QuoteProviderException("quota", true);
+            }
+        };
+        QuoteRefresher refresher = refresher(limited, 5, 0);
+
+        refresher.refresh(Map.of("AAPL", 1L, "MSFT", 1L), START);
+        refresher.refresh(Map.of("AAPL", 1L, "MSFT", 1L), START.plusSeconds(5));
+
+        assertThat(calls).hasValue(1);
+        assertThat(registry.get("quotes.provider.calls").tag("outcome", "rate_limited").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void forgetsSymbolsNobodyHoldsOrReads() {
+        FakeQuoteProvider provider = new FakeQuoteProvider(10);
+        properties.getRefresh().setAccessTtl(Duration.ofHours(1));
+        QuoteRefresher refresher = refresher(provider, 60, 0);
+        store.recordAccess("TSLA", START);
+
+        refresher.refresh(Map.of("AAPL", 1L), START);
+        refresher.refresh(Map.of("AAPL", 1L), START.plus(Duration.ofHours(2)));
+
+        assertThat(store.get("TSLA")).isNull();
+        assertThat(store.get("AAPL")).isNotNull();
+    }
+
+    private QuoteRefresher refresher(QuoteProvider provider, int perMinute, int perDay) {
+        properties.getBudget().setRequestsPerMinute(perMinute);
+        properties.getBudget().setRequestsPerDay(perDay);
+        QuoteBudget budget = new QuoteBudget(properties.getBudget(), START);
+        return new QuoteRefresher(provider, store, budget, null, null, ticks, properties, registry);
+    }
+
+    private static Quote quote(String symbol) {
+        return new FakeQuoteProvider(1).fetch(List.of(symbol)).get(symbol);
+    }
+}
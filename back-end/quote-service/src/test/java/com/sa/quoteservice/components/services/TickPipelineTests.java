@@ -0,0 +1,161 @@
+package com.sa.quoteservice.components.services;
+
+import com.sa.quoteservice.config.QuoteProperties;
+import com.sa.quoteservice.util.FileTickFeed;
+import com.sa.quoteservice.util.TickConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@link TickPipeline} pass by pass from the test thread, except
+ * where the threads themselves are under test.
+ */
+class TickPipelineTests {
+
+    private final QuoteProperties properties = new QuoteProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private TickPipeline pipeline;
+
+    @AfterEach
+    void stop() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void handsEveryTickToEveryConsumerInBatches() {
+        properties.getTicks().setBatchSize(4);
+        pipeline = new TickPipeline(properties, registry);
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        TickPipeline.Subscription firstSubscription = pipeline.subscribe("first", first);
+        TickPipeline.Subscription secondSubscription = pipeline.subscribe("second", second);
+        pipeline.addSource(feed(10, "AAPL", "MSFT"));
+
+        while (pipeline.ingest() > 0) {
+            // all of the feed
+        }
+        while (firstSubscription.poll() > 0) {
+            // drained
+        }
+        secondSubscription.poll();
+
+        assertThat(first.prices).hasSize(10);
+        assertThat(first.batches).isEqualTo(3);
+        assertThat(first.prices.get(9)).isEqualTo(1_090_000L);
+        assertThat(second.prices).hasSize(4);
+    }
+
+    @Test
+    void aConsumerThatFellBehindGetsTheLatestPriceOfEverySymbolItSkipped() {
+        properties.getTicks().setCapacity(8);
+        properties.getTicks().setBatchSize(8);
+        pipeline = new TickPipeline(properties, registry);
+        Recorder slow = new Recorder();
+        TickPipeline.Subscription subscription = pipeline.subscribe("slow", slow);
+        pipeline.addSource(feed(2, "IBM"));
+        pipeline.addSource(feed(40, "AAPL", "MSFT", "NVDA"));
+
+        while (pipeline.ingest() > 0) {
+            // all of both feeds
+        }
+        while (subscription.poll() > 0) {
+            // caught up
+        }
+
+        // 42 ticks, 8 kept: the consumer skipped most of them but still saw every symbol's last price
+        assertThat(slow.latest).containsEntry(pipeline.symbols().find("IBM"), 1_010_000L)
+                .containsEntry(pipeline.symbols().find("AAPL"), 1_390_000L)
+                .containsEntry(pipeline.symbols().find("MSFT"), 1_370_000L)
+                .containsEntry(pipeline.symbols().find("NVDA"), 1_380_000L);
+        assertThat(slow.prices).hasSizeLessThan(10);
+        assertThat(registry.get("quotes.ticks.skipped").tag("consumer", "slow").counter().count())
+                .isGreaterThanOrEqualTo(30);
+    }
+
+    @Test
+    void dropsOfferedQuotesInsteadOfBlockingWhenTheQueueIsFull() {
+        properties.getTicks().setQueueSize(2);
+        pipeline = new TickPipeline(properties, registry);
+        Instant now = Instant.parse("2025-03-03T15:00:00Z");
+
+        assertThat(pipeline.offer("AAPL", new BigDecimal("190.1"), now)).isTrue();
+        assertThat(pipeline.offer("AAPL", new BigDecimal("190.2"), now)).isTrue();
+        assertThat(pipeline.offer("AAPL", new BigDecimal("190.3"), now)).isFalse();
+        assertThat(registry.get("quotes.ticks.rejected").counter().count()).isEqualTo(1);
+        assertThat(pipeline.ingest()).isEqualTo(2);
+        assertThat(pipeline.offer("AAPL", new BigDecimal("190.3"), now)).isTrue();
+    }
+
+    @Test
+    void aStalledConsumerDoesNotHoldUpIngestOrOtherConsumers() throws InterruptedException {
+        properties.getTicks().setCapacity(1_024);
+        pipeline = new TickPipeline(properties, registry);
+        CountDownLatch gate = new CountDownLatch(1);
+        pipeline.subscribe("stalled", (symbol, price, timestamp) -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Map<Integer, Long> latest = new ConcurrentHashMap<>();
+        pipeline.subscribe("counting", (symbol, price, timestamp) -> latest.put(symbol, price));
+        pipeline.addSource(feed(100_000, "AAPL", "MSFT"));
+        int aapl = pipeline.symbols().find("AAPL");
+        int msft = pipeline.symbols().find("MSFT");
+
+        pipeline.start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!(latest.getOrDefault(aapl, 0L) == 1_000_980_000L && latest.getOrDefault(msft, 0L) == 1_000_990_000L)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        gate.countDown();
+
+        assertThat(registry.get("quotes.ticks.published").counter().count()).isEqualTo(100_000);
+        // the counting consumer may have been lapped on a busy machine, but it ends on the last prices
+        assertThat(latest).containsEntry(aapl, 1_000_980_000L).containsEntry(msft, 1_000_990_000L);
+    }
+
+    /** count ticks alternating over the symbols, the n-th priced 100 + n. */
+    private FileTickFeed feed(int count, String... symbols) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add((1_000 + i) + "," + symbols[i % symbols.length] + "," + (100 + i));
+        }
+        return new FileTickFeed(lines, pipeline.symbols(), false);
+    }
+
+    private static class Recorder implements TickConsumer {
+
+        final List<Long> prices = new ArrayList<>();
+        final Map<Integer, Long> latest = new HashMap<>();
+        int batches;
+
+        @Override
+        public void onTick(int symbol, long price, long timestamp) {
+            prices.add(price);
+            latest.put(symbol, price);
+        }
+
+        @Override
+        public void onBatchEnd() {
+            batches++;
+        }
+    }
+}
@@ -38,21 +38,44 @@ export default function AgentPage() {
         setLoading(true);
         setLastError(null);
 
+        const agentId = String(Date.now()) + "-a";
         try {
-            const resp = await apiFetch("/agent/query", {
+            const resp = await apiFetch("/agent/query/stream", {
                 method: "POST",
-                headers: { "Content-Type": "application/json" },
+                headers: { "Content-Type": "application/json", Accept: "text/event-stream" },
                 body: JSON.stringify({ prompt: trimmed }),
             });
 
-            if (!resp.ok) {
+            if (!resp.ok || !resp.body) {
                 const text = await resp.text();
                 throw new Error(text || "Unknown error from AI service");
             }
 
-            const json = await resp.json();
-            const extracted = json.text || JSON.stringify(json, null, 2);
-            pushMessage({ id: String(Date.now()) + "-a", role: "agent", text: extracted });
+            // the answer arrives as server-sent events: token..., then done (or error)
+            pushMessage({ id: agentId, role: "agent", text: "" });
+            const reader = resp.body.pipeThrough(new TextDecoderStream()).getReader();
+            let buffer = "";
+            for (;;) {
+                const { value, done } = await reader.read();
+                if (done) break;
+                buffer += value;
+                let end;
+                while ((end = buffer.indexOf("\n\n")) >= 0) {
+                    const raw = buffer.slice(0, end);
+                    buffer = buffer.slice(end + 2);
+                    let event = "message";
+                    let data = "";
+                    for (const line of raw.split("\n")) {
+                        if (line.startsWith("event:")) event = line.slice(6).trim();
+                        else if (line.startsWith("data:")) data += line.slice(5).trim();
+                    }
+                    if (!data) continue;
+                    const payload = JSON.parse(data);
+                    if (event === "error") throw new Error(payload.text);
+                    setMessages((prev) => prev.map((m) => m.id !== agentId ? m
+                        : { ...m, text: event === "done" ? payload.text || m.text : m.text + payload.text }));
+                }
+            }
         } catch (err: any) {
             const msg = String(err.message || err);
             setLastError(msg);
@@ -20,12 +20,26 @@ type PriceData = {
     percent: number;
 };
 
+// one part of /bff/dashboard; data is missing when the part failed or timed out
+type Section<T> = {
+    status: "OK" | "PARTIAL" | "TIMEOUT" | "ERROR" | "SKIPPED";
+    data?: T;
+    error?: string;
+};
+
+type DashboardResponse = {
+    profile: Section<{ email: string; id: string }>;
+    holdings: Section<{ holdings: Holding[] }>;
+    quotes: Section<Record<string, Section<PriceData>>>;
+};
+
 export default function Dashboard() {
     const { apiFetch } = useApi();
     const { userId } = useAuth();
     const [sidebarOpen, setSidebarOpen] = useState(false);
     const [holdings, setHoldings] = useState<Holding[]>([]);
     const [prices, setPrices] = useState<Record<string, PriceData>>({});
+    const [quoteErrors, setQuoteErrors] = useState<Record<string, string>>({});
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState<string | null>(null);
 
@@ -33,20 +47,34 @@ export default function Dashboard() {
         if (!userId) return;
         let cancelled = false;
 
-        async function fetchHoldings() {
+        async function fetchDashboard() {
             setLoading(true);
             setError(null);
 
             try {
-                const res = await apiFetch(`https://localhost:8080/portfolio/${userId}`);
+                const res = await apiFetch("https://localhost:8080/bff/dashboard");
                 if (!res.ok) {
                     const text = await res.text();
                     throw new Error(`API error ${res.status}: ${text}`);
                 }
 
-                const json = await res.json();
+                const json: DashboardResponse = await res.json();
                 if (!cancelled) {
-                    setHoldings(json.holdings || []);
+                    if (!json.holdings.data) {
+                        throw new Error(json.holdings.error ?? "Failed to fetch portfolio");
+                    }
+                    const newPrices: Record<string, PriceData> = {};
+                    const newQuoteErrors: Record<string, string> = {};
+                    Object.entries(json.quotes.data ?? {}).forEach(([symbol, quote]) => {
+                        if (quote.data) {
+                            newPrices[symbol] = quote.data;
+                        } else {
+                            newQuoteErrors[symbol] = quote.error ?? "Failed to load price";
+                        }
+                    });
+                    setHoldings(json.holdings.data.holdings ?? []);
+                    setPrices(newPrices);
+                    setQuoteErrors(newQuoteErrors);
                     setLoading(false);
                 }
             } catch (err: any) {
@@ -57,39 +85,13 @@ export default function Dashboard() {
             }
         }
 
-        fetchHoldings();
+        fetchDashboard();
 
         return () => {
             cancelled = true;
         };
     }, [userId]);
 
-    useEffect(() => {
-        if (holdings.length === 0) return;
-        let cancelled = false;
-
-        async function fetchPrices() {
-            const newPrices: Record<string, PriceData> = {};
-            await Promise.all(
-                holdings.map(async (h) => {
-                    try {
-                        const res = await apiFetch(`https://localhost:8080/stocks/${h.symbol}`);
-                        if (!res.ok) return;
-                        const json = await res.json();
-                        newPrices[h.symbol] = json;
-                    } catch {}
-                })
-            );
-            if (!cancelled) setPrices(newPrices);
-        }
-
-        fetchPrices();
-
-        return () => {
-            cancelled = true;
-        };
-    }, [holdings]);
-
     return (
         <div className="h-screen overflow-hidden bg-gradient-to-br from-slate-50 to-slate-100 dark:from-slate-900 dark:to-slate-800 flex flex-col">
             <Header
@@ -125,9 +127,11 @@ export default function Dashboard() {
                                 key={h.symbol}
                                 symbol={h.symbol}
                                 companyName={h.symbol}
-                                priceData={prices[h.symbol] || null}
-                                loading={!prices[h.symbol]}
-                                error={!prices[h.symbol] ? "Failed to load price" : null}
+                                priceData={prices[h.symbol.toUpperCase()] || null}
+                                loading={loading}
+                                error={!prices[h.symbol.toUpperCase()]
+                                    ? quoteErrors[h.symbol.toUpperCase()] ?? "Failed to load price"
+                                    : null}
                             />
                         ))}
                     </div>
@@ -24,3 +24,9 @@ CREATE DATABASE sh_finance;
 \c sh_finance
 CREATE EXTENSION IF NOT EXISTS "pgcrypto";
 CREATE EXTENSION IF NOT EXISTS dblink;
+
+
+-- Quote Service Database (price alerts)
+CREATE DATABASE sh_quotes;
+\c sh_quotes
+CREATE EXTENSION IF NOT EXISTS "pgcrypto";
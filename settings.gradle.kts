@@ -14,3 +14,9 @@ project(":back-end:finance-service").projectDir = file("back-end/finance-service
 
 include("back-end:portfolio-service")
 project(":back-end:portfolio-service").projectDir = file("back-end/portfolio-service")
+
+include("back-end:quote-service")
+project(":back-end:quote-service").projectDir = file("back-end/quote-service")
+
+// signed identity headers, used by the gateway and the services as a library
+includeBuild("back-end/identity")